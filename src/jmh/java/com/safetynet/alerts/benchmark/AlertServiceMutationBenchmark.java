@@ -0,0 +1,88 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.dto.FirestationDto;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CRUD paths of {@link AlertService} against datasets of 1K to 1M persons, without file persistence.
+ * <p>
+ * Adds are paired with the matching delete so the dataset keeps its size across iterations;
+ * updates rewrite existing entries with equivalent values.
+ * </p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class AlertServiceMutationBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    int persons;
+
+    private BenchmarkDataset dataset;
+    private AlertService alertService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        InMemoryDataService dataService = new InMemoryDataService();
+        dataset = new BenchmarkDataset(persons, dataService);
+        alertService = new AlertService(dataService);
+    }
+
+    @Benchmark
+    public boolean addAndDeletePerson() {
+        alertService.addPerson(new PersonDto("Bench", "Mark", dataset.address(), dataset.city(), "97451",
+                "841-874-0000", "bench@email.com"));
+        return alertService.deletePerson("Bench", "Mark");
+    }
+
+    @Benchmark
+    public boolean updatePerson() {
+        Person p = dataset.person();
+        return alertService.updatePerson(new PersonDto(p.getFirstName(), p.getLastName(), p.getAddress(), p.getCity(),
+                p.getZip(), p.getPhone(), p.getEmail()));
+    }
+
+    @Benchmark
+    public boolean addAndDeleteFirestation() {
+        alertService.addFirestation(new FirestationDto("1 Benchmark Ave", "1"));
+        return alertService.deleteFirestation("1 Benchmark Ave", null);
+    }
+
+    @Benchmark
+    public boolean updateFirestation() {
+        Person p = dataset.person();
+        return alertService.updateFirestation(new FirestationDto(p.getAddress(), dataset.stationOf(p.getAddress())));
+    }
+
+    @Benchmark
+    public boolean addAndDeleteMedicalRecord() {
+        ResidentInfoDto dto = new ResidentInfoDto();
+        dto.setFirstName("Bench");
+        dto.setLastName("Mark");
+        dto.setBirthdate("01/01/1990");
+        alertService.addMedicalRecord(dto);
+        return alertService.deleteMedicalRecord("Bench", "Mark");
+    }
+
+    @Benchmark
+    public boolean updateMedicalRecord() {
+        Person p = dataset.person();
+        ResidentInfoDto dto = new ResidentInfoDto();
+        dto.setFirstName(p.getFirstName());
+        dto.setLastName(p.getLastName());
+        dto.setBirthdate("01/01/1990");
+        dto.setMedications(List.of("aznol:350mg"));
+        dto.setAllergies(List.of());
+        return alertService.updateMedicalRecord(dto);
+    }
+}
@@ -0,0 +1,75 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.dto.ChildInfoDto;
+import com.safetynet.alerts.dto.FireAddressResponseDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.service.AlertService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of {@link AlertService} against datasets of 1K to 1M persons.
+ * <p>
+ * Each invocation picks a random key among existing stations, addresses, last names and cities,
+ * so results reflect the average case rather than one hot entry.
+ * </p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class AlertServiceQueryBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    int persons;
+
+    private BenchmarkDataset dataset;
+    private AlertService alertService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        InMemoryDataService dataService = new InMemoryDataService();
+        dataset = new BenchmarkDataset(persons, dataService);
+        alertService = new AlertService(dataService);
+    }
+
+    @Benchmark
+    public Map<String, Object> getFirestationPeople() {
+        return alertService.getFirestationPeople(dataset.station());
+    }
+
+    @Benchmark
+    public List<ChildInfoDto> getChildAlert() {
+        return alertService.getChildAlert(dataset.address());
+    }
+
+    @Benchmark
+    public FireAddressResponseDto getFire() {
+        return alertService.getFire(dataset.address());
+    }
+
+    @Benchmark
+    public Map<String, List<ResidentInfoDto>> getFloodStations() {
+        return alertService.getFloodStations(List.of(dataset.station(), dataset.station()));
+    }
+
+    @Benchmark
+    public List<ResidentInfoDto> getPersonInfoByLastName() {
+        return alertService.getPersonInfoByLastName(dataset.lastName());
+    }
+
+    @Benchmark
+    public List<String> getEmailsByCity() {
+        return alertService.getEmailsByCity(dataset.city());
+    }
+
+    @Benchmark
+    public List<String> getPhoneAlert() {
+        return alertService.getPhoneAlert(dataset.station());
+    }
+}
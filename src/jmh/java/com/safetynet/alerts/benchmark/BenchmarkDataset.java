@@ -0,0 +1,76 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.dataset.DatasetGenerator;
+import com.safetynet.alerts.dataset.DatasetSpec;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.DataService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generated dataset of a given number of persons, plus the keys benchmarks draw their arguments from.
+ * <p>
+ * Built with {@link DatasetGenerator} (seed 42), spreading addresses over {@code persons / 2000}
+ * stations (at least 4) and {@code persons / 20000} cities (at least 5).
+ * </p>
+ */
+final class BenchmarkDataset {
+    final int stations;
+    private final List<String> addresses = new ArrayList<>();
+    private final List<String> lastNames = new ArrayList<>();
+    private final List<String> cities = new ArrayList<>();
+    private final List<Person> persons = new ArrayList<>();
+    private final Map<String, String> stationByAddress = new HashMap<>();
+
+    BenchmarkDataset(int personCount, DataService dataService) {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setPersons(personCount);
+        spec.setStations(Math.max(4, personCount / 2000));
+        spec.setCities(Math.max(5, personCount / 20000));
+        this.stations = spec.getStations();
+        DatasetGenerator generator = new DatasetGenerator(spec);
+        generator.populate(dataService);
+        generator.forEachHousehold(h -> {
+            addresses.add(h.address());
+            lastNames.add(h.members().get(0).getLastName());
+            cities.add(h.city());
+            persons.addAll(h.members());
+            stationByAddress.put(h.address(), h.station());
+        });
+    }
+
+    private static <T> T any(List<T> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+    String station() {
+        return Integer.toString(ThreadLocalRandom.current().nextInt(stations) + 1);
+    }
+
+    String stationOf(String address) {
+        return stationByAddress.get(address);
+    }
+
+    String address() {
+        return any(addresses);
+    }
+
+    String lastName() {
+        return any(lastNames);
+    }
+
+    String city() {
+        return any(cities);
+    }
+
+    /**
+     * @return an existing person; not to be modified
+     */
+    Person person() {
+        return any(persons);
+    }
+}
@@ -0,0 +1,19 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.service.DataService;
+
+/**
+ * {@link DataService} that never touches the disk, so mutation benchmarks measure the service
+ * itself rather than re-serializing the whole dataset on every call.
+ */
+class InMemoryDataService extends DataService {
+
+    InMemoryDataService() {
+        super("target/jmh-unused.json");
+    }
+
+    @Override
+    public void saveData() {
+        // intentionally not persisted
+    }
+}
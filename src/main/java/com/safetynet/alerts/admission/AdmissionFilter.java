@@ -0,0 +1,126 @@
+package com.safetynet.alerts.admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control in front of {@link com.safetynet.alerts.controller.AlertController}.
+ * <p>
+ * Emergency reads and administrative CRUD requests get separate concurrency limits and bounded
+ * queues, so a batch of maintenance writes cannot take all worker threads (and the data write
+ * lock) away from {@code /fire} or {@code /phoneAlert}. Administrative and analytics requests are
+ * additionally shed with {@code 429 Too Many Requests} and a {@code Retry-After} header while emergency
+ * requests are queueing or their recent latency exceeds {@code safetynet.admission.read-latency-budget}.
+ * </p>
+ */
+@Component
+@EnableConfigurationProperties(AdmissionProperties.class)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(AdmissionFilter.class);
+    private static final long LATENCY_SAMPLE_TTL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AdmissionProperties properties;
+    private final Map<TrafficClass, AdmissionQueue> queues = new EnumMap<>(TrafficClass.class);
+    private final AtomicLong emergencyLatencyNanos = new AtomicLong();
+    private final AtomicLong lastEmergencySample = new AtomicLong();
+
+    public AdmissionFilter(AdmissionProperties properties) {
+        this.properties = properties;
+        queues.put(TrafficClass.EMERGENCY, new AdmissionQueue(properties.getEmergency()));
+        queues.put(TrafficClass.ADMINISTRATIVE, new AdmissionQueue(properties.getAdministrative()));
+        queues.put(TrafficClass.ANALYTICS, new AdmissionQueue(properties.getAnalytics()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        TrafficClass trafficClass = properties.isEnabled() ? TrafficClass.of(request) : null;
+        if (trafficClass == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdmissionQueue queue = queues.get(trafficClass);
+        if (trafficClass.isSheddable() && emergencyAtRisk()) {
+            queue.reject();
+            log.warn("Shedding {} {} - emergency latency budget at risk", request.getMethod(), request.getRequestURI());
+            reject(response, HttpStatus.TOO_MANY_REQUESTS);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean admitted;
+        try {
+            admitted = queue.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE);
+            return;
+        }
+        if (!admitted) {
+            log.warn("Rejected {} {} - {} queue full", request.getMethod(), request.getRequestURI(), trafficClass);
+            reject(response, trafficClass == TrafficClass.EMERGENCY
+                    ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS);
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            queue.release();
+            if (trafficClass == TrafficClass.EMERGENCY) {
+                recordEmergencyLatency(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Emergency traffic is at risk when it has to queue, or when its recent latency (an
+     * exponentially weighted moving average, queue time included) is over budget.
+     */
+    boolean emergencyAtRisk() {
+        if (queues.get(TrafficClass.EMERGENCY).queueDepth() > 0) {
+            return true;
+        }
+        boolean recent = System.nanoTime() - lastEmergencySample.get() < LATENCY_SAMPLE_TTL_NANOS;
+        return recent && emergencyLatencyNanos.get() > properties.getReadLatencyBudget().toNanos();
+    }
+
+    private void recordEmergencyLatency(long nanos) {
+        emergencyLatencyNanos.accumulateAndGet(nanos, (avg, sample) -> avg == 0 ? sample : avg + (sample - avg) / 5);
+        lastEmergencySample.set(System.nanoTime());
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds())));
+    }
+
+    public Map<TrafficClass, AdmissionQueue> getQueues() {
+        return Collections.unmodifiableMap(queues);
+    }
+
+    public long getEmergencyLatencyNanos() {
+        return emergencyLatencyNanos.get();
+    }
+}
@@ -0,0 +1,40 @@
+package com.safetynet.alerts.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits applied by {@link AdmissionFilter}, bound from {@code safetynet.admission.*}.
+ */
+@Data
+@ConfigurationProperties("safetynet.admission")
+public class AdmissionProperties {
+    /** Turns admission control on or off. */
+    private boolean enabled = true;
+    /** Emergency latency above which administrative and analytics traffic is shed. */
+    private Duration readLatencyBudget = Duration.ofMillis(200);
+    /** Value of the {@code Retry-After} header sent with rejections. */
+    private Duration retryAfter = Duration.ofSeconds(2);
+    /** Limits for emergency read endpoints. */
+    private Limits emergency = new Limits(64, 512, Duration.ofSeconds(1));
+    /** Limits for CRUD endpoints. */
+    private Limits administrative = new Limits(4, 32, Duration.ofMillis(500));
+    /** Limits for analytics endpoints. */
+    private Limits analytics = new Limits(2, 8, Duration.ofMillis(500));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limits {
+        /** Requests of the class allowed to run at the same time. */
+        private int maxConcurrent;
+        /** Requests allowed to wait for a slot; further requests are rejected. */
+        private int maxQueued;
+        /** How long a queued request waits for a slot before being rejected. */
+        private Duration maxWait;
+    }
+}
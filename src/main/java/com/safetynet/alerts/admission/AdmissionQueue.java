@@ -0,0 +1,84 @@
+package com.safetynet.alerts.admission;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue in front of a fixed number of execution slots for one {@link TrafficClass}.
+ * <p>
+ * A request either takes a free slot, waits in the queue for at most {@code maxWait}, or is
+ * rejected straight away when the queue is already full.
+ * </p>
+ */
+public class AdmissionQueue {
+    private final AdmissionProperties.Limits limits;
+    private final Semaphore slots;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AdmissionQueue(AdmissionProperties.Limits limits) {
+        this.limits = limits;
+        this.slots = new Semaphore(limits.getMaxConcurrent(), true);
+    }
+
+    /**
+     * Tries to obtain an execution slot; on success the caller must call {@link #release()}.
+     *
+     * @return {@code true} if the request was admitted
+     */
+    public boolean acquire() throws InterruptedException {
+        if (slots.tryAcquire()) {
+            admitted.incrementAndGet();
+            return true;
+        }
+        if (queued.incrementAndGet() > limits.getMaxQueued()) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        try {
+            if (slots.tryAcquire(limits.getMaxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+                admitted.incrementAndGet();
+                return true;
+            }
+            rejected.incrementAndGet();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Counts a request turned away before it reached the queue.
+     */
+    public void reject() {
+        rejected.incrementAndGet();
+    }
+
+    public void release() {
+        slots.release();
+    }
+
+    public int queueDepth() {
+        return queued.get();
+    }
+
+    public int inFlight() {
+        return limits.getMaxConcurrent() - slots.availablePermits();
+    }
+
+    public long admitted() {
+        return admitted.get();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+
+    public AdmissionProperties.Limits limits() {
+        return limits;
+    }
+}
@@ -0,0 +1,37 @@
+package com.safetynet.alerts.admission;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes per-class queue depth and admission counters of {@link AdmissionFilter}.
+ */
+@RestController
+public class AdmissionStatsController {
+    private final AdmissionFilter admissionFilter;
+
+    public AdmissionStatsController(AdmissionFilter admissionFilter) {
+        this.admissionFilter = admissionFilter;
+    }
+
+    @GetMapping("/admission/stats")
+    public Map<String, Object> getStats() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        admissionFilter.getQueues().forEach((trafficClass, queue) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("queueDepth", queue.queueDepth());
+            stats.put("inFlight", queue.inFlight());
+            stats.put("maxConcurrent", queue.limits().getMaxConcurrent());
+            stats.put("maxQueued", queue.limits().getMaxQueued());
+            stats.put("admitted", queue.admitted());
+            stats.put("rejected", queue.rejected());
+            resp.put(trafficClass.name().toLowerCase(), stats);
+        });
+        resp.put("emergencyLatencyMillis", admissionFilter.getEmergencyLatencyNanos() / 1_000_000.0);
+        resp.put("emergencyAtRisk", admissionFilter.emergencyAtRisk());
+        return resp;
+    }
+}
@@ -0,0 +1,52 @@
+package com.safetynet.alerts.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Set;
+
+/**
+ * Request classes competing for the same worker threads and data locks.
+ */
+public enum TrafficClass {
+    /** Read endpoints used during an incident ({@code /fire}, {@code /phoneAlert}, ...). */
+    EMERGENCY,
+    /** CRUD maintenance on {@code /person}, {@code /firestation} and {@code /medicalRecord}. */
+    ADMINISTRATIVE,
+    /**
+     * Reporting reads ({@code /analytics/stations}, and queries {@code asOf} an earlier instant),
+     * which can wait while an incident is handled.
+     */
+    ANALYTICS;
+
+    private static final Set<String> RESOURCES = Set.of("/person", "/firestation", "/medicalRecord");
+    private static final Set<String> QUERIES = Set.of(
+            "/firestation", "/childAlert", "/childAlert/stations", "/phoneAlert", "/fire", "/flood/stations",
+            "/personInfo", "/communityEmail", "/address/resolve", "/residents/filter", "/residents/nearby",
+            "/firestations/nearest");
+    private static final Set<String> REPORTS = Set.of("/analytics/stations");
+
+    /**
+     * Classifies a request, or returns {@code null} for requests that are not subject to admission control.
+     */
+    public static TrafficClass of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        if ("GET".equals(method) && QUERIES.contains(path)) {
+            return request.getParameter("asOf") != null ? ANALYTICS : EMERGENCY;
+        }
+        if ("GET".equals(method) && REPORTS.contains(path)) {
+            return ANALYTICS;
+        }
+        if (("POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method)) && RESOURCES.contains(path)) {
+            return ADMINISTRATIVE;
+        }
+        return null;
+    }
+
+    /**
+     * Whether requests of this class are shed while emergency traffic is at risk.
+     */
+    public boolean isSheddable() {
+        return this != EMERGENCY;
+    }
+}
@@ -0,0 +1,14 @@
+package com.safetynet.alerts.analytics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of {@link StationAnalytics}, bound from {@code safetynet.analytics.*}.
+ */
+@Data
+@ConfigurationProperties("safetynet.analytics")
+public class AnalyticsProperties {
+    /** Threads computing the aggregates; kept below the core count so that emergency queries keep a share. */
+    private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+}
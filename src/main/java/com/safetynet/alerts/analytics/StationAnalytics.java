@@ -0,0 +1,336 @@
+package com.safetynet.alerts.analytics;
+
+import com.safetynet.alerts.dto.StationStatsDto;
+import com.safetynet.alerts.dto.StationStatsDto.TermCount;
+import com.safetynet.alerts.history.StoreHistory;
+import com.safetynet.alerts.index.ClinicalIndex;
+import com.safetynet.alerts.service.DataService;
+import com.safetynet.alerts.service.StoreChange;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordAdded;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordUpdated;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordsRemoved;
+import com.safetynet.alerts.service.StoreChange.PersonAdded;
+import com.safetynet.alerts.service.StoreChange.PersonUpdated;
+import com.safetynet.alerts.service.StoreChange.PersonsRemoved;
+import com.safetynet.alerts.service.StoreListener;
+import com.safetynet.alerts.store.CompactCodec;
+import com.safetynet.alerts.store.CompactFirestation;
+import com.safetynet.alerts.store.CompactMedicalRecord;
+import com.safetynet.alerts.store.CompactPerson;
+import com.safetynet.alerts.store.Dictionary;
+import com.safetynet.alerts.store.Encodings;
+import com.safetynet.alerts.store.ResidentStore;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Demographics per station: age decades, children, adults and seniors, household sizes and the
+ * most taken medications of the residents of the addresses each station serves.
+ * <p>
+ * The aggregates are kept per address, since an address is a household, and summed per station on
+ * request. The first request, and the first of each day since ages change, aggregates every
+ * person in one pass of parallel collectors on a pool of {@link AnalyticsProperties#getParallelism()}
+ * threads, shared by the instances of every tenant and snapshot. It reads the latest {@link StoreHistory}
+ * version, which is immutable, so the pass runs without the service lock and mutations and
+ * emergency queries are not held up. The addresses a {@link StoreListener} change affects are
+ * aggregated again by the next request from the {@link ClinicalIndex} bitmaps. The station sums
+ * are cached until the next change; reloads lead to a new full pass.
+ * </p>
+ */
+public class StationAnalytics implements StoreListener {
+    static final int CHILD_MAX_AGE = 18;
+    static final int SENIOR_MIN_AGE = 65;
+    static final int DECADES = 10;
+    private static final Comparator<String> STATION_ORDER =
+            Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+    /** Pools by parallelism; their idle workers exit, so instances dropped with a tenant keep none alive. */
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * Aggregates of a group of residents; not thread-safe.
+     */
+    static final class Stats {
+        int residents;
+        int children;
+        int adults;
+        int seniors;
+        int unknownAge;
+        final int[] decades = new int[DECADES];
+        final Map<Integer, Integer> medications = new HashMap<>();
+
+        void add(int birthdate, int[] medicationCodes, LocalDate today) {
+            residents++;
+            if (birthdate == Encodings.NO_DATE) {
+                unknownAge++;
+            } else {
+                int age = Math.max(0, Encodings.age(birthdate, today));
+                if (age <= CHILD_MAX_AGE) {
+                    children++;
+                } else if (age < SENIOR_MIN_AGE) {
+                    adults++;
+                } else {
+                    seniors++;
+                }
+                decades[Math.min(age / 10, DECADES - 1)]++;
+            }
+            if (medicationCodes != null) {
+                for (int code : medicationCodes) {
+                    medications.merge(code, 1, Integer::sum);
+                }
+            }
+        }
+
+        Stats merge(Stats other) {
+            residents += other.residents;
+            children += other.children;
+            adults += other.adults;
+            seniors += other.seniors;
+            unknownAge += other.unknownAge;
+            for (int i = 0; i < DECADES; i++) {
+                decades[i] += other.decades[i];
+            }
+            other.medications.forEach((code, count) -> medications.merge(code, count, Integer::sum));
+            return this;
+        }
+    }
+
+    private record Rows(List<CompactPerson> persons, List<CompactMedicalRecord> medicalRecords, LocalDate day) {
+    }
+
+    private final DataService dataService;
+    private final ClinicalIndex clinicalIndex;
+    private final StoreHistory history;
+    private final ForkJoinPool pool;
+    private final ReentrantLock computeLock = new ReentrantLock();
+
+    /** Addresses changed since their aggregates were computed. */
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong version = new AtomicLong();
+    private Map<Integer, Stats> byAddress = new HashMap<>();
+    /** {@link DataService#getVersion()} the per-address aggregates reflect, with the dirty addresses. */
+    private long aggregatedVersion = -1;
+    private LocalDate aggregatedDay;
+
+    private Map<String, StationStatsDto> cached;
+    private long cachedVersion = -1;
+    private int cachedTop = -1;
+
+    public StationAnalytics(DataService dataService, ClinicalIndex clinicalIndex, StoreHistory history,
+                            AnalyticsProperties properties) {
+        this.dataService = dataService;
+        this.clinicalIndex = clinicalIndex;
+        this.history = history;
+        this.pool = POOLS.computeIfAbsent(Math.max(1, properties.getParallelism()), ForkJoinPool::new);
+    }
+
+    @Override
+    public void changed(StoreChange change) {
+        // station sums change with any row
+        version.incrementAndGet();
+        if (aggregatedVersion + 1 != dataService.getVersion()) {
+            return;
+        }
+        ResidentStore store = dataService.getStore();
+        switch (change) {
+            case PersonAdded added -> addressChanged(store.address(added.row()));
+            case PersonUpdated updated -> {
+                addressChanged(updated.previous().address());
+                addressChanged(store.address(updated.row()));
+            }
+            case PersonsRemoved removed -> removed.removed().forEach(p -> addressChanged(p.address()));
+            case MedicalRecordAdded added -> namedChanged(store.medicalFirstName(added.row()), store.medicalLastName(added.row()));
+            case MedicalRecordUpdated updated -> namedChanged(updated.previous().firstName(), updated.previous().lastName());
+            case MedicalRecordsRemoved removed -> removed.removed().forEach(m -> namedChanged(m.firstName(), m.lastName()));
+            default -> {
+            }
+        }
+        aggregatedVersion = dataService.getVersion();
+    }
+
+    private void addressChanged(int address) {
+        if (address != Dictionary.NONE) {
+            dirty.add(address);
+        }
+    }
+
+    private void namedChanged(String firstName, String lastName) {
+        ResidentStore store = dataService.getStore();
+        for (int row : clinicalIndex.personsNamed(firstName, lastName)) {
+            addressChanged(store.address(row));
+        }
+    }
+
+    /**
+     * Statistics by station number, in station order.
+     *
+     * @param topMedications medications reported per station
+     * @param readLock       lock of the data, held while the live rows are read
+     */
+    public Map<String, StationStatsDto> stats(LocalDate today, int topMedications, Lock readLock) {
+        computeLock.lock();
+        try {
+            Rows rows;
+            Optional<StoreHistory.Version> latest = Optional.empty();
+            readLock.lock();
+            try {
+                rows = staleRows(today);
+                if (rows != null) {
+                    latest = history.latest();
+                    if (latest.isEmpty()) {
+                        rows = copyRows(today);
+                    }
+                }
+            } finally {
+                readLock.unlock();
+            }
+            if (rows != null) {
+                if (latest.isPresent()) {
+                    // immutable rows, listed without the lock
+                    rows = new Rows(latest.get().persons(), latest.get().medicalRecords(), today);
+                }
+                byAddress = aggregate(rows);
+            }
+
+            readLock.lock();
+            try {
+                refreshDirty(today);
+                long current = version.get();
+                if (cached == null || cachedVersion != current || cachedTop != topMedications) {
+                    cached = assemble(topMedications);
+                    cachedVersion = current;
+                    cachedTop = topMedications;
+                }
+                return cached;
+            } finally {
+                readLock.unlock();
+            }
+        } finally {
+            computeLock.unlock();
+        }
+    }
+
+    /**
+     * Rows to aggregate from scratch, without their lists yet, or {@code null} when the per-address
+     * aggregates only need the dirty addresses.
+     */
+    private Rows staleRows(LocalDate today) {
+        if (aggregatedVersion == dataService.getVersion() && today.equals(aggregatedDay)) {
+            return null;
+        }
+        aggregatedVersion = dataService.getVersion();
+        aggregatedDay = today;
+        dirty.clear();
+        version.incrementAndGet();
+        return new Rows(null, null, today);
+    }
+
+    private Rows copyRows(LocalDate today) {
+        ResidentStore store = dataService.getStore();
+        List<CompactPerson> persons = new ArrayList<>(store.personCount());
+        for (int row = 0; row < store.personCount(); row++) {
+            persons.add(store.person(row));
+        }
+        List<CompactMedicalRecord> records = new ArrayList<>(store.medicalRecordCount());
+        for (int row = 0; row < store.medicalRecordCount(); row++) {
+            records.add(store.medicalRecord(row));
+        }
+        return new Rows(persons, records, today);
+    }
+
+    private Map<Integer, Stats> aggregate(Rows rows) {
+        // the first record of a name is the one the queries use
+        Map<String, CompactMedicalRecord> records = rows.medicalRecords().stream()
+                .collect(Collectors.toMap(m -> m.firstName() + '\n' + m.lastName(), Function.identity(), (first, next) -> first));
+        LocalDate day = rows.day();
+        Collector<CompactPerson, Stats, Stats> household = Collector.of(Stats::new, (stats, p) -> {
+            CompactMedicalRecord m = records.get(p.firstName() + '\n' + p.lastName());
+            stats.add(m != null ? m.birthdate() : Encodings.NO_DATE, m != null ? m.medications() : null, day);
+        }, Stats::merge);
+        return pool.submit(() -> rows.persons().parallelStream()
+                .filter(p -> p.address() != Dictionary.NONE)
+                .collect(Collectors.groupingBy(CompactPerson::address, HashMap::new, household))).join();
+    }
+
+    private void refreshDirty(LocalDate today) {
+        ResidentStore store = dataService.getStore();
+        for (Iterator<Integer> it = dirty.iterator(); it.hasNext(); ) {
+            int address = it.next();
+            it.remove();
+            BitSet codes = new BitSet();
+            codes.set(address);
+            RoaringBitmap rows = clinicalIndex.residentsAt(codes);
+            if (rows.isEmpty()) {
+                byAddress.remove(address);
+                continue;
+            }
+            Stats stats = new Stats();
+            for (int row : rows) {
+                int m = clinicalIndex.medicalRecordOf(row);
+                stats.add(m >= 0 ? store.birthdate(m) : Encodings.NO_DATE, m >= 0 ? store.medications(m) : null, today);
+            }
+            byAddress.put(address, stats);
+        }
+    }
+
+    private Map<String, StationStatsDto> assemble(int topMedications) {
+        CompactCodec codec = dataService.getCodec();
+        Map<Integer, Set<Integer>> addressesByStation = new LinkedHashMap<>();
+        for (CompactFirestation f : dataService.getFirestations()) {
+            if (f.station() != Dictionary.NONE && f.address() != Dictionary.NONE) {
+                addressesByStation.computeIfAbsent(f.station(), s -> new LinkedHashSet<>()).add(f.address());
+            }
+        }
+        Map<String, StationStatsDto> result = new TreeMap<>(STATION_ORDER);
+        addressesByStation.forEach((station, addresses) -> {
+            Stats total = new Stats();
+            Map<Integer, Integer> householdSizes = new TreeMap<>();
+            for (int address : addresses) {
+                Stats household = byAddress.get(address);
+                if (household != null) {
+                    total.merge(household);
+                    householdSizes.merge(household.residents, 1, Integer::sum);
+                }
+            }
+            String number = codec.getStations().decode(station);
+            result.put(number, dto(number, addresses.size(), total, householdSizes, topMedications, codec));
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static StationStatsDto dto(String station, int addresses, Stats total, Map<Integer, Integer> householdSizes,
+                                       int topMedications, CompactCodec codec) {
+        Map<String, Integer> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < DECADES; i++) {
+            histogram.put(i < DECADES - 1 ? i * 10 + "-" + (i * 10 + 9) : i * 10 + "+", total.decades[i]);
+        }
+        List<TermCount> medications = total.medications.entrySet().stream()
+                .map(e -> new TermCount(codec.getMedicalTerms().decode(e.getKey()), e.getValue()))
+                .sorted(Comparator.comparingInt(TermCount::residents).reversed().thenComparing(TermCount::term))
+                .limit(Math.max(0, topMedications))
+                .toList();
+        return new StationStatsDto(station, addresses, total.residents, total.children, total.adults, total.seniors,
+                total.unknownAge, histogram, householdSizes, medications);
+    }
+}
@@ -0,0 +1,17 @@
+package com.safetynet.alerts.changelog;
+
+import java.util.List;
+
+/**
+ * Result of reading the change log from an offset.
+ * <p>
+ * {@code nextOffset - offset} is the number of records unless the batch skipped a gap, a change
+ * the log could not record: a consumer must then reload a snapshot rather than carry on.
+ * </p>
+ *
+ * @param records    records in offset order, possibly empty
+ * @param nextOffset offset to pass on the next read
+ * @param endOffset  offset the next appended record will get
+ */
+public record ChangeBatch(List<ChangeRecord> records, long nextOffset, long endOffset) {
+}
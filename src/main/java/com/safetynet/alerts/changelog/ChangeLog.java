@@ -0,0 +1,309 @@
+package com.safetynet.alerts.changelog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.safetynet.alerts.changelog.ChangeRecord.Entity;
+import com.safetynet.alerts.event.ChangesCommitted;
+import com.safetynet.alerts.event.DataChangeEvent;
+import com.safetynet.alerts.event.DataChangeEvent.FirestationChanged;
+import com.safetynet.alerts.event.DataChangeEvent.MedicalRecordChanged;
+import com.safetynet.alerts.event.DataChangeEvent.PersonChanged;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only log of every mutation made through
+ * {@link com.safetynet.alerts.service.AlertService}.
+ * <p>
+ * Each {@link DataChangeEvent} becomes a {@link ChangeRecord} encoded with Smile (binary JSON)
+ * and framed as {@code [length:int][crc32:int][payload]} after a short file header. A record's
+ * offset is its index in the file, so offsets survive restarts and consumers simply resume by
+ * reading from the last offset they processed plus one. On startup the file is scanned to
+ * rebuild the offset index; a torn record left by a crash is truncated away.
+ * </p>
+ * <p>
+ * Records are appended while the service holds its write lock, so log order is mutation order,
+ * and forced to disk on {@link ChangesCommitted}, once the lock is released: mutations committing
+ * together share one force. Reads do not take that lock: they only see records whose index entry
+ * has been published.
+ * </p>
+ * <p>
+ * A change that cannot be appended (an I/O error, a value that does not serialize) leaves a gap:
+ * its offset is taken by an empty frame, written as soon as the file accepts it, and
+ * {@link #read(long, int)} skips it. The change itself stays applied and saved, so mutations do not
+ * fail on the log; consumers that reach the gap see the batch move past more offsets than it has
+ * records and must reload a snapshot, as followers do.
+ * </p>
+ */
+@Component
+@EnableConfigurationProperties(ChangeLogProperties.class)
+public class ChangeLog {
+    private static final Logger log = LoggerFactory.getLogger(ChangeLog.class);
+    private static final byte[] MAGIC = {'S', 'N', 'C', 'L', 1};
+    private static final int FRAME_HEADER = Integer.BYTES * 2;
+    /** Length and checksum fields of a gap frame, which has no payload. */
+    private static final int GAP_LENGTH = -1;
+    private static final int GAP_CHECKSUM = 0x47415021;
+    /** Position of an offset whose change could not be appended. */
+    private static final long GAP = -1;
+
+    private final ChangeLogProperties properties;
+    private final ObjectMapper smile = new SmileMapper();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private FileChannel channel;
+    /** File position of each record, indexed by offset; entries below {@link #size} are immutable. */
+    private volatile long[] positions = new long[1024];
+    private volatile long size;
+    private volatile long writePosition;
+    /** File length known to be on disk. */
+    private volatile long syncedPosition;
+    /** Gaps taken in the offsets but not yet written to the file, guarded by {@link #appendLock}. */
+    private int unwrittenGaps;
+
+    public ChangeLog(ChangeLogProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path path = Path.of(properties.getFile());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            channel.write(ByteBuffer.wrap(MAGIC), 0);
+            writePosition = MAGIC.length;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length);
+            channel.read(header, 0);
+            if (!Arrays.equals(header.array(), MAGIC)) {
+                throw new IOException("Not a change log: " + path);
+            }
+            recover();
+        }
+        syncedPosition = writePosition;
+        log.info("Opened change log {} with {} records", path, size);
+    }
+
+    /**
+     * Rebuilds the offset index and drops a trailing record that was not completely written.
+     */
+    private void recover() throws IOException {
+        long position = MAGIC.length;
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+        long count = 0;
+        long[] index = positions;
+        while (position + FRAME_HEADER <= fileSize) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int crc = header.getInt();
+            boolean gap = length == GAP_LENGTH && crc == GAP_CHECKSUM;
+            if (!gap && (length < 0 || position + FRAME_HEADER + length > fileSize
+                    || crc != checksum(readPayload(position, length)))) {
+                break;
+            }
+            if (count == index.length) {
+                index = Arrays.copyOf(index, index.length * 2);
+            }
+            index[(int) count++] = gap ? GAP : position;
+            position += FRAME_HEADER + (gap ? 0 : length);
+        }
+        if (position < fileSize) {
+            log.warn("Truncating {} bytes of incomplete change log data after offset {}", fileSize - position, count);
+            channel.truncate(position);
+        }
+        positions = index;
+        size = count;
+        writePosition = position;
+    }
+
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        switch (event) {
+            case PersonChanged e -> append(Entity.PERSON, e, e.previous(), e.current());
+            case FirestationChanged e -> append(Entity.FIRESTATION, e, e.previous(), e.current());
+            case MedicalRecordChanged e -> append(Entity.MEDICAL_RECORD, e, e.previous(), e.current());
+        }
+    }
+
+    private void append(Entity entity, DataChangeEvent event, Object before, Object after) {
+        appendLock.lock();
+        long offset = size;
+        try {
+            writeGaps();
+            ChangeRecord record = new ChangeRecord(offset, System.currentTimeMillis(), entity, event.operation(),
+                    before != null ? smile.valueToTree(before) : null,
+                    after != null ? smile.valueToTree(after) : null);
+            byte[] payload = smile.writeValueAsBytes(record);
+            ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload.length);
+            frame.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+            publish(offset, write(frame));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to append {} {} to change log, offset {} is a gap: consumers must reload a snapshot",
+                    event.operation(), entity, offset, e);
+            publish(offset, GAP);
+            unwrittenGaps++;
+            try {
+                writeGaps();
+            } catch (IOException retry) {
+                log.warn("Gap at offset {} not written yet: {}", offset, retry.toString());
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void writeGaps() throws IOException {
+        for (; unwrittenGaps > 0; unwrittenGaps--) {
+            write(ByteBuffer.allocate(FRAME_HEADER).putInt(GAP_LENGTH).putInt(GAP_CHECKSUM).flip());
+        }
+    }
+
+    /**
+     * Writes {@code frame} at the end of the file.
+     *
+     * @return the position it was written at
+     */
+    private long write(ByteBuffer frame) throws IOException {
+        long position = writePosition;
+        while (frame.hasRemaining()) {
+            channel.write(frame, position + frame.position());
+        }
+        writePosition = position + frame.limit();
+        return position;
+    }
+
+    private void publish(long offset, long position) {
+        long[] index = positions;
+        if (offset == index.length) {
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+        index[(int) offset] = position;
+        positions = index;
+        size = offset + 1;
+    }
+
+    @EventListener
+    public void onChangesCommitted(ChangesCommitted event) {
+        if (properties.isFsync()) {
+            sync();
+        }
+    }
+
+    /**
+     * Forces the records appended so far to disk. A caller arriving while another one forces
+     * returns without forcing again when that force covered its records.
+     */
+    public void sync() {
+        long target = writePosition;
+        if (syncedPosition >= target) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (syncedPosition >= target) {
+                return;
+            }
+            long position = writePosition;
+            channel.force(false);
+            syncedPosition = position;
+        } catch (IOException e) {
+            log.error("Failed to force the change log to disk", e);
+            throw new UncheckedIOException("Failed to force the change log to disk", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} records starting at {@code offset}. A batch ends before a gap;
+     * gaps at {@code offset} are skipped, so that {@link ChangeBatch#nextOffset()} moves past more
+     * offsets than there are records.
+     *
+     * @param offset first offset to return; offsets past the end yield an empty batch
+     * @param limit  maximum records, capped by {@code maxBatchSize}
+     */
+    public ChangeBatch read(long offset, int limit) {
+        long end = size;
+        long[] index = positions;
+        int max = Math.min(Math.max(limit, 0), properties.getMaxBatchSize());
+        long from = Math.max(offset, 0);
+        long next = from;
+        List<ChangeRecord> records = new ArrayList<>();
+        try {
+            for (; next < end && records.size() < max; next++) {
+                long position = index[(int) next];
+                if (position == GAP) {
+                    if (!records.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+                channel.read(header, position);
+                header.flip();
+                int length = header.getInt();
+                records.add(smile.readValue(readPayload(position, length), ChangeRecord.class));
+            }
+        } catch (IOException e) {
+            log.error("Failed to read change log at offset {}", next, e);
+            throw new UncheckedIOException("Failed to read change log", e);
+        }
+        return new ChangeBatch(records, next, end);
+    }
+
+    /**
+     * @return offset the next appended record will get
+     */
+    public long getEndOffset() {
+        return size;
+    }
+
+    private byte[] readPayload(long position, int length) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        long at = position + FRAME_HEADER;
+        while (payload.hasRemaining()) {
+            if (channel.read(payload, at + payload.position()) < 0) {
+                break;
+            }
+        }
+        return payload.array();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.safetynet.alerts.changelog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Read access to the change log by offset, plus optional server-side offset tracking per consumer.
+ * <p>
+ * Responses are JSON by default; send {@code Accept: application/x-jackson-smile} to receive the
+ * same compact binary encoding the log is stored in.
+ * </p>
+ */
+@RestController
+public class ChangeLogController {
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogController.class);
+    private final ChangeLog changeLog;
+    private final ConsumerOffsets consumerOffsets;
+
+    public ChangeLogController(ChangeLog changeLog, ConsumerOffsets consumerOffsets) {
+        this.changeLog = changeLog;
+        this.consumerOffsets = consumerOffsets;
+    }
+
+    /**
+     * Example: {@code GET /changes?offset=120&limit=500}, or {@code GET /changes?consumer=billing}
+     * to start from that consumer's committed offset.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ChangeBatch> getChanges(@RequestParam(value = "offset", required = false) Long offset,
+                                                  @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                                  @RequestParam(value = "consumer", required = false) String consumer) {
+        if (limit <= 0 || (offset != null && offset < 0)) {
+            log.warn("Invalid change log read: offset={} limit={}", offset, limit);
+            return ResponseEntity.badRequest().build();
+        }
+        long from = offset != null ? offset
+                : consumer != null ? consumerOffsets.get(consumer).orElse(0) : 0;
+        return ResponseEntity.ok(changeLog.read(from, limit));
+    }
+
+    /**
+     * Example: {@code PUT /changes/consumers/billing?offset=620}
+     */
+    @PutMapping("/changes/consumers/{consumer}")
+    public ResponseEntity<Map<String, Long>> commit(@PathVariable("consumer") String consumer,
+                                                    @RequestParam("offset") long offset) {
+        if (offset < 0 || offset > changeLog.getEndOffset()) {
+            log.warn("Rejected offset {} for consumer {}", offset, consumer);
+            return ResponseEntity.badRequest().build();
+        }
+        consumerOffsets.commit(consumer, offset);
+        return ResponseEntity.ok(Map.of("offset", offset));
+    }
+
+    @GetMapping("/changes/consumers/{consumer}")
+    public ResponseEntity<Map<String, Long>> getCommitted(@PathVariable("consumer") String consumer) {
+        return consumerOffsets.get(consumer).stream()
+                .mapToObj(o -> ResponseEntity.ok(Map.of("offset", o)))
+                .findFirst()
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,20 @@
+package com.safetynet.alerts.changelog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the change-data-capture log, bound from {@code safetynet.changelog.*}.
+ */
+@Data
+@ConfigurationProperties("safetynet.changelog")
+public class ChangeLogProperties {
+    /** Append-only file holding the encoded change records. */
+    private String file = "data/changes.log";
+    /** File holding the offsets committed by named consumers. */
+    private String offsetsFile = "data/changes.offsets";
+    /** Force every appended record to disk before the mutation returns. */
+    private boolean fsync = true;
+    /** Upper bound on records returned by one read. */
+    private int maxBatchSize = 1000;
+}
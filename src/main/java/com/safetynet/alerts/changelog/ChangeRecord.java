@@ -0,0 +1,22 @@
+package com.safetynet.alerts.changelog;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.safetynet.alerts.event.DataChangeEvent.Operation;
+
+/**
+ * One mutation as stored in the change log.
+ *
+ * @param offset    position in the log, starting at 0 and never reused
+ * @param timestamp time of the change, in epoch milliseconds
+ * @param entity    kind of entity that changed
+ * @param operation what happened to it
+ * @param before    entity before the change, {@code null} for additions
+ * @param after     entity after the change, {@code null} for deletions
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChangeRecord(long offset, long timestamp, Entity entity, Operation operation,
+                           JsonNode before, JsonNode after) {
+
+    public enum Entity {PERSON, FIRESTATION, MEDICAL_RECORD}
+}
@@ -0,0 +1,80 @@
+package com.safetynet.alerts.changelog;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Offsets committed by named change log consumers, so that a consumer without storage of its own
+ * can pick up where it left off after either side restarts.
+ * <p>
+ * A committed offset is the next offset the consumer wants to read. Offsets are kept in a small
+ * properties file that is replaced atomically on each commit.
+ * </p>
+ */
+@Component
+public class ConsumerOffsets {
+    private static final Logger log = LoggerFactory.getLogger(ConsumerOffsets.class);
+
+    private final Path file;
+    private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public ConsumerOffsets(ChangeLogProperties properties) {
+        this.file = Path.of(properties.getOffsetsFile());
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties stored = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            stored.load(reader);
+        }
+        stored.forEach((name, offset) -> offsets.put((String) name, Long.parseLong((String) offset)));
+        log.info("Loaded {} change log consumer offsets from {}", offsets.size(), file);
+    }
+
+    public OptionalLong get(String consumer) {
+        Long offset = offsets.get(consumer);
+        return offset != null ? OptionalLong.of(offset) : OptionalLong.empty();
+    }
+
+    public void commit(String consumer, long offset) {
+        writeLock.lock();
+        try {
+            offsets.put(consumer, offset);
+            Properties stored = new Properties();
+            offsets.forEach((name, value) -> stored.setProperty(name, Long.toString(value)));
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp)) {
+                stored.store(writer, "change log consumer offsets");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to commit offset {} for consumer {}", offset, consumer, e);
+            throw new UncheckedIOException("Failed to commit consumer offset", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
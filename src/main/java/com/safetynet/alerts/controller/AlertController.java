@@ -1,14 +1,23 @@
 package com.safetynet.alerts.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.safetynet.alerts.dto.*;
+import com.safetynet.alerts.index.AddressMatch;
 import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.tenant.Tenant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -20,7 +29,7 @@ import java.util.stream.Collectors;
  * This controller exposes endpoints for emergency services to:
  * <ul>
  *   <li>Retrieve information about residents covered by fire stations</li>
- *   <li>Get children at specific addresses with household information</li>
+ *   <li>Get children at specific addresses or across station areas with household information</li>
  *   <li>Access phone numbers for emergency SMS alerts</li>
  *   <li>Query fire station coverage and flood information</li>
  *   <li>Look up person details with medical history</li>
@@ -32,6 +41,11 @@ import java.util.stream.Collectors;
  * while resource management uses POST, PUT, and DELETE operations with
  * automatic data persistence.
  * </p>
+ * <p>
+ * Every query endpoint accepts an optional {@code asOf} instant and then answers from the data as
+ * it was at that instant, see {@link AlertService#asOf(Instant)}. Requests routed to a tenant by
+ * {@link com.safetynet.alerts.tenant.TenantFilter} are answered from the dataset of that tenant.
+ * </p>
  * 
  */
 @RestController
@@ -39,59 +53,161 @@ public class AlertController {
 
     private static final Logger log = LoggerFactory.getLogger(AlertController.class);
     private final AlertService alertService;
+    private final ObjectMapper objectMapper;
 
-    public AlertController(AlertService alertService) {
+    public AlertController(AlertService alertService, ObjectMapper objectMapper) {
         this.alertService = alertService;
+        this.objectMapper = objectMapper;
     }
 
     // URLs
     @GetMapping("/firestation")
-    public Map<String, Object> getFirestation(@RequestParam("stationNumber") String stationNumber) {
-        return alertService.getFirestationPeople(stationNumber);
+    public Map<String, Object> getFirestation(@RequestParam("stationNumber") String stationNumber,
+                                              @RequestParam(value = "asOf", required = false) Instant asOf) {
+        return service(asOf).getFirestationPeople(stationNumber);
     }
 
     @GetMapping("/childAlert")
-    public List<ChildInfoDto> getChildAlert(@RequestParam("address") String address) {
-        return alertService.getChildAlert(address);
+    public List<ChildInfoDto> getChildAlert(@RequestParam("address") String address,
+                                            @RequestParam(value = "asOf", required = false) Instant asOf) {
+        return service(asOf).getChildAlert(address);
+    }
+
+    /**
+     * The children of every address served by {@code stations}, by address, written as the
+     * households are passed on rather than assembled into one response first.
+     */
+    @GetMapping("/childAlert/stations")
+    public ResponseEntity<StreamingResponseBody> getChildRoster(@RequestParam("stations") String stations,
+                                                                @RequestParam(value = "asOf", required = false) Instant asOf) {
+        AlertService service = service(asOf);
+        List<String> stationList = csv(stations);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                try {
+                    service.forEachChildHousehold(stationList, (address, children) -> {
+                        try {
+                            json.writeFieldName(address);
+                            json.writeObject(children);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/phoneAlert")
-    public List<String> getPhoneAlert(@RequestParam("firestation") String stationNumber) {
-        return alertService.getPhoneAlert(stationNumber);
+    public List<String> getPhoneAlert(@RequestParam("firestation") String stationNumber,
+                                      @RequestParam(value = "asOf", required = false) Instant asOf) {
+        return service(asOf).getPhoneAlert(stationNumber);
     }
 
     @GetMapping("/fire")
-    public FireAddressResponseDto getFire(@RequestParam("address") String address) {
-        return alertService.getFire(address);
+    public FireAddressResponseDto getFire(@RequestParam("address") String address,
+                                          @RequestParam(value = "asOf", required = false) Instant asOf) {
+        return service(asOf).getFire(address);
     }
 
     @GetMapping("/flood/stations")
     public Map<String, List<ResidentInfoDto>> getFloodStations(
-            @RequestParam("stations") String stations) {
+            @RequestParam("stations") String stations,
+            @RequestParam(value = "asOf", required = false) Instant asOf) {
 
         List<String> stationList = Arrays.stream(stations.split(","))
                 .map(String::trim)
                 .filter(s -> !s.isEmpty())
                 .collect(Collectors.toList());
 
-        return alertService.getFloodStations(stationList);
+        return service(asOf).getFloodStations(stationList);
     }
 
     @GetMapping("/personInfo")
     public List<ResidentInfoDto> getPersonInfo(
-            @RequestParam("lastName") String lastName) {
-        return alertService.getPersonInfoByLastName(lastName);
+            @RequestParam("lastName") String lastName,
+            @RequestParam(value = "asOf", required = false) Instant asOf) {
+        return service(asOf).getPersonInfoByLastName(lastName);
     }
 
     @GetMapping("/communityEmail")
-    public List<String> getCommunityEmail(@RequestParam("city") String city) {
-        return alertService.getEmailsByCity(city);
+    public List<String> getCommunityEmail(@RequestParam("city") String city,
+                                          @RequestParam(value = "asOf", required = false) Instant asOf) {
+        return service(asOf).getEmailsByCity(city);
+    }
+
+    @GetMapping("/address/resolve")
+    public ResponseEntity<AddressMatch> resolveAddress(@RequestParam("address") String address,
+                                                       @RequestParam(value = "asOf", required = false) Instant asOf) {
+        return ResponseEntity.of(service(asOf).resolveAddress(address));
+    }
+
+    @GetMapping("/residents/filter")
+    public List<ResidentInfoDto> getClinicalFilter(
+            @RequestParam(value = "stations", defaultValue = "") String stations,
+            @RequestParam(value = "address", required = false) String address,
+            @RequestParam(value = "medications", defaultValue = "") String medications,
+            @RequestParam(value = "allergies", defaultValue = "") String allergies,
+            @RequestParam(value = "match", defaultValue = "all") String match,
+            @RequestParam(value = "asOf", required = false) Instant asOf) {
+
+        return service(asOf).getClinicalFilter(new ClinicalFilterDto(csv(stations), address, csv(medications),
+                csv(allergies), !"any".equalsIgnoreCase(match)));
+    }
+
+    @GetMapping("/residents/nearby")
+    public List<ResidentInfoDto> getResidentsNear(@RequestParam("lat") double latitude,
+                                                  @RequestParam("lon") double longitude,
+                                                  @RequestParam("radiusKm") double radiusKm,
+                                                  @RequestParam(value = "asOf", required = false) Instant asOf) {
+        return service(asOf).getResidentsNear(latitude, longitude, radiusKm);
+    }
+
+    @GetMapping("/firestations/nearest")
+    public List<StationDistanceDto> getNearestStations(@RequestParam("address") String address,
+                                                       @RequestParam(value = "k", defaultValue = "3") int k,
+                                                       @RequestParam(value = "asOf", required = false) Instant asOf) {
+        return service(asOf).getNearestStations(address, k);
+    }
+
+    @GetMapping("/analytics/stations")
+    public Map<String, StationStatsDto> getStationStats(@RequestParam(value = "top", defaultValue = "5") int top,
+                                                        @RequestParam(value = "asOf", required = false) Instant asOf) {
+        return service(asOf).getStationStats(top);
+    }
+
+    /**
+     * The live service of the request's tenant, or the one answering as of {@code asOf}
+     * (ISO-8601 instant) when given.
+     */
+    private AlertService service(Instant asOf) {
+        AlertService service = service();
+        return asOf == null ? service : service.asOf(asOf);
+    }
+
+    /**
+     * The service of the tenant the request was routed to, the default dataset otherwise.
+     */
+    private AlertService service() {
+        return Tenant.current().map(Tenant::getAlertService).orElse(alertService);
+    }
+
+    private static List<String> csv(String values) {
+        return Arrays.stream(values.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
     }
 
     // endpoints
     @PostMapping("/person")
     public ResponseEntity<Void> addPerson(@RequestBody PersonDto person) {
-        alertService.addPerson(person);
+        service().addPerson(person);
         URI location = URI.create("/person?firstName=" + person.firstName() + "&lastName=" + person.lastName());
         log.info("Created person {} {}", person.firstName(), person.lastName());
         return ResponseEntity.created(location).build();
@@ -99,7 +215,7 @@ public class AlertController {
 
     @PutMapping("/person")
     public ResponseEntity<Void> updatePerson(@RequestBody PersonDto person) {
-        boolean updated = alertService.updatePerson(person);
+        boolean updated = service().updatePerson(person);
         if (updated) {
             log.info("Updated person {} {}", person.firstName(), person.lastName());
             return ResponseEntity.ok().build();
@@ -115,7 +231,7 @@ public class AlertController {
             log.warn("Bad request to DELETE /person - missing firstName or lastName");
             return ResponseEntity.badRequest().build();
         }
-        boolean deleted = alertService.deletePerson(person.firstName(), person.lastName());
+        boolean deleted = service().deletePerson(person.firstName(), person.lastName());
         if (deleted) {
             log.info("Deleted person {} {}", person.firstName(), person.lastName());
             return ResponseEntity.ok().build();
@@ -135,7 +251,7 @@ public class AlertController {
             return ResponseEntity.badRequest().build();
         }
 
-        alertService.addFirestation(dto);
+        service().addFirestation(dto);
         log.info("Added firestation mapping address={} station={}", dto.getAddress(), dto.getStation());
 
         URI location = uriBuilder
@@ -154,7 +270,7 @@ public class AlertController {
             log.warn("Bad request to PUT /firestation - missing address or station");
             return ResponseEntity.badRequest().build();
         }
-        boolean updated = alertService.updateFirestation(dto);
+        boolean updated = service().updateFirestation(dto);
         if (updated) {
             log.info("Updated firestation for address={} to station={}", dto.getAddress(), dto.getStation());
             return ResponseEntity.ok().build();
@@ -180,7 +296,7 @@ public class AlertController {
             return ResponseEntity.badRequest().build();
         }
 
-        boolean deleted = alertService.deleteFirestation(address, station);
+        boolean deleted = service().deleteFirestation(address, station);
 
         if (deleted) {
             log.info("Deleted firestation mapping address={} station={}", address, station);
@@ -201,7 +317,7 @@ public class AlertController {
             log.warn("Invalid medical record create request");
             return ResponseEntity.badRequest().build();
         }
-        alertService.addMedicalRecord(record);
+        service().addMedicalRecord(record);
         URI location = uriBuilder
                 .path("/medicalRecord")
                 .queryParam("firstName", record.getFirstName())
@@ -219,7 +335,7 @@ public class AlertController {
             log.warn("Bad request to PUT /medicalRecord - missing firstName or lastName");
             return ResponseEntity.badRequest().build();
         }
-        boolean updated = alertService.updateMedicalRecord(record);
+        boolean updated = service().updateMedicalRecord(record);
         if (updated) {
             log.info("Updated medical record for {} {}", record.getFirstName(), record.getLastName());
             return ResponseEntity.ok().build();
@@ -235,7 +351,7 @@ public class AlertController {
             log.warn("Missing firstName/lastName for DELETE /medicalRecord");
             return ResponseEntity.badRequest().build();
         }
-        boolean deleted = alertService.deleteMedicalRecord(record.getFirstName(), record.getLastName());
+        boolean deleted = service().deleteMedicalRecord(record.getFirstName(), record.getLastName());
         if (deleted) {
             log.info("Deleted medical record {} {}", record.getFirstName(), record.getLastName());
             return ResponseEntity.ok().build();
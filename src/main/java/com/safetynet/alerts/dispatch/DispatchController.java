@@ -0,0 +1,59 @@
+package com.safetynet.alerts.dispatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Endpoints to start a mass SMS dispatch and follow its progress.
+ */
+@RestController
+public class DispatchController {
+    private static final Logger log = LoggerFactory.getLogger(DispatchController.class);
+    private final DispatchService dispatchService;
+
+    /**
+     * Body of {@code POST /dispatch}.
+     *
+     * @param stations station numbers whose residents should be notified
+     * @param message  text of the SMS
+     */
+    public record DispatchRequest(List<String> stations, String message) {
+    }
+
+    public DispatchController(DispatchService dispatchService) {
+        this.dispatchService = dispatchService;
+    }
+
+    @PostMapping("/dispatch")
+    public ResponseEntity<DispatchJob> dispatch(@RequestBody(required = false) DispatchRequest request,
+                                                UriComponentsBuilder uriBuilder) {
+        if (request == null || request.stations() == null || request.stations().isEmpty()
+                || request.message() == null || request.message().isBlank()) {
+            log.warn("Invalid dispatch request");
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            DispatchJob job = dispatchService.submit(request.stations(), request.message());
+            URI location = uriBuilder.path("/dispatch/{id}").buildAndExpand(job.getId()).toUri();
+            return ResponseEntity.accepted().location(location).body(job);
+        } catch (DispatchRejectedException e) {
+            log.warn("Dispatch rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    @GetMapping("/dispatch/{id}")
+    public ResponseEntity<DispatchJob> getJob(@PathVariable("id") String id) {
+        return dispatchService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,89 @@
+package com.safetynet.alerts.dispatch;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Status of one mass-notification request, updated by the dispatch workers as batches complete.
+ */
+@Getter
+public class DispatchJob {
+
+    public enum Status {QUEUED, RUNNING, COMPLETED, COMPLETED_WITH_FAILURES}
+
+    /**
+     * Outcome of one gateway batch.
+     *
+     * @param size           messages in the batch
+     * @param attempts       gateway calls made, including retries
+     * @param delivered      whether the gateway eventually accepted the batch
+     * @param durationMillis time from the first attempt to the final outcome
+     * @param messagesPerSecond batch throughput over that time
+     */
+    public record BatchMetrics(int size, int attempts, boolean delivered, double durationMillis,
+                               double messagesPerSecond) {
+    }
+
+    private final String id;
+    private final List<String> stations;
+    private final int recipients;
+    private final int batchCount;
+    private final Instant createdAt = Instant.now();
+    private volatile Instant completedAt;
+    private volatile Status status = Status.QUEUED;
+    @Getter(lombok.AccessLevel.NONE)
+    private final AtomicInteger sent = new AtomicInteger();
+    @Getter(lombok.AccessLevel.NONE)
+    private final AtomicInteger failed = new AtomicInteger();
+    @Getter(lombok.AccessLevel.NONE)
+    private final AtomicInteger finishedBatches = new AtomicInteger();
+    @Getter(lombok.AccessLevel.NONE)
+    private final Queue<BatchMetrics> batches = new ConcurrentLinkedQueue<>();
+
+    DispatchJob(String id, List<String> stations, int recipients, int batchCount) {
+        this.id = id;
+        this.stations = List.copyOf(stations);
+        this.recipients = recipients;
+        this.batchCount = batchCount;
+        if (batchCount == 0) {
+            this.status = Status.COMPLETED;
+            this.completedAt = createdAt;
+        }
+    }
+
+    public int getSent() {
+        return sent.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public List<BatchMetrics> getBatches() {
+        return List.copyOf(batches);
+    }
+
+    void started() {
+        if (status == Status.QUEUED) {
+            status = Status.RUNNING;
+        }
+    }
+
+    void batchFinished(BatchMetrics metrics) {
+        (metrics.delivered() ? sent : failed).addAndGet(metrics.size());
+        batches.add(metrics);
+        if (finishedBatches.incrementAndGet() == batchCount) {
+            completedAt = Instant.now();
+            status = failed.get() == 0 ? Status.COMPLETED : Status.COMPLETED_WITH_FAILURES;
+        }
+    }
+
+    public boolean isDone() {
+        return status == Status.COMPLETED || status == Status.COMPLETED_WITH_FAILURES;
+    }
+}
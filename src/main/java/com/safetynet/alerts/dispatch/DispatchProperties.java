@@ -0,0 +1,30 @@
+package com.safetynet.alerts.dispatch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Pipeline settings for {@link DispatchService}, bound from {@code safetynet.dispatch.*}.
+ */
+@Data
+@ConfigurationProperties("safetynet.dispatch")
+public class DispatchProperties {
+    /** Messages handed to the gateway per call. */
+    private int batchSize = 100;
+    /** Upper bound on messages sent per second, across all workers. */
+    private int messagesPerSecond = 500;
+    /** Batches that may wait for a worker; further batches of a job wait for room. */
+    private int queueCapacity = 1000;
+    /** Jobs that may wait for queue room at once; submissions beyond this are rejected. */
+    private int maxPendingJobs = 16;
+    /** Threads pulling batches from the queue. */
+    private int workers = 2;
+    /** Attempts per batch, including the first one. */
+    private int maxAttempts = 3;
+    /** Delay before the first retry, doubled for each further attempt. */
+    private Duration retryBackoff = Duration.ofMillis(200);
+    /** Finished jobs kept for the status endpoint. */
+    private int retainedJobs = 1000;
+}
@@ -0,0 +1,10 @@
+package com.safetynet.alerts.dispatch;
+
+/**
+ * Thrown when the dispatch queue cannot take all batches of a new job.
+ */
+public class DispatchRejectedException extends RuntimeException {
+    public DispatchRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,204 @@
+package com.safetynet.alerts.dispatch;
+
+import com.safetynet.alerts.service.AlertService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mass SMS dispatch built on top of {@link AlertService#getPhoneAlert(String)}.
+ * <p>
+ * A submitted job resolves the phone numbers of every requested station, removes duplicates
+ * and splits them into batches. Batches go through a bounded queue and are handed to it as it
+ * drains, so a job of any size runs while the batches waiting for a worker stay bounded; a
+ * submission is rejected only while {@code max-pending-jobs} jobs are still waiting for room.
+ * Worker threads take batches from the queue, respect a global messages-per-second budget, and
+ * retry failed gateway calls with exponential backoff. Per-batch attempts, duration and throughput are recorded on the job.
+ * </p>
+ */
+@Service
+@EnableConfigurationProperties(DispatchProperties.class)
+public class DispatchService {
+    private static final Logger log = LoggerFactory.getLogger(DispatchService.class);
+
+    private record Batch(DispatchJob job, List<SmsMessage> messages) {
+    }
+
+    private final AlertService alertService;
+    private final SmsGateway gateway;
+    private final DispatchProperties properties;
+    private final BlockingQueue<Batch> queue;
+    private final RateLimiter rateLimiter;
+    private final Semaphore pendingJobs;
+    private final Set<Thread> feeders = ConcurrentHashMap.newKeySet();
+    private final Map<String, DispatchJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> jobOrder = new ConcurrentLinkedQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    public DispatchService(AlertService alertService, SmsGateway gateway, DispatchProperties properties) {
+        this.alertService = alertService;
+        this.gateway = gateway;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.rateLimiter = new RateLimiter(properties.getMessagesPerSecond());
+        this.pendingJobs = new Semaphore(properties.getMaxPendingJobs());
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            workers.add(Thread.ofPlatform().daemon().name("sms-dispatch-" + i).start(this::work));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+        feeders.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Queues a message to every resident phone served by the given stations.
+     *
+     * @param stations station numbers; a flood station set is passed as several entries
+     * @param message  text to send
+     * @return the created job, whose batches are handed to the queue as it drains
+     * @throws DispatchRejectedException if {@code maxPendingJobs} jobs are still waiting for queue room
+     */
+    public DispatchJob submit(List<String> stations, String message) {
+        Set<String> phones = new LinkedHashSet<>();
+        for (String station : stations) {
+            phones.addAll(alertService.getPhoneAlert(station));
+        }
+
+        int batchSize = properties.getBatchSize();
+        int batchCount = (phones.size() + batchSize - 1) / batchSize;
+        DispatchJob job = new DispatchJob(UUID.randomUUID().toString(), stations, phones.size(), batchCount);
+        if (batchCount > 0) {
+            if (!pendingJobs.tryAcquire()) {
+                throw new DispatchRejectedException("Dispatch queue full: " + properties.getMaxPendingJobs()
+                        + " jobs already waiting for room");
+            }
+        }
+        register(job);
+        if (batchCount > 0) {
+            Thread feeder = Thread.ofVirtual().name("sms-feed-" + job.getId()).unstarted(() -> feed(job, phones, message));
+            feeders.add(feeder);
+            feeder.start();
+        }
+        log.info("Queued dispatch job {} for stations {}: {} recipients in {} batches",
+                job.getId(), stations, phones.size(), batchCount);
+        return job;
+    }
+
+    /**
+     * Puts the batches of {@code job} on the queue one at a time, waiting for room, so the
+     * messages waiting for a worker stay bounded whatever the size of the job.
+     */
+    private void feed(DispatchJob job, Set<String> phones, String message) {
+        try {
+            List<SmsMessage> current = new ArrayList<>(properties.getBatchSize());
+            for (String phone : phones) {
+                current.add(new SmsMessage(phone, message));
+                if (current.size() == properties.getBatchSize()) {
+                    queue.put(new Batch(job, Collections.unmodifiableList(current)));
+                    current = new ArrayList<>(properties.getBatchSize());
+                }
+            }
+            if (!current.isEmpty()) {
+                queue.put(new Batch(job, Collections.unmodifiableList(current)));
+            }
+        } catch (InterruptedException e) {
+            log.warn("Dispatch job {} stopped before all its batches were queued", job.getId());
+        } finally {
+            pendingJobs.release();
+            feeders.remove(Thread.currentThread());
+        }
+    }
+
+    public Optional<DispatchJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void register(DispatchJob job) {
+        jobs.put(job.getId(), job);
+        jobOrder.add(job.getId());
+        while (jobOrder.size() > properties.getRetainedJobs()) {
+            String oldest = jobOrder.peek();
+            DispatchJob candidate = oldest != null ? jobs.get(oldest) : null;
+            if (candidate != null && !candidate.isDone()) {
+                break; // never forget a running job; retry eviction on the next submission
+            }
+            jobOrder.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                deliver(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void deliver(Batch batch) throws InterruptedException {
+        DispatchJob job = batch.job();
+        job.started();
+        int size = batch.messages().size();
+        long start = System.nanoTime();
+        int attempts = 0;
+        boolean delivered = false;
+        try {
+            while (!delivered && attempts < properties.getMaxAttempts()) {
+                rateLimiter.acquire(size);
+                attempts++;
+                try {
+                    gateway.send(batch.messages());
+                    delivered = true;
+                } catch (SmsGatewayException | RuntimeException e) {
+                    log.warn("Dispatch job {}: batch of {} failed on attempt {}: {}", job.getId(), size, attempts, e.getMessage());
+                    if (attempts < properties.getMaxAttempts()) {
+                        TimeUnit.MILLISECONDS.sleep(properties.getRetryBackoff().toMillis() << (attempts - 1));
+                    }
+                }
+            }
+        } finally {
+            double millis = (System.nanoTime() - start) / 1e6;
+            double throughput = delivered && millis > 0 ? size / (millis / 1000) : 0;
+            job.batchFinished(new DispatchJob.BatchMetrics(size, attempts, delivered, millis, throughput));
+        }
+        if (job.isDone()) {
+            log.info("Dispatch job {} finished: status={} sent={} failed={}",
+                    job.getId(), job.getStatus(), job.getSent(), job.getFailed());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.safetynet.alerts.dispatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Local stand-in gateway that only logs the batches it is given. Active unless
+ * {@code safetynet.dispatch.gateway} selects another implementation.
+ */
+@Component
+@ConditionalOnProperty(name = "safetynet.dispatch.gateway", havingValue = "log", matchIfMissing = true)
+public class LoggingSmsGateway implements SmsGateway {
+    private static final Logger log = LoggerFactory.getLogger(LoggingSmsGateway.class);
+
+    @Override
+    public void send(List<SmsMessage> batch) {
+        log.info("SMS batch of {} messages", batch.size());
+        if (log.isDebugEnabled()) {
+            batch.forEach(m -> log.debug("SMS to {}: {}", m.phone(), m.text()));
+        }
+    }
+}
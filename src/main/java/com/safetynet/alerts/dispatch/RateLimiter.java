@@ -0,0 +1,43 @@
+package com.safetynet.alerts.dispatch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket refilled continuously at a fixed rate, allowing at most one second worth of burst.
+ */
+class RateLimiter {
+    private final double permitsPerNano;
+    private final double maxPermits;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double available;
+    private long lastRefill;
+
+    RateLimiter(int permitsPerSecond) {
+        this.permitsPerNano = permitsPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+        this.maxPermits = permitsPerSecond;
+        this.available = permitsPerSecond;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Blocks until {@code permits} can be taken from the bucket.
+     */
+    void acquire(int permits) throws InterruptedException {
+        long waitNanos;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            available = Math.min(maxPermits, available + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+            available -= permits;
+            // a negative balance is paid back by sleeping; later callers queue up behind it
+            waitNanos = available < 0 ? (long) (-available / permitsPerNano) : 0;
+        } finally {
+            lock.unlock();
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
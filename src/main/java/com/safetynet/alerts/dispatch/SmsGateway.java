@@ -0,0 +1,21 @@
+package com.safetynet.alerts.dispatch;
+
+import java.util.List;
+
+/**
+ * Outbound SMS provider used by {@link DispatchService}.
+ * <p>
+ * Implementations receive whole batches so that providers with bulk APIs can send them in one
+ * call. A batch either succeeds or fails as a unit; a failed batch is retried by the pipeline.
+ * </p>
+ */
+public interface SmsGateway {
+
+    /**
+     * Sends a batch of messages.
+     *
+     * @param batch messages to send, never empty
+     * @throws SmsGatewayException if the provider rejected or could not take the batch
+     */
+    void send(List<SmsMessage> batch) throws SmsGatewayException;
+}
@@ -0,0 +1,14 @@
+package com.safetynet.alerts.dispatch;
+
+/**
+ * Raised by an {@link SmsGateway} when a batch could not be delivered to the provider.
+ */
+public class SmsGatewayException extends Exception {
+    public SmsGatewayException(String message) {
+        super(message);
+    }
+
+    public SmsGatewayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
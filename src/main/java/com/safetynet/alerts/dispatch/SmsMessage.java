@@ -0,0 +1,7 @@
+package com.safetynet.alerts.dispatch;
+
+/**
+ * A single text message addressed to one phone number.
+ */
+public record SmsMessage(String phone, String text) {
+}
@@ -0,0 +1,12 @@
+package com.safetynet.alerts.dto;
+
+import java.util.List;
+
+/**
+ * Criteria of a clinical filter: residents served by one of {@code stations} or living at
+ * {@code address} (when given) whose medical record lists all ({@code matchAll}) or any of the
+ * {@code medications} and {@code allergies}.
+ */
+public record ClinicalFilterDto(List<String> stations, String address, List<String> medications,
+                                List<String> allergies, boolean matchAll) {
+}
@@ -2,6 +2,7 @@ package com.safetynet.alerts.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -10,6 +11,11 @@ import java.util.List;
 public class FireAddressResponseDto {
     public String station;
     public List<ResidentInfoDto> residents;
+    /** Known address used when the requested one was spelled differently, with its match score. */
+    @Setter
+    private String matchedAddress;
+    @Setter
+    private Double matchScore;
 
     public FireAddressResponseDto(String station, List<ResidentInfoDto> residents) {
         this.station = station;
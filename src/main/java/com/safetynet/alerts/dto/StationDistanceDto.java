@@ -0,0 +1,7 @@
+package com.safetynet.alerts.dto;
+
+/**
+ * A station near a point, with the closest address it serves and the distance to it.
+ */
+public record StationDistanceDto(String station, String address, double distanceKm) {
+}
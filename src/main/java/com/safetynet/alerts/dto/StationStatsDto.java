@@ -0,0 +1,23 @@
+package com.safetynet.alerts.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Demographics of the residents of the addresses a station serves.
+ *
+ * @param children       residents aged 18 or younger
+ * @param adults         residents aged 19 to 64
+ * @param seniors        residents aged 65 or older
+ * @param unknownAge     residents without a medical record or birthdate
+ * @param ageHistogram   residents by age decade ({@code "0-9"} ... {@code "90+"}), all decades present
+ * @param householdSizes households (persons sharing an address) by number of members
+ * @param topMedications most taken medications, most frequent first
+ */
+public record StationStatsDto(String station, int addresses, int residents, int children, int adults, int seniors,
+                              int unknownAge, Map<String, Integer> ageHistogram, Map<Integer, Integer> householdSizes,
+                              List<TermCount> topMedications) {
+
+    public record TermCount(String term, int residents) {
+    }
+}
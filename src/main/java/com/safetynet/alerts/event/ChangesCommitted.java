@@ -0,0 +1,11 @@
+package com.safetynet.alerts.event;
+
+/**
+ * Published by {@link com.safetynet.alerts.service.AlertService} once the write lock of a mutation
+ * is released, before the mutation returns, after its {@link DataChangeEvent}s. Listeners can
+ * finish the slow part of handling those events here, such as forcing them to disk, without
+ * keeping queries waiting; concurrent mutations publish it concurrently.
+ */
+public record ChangesCommitted() {
+    public static final ChangesCommitted INSTANCE = new ChangesCommitted();
+}
@@ -0,0 +1,32 @@
+package com.safetynet.alerts.event;
+
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+
+/**
+ * Mutation applied through {@link com.safetynet.alerts.service.AlertService}.
+ * <p>
+ * Events are published synchronously, in mutation order, while the service still holds its write
+ * lock. Listeners therefore observe the data exactly as it is right after the change and may run
+ * read queries against the service, but must hand any slow work (network I/O) to another thread
+ * or to {@link ChangesCommitted}, published once the lock is released.
+ * {@code previous} is a detached copy for updates and deletes, {@code current} is the stored
+ * entity for adds and updates; either is {@code null} when it does not apply.
+ * </p>
+ */
+public sealed interface DataChangeEvent {
+
+    enum Operation {ADDED, UPDATED, DELETED}
+
+    Operation operation();
+
+    record PersonChanged(Operation operation, Person previous, Person current) implements DataChangeEvent {
+    }
+
+    record FirestationChanged(Operation operation, Firestation previous, Firestation current) implements DataChangeEvent {
+    }
+
+    record MedicalRecordChanged(Operation operation, MedicalRecord previous, MedicalRecord current) implements DataChangeEvent {
+    }
+}
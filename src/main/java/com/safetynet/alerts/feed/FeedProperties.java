@@ -0,0 +1,18 @@
+package com.safetynet.alerts.feed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the station live feed, bound from {@code safetynet.feed.*}.
+ */
+@Data
+@ConfigurationProperties("safetynet.feed")
+public class FeedProperties {
+    /** How long a stream stays open before the client has to reconnect. */
+    private Duration timeout = Duration.ofMinutes(30);
+    /** Frames a subscriber may fall behind before it is disconnected. */
+    private int maxPendingFrames = 256;
+}
@@ -0,0 +1,46 @@
+package com.safetynet.alerts.feed;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Incremental change to the population covered by one station, as pushed on the live feed.
+ * <p>
+ * {@code childrenDelta} and {@code adultsDelta} are the changes to the counts returned by
+ * {@code /firestation}; residents without a usable medical record are in neither count.
+ * </p>
+ *
+ * @param sequence       position in the feed, strictly increasing across all stations
+ * @param station        station number the delta applies to
+ * @param type           kind of change
+ * @param address        address of the resident, or the address that gained/lost coverage
+ * @param previousAddress former address for {@link Type#PERSON_MOVED}
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StationDelta(long sequence,
+                           String station,
+                           Type type,
+                           String firstName,
+                           String lastName,
+                           String address,
+                           String previousAddress,
+                           String phone,
+                           int childrenDelta,
+                           int adultsDelta) {
+
+    public enum Type {
+        /** A resident now lives in the station's area. */
+        PERSON_ADDED,
+        /** A resident no longer lives in the station's area. */
+        PERSON_REMOVED,
+        /** A resident changed address; counts reflect whether they entered or left the area. */
+        PERSON_MOVED,
+        /** Contact details of a resident changed. */
+        PERSON_UPDATED,
+        /** A resident's age class changed, e.g. after a medical record was added or corrected. */
+        COUNTS_CHANGED,
+        /** An address was mapped to the station, bringing its residents along. */
+        ADDRESS_ADDED,
+        /** An address is no longer mapped to the station. */
+        ADDRESS_REMOVED
+    }
+}
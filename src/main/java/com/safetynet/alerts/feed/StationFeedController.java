@@ -0,0 +1,43 @@
+package com.safetynet.alerts.feed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Live feed of population changes per station, as Server-Sent Events.
+ */
+@RestController
+public class StationFeedController {
+    private static final Logger log = LoggerFactory.getLogger(StationFeedController.class);
+    private final StationFeedService feedService;
+
+    public StationFeedController(StationFeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    /**
+     * Example: {@code GET /firestation/stream?stations=1,2}
+     */
+    @GetMapping(path = "/firestation/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam("stations") String stations) throws IOException {
+        List<String> stationList = Arrays.stream(stations.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+        if (stationList.isEmpty()) {
+            log.warn("Station feed requested without stations");
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(feedService.subscribe(stationList));
+    }
+}
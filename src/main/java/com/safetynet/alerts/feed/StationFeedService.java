@@ -0,0 +1,352 @@
+package com.safetynet.alerts.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.event.DataChangeEvent;
+import com.safetynet.alerts.event.DataChangeEvent.FirestationChanged;
+import com.safetynet.alerts.event.DataChangeEvent.MedicalRecordChanged;
+import com.safetynet.alerts.event.DataChangeEvent.PersonChanged;
+import com.safetynet.alerts.feed.StationDelta.Type;
+import com.safetynet.alerts.index.Household;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns {@link DataChangeEvent}s into per-station {@link StationDelta}s and pushes them to
+ * Server-Sent Events subscribers.
+ * <p>
+ * Each delta is computed and serialized once, whatever the number of subscribers, and the
+ * resulting frame is queued on every subscriber of the station. Subscribers are drained on
+ * virtual threads, so a slow client never holds up the mutation that produced the delta; a
+ * client falling more than {@code maxPendingFrames} behind is disconnected and must resubscribe.
+ * </p>
+ * <p>
+ * A new subscriber first receives one {@code snapshot} event per station, carrying the same
+ * content as {@code /firestation} plus the feed sequence it corresponds to, followed by the
+ * {@code delta} events that happened after it.
+ * </p>
+ */
+@Service
+@EnableConfigurationProperties(FeedProperties.class)
+public class StationFeedService {
+    private static final Logger log = LoggerFactory.getLogger(StationFeedService.class);
+    private static final int SNAPSHOT_ATTEMPTS = 3;
+
+    private final AlertService alertService;
+    private final ObjectMapper mapper;
+    private final FeedProperties properties;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    public StationFeedService(AlertService alertService, ObjectMapper mapper, FeedProperties properties) {
+        this.alertService = alertService;
+        this.mapper = mapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Opens a stream for the given stations.
+     *
+     * @param stations station numbers to follow
+     * @return emitter to return from the controller
+     */
+    public SseEmitter subscribe(Collection<String> stations) throws IOException {
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        subscribe(stations, emitter);
+        return emitter;
+    }
+
+    void subscribe(Collection<String> stations, SseEmitter emitter) throws IOException {
+        Set<String> followed = new LinkedHashSet<>(stations);
+        Subscriber subscriber = new Subscriber(emitter, followed);
+        emitter.onCompletion(subscriber::unregister);
+        emitter.onTimeout(subscriber::unregister);
+        emitter.onError(e -> subscriber.unregister());
+        // register before taking the snapshot so that no change can fall between the two
+        for (String station : followed) {
+            subscribers.compute(station, (k, set) -> {
+                Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+                target.add(subscriber);
+                return target;
+            });
+        }
+
+        long at;
+        List<Map<String, Object>> snapshots;
+        int attempt = 0;
+        do {
+            at = sequence.get();
+            snapshots = new ArrayList<>();
+            for (String station : followed) {
+                Map<String, Object> snapshot = new LinkedHashMap<>();
+                snapshot.put("sequence", at);
+                snapshot.put("station", station);
+                snapshot.putAll(alertService.getFirestationPeople(station));
+                snapshots.add(snapshot);
+            }
+        } while (sequence.get() != at && ++attempt < SNAPSHOT_ATTEMPTS);
+        if (attempt == SNAPSHOT_ATTEMPTS) {
+            log.debug("Station feed snapshot raced with ongoing changes, clients may see duplicate deltas");
+        }
+
+        for (Map<String, Object> snapshot : snapshots) {
+            emitter.send(SseEmitter.event().id(Long.toString(at)).name("snapshot").data(snapshot, MediaType.APPLICATION_JSON));
+        }
+        subscriber.start(at);
+        log.debug("Station feed subscriber added for stations {}", followed);
+    }
+
+    public int getSubscriberCount() {
+        return (int) subscribers.values().stream().flatMap(Set::stream).distinct().count();
+    }
+
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        switch (event) {
+            case PersonChanged e -> onPersonChanged(e);
+            case MedicalRecordChanged e -> onMedicalRecordChanged(e);
+            case FirestationChanged e -> onFirestationChanged(e);
+        }
+    }
+
+    private void onPersonChanged(PersonChanged e) {
+        switch (e.operation()) {
+            case ADDED -> {
+                int[] counts = classify(e.current());
+                for (String station : stationsOf(e.current().getAddress())) {
+                    emit(station, Type.PERSON_ADDED, e.current(), null, counts[0], counts[1]);
+                }
+            }
+            case DELETED -> {
+                int[] counts = classify(e.previous());
+                for (String station : stationsOf(e.previous().getAddress())) {
+                    emit(station, Type.PERSON_REMOVED, e.previous(), null, -counts[0], -counts[1]);
+                }
+            }
+            case UPDATED -> {
+                String from = e.previous().getAddress();
+                String to = e.current().getAddress();
+                if (Objects.equals(from, to)) {
+                    for (String station : stationsOf(to)) {
+                        emit(station, Type.PERSON_UPDATED, e.current(), null, 0, 0);
+                    }
+                    return;
+                }
+                int[] counts = classify(e.current());
+                Set<String> before = stationsOf(from);
+                Set<String> after = stationsOf(to);
+                Set<String> affected = new LinkedHashSet<>(before);
+                affected.addAll(after);
+                for (String station : affected) {
+                    int sign = before.contains(station) == after.contains(station) ? 0 : after.contains(station) ? 1 : -1;
+                    emit(station, Type.PERSON_MOVED, e.current(), from, sign * counts[0], sign * counts[1]);
+                }
+            }
+        }
+    }
+
+    private void onMedicalRecordChanged(MedicalRecordChanged e) {
+        int[] before = classify(e.previous());
+        int[] after = classify(e.current());
+        if (Arrays.equals(before, after)) {
+            return;
+        }
+        MedicalRecord record = e.current() != null ? e.current() : e.previous();
+        alertService.findPerson(record.getFirstName(), record.getLastName()).ifPresent(p -> {
+            for (String station : stationsOf(p.getAddress())) {
+                emit(station, Type.COUNTS_CHANGED, p, null, after[0] - before[0], after[1] - before[1]);
+            }
+        });
+    }
+
+    private void onFirestationChanged(FirestationChanged e) {
+        Firestation lost = e.previous();
+        Firestation gained = e.current();
+        if (lost != null && gained != null && Objects.equals(lost.getStation(), gained.getStation())) {
+            return;
+        }
+        if (lost != null) {
+            coverageChanged(lost, Type.ADDRESS_REMOVED, 0, -1);
+        }
+        if (gained != null) {
+            coverageChanged(gained, Type.ADDRESS_ADDED, 1, 1);
+        }
+    }
+
+    /**
+     * Emits a coverage delta when the mapping count for station and address reached {@code expected},
+     * i.e. when the address has just started or stopped being covered by the station.
+     */
+    private void coverageChanged(Firestation mapping, Type type, int expected, int sign) {
+        String station = mapping.getStation();
+        if (station == null || !subscribers.containsKey(station)) {
+            return;
+        }
+        List<String> serving = alertService.getStationsServing(mapping.getAddress());
+        if (Collections.frequency(serving, station) != expected) {
+            return;
+        }
+        // the cached household, as this runs within the mutation
+        Household household = alertService.getHousehold(mapping.getAddress());
+        emit(station, new StationDelta(0, station, type, null, null, mapping.getAddress(), null, null,
+                sign * household.children().size(), sign * household.adults()));
+    }
+
+    private Set<String> stationsOf(String address) {
+        return new LinkedHashSet<>(alertService.getStationsServing(address));
+    }
+
+    /**
+     * @return {@code {1, 0}} for a child, {@code {0, 1}} for an adult, {@code {0, 0}} when the age is unknown
+     */
+    private int[] classify(Person p) {
+        return counts(alertService.getAge(p.getFirstName(), p.getLastName()));
+    }
+
+    private int[] classify(MedicalRecord m) {
+        return m == null ? new int[]{0, 0} : counts(alertService.ageFromBirthdate(m.getBirthdate()));
+    }
+
+    private static int[] counts(Optional<Integer> age) {
+        return age.map(a -> a <= 18 ? new int[]{1, 0} : new int[]{0, 1}).orElseGet(() -> new int[]{0, 0});
+    }
+
+    private void emit(String station, Type type, Person p, String previousAddress, int childrenDelta, int adultsDelta) {
+        if (!subscribers.containsKey(station)) {
+            return;
+        }
+        emit(station, new StationDelta(0, station, type, p.getFirstName(), p.getLastName(), p.getAddress(),
+                previousAddress, p.getPhone(), childrenDelta, adultsDelta));
+    }
+
+    private void emit(String station, StationDelta template) {
+        Set<Subscriber> targets = subscribers.get(station);
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        long seq = sequence.incrementAndGet();
+        StationDelta delta = new StationDelta(seq, template.station(), template.type(), template.firstName(),
+                template.lastName(), template.address(), template.previousAddress(), template.phone(),
+                template.childrenDelta(), template.adultsDelta());
+        Set<DataWithMediaType> frame;
+        try {
+            frame = SseEmitter.event()
+                    .id(Long.toString(seq))
+                    .name("delta")
+                    .data(mapper.writeValueAsString(delta), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException ex) {
+            log.error("Could not serialize station delta {}", delta, ex);
+            return;
+        }
+        Frame queued = new Frame(seq, frame);
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(queued);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.values().stream().flatMap(Set::stream).distinct().forEach(s -> s.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private record Frame(long sequence, Set<DataWithMediaType> data) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<String> stations;
+        private final Queue<Frame> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long after = Long.MAX_VALUE;
+
+        Subscriber(SseEmitter emitter, Set<String> stations) {
+            this.emitter = emitter;
+            this.stations = stations;
+        }
+
+        /**
+         * Starts delivering frames newer than the snapshot; frames queued meanwhile are kept.
+         */
+        void start(long snapshotSequence) {
+            after = snapshotSequence;
+            schedule();
+        }
+
+        void offer(Frame frame) {
+            if (size.incrementAndGet() > properties.getMaxPendingFrames()) {
+                log.warn("Station feed subscriber for {} is too slow, disconnecting", stations);
+                unregister();
+                emitter.complete();
+                return;
+            }
+            pending.add(frame);
+            if (after != Long.MAX_VALUE) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Frame frame;
+                while ((frame = pending.poll()) != null) {
+                    size.decrementAndGet();
+                    if (frame.sequence() <= after) {
+                        continue;
+                    }
+                    try {
+                        emitter.send(frame.data());
+                    } catch (IOException | IllegalStateException e) {
+                        log.debug("Station feed subscriber for {} is gone: {}", stations, e.getMessage());
+                        unregister();
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        void unregister() {
+            for (String station : stations) {
+                subscribers.computeIfPresent(station, (k, set) -> {
+                    set.remove(this);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.safetynet.alerts.history;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Window of versions kept by {@link StoreHistory}, bound from {@code safetynet.history.*}.
+ */
+@Data
+@ConfigurationProperties("safetynet.history")
+public class HistoryProperties {
+    /** Turns the version history, and with it {@code asOf} queries, on or off. */
+    private boolean enabled = true;
+    /** How far back {@code asOf} queries can go. */
+    private Duration retention = Duration.ofDays(7);
+    /** Upper bound on the versions kept, whatever their age. */
+    private int maxVersions = 100_000;
+    /** Historical versions kept materialized, with their indexes, for repeated queries. */
+    private int cachedSnapshots = 4;
+}
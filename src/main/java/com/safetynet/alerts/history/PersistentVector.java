@@ -0,0 +1,112 @@
+package com.safetynet.alerts.history;
+
+import java.util.function.Consumer;
+
+/**
+ * Immutable list of up to {@code 2^31} elements stored in a 32-way trie. {@link #set(int, Object)}
+ * and {@link #append(Object)} return a new vector that shares every node with this one except the
+ * path to the changed element: about {@code log32(size)} arrays of 32 references are copied, so
+ * many versions of a large list cost memory proportional to their differences.
+ *
+ * @param <T> element type; {@code null} elements are allowed
+ */
+final class PersistentVector<T> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(new Object[WIDTH], 0, 0);
+
+    private final Object[] root;
+    /** Bits of the index consumed above the leaves: 0 when the root is a leaf. */
+    private final int shift;
+    private final int size;
+
+    private PersistentVector(Object[] root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[index >>> level & MASK];
+        }
+        return (T) node[index & MASK];
+    }
+
+    PersistentVector<T> set(int index, T value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return new PersistentVector<>(set(root, shift, index, value), shift, size);
+    }
+
+    private static Object[] set(Object[] node, int level, int index, Object value) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int slot = index >>> level & MASK;
+            copy[slot] = set((Object[]) node[slot], level - BITS, index, value);
+        }
+        return copy;
+    }
+
+    PersistentVector<T> append(T value) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Vector is full");
+        }
+        if (shift < 30 && size == 1 << shift + BITS) {
+            // the trie is full: grow a level, the old root becomes the first child
+            Object[] grown = new Object[WIDTH];
+            grown[0] = root;
+            return new PersistentVector<>(append(grown, shift + BITS, size, value), shift + BITS, size + 1);
+        }
+        return new PersistentVector<>(append(root, shift, size, value), shift, size + 1);
+    }
+
+    private static Object[] append(Object[] node, int level, int index, Object value) {
+        Object[] copy = node != null ? node.clone() : new Object[WIDTH];
+        if (level == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int slot = index >>> level & MASK;
+            copy[slot] = append((Object[]) copy[slot], level - BITS, index, value);
+        }
+        return copy;
+    }
+
+    /**
+     * Passes the elements to {@code action} in index order.
+     */
+    void forEach(Consumer<? super T> action) {
+        forEach(root, shift, 0, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int forEach(Object[] node, int level, int visited, Consumer<? super T> action) {
+        for (int i = 0; i < WIDTH && visited < size; i++) {
+            if (level == 0) {
+                action.accept((T) node[i]);
+                visited++;
+            } else {
+                visited = forEach((Object[]) node[i], level - BITS, visited, action);
+            }
+        }
+        return visited;
+    }
+}
@@ -0,0 +1,14 @@
+package com.safetynet.alerts.history;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown for an {@code asOf} instant older than the versions kept by {@link StoreHistory}.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class SnapshotUnavailableException extends RuntimeException {
+    public SnapshotUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,432 @@
+package com.safetynet.alerts.history;
+
+import com.safetynet.alerts.service.DataService;
+import com.safetynet.alerts.service.StoreChange;
+import com.safetynet.alerts.service.StoreChange.FirestationAdded;
+import com.safetynet.alerts.service.StoreChange.FirestationUpdated;
+import com.safetynet.alerts.service.StoreChange.FirestationsRemoved;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordAdded;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordUpdated;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordsRemoved;
+import com.safetynet.alerts.service.StoreChange.PersonAdded;
+import com.safetynet.alerts.service.StoreChange.PersonUpdated;
+import com.safetynet.alerts.service.StoreChange.PersonsRemoved;
+import com.safetynet.alerts.service.StoreListener;
+import com.safetynet.alerts.store.CompactCodec;
+import com.safetynet.alerts.store.CompactFirestation;
+import com.safetynet.alerts.store.CompactMedicalRecord;
+import com.safetynet.alerts.store.CompactPerson;
+import com.safetynet.alerts.store.ResidentStore;
+import com.safetynet.alerts.store.StoreProperties;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Versions of the persons, medical records and firestations of {@link DataService}, one per
+ * successful mutation, kept for {@link HistoryProperties#getRetention()} so that queries can be
+ * answered as of an earlier instant.
+ * <p>
+ * Each entity type is a {@link PersistentVector} of the compact rows shared with the live store.
+ * A change copies only the path to the changed slot, so the window costs memory proportional to
+ * the changes rather than to the dataset. Removed rows leave an empty slot, which keeps the other
+ * slots in place; vectors with more empty slots than rows are compacted.
+ * </p>
+ * <p>
+ * Changed rows are applied as {@link StoreListener} changes, found through a map of the slots by
+ * name (by address for firestations), and {@link com.safetynet.alerts.service.AlertService} calls
+ * {@link #commit()} once its mutation is complete. After a reload, the next commit or lookup
+ * records the whole store as a new version.
+ * </p>
+ * <p>
+ * The rows kept are heap objects. With the {@link StoreProperties.Type#OFF_HEAP off-heap} store,
+ * which exists to keep the rows off the heap, the history is disabled, and with it {@code asOf}
+ * queries.
+ * </p>
+ */
+public class StoreHistory implements StoreListener {
+
+    /**
+     * The data as it was from {@link #at()} until the next version.
+     */
+    public static final class Version {
+        private final long id;
+        private final Instant at;
+        private final PersistentVector<CompactPerson> persons;
+        private final int personCount;
+        private final PersistentVector<CompactMedicalRecord> medicalRecords;
+        private final int medicalRecordCount;
+        private final PersistentVector<CompactFirestation> firestations;
+
+        private Version(long id, Instant at, Rows<CompactPerson> persons, Rows<CompactMedicalRecord> medicalRecords,
+                        Rows<CompactFirestation> firestations) {
+            this.id = id;
+            this.at = at;
+            this.persons = persons.slots;
+            this.personCount = persons.live;
+            this.medicalRecords = medicalRecords.slots;
+            this.medicalRecordCount = medicalRecords.live;
+            this.firestations = firestations.slots;
+        }
+
+        public long id() {
+            return id;
+        }
+
+        public Instant at() {
+            return at;
+        }
+
+        public List<CompactPerson> persons() {
+            return rows(persons);
+        }
+
+        public List<CompactMedicalRecord> medicalRecords() {
+            return rows(medicalRecords);
+        }
+
+        public List<CompactFirestation> firestations() {
+            return rows(firestations);
+        }
+
+        private static <T> List<T> rows(PersistentVector<T> slots) {
+            List<T> rows = new ArrayList<>(slots.size());
+            slots.forEach(row -> {
+                if (row != null) {
+                    rows.add(row);
+                }
+            });
+            return rows;
+        }
+
+        /**
+         * A read-only store over the rows of this version, without copying them, decoded with the
+         * live {@code codec}: dictionaries only grow, so the codes of older rows stay valid.
+         */
+        public DataService view(CompactCodec codec) {
+            return DataService.view(codec, new VersionStore(persons, personCount, medicalRecords, medicalRecordCount),
+                    firestations());
+        }
+    }
+
+    /**
+     * Rows of one entity type with the empty slots left by removals, and the slots of the rows by
+     * {@code key}, ascending.
+     */
+    private static final class Rows<T> {
+        private static final int[] NO_SLOTS = new int[0];
+
+        private final Function<T, Object> key;
+        private final Map<Object, int[]> slotsByKey = new HashMap<>();
+        private PersistentVector<T> slots = PersistentVector.empty();
+        private int live;
+
+        Rows(Function<T, Object> key) {
+            this.key = key;
+        }
+
+        void reset() {
+            slots = PersistentVector.empty();
+            slotsByKey.clear();
+            live = 0;
+        }
+
+        void add(T row) {
+            index(row, slots.size());
+            slots = slots.append(row);
+            live++;
+        }
+
+        /**
+         * Replaces the first row with the key of {@code row} that matches, {@code false} when there
+         * is none.
+         */
+        boolean replace(T row, Predicate<T> matches) {
+            Object k = key.apply(row);
+            int slot = find(k, matches);
+            if (slot >= 0) {
+                Object previous = key.apply(slots.get(slot));
+                if (!previous.equals(k)) {
+                    unindex(previous, slot);
+                    index(row, slot);
+                }
+                slots = slots.set(slot, row);
+            }
+            return slot >= 0;
+        }
+
+        /**
+         * Removes the first row with key {@code k} that matches, {@code false} when there is none.
+         */
+        boolean remove(Object k, Predicate<T> matches) {
+            int slot = find(k, matches);
+            if (slot >= 0) {
+                unindex(k, slot);
+                slots = slots.set(slot, null);
+                live--;
+                if (slots.size() - live > Math.max(MIN_COMPACTION, live)) {
+                    compact();
+                }
+            }
+            return slot >= 0;
+        }
+
+        private int find(Object k, Predicate<T> matches) {
+            for (int slot : slotsByKey.getOrDefault(k, NO_SLOTS)) {
+                if (matches.test(slots.get(slot))) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void index(T row, int slot) {
+            slotsByKey.merge(key.apply(row), new int[]{slot}, (present, added) -> {
+                int[] merged = Arrays.copyOf(present, present.length + 1);
+                merged[present.length] = slot;
+                Arrays.sort(merged);
+                return merged;
+            });
+        }
+
+        private void unindex(Object k, int slot) {
+            int[] present = slotsByKey.get(k);
+            int[] kept = Arrays.stream(present).filter(s -> s != slot).toArray();
+            if (kept.length == 0) {
+                slotsByKey.remove(k);
+            } else {
+                slotsByKey.put(k, kept);
+            }
+        }
+
+        private void compact() {
+            PersistentVector<T> old = slots;
+            reset();
+            old.forEach(row -> {
+                if (row != null) {
+                    add(row);
+                }
+            });
+        }
+    }
+
+    /**
+     * Key of persons and medical records in {@link Rows}.
+     */
+    private record Name(String firstName, String lastName) {
+    }
+
+    static final int MIN_COMPACTION = 1024;
+
+    private final DataService dataService;
+    private final HistoryProperties properties;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final List<Version> versions = new ArrayList<>();
+    private long nextId;
+
+    private final boolean enabled;
+    private final Rows<CompactPerson> persons = new Rows<>(p -> new Name(p.firstName(), p.lastName()));
+    private final Rows<CompactMedicalRecord> medicalRecords = new Rows<>(m -> new Name(m.firstName(), m.lastName()));
+    private final Rows<CompactFirestation> firestations = new Rows<>(CompactFirestation::address);
+    /** {@link DataService#getVersion()} the head rows reflect. */
+    private long version = -1;
+    private boolean changed;
+
+    public StoreHistory(DataService dataService, HistoryProperties properties) {
+        this(dataService, properties, Clock.systemUTC());
+    }
+
+    StoreHistory(DataService dataService, HistoryProperties properties, Clock clock) {
+        this.dataService = dataService;
+        this.properties = properties;
+        this.clock = clock;
+        this.enabled = properties.isEnabled() && dataService.getStoreType() != StoreProperties.Type.OFF_HEAP;
+        if (enabled) {
+            commit();
+        }
+    }
+
+    @Override
+    public void changed(StoreChange change) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            changed = true;
+            if (version + 1 == dataService.getVersion() && apply(change)) {
+                version = dataService.getVersion();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies {@code change} to the head rows, {@code false} when they do not match the store.
+     * Updates replace the first record named like the updated one, as the update did in the store.
+     */
+    private boolean apply(StoreChange change) {
+        ResidentStore store = dataService.getStore();
+        switch (change) {
+            case PersonAdded added -> persons.add(store.person(added.row()));
+            case PersonUpdated updated -> {
+                return persons.replace(store.person(updated.row()), p -> true);
+            }
+            case PersonsRemoved removed -> {
+                boolean all = true;
+                for (CompactPerson person : removed.removed()) {
+                    all &= persons.remove(new Name(person.firstName(), person.lastName()), person::equals);
+                }
+                return all;
+            }
+            case MedicalRecordAdded added -> medicalRecords.add(store.medicalRecord(added.row()));
+            case MedicalRecordUpdated updated -> {
+                return medicalRecords.replace(store.medicalRecord(updated.row()), m -> true);
+            }
+            case MedicalRecordsRemoved removed -> {
+                boolean all = true;
+                for (CompactMedicalRecord record : removed.removed()) {
+                    all &= medicalRecords.remove(new Name(record.firstName(), record.lastName()), m -> true);
+                }
+                return all;
+            }
+            case FirestationAdded added -> firestations.add(dataService.getFirestations().get(added.index()));
+            case FirestationUpdated updated -> {
+                return firestations.replace(dataService.getFirestations().get(updated.index()), f -> true);
+            }
+            case FirestationsRemoved removed -> {
+                boolean all = true;
+                for (CompactFirestation firestation : removed.removed()) {
+                    all &= firestations.remove(firestation.address(), firestation::equals);
+                }
+                return all;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the reported changes as a new version, or the whole store if it was changed
+     * without being reported.
+     */
+    public void commit() {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            boolean rebased = rebaseIfDiverged();
+            if (changed || rebased) {
+                record();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The version current at {@code instant}, empty when {@code instant} precedes the versions
+     * kept or the history is disabled.
+     */
+    public Optional<Version> at(Instant instant) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        lock.lock();
+        try {
+            if (rebaseIfDiverged()) {
+                record();
+            }
+            int low = 0;
+            int high = versions.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (versions.get(mid).at().isAfter(instant)) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return high >= 0 ? Optional.of(versions.get(high)) : Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The version of the live data, empty when the history is disabled.
+     */
+    public Optional<Version> latest() {
+        return at(Instant.MAX);
+    }
+
+    /**
+     * Whether {@code version} is the latest one, that is the live data.
+     */
+    public boolean isLatest(Version version) {
+        lock.lock();
+        try {
+            return !versions.isEmpty() && versions.get(versions.size() - 1) == version;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Versions kept.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return versions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean rebaseIfDiverged() {
+        if (version == dataService.getVersion()) {
+            return false;
+        }
+        ResidentStore store = dataService.getStore();
+        persons.reset();
+        medicalRecords.reset();
+        firestations.reset();
+        for (int row = 0; row < store.personCount(); row++) {
+            persons.add(store.person(row));
+        }
+        for (int row = 0; row < store.medicalRecordCount(); row++) {
+            medicalRecords.add(store.medicalRecord(row));
+        }
+        dataService.getFirestations().forEach(firestations::add);
+        version = dataService.getVersion();
+        return true;
+    }
+
+    private void record() {
+        Instant now = clock.instant();
+        versions.add(new Version(nextId++, now, persons, medicalRecords, firestations));
+        changed = false;
+
+        // keep the newest version older than the window: it is the data at the start of the window
+        Instant cutoff = now.minus(properties.getRetention());
+        int drop = 0;
+        while (drop + 1 < versions.size() && !versions.get(drop + 1).at().isAfter(cutoff)) {
+            drop++;
+        }
+        drop = Math.max(drop, versions.size() - Math.max(1, properties.getMaxVersions()));
+        versions.subList(0, drop).clear();
+    }
+}
@@ -0,0 +1,185 @@
+package com.safetynet.alerts.history;
+
+import com.safetynet.alerts.store.CompactMedicalRecord;
+import com.safetynet.alerts.store.CompactPerson;
+import com.safetynet.alerts.store.Encodings;
+import com.safetynet.alerts.store.ResidentStore;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Read-only {@link ResidentStore} over the rows of a {@link StoreHistory.Version}.
+ * <p>
+ * Rows are read from the persistent vectors of the version, which are shared with the live
+ * history, so a view costs no copy of the rows. The empty slots left by removals are skipped
+ * through a row to slot table, built on first use and only for vectors that have empty slots.
+ * </p>
+ */
+final class VersionStore implements ResidentStore {
+
+    /**
+     * The {@code count} non-empty slots of {@code slots}, in order.
+     */
+    private static final class Rows<T> {
+        private final PersistentVector<T> slots;
+        private final int count;
+        private volatile int[] slotOfRow;
+
+        Rows(PersistentVector<T> slots, int count) {
+            this.slots = slots;
+            this.count = count;
+        }
+
+        T get(int row) {
+            if (row < 0 || row >= count) {
+                throw new IndexOutOfBoundsException(row);
+            }
+            if (count == slots.size()) {
+                return slots.get(row);
+            }
+            int[] table = slotOfRow;
+            if (table == null) {
+                // readers share the lock: two of them may build the same table
+                table = new int[count];
+                int next = 0;
+                for (int slot = 0; slot < slots.size(); slot++) {
+                    if (slots.get(slot) != null) {
+                        table[next++] = slot;
+                    }
+                }
+                slotOfRow = table;
+            }
+            return slots.get(table[row]);
+        }
+    }
+
+    private final Rows<CompactPerson> persons;
+    private final Rows<CompactMedicalRecord> medicalRecords;
+
+    VersionStore(PersistentVector<CompactPerson> persons, int personCount,
+                 PersistentVector<CompactMedicalRecord> medicalRecords, int medicalRecordCount) {
+        this.persons = new Rows<>(persons, personCount);
+        this.medicalRecords = new Rows<>(medicalRecords, medicalRecordCount);
+    }
+
+    @Override
+    public int personCount() {
+        return persons.count;
+    }
+
+    @Override
+    public String firstName(int row) {
+        return persons.get(row).firstName();
+    }
+
+    @Override
+    public String lastName(int row) {
+        return persons.get(row).lastName();
+    }
+
+    @Override
+    public int address(int row) {
+        return persons.get(row).address();
+    }
+
+    @Override
+    public int city(int row) {
+        return persons.get(row).city();
+    }
+
+    @Override
+    public String phone(int row) {
+        CompactPerson p = persons.get(row);
+        return p.phone() != Encodings.NO_PHONE ? Encodings.decodePhone(p.phone()) : p.phoneText();
+    }
+
+    @Override
+    public long phoneCode(int row) {
+        return persons.get(row).phone();
+    }
+
+    @Override
+    public String email(int row) {
+        return persons.get(row).email();
+    }
+
+    @Override
+    public CompactPerson person(int row) {
+        return persons.get(row);
+    }
+
+    @Override
+    public int add(CompactPerson person) {
+        throw readOnly();
+    }
+
+    @Override
+    public void set(int row, CompactPerson person) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<CompactPerson> removePersons(IntPredicate matches) {
+        throw readOnly();
+    }
+
+    @Override
+    public int medicalRecordCount() {
+        return medicalRecords.count;
+    }
+
+    @Override
+    public String medicalFirstName(int row) {
+        return medicalRecords.get(row).firstName();
+    }
+
+    @Override
+    public String medicalLastName(int row) {
+        return medicalRecords.get(row).lastName();
+    }
+
+    @Override
+    public int birthdate(int row) {
+        return medicalRecords.get(row).birthdate();
+    }
+
+    @Override
+    public int[] medications(int row) {
+        return medicalRecords.get(row).medications();
+    }
+
+    @Override
+    public int[] allergies(int row) {
+        return medicalRecords.get(row).allergies();
+    }
+
+    @Override
+    public CompactMedicalRecord medicalRecord(int row) {
+        return medicalRecords.get(row);
+    }
+
+    @Override
+    public int add(CompactMedicalRecord record) {
+        throw readOnly();
+    }
+
+    @Override
+    public void set(int row, CompactMedicalRecord record) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<CompactMedicalRecord> removeMedicalRecords(IntPredicate matches) {
+        throw readOnly();
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return 0;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Historical versions are read-only");
+    }
+}
@@ -0,0 +1,268 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.service.DataService;
+import com.safetynet.alerts.service.StoreChange;
+import com.safetynet.alerts.service.StoreChange.FirestationAdded;
+import com.safetynet.alerts.service.StoreChange.FirestationUpdated;
+import com.safetynet.alerts.service.StoreChange.FirestationsRemoved;
+import com.safetynet.alerts.service.StoreChange.PersonAdded;
+import com.safetynet.alerts.service.StoreChange.PersonUpdated;
+import com.safetynet.alerts.service.StoreChange.PersonsRemoved;
+import com.safetynet.alerts.service.StoreListener;
+import com.safetynet.alerts.store.CompactFirestation;
+import com.safetynet.alerts.store.Dictionary;
+import com.safetynet.alerts.store.ResidentStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resolves the addresses sent by callers to the known person and firestation addresses, even when
+ * they are spelled differently ({@code "1509 culver street"} for {@code "1509 Culver St"}).
+ * <p>
+ * Addresses are looked up case-insensitively first, then by their {@link AddressNormalizer
+ * normalized} form and finally through a trigram index over the normalized forms: the candidate
+ * sharing the most trigrams wins if its Dice similarity reaches {@value #MIN_SCORE} and its house
+ * number equals the requested one, since the neighbour's address is worse than none in an emergency.
+ * Work per lookup is bounded: at most {@value #MAX_QUERY_TRIGRAMS} trigrams of the request are used
+ * and trigrams shared by more than {@value #MAX_POSTINGS} addresses are skipped as uninformative when
+ * gathering candidates. The {@value #SHORTLIST} candidates sharing the most of the other trigrams are
+ * then scored on their full trigram sets, so that a skipped trigram neither counts against a match
+ * nor pushes every score below {@value #MIN_SCORE} on a large dataset.
+ * </p>
+ * <p>
+ * The address dictionary only grows, so the next fuzzy lookup indexes the addresses encoded since
+ * the previous one. Only addresses in use by a person or a firestation are returned: the index
+ * counts the persons and mappings at each address code, which {@link StoreListener} changes adjust
+ * as they happen, and counts them again on the next lookup after a reload. Lookups are serialized.
+ * </p>
+ */
+public class AddressIndex implements StoreListener {
+    static final double MIN_SCORE = 0.6;
+    static final int MAX_QUERY_TRIGRAMS = 64;
+    static final int MAX_POSTINGS = 4096;
+    static final int SHORTLIST = 32;
+
+    private final DataService dataService;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    /** Normalized forms, by id. */
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, Integer> keyIds = new HashMap<>();
+    /** Address codes per normalized form id. */
+    private final List<int[]> codesByKey = new ArrayList<>();
+    private final List<Integer> trigramCounts = new ArrayList<>();
+    private final Map<Integer, int[]> postings = new HashMap<>();
+    private final Map<Integer, Integer> postingSizes = new HashMap<>();
+    private int indexedCodes;
+
+    /** Persons and firestation mappings per address code. */
+    private int[] uses = new int[0];
+    /** {@link DataService#getVersion()} the counts reflect. */
+    private long usesVersion = -1;
+
+    public AddressIndex(DataService dataService) {
+        this.dataService = dataService;
+    }
+
+    @Override
+    public void changed(StoreChange change) {
+        if (usesVersion + 1 != dataService.getVersion()) {
+            return;
+        }
+        ResidentStore store = dataService.getStore();
+        switch (change) {
+            case PersonAdded added -> use(store.address(added.row()), 1);
+            case PersonUpdated updated -> {
+                use(updated.previous().address(), -1);
+                use(store.address(updated.row()), 1);
+            }
+            case PersonsRemoved removed -> removed.removed().forEach(p -> use(p.address(), -1));
+            case FirestationAdded added -> use(dataService.getFirestations().get(added.index()).address(), 1);
+            case FirestationUpdated updated -> {
+                use(updated.previous().address(), -1);
+                use(dataService.getFirestations().get(updated.index()).address(), 1);
+            }
+            case FirestationsRemoved removed -> removed.removed().forEach(f -> use(f.address(), -1));
+            default -> {
+            }
+        }
+        usesVersion = dataService.getVersion();
+    }
+
+    private void use(int code, int delta) {
+        if (code == Dictionary.NONE) {
+            return;
+        }
+        if (code >= uses.length) {
+            uses = Arrays.copyOf(uses, Math.max(code + 1, uses.length * 2));
+        }
+        uses[code] += delta;
+    }
+
+    private boolean used(int code) {
+        return code < uses.length && uses[code] > 0;
+    }
+
+    private void ensureFresh() {
+        catchUp();
+        if (usesVersion != dataService.getVersion()) {
+            countUses();
+        }
+    }
+
+    private void countUses() {
+        ResidentStore store = dataService.getStore();
+        Arrays.fill(uses, 0);
+        for (int row = 0; row < store.personCount(); row++) {
+            use(store.address(row), 1);
+        }
+        for (CompactFirestation f : dataService.getFirestations()) {
+            use(f.address(), 1);
+        }
+        usesVersion = dataService.getVersion();
+    }
+
+    private void catchUp() {
+        Dictionary addresses = dataService.getCodec().getAddresses();
+        for (; indexedCodes < addresses.size(); indexedCodes++) {
+            String key = AddressNormalizer.normalize(addresses.decode(indexedCodes));
+            Integer id = keyIds.get(key);
+            if (id == null) {
+                id = keys.size();
+                keys.add(key);
+                keyIds.put(key, id);
+                codesByKey.add(new int[]{indexedCodes});
+                int[] trigrams = trigrams(key);
+                trigramCounts.add(trigrams.length);
+                for (int trigram : trigrams) {
+                    post(trigram, id);
+                }
+            } else {
+                int[] codes = codesByKey.get(id);
+                codes = Arrays.copyOf(codes, codes.length + 1);
+                codes[codes.length - 1] = indexedCodes;
+                codesByKey.set(id, codes);
+            }
+        }
+    }
+
+    private void post(int trigram, int id) {
+        int size = postingSizes.getOrDefault(trigram, 0);
+        int[] ids = postings.get(trigram);
+        if (ids == null) {
+            ids = new int[4];
+        } else if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size] = id;
+        postings.put(trigram, ids);
+        postingSizes.put(trigram, size + 1);
+    }
+
+    /**
+     * Distinct trigrams of a normalized address, padded so that word boundaries count.
+     */
+    static int[] trigrams(String normalized) {
+        String padded = "  " + normalized + " ";
+        int[] trigrams = new int[Math.max(0, padded.length() - 2)];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = padded.charAt(i) << 16 ^ padded.charAt(i + 1) << 8 ^ padded.charAt(i + 2);
+        }
+        return Arrays.stream(trigrams).distinct().toArray();
+    }
+
+    /**
+     * Known address best matching {@code address}, empty when nothing is close enough.
+     */
+    public Optional<AddressMatch> resolve(String address) {
+        if (address == null || address.isBlank()) {
+            return Optional.empty();
+        }
+        Dictionary addresses = dataService.getCodec().getAddresses();
+        refreshLock.lock();
+        try {
+            ensureFresh();
+            int[] exact = Arrays.stream(addresses.findIgnoreCase(address)).filter(this::used).toArray();
+            if (exact.length > 0) {
+                return Optional.of(new AddressMatch(addresses.decode(exact[0]), 1.0, exact));
+            }
+            return resolveFuzzy(AddressNormalizer.normalize(address));
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private Optional<AddressMatch> resolveFuzzy(String key) {
+        Integer id = keyIds.get(key);
+        if (id != null && inUse(id)) {
+            return Optional.of(match(id, 1.0));
+        }
+
+        int[] query = trigrams(key);
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (int i = 0; i < Math.min(query.length, MAX_QUERY_TRIGRAMS); i++) {
+            int size = postingSizes.getOrDefault(query[i], 0);
+            if (size == 0 || size > MAX_POSTINGS) {
+                continue;
+            }
+            int[] ids = postings.get(query[i]);
+            for (int p = 0; p < size; p++) {
+                shared.merge(ids[p], 1, Integer::sum);
+            }
+        }
+
+        String number = AddressNormalizer.houseNumber(key);
+        List<Map.Entry<Integer, Integer>> shortlist = shared.entrySet().stream()
+                .filter(candidate -> inUse(candidate.getKey()) && (number == null
+                        || number.equals(AddressNormalizer.houseNumber(keys.get(candidate.getKey())))))
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(SHORTLIST)
+                .toList();
+
+        int[] sortedQuery = query.clone();
+        Arrays.sort(sortedQuery);
+        int best = -1;
+        double bestScore = MIN_SCORE;
+        for (Map.Entry<Integer, Integer> candidate : shortlist) {
+            int candidateId = candidate.getKey();
+            double score = 2.0 * common(sortedQuery, trigrams(keys.get(candidateId)))
+                    / (query.length + trigramCounts.get(candidateId));
+            if (score > bestScore || score == bestScore && (best < 0 || candidateId < best)) {
+                best = candidateId;
+                bestScore = score;
+            }
+        }
+        return best >= 0 ? Optional.of(match(best, bestScore)) : Optional.empty();
+    }
+
+    private static int common(int[] sortedQuery, int[] trigrams) {
+        int common = 0;
+        for (int trigram : trigrams) {
+            if (Arrays.binarySearch(sortedQuery, trigram) >= 0) {
+                common++;
+            }
+        }
+        return common;
+    }
+
+    private boolean inUse(int id) {
+        for (int code : codesByKey.get(id)) {
+            if (used(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AddressMatch match(int id, double score) {
+        int[] codes = Arrays.stream(codesByKey.get(id)).filter(this::used).toArray();
+        return new AddressMatch(dataService.getCodec().getAddresses().decode(codes[0]), score, codes);
+    }
+}
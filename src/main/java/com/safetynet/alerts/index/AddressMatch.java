@@ -0,0 +1,13 @@
+package com.safetynet.alerts.index;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Known address resolved for a requested one.
+ *
+ * @param address the known spelling
+ * @param score   1 for an exact or normalized match, the trigram similarity (0 to 1) otherwise
+ * @param codes   address codes of every spelling with the same normalized form
+ */
+public record AddressMatch(String address, double score, @JsonIgnore int[] codes) {
+}
@@ -0,0 +1,69 @@
+package com.safetynet.alerts.index;
+
+import java.util.Map;
+
+/**
+ * Canonical form of a street address for matching: lower case, punctuation removed, whitespace
+ * collapsed and the usual USPS suffixes and directions abbreviated, so that
+ * {@code "1509 Culver Street."} and {@code "1509  culver st"} both become {@code "1509 culver st"}.
+ */
+public final class AddressNormalizer {
+    private static final Map<String, String> ABBREVIATIONS = Map.ofEntries(
+            Map.entry("street", "st"), Map.entry("str", "st"),
+            Map.entry("avenue", "ave"), Map.entry("av", "ave"),
+            Map.entry("road", "rd"),
+            Map.entry("drive", "dr"),
+            Map.entry("boulevard", "blvd"),
+            Map.entry("lane", "ln"),
+            Map.entry("court", "ct"),
+            Map.entry("place", "pl"),
+            Map.entry("square", "sq"),
+            Map.entry("terrace", "ter"),
+            Map.entry("parkway", "pkwy"),
+            Map.entry("highway", "hwy"),
+            Map.entry("circle", "cir"),
+            Map.entry("north", "n"), Map.entry("south", "s"), Map.entry("east", "e"), Map.entry("west", "w"),
+            Map.entry("apartment", "apt"), Map.entry("suite", "ste"));
+
+    private AddressNormalizer() {
+    }
+
+    /**
+     * Normalized form of {@code address}, empty for {@code null} or blank input.
+     */
+    public static String normalize(String address) {
+        if (address == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(address.length());
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= address.length(); i++) {
+            char c = i < address.length() ? address.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (c == '\'') {
+                // "o'neil" and "oneil" are the same street
+                continue;
+            } else if (!word.isEmpty()) {
+                if (!out.isEmpty()) {
+                    out.append(' ');
+                }
+                String w = word.toString();
+                out.append(ABBREVIATIONS.getOrDefault(w, w));
+                word.setLength(0);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Leading house number of a normalized address, or {@code null} when it does not start with one.
+     */
+    static String houseNumber(String normalized) {
+        int end = 0;
+        while (end < normalized.length() && Character.isDigit(normalized.charAt(end))) {
+            end++;
+        }
+        return end > 0 ? normalized.substring(0, end) : null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.safetynet.alerts.index;
+
+/**
+ * Fixed-size Bloom filter over 64-bit key hashes: {@link #mightContain(long)} never returns
+ * {@code false} for an added hash and returns {@code true} for other hashes with a probability
+ * that grows with the number of added hashes, about the configured rate at full capacity.
+ * <p>
+ * Bit positions are derived from the two halves of the hash (Kirsch-Mitzenmacher double hashing).
+ * Not thread-safe: callers serialize additions with lookups.
+ * </p>
+ */
+final class BloomFilter {
+    private static final double LN2 = Math.log(2);
+
+    private final long[] words;
+    private final long bits;
+    private final int hashes;
+    private final int capacity;
+    private int added;
+
+    /**
+     * A filter sized for {@code capacity} keys at a false-positive rate of {@code fpp}.
+     */
+    BloomFilter(int capacity, double fpp) {
+        this.capacity = capacity;
+        long wanted = (long) Math.ceil(-capacity * Math.log(fpp) / (LN2 * LN2));
+        this.words = new long[(int) Math.max(1, (wanted + 63) / 64)];
+        this.bits = words.length * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * LN2));
+    }
+
+    void add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bits;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        added++;
+    }
+
+    boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bits;
+            if ((words[(int) (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes added so far, duplicates included.
+     */
+    int added() {
+        return added;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * False-positive rate expected from the hashes added so far.
+     */
+    double expectedFpp() {
+        return Math.pow(1 - Math.exp(-(double) hashes * added / bits), hashes);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of {@code chars}, with a final avalanche so that both halves are usable.
+     */
+    static long hash(CharSequence chars) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < chars.length(); i++) {
+            h ^= chars.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,353 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.service.DataService;
+import com.safetynet.alerts.service.StoreChange;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordAdded;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordUpdated;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordsRemoved;
+import com.safetynet.alerts.service.StoreChange.PersonAdded;
+import com.safetynet.alerts.service.StoreChange.PersonUpdated;
+import com.safetynet.alerts.service.StoreChange.PersonsRemoved;
+import com.safetynet.alerts.service.StoreListener;
+import com.safetynet.alerts.store.CompactMedicalRecord;
+import com.safetynet.alerts.store.Dictionary;
+import com.safetynet.alerts.store.ResidentStore;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compressed bitmaps of person rows per medication, allergy and address, to answer clinical
+ * filters ("station 3 and allergic to peanuts") with bitmap operations instead of scans.
+ * <p>
+ * A person is in the bitmap of a term when the first medical record with the same first and
+ * last name lists it, as in the other queries. Names are looked up through bitmaps of rows per
+ * last name and the medical record of each person is kept in a column of ints, so the index holds
+ * objects per family and per term rather than per person. Changes are applied in place as
+ * {@link StoreListener} changes: deletes drop the removed rows from the bitmaps and move the
+ * following ones down, as the store does.
+ * </p>
+ */
+public class ClinicalIndex implements StoreListener {
+    private final DataService dataService;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final Map<Integer, RoaringBitmap> medications = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> allergies = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> addresses = new HashMap<>();
+    /** Person and medical record rows by last name: a bitmap per family, not per person. */
+    private final Map<String, RoaringBitmap> personsByLastName = new HashMap<>();
+    private final Map<String, RoaringBitmap> medicalRecordsByLastName = new HashMap<>();
+    /** Row of the medical record of each person row, or -1. */
+    private int[] medicalRecordOfPerson = new int[0];
+
+    /** {@link DataService#getVersion()} the index reflects. */
+    private volatile long version = -1;
+
+    public ClinicalIndex(DataService dataService) {
+        this.dataService = dataService;
+    }
+
+    /**
+     * Rebuilds the index if it is stale. Safe to call concurrently under the read lock.
+     */
+    private void ensureFresh() {
+        if (version == dataService.getVersion()) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            if (version != dataService.getVersion()) {
+                rebuild();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuild() {
+        medications.clear();
+        allergies.clear();
+        addresses.clear();
+        personsByLastName.clear();
+        medicalRecordsByLastName.clear();
+        ResidentStore store = dataService.getStore();
+        for (int m = 0; m < store.medicalRecordCount(); m++) {
+            medicalRecordsByLastName.computeIfAbsent(store.medicalLastName(m), n -> new RoaringBitmap()).add(m);
+        }
+        medicalRecordOfPerson = new int[store.personCount()];
+        for (int row = 0; row < store.personCount(); row++) {
+            index(store, row);
+        }
+        version = dataService.getVersion();
+    }
+
+    private void index(ResidentStore store, int row) {
+        String lastName = store.lastName(row);
+        personsByLastName.computeIfAbsent(lastName, n -> new RoaringBitmap()).add(row);
+        if (store.address(row) != Dictionary.NONE) {
+            addresses.computeIfAbsent(store.address(row), a -> new RoaringBitmap()).add(row);
+        }
+        if (row >= medicalRecordOfPerson.length) {
+            medicalRecordOfPerson = Arrays.copyOf(medicalRecordOfPerson, Math.max(row + 1, medicalRecordOfPerson.length * 2));
+        }
+        int m = firstMedicalRecord(store, store.firstName(row), lastName);
+        medicalRecordOfPerson[row] = m;
+        if (m >= 0) {
+            set(medications, store.medications(m), row, true);
+            set(allergies, store.allergies(m), row, true);
+        }
+    }
+
+    private int firstMedicalRecord(ResidentStore store, String firstName, String lastName) {
+        RoaringBitmap records = medicalRecordsByLastName.get(lastName);
+        if (records != null) {
+            for (int m : records) {
+                if (Objects.equals(firstName, store.medicalFirstName(m))) {
+                    return m;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private RoaringBitmap personsNamed(ResidentStore store, String firstName, String lastName) {
+        RoaringBitmap rows = new RoaringBitmap();
+        RoaringBitmap family = personsByLastName.get(lastName);
+        if (family != null) {
+            for (int row : family) {
+                if (Objects.equals(firstName, store.firstName(row))) {
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static void set(Map<Integer, RoaringBitmap> bitmaps, int[] terms, int row, boolean present) {
+        if (terms == null) {
+            return;
+        }
+        for (int term : terms) {
+            if (present) {
+                bitmaps.computeIfAbsent(term, t -> new RoaringBitmap()).add(row);
+            } else {
+                RoaringBitmap bitmap = bitmaps.get(term);
+                if (bitmap != null) {
+                    bitmap.remove(row);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void changed(StoreChange change) {
+        if (version + 1 != dataService.getVersion()) {
+            return;
+        }
+        ResidentStore store = dataService.getStore();
+        switch (change) {
+            case PersonAdded added -> index(store, added.row());
+            case PersonUpdated updated -> moved(store, updated.row(), updated.previous().address());
+            case PersonsRemoved removed -> personsRemoved(removed.rows());
+            case MedicalRecordAdded added -> medicalRecordAdded(store, added.row());
+            case MedicalRecordUpdated updated -> medicalRecordUpdated(store, updated.row(), updated.previous());
+            case MedicalRecordsRemoved removed -> medicalRecordsRemoved(store, removed.rows(), removed.removed());
+            default -> {
+            }
+        }
+        version = dataService.getVersion();
+    }
+
+    private void moved(ResidentStore store, int row, int previousAddress) {
+        int address = store.address(row);
+        if (address == previousAddress) {
+            return;
+        }
+        if (previousAddress != Dictionary.NONE) {
+            RoaringBitmap bitmap = addresses.get(previousAddress);
+            if (bitmap != null) {
+                bitmap.remove(row);
+            }
+        }
+        if (address != Dictionary.NONE) {
+            addresses.computeIfAbsent(address, a -> new RoaringBitmap()).add(row);
+        }
+    }
+
+    private void personsRemoved(int[] rows) {
+        for (Map<?, RoaringBitmap> bitmaps : List.of(medications, allergies, addresses, personsByLastName)) {
+            bitmaps.replaceAll((key, bitmap) -> shifted(bitmap, rows));
+            bitmaps.values().removeIf(RoaringBitmap::isEmpty);
+        }
+        int count = dataService.getStore().personCount();
+        for (int row = 0, removed = 0; row < count; row++) {
+            while (removed < rows.length && rows[removed] == row + removed) {
+                removed++;
+            }
+            medicalRecordOfPerson[row] = medicalRecordOfPerson[row + removed];
+        }
+    }
+
+    /**
+     * {@code bitmap} without {@code removed}, ascending, and with the rows after each of them moved
+     * down by one.
+     */
+    static RoaringBitmap shifted(RoaringBitmap bitmap, int[] removed) {
+        if (bitmap.isEmpty() || bitmap.last() < removed[0]) {
+            return bitmap;
+        }
+        RoaringBitmap result = bitmap.selectRange(0, removed[0]);
+        for (int i = 0; i < removed.length; i++) {
+            long end = i + 1 < removed.length ? removed[i + 1] : Integer.MAX_VALUE + 1L;
+            result.or(RoaringBitmap.addOffset(bitmap.selectRange(removed[i] + 1L, end), -(i + 1)));
+        }
+        return result;
+    }
+
+    private void medicalRecordAdded(ResidentStore store, int row) {
+        String firstName = store.medicalFirstName(row);
+        String lastName = store.medicalLastName(row);
+        medicalRecordsByLastName.computeIfAbsent(lastName, n -> new RoaringBitmap()).add(row);
+        if (firstMedicalRecord(store, firstName, lastName) != row) {
+            return;
+        }
+        for (int person : personsNamed(store, firstName, lastName)) {
+            medicalRecordOfPerson[person] = row;
+            set(medications, store.medications(row), person, true);
+            set(allergies, store.allergies(row), person, true);
+        }
+    }
+
+    /**
+     * Clears the terms of the persons whose record was removed and lets the next record of their
+     * name, if any, take over; moves the rows of the other records down.
+     */
+    private void medicalRecordsRemoved(ResidentStore store, int[] rows, List<CompactMedicalRecord> removed) {
+        medicalRecordsByLastName.replaceAll((lastName, bitmap) -> shifted(bitmap, rows));
+        medicalRecordsByLastName.values().removeIf(RoaringBitmap::isEmpty);
+        for (int person = 0; person < store.personCount(); person++) {
+            int m = medicalRecordOfPerson[person];
+            if (m < 0) {
+                continue;
+            }
+            int i = Arrays.binarySearch(rows, m);
+            if (i < 0) {
+                medicalRecordOfPerson[person] = m + i + 1;
+                continue;
+            }
+            CompactMedicalRecord record = removed.get(i);
+            set(medications, record.medications(), person, false);
+            set(allergies, record.allergies(), person, false);
+            int next = firstMedicalRecord(store, record.firstName(), record.lastName());
+            medicalRecordOfPerson[person] = next;
+            if (next >= 0) {
+                set(medications, store.medications(next), person, true);
+                set(allergies, store.allergies(next), person, true);
+            }
+        }
+    }
+
+    private void medicalRecordUpdated(ResidentStore store, int row, CompactMedicalRecord previous) {
+        for (int person : personsNamed(store, store.medicalFirstName(row), store.medicalLastName(row))) {
+            if (medicalRecordOfPerson[person] == row) {
+                set(medications, previous.medications(), person, false);
+                set(allergies, previous.allergies(), person, false);
+                set(medications, store.medications(row), person, true);
+                set(allergies, store.allergies(row), person, true);
+            }
+        }
+    }
+
+    /**
+     * Rows of the persons living at one of {@code addressCodes}.
+     */
+    public RoaringBitmap residentsAt(BitSet addressCodes) {
+        ensureFresh();
+        RoaringBitmap rows = new RoaringBitmap();
+        for (int code = addressCodes.nextSetBit(0); code >= 0; code = addressCodes.nextSetBit(code + 1)) {
+            RoaringBitmap bitmap = addresses.get(code);
+            if (bitmap != null) {
+                rows.or(bitmap);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Rows of the persons whose medical record lists the given medications and allergies: all of
+     * them when {@code all}, at least one otherwise. A term matches the medical terms equal to it
+     * ignoring case or, for medications, starting with it followed by {@code :} (the dose), so
+     * {@code insulin} matches {@code insulin:10u}.
+     *
+     * @return {@code null} when no term was given
+     */
+    public RoaringBitmap withTerms(List<String> medicationTerms, List<String> allergyTerms, boolean all) {
+        ensureFresh();
+        RoaringBitmap result = null;
+        for (String term : medicationTerms) {
+            result = combine(result, rows(medications, term), all);
+        }
+        for (String term : allergyTerms) {
+            result = combine(result, rows(allergies, term), all);
+        }
+        return result;
+    }
+
+    private static RoaringBitmap combine(RoaringBitmap result, RoaringBitmap rows, boolean all) {
+        if (result == null) {
+            return rows;
+        }
+        if (all) {
+            result.and(rows);
+        } else {
+            result.or(rows);
+        }
+        return result;
+    }
+
+    /**
+     * Rows of the persons having any medical term matching {@code term}, found through the
+     * case-insensitive index of the medical terms dictionary rather than by decoding every term.
+     */
+    private RoaringBitmap rows(Map<Integer, RoaringBitmap> bitmaps, String term) {
+        RoaringBitmap rows = new RoaringBitmap();
+        for (int code : dataService.getCodec().getMedicalTerms().findIgnoreCase(term.trim())) {
+            RoaringBitmap bitmap = bitmaps.get(code);
+            if (bitmap != null) {
+                rows.or(bitmap);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Rows of the persons named {@code firstName} {@code lastName}, empty when there is none.
+     */
+    public RoaringBitmap personsNamed(String firstName, String lastName) {
+        ensureFresh();
+        return personsNamed(dataService.getStore(), firstName, lastName);
+    }
+
+    /**
+     * Row of the medical record of the person at {@code row}, or -1.
+     */
+    public int medicalRecordOf(int row) {
+        ensureFresh();
+        return medicalRecordOfPerson[row];
+    }
+
+    /**
+     * Row of the first medical record of {@code firstName} {@code lastName}, or -1.
+     */
+    public int medicalRecordNamed(String firstName, String lastName) {
+        ensureFresh();
+        return firstMedicalRecord(dataService.getStore(), firstName, lastName);
+    }
+}
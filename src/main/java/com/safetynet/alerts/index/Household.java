@@ -0,0 +1,23 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.dto.ChildInfoDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The residents of one address as of {@code day}, ready to be returned by childAlert and fire.
+ * <p>
+ * The lists are immutable and shared by every response built from this household, so callers
+ * must not modify the DTOs either.
+ * </p>
+ *
+ * @param members   name of every resident, in row order
+ * @param residents name, phone, age and medical history of every resident, in row order
+ * @param children  residents aged 18 or less with the other members of the household
+ * @param adults    residents older than 18; residents without a known age are neither children nor adults
+ */
+public record Household(LocalDate day, List<ChildInfoDto.HouseholdMember> members,
+                        List<ResidentInfoDto> residents, List<ChildInfoDto> children, int adults) {
+}
@@ -0,0 +1,208 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.dto.ChildInfoDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.service.DataService;
+import com.safetynet.alerts.service.StoreChange;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordAdded;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordUpdated;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordsRemoved;
+import com.safetynet.alerts.service.StoreChange.PersonAdded;
+import com.safetynet.alerts.service.StoreChange.PersonUpdated;
+import com.safetynet.alerts.service.StoreChange.PersonsRemoved;
+import com.safetynet.alerts.service.StoreListener;
+import com.safetynet.alerts.store.CompactCodec;
+import com.safetynet.alerts.store.Dictionary;
+import com.safetynet.alerts.store.ResidentStore;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Household} aggregates by address code, built on first use from the address bitmaps of
+ * {@link ClinicalIndex} and kept until a change affects them.
+ * <p>
+ * A {@link StoreListener} change evicts the households of the addresses a person moves from or to,
+ * is added at or removed from, and of the persons whose medical record changed. Ages depend on the
+ * day, so a household built on a previous day is rebuilt as well. Reloads drop every household.
+ * </p>
+ */
+public class HouseholdIndex implements StoreListener {
+    private static final int CHILD_MAX_AGE = 18;
+
+    private final DataService dataService;
+    private final ClinicalIndex clinicalIndex;
+    private final Map<Integer, Household> households = new ConcurrentHashMap<>();
+
+    /** {@link DataService#getVersion()} the households reflect. */
+    private volatile long version = -1;
+
+    public HouseholdIndex(DataService dataService, ClinicalIndex clinicalIndex) {
+        this.dataService = dataService;
+        this.clinicalIndex = clinicalIndex;
+    }
+
+    @Override
+    public void changed(StoreChange change) {
+        if (version + 1 != dataService.getVersion()) {
+            return;
+        }
+        ResidentStore store = dataService.getStore();
+        switch (change) {
+            case PersonAdded added -> evict(store.address(added.row()));
+            case PersonUpdated updated -> {
+                evict(updated.previous().address());
+                evict(store.address(updated.row()));
+            }
+            case PersonsRemoved removed -> removed.removed().forEach(p -> evict(p.address()));
+            case MedicalRecordAdded added -> evictNamed(store.medicalFirstName(added.row()), store.medicalLastName(added.row()));
+            case MedicalRecordUpdated updated -> evictNamed(updated.previous().firstName(), updated.previous().lastName());
+            case MedicalRecordsRemoved removed -> removed.removed().forEach(m -> evictNamed(m.firstName(), m.lastName()));
+            default -> {
+            }
+        }
+        version = dataService.getVersion();
+    }
+
+    private void evict(int address) {
+        if (address != Dictionary.NONE) {
+            households.remove(address);
+        }
+    }
+
+    private void evictNamed(String firstName, String lastName) {
+        ResidentStore store = dataService.getStore();
+        for (int row : clinicalIndex.personsNamed(firstName, lastName)) {
+            evict(store.address(row));
+        }
+    }
+
+    private void dropIfStale() {
+        long current = dataService.getVersion();
+        if (version != current) {
+            households.clear();
+            version = current;
+        }
+    }
+
+    /**
+     * The household living at one of {@code codes} on {@code today}. A household spanning several
+     * spellings of an address is assembled for the call instead of being kept.
+     */
+    public Household at(int[] codes, LocalDate today) {
+        dropIfStale();
+        if (codes.length == 1) {
+            Household household = households.get(codes[0]);
+            if (household == null || !household.day().equals(today)) {
+                household = build(codes, today);
+                households.put(codes[0], household);
+            }
+            return household;
+        }
+        return build(codes, today);
+    }
+
+    /**
+     * The children living at one of {@code codes} on {@code today}, as in {@link #at}. A kept
+     * household answers directly; otherwise the children are read from the address bitmaps without
+     * building or keeping the household, so that a scan of whole stations neither decodes the
+     * medical history of every resident nor fills the index with households asked for once.
+     */
+    public List<ChildInfoDto> childrenAt(int[] codes, LocalDate today) {
+        dropIfStale();
+        if (codes.length == 1) {
+            Household household = households.get(codes[0]);
+            if (household != null && household.day().equals(today)) {
+                return household.children();
+            }
+        }
+        CompactCodec codec = dataService.getCodec();
+        ResidentStore store = dataService.getStore();
+        RoaringBitmap rows = residentsAt(codes);
+        List<Integer> childRows = new ArrayList<>();
+        List<Integer> childAges = new ArrayList<>();
+        for (int row : rows) {
+            int mr = clinicalIndex.medicalRecordOf(row);
+            Optional<Integer> age = mr >= 0 ? codec.age(store.birthdate(mr), today) : Optional.empty();
+            if (age.isPresent() && age.get() <= CHILD_MAX_AGE) {
+                childRows.add(row);
+                childAges.add(age.get());
+            }
+        }
+        if (childRows.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ChildInfoDto.HouseholdMember> members = new ArrayList<>(rows.getCardinality());
+        for (int row : rows) {
+            members.add(new ChildInfoDto.HouseholdMember(store.firstName(row), store.lastName(row)));
+        }
+        return children(store, members, childRows, childAges);
+    }
+
+    private RoaringBitmap residentsAt(int[] codes) {
+        BitSet addresses = new BitSet();
+        for (int code : codes) {
+            addresses.set(code);
+        }
+        return clinicalIndex.residentsAt(addresses);
+    }
+
+    private Household build(int[] codes, LocalDate today) {
+        CompactCodec codec = dataService.getCodec();
+        ResidentStore store = dataService.getStore();
+        RoaringBitmap rows = residentsAt(codes);
+
+        List<ChildInfoDto.HouseholdMember> members = new ArrayList<>(rows.getCardinality());
+        List<ResidentInfoDto> residents = new ArrayList<>(rows.getCardinality());
+        List<Integer> childRows = new ArrayList<>();
+        List<Integer> childAges = new ArrayList<>();
+        int adults = 0;
+        for (int row : rows) {
+            int mr = clinicalIndex.medicalRecordOf(row);
+            Optional<Integer> age = mr >= 0 ? codec.age(store.birthdate(mr), today) : Optional.empty();
+            members.add(new ChildInfoDto.HouseholdMember(store.firstName(row), store.lastName(row)));
+            residents.add(new ResidentInfoDto(store.firstName(row), store.lastName(row), store.phone(row), age.orElse(0),
+                    mr >= 0 ? immutable(codec.decodeTerms(store.medications(mr))) : Collections.emptyList(),
+                    mr >= 0 ? immutable(codec.decodeTerms(store.allergies(mr))) : Collections.emptyList()));
+            if (age.isPresent() && age.get() <= CHILD_MAX_AGE) {
+                childRows.add(row);
+                childAges.add(age.get());
+            } else if (age.isPresent()) {
+                adults++;
+            }
+        }
+        return new Household(today, Collections.unmodifiableList(members), Collections.unmodifiableList(residents),
+                children(store, members, childRows, childAges), adults);
+    }
+
+    /**
+     * The children at {@code childRows}, each with the household {@code members} but themselves.
+     */
+    private static List<ChildInfoDto> children(ResidentStore store, List<ChildInfoDto.HouseholdMember> members,
+                                               List<Integer> childRows, List<Integer> childAges) {
+        List<ChildInfoDto> children = new ArrayList<>(childRows.size());
+        for (int i = 0; i < childRows.size(); i++) {
+            String firstName = store.firstName(childRows.get(i));
+            String lastName = store.lastName(childRows.get(i));
+            List<ChildInfoDto.HouseholdMember> others = new ArrayList<>(members.size());
+            for (ChildInfoDto.HouseholdMember member : members) {
+                if (!(member.firstName.equals(firstName) && member.lastName.equals(lastName))) {
+                    others.add(member);
+                }
+            }
+            children.add(new ChildInfoDto(firstName, lastName, childAges.get(i), Collections.unmodifiableList(others)));
+        }
+        return Collections.unmodifiableList(children);
+    }
+
+    private static List<String> immutable(List<String> terms) {
+        return terms != null ? Collections.unmodifiableList(terms) : null;
+    }
+}
@@ -0,0 +1,203 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.service.DataService;
+import com.safetynet.alerts.service.StoreChange;
+import com.safetynet.alerts.service.StoreChange.PersonAdded;
+import com.safetynet.alerts.service.StoreChange.PersonUpdated;
+import com.safetynet.alerts.service.StoreChange.PersonsRemoved;
+import com.safetynet.alerts.service.StoreListener;
+import com.safetynet.alerts.store.CompactCodec;
+import com.safetynet.alerts.store.Dictionary;
+import com.safetynet.alerts.store.ResidentStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One {@link BloomFilter} per lookup key of the person queries, so that a request for an address,
+ * last name or city nobody has is answered without scanning the persons.
+ * <p>
+ * Keys are compared as the queries compare them: addresses by their {@link AddressNormalizer
+ * normalized} form, last names ignoring case like {@link String#equalsIgnoreCase(String)} and
+ * cities trimmed and lower-cased. A filter never rejects a key that some person has; it accepts
+ * about {@value #FPP} of the others, and more as removed keys accumulate.
+ * </p>
+ * <p>
+ * The keys of added and updated persons are added as {@link StoreListener} changes. Bloom
+ * filters cannot forget a key, so removals are only counted: the filters are rebuilt once removals
+ * reach a tenth of the persons or the persons outgrow the capacity, and after reloads.
+ * </p>
+ * <p>
+ * Meters: {@code safetynet.bloom.checks} by {@code type} and {@code result} ({@code rejected} or
+ * {@code passed}), {@code safetynet.bloom.false-positives} by {@code type} for passed keys the
+ * query then found nobody for, the {@code safetynet.bloom.expected-fpp} gauge by {@code type} and
+ * {@code safetynet.bloom.rebuilds}.
+ * </p>
+ */
+public class KeyFilters implements StoreListener {
+    static final double FPP = 0.01;
+    static final int MIN_CAPACITY = 1024;
+
+    public enum KeyType {
+        ADDRESS, LAST_NAME, CITY
+    }
+
+    /**
+     * Filters reflecting {@link DataService#getVersion()} {@code version}, with the number of keys
+     * removed since they were built.
+     */
+    private record Filters(long version, int removed, BloomFilter[] byType) {
+    }
+
+    private final DataService dataService;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final Counter[] rejected = new Counter[KeyType.values().length];
+    private final Counter[] passed = new Counter[KeyType.values().length];
+    private final Counter[] falsePositives = new Counter[KeyType.values().length];
+    private final Counter rebuilds;
+
+    private volatile Filters filters;
+
+    public KeyFilters(DataService dataService, MeterRegistry registry) {
+        this.dataService = dataService;
+        for (KeyType type : KeyType.values()) {
+            String tag = type.name().toLowerCase(Locale.ROOT);
+            rejected[type.ordinal()] = Counter.builder("safetynet.bloom.checks")
+                    .tag("type", tag).tag("result", "rejected").register(registry);
+            passed[type.ordinal()] = Counter.builder("safetynet.bloom.checks")
+                    .tag("type", tag).tag("result", "passed").register(registry);
+            falsePositives[type.ordinal()] = Counter.builder("safetynet.bloom.false-positives")
+                    .tag("type", tag).register(registry);
+            Gauge.builder("safetynet.bloom.expected-fpp", this, f -> f.expectedFpp(type))
+                    .tag("type", tag).register(registry);
+        }
+        this.rebuilds = Counter.builder("safetynet.bloom.rebuilds").register(registry);
+    }
+
+    /**
+     * {@code false} when no person has {@code key}, {@code true} when some person may have it.
+     */
+    public boolean mightContain(KeyType type, String key) {
+        if (key == null) {
+            return false;
+        }
+        boolean result = current().byType()[type.ordinal()].mightContain(hash(type, key));
+        (result ? passed : rejected)[type.ordinal()].increment();
+        return result;
+    }
+
+    /**
+     * Records that a key accepted by {@link #mightContain(KeyType, String)} matched nobody.
+     */
+    public void falsePositive(KeyType type) {
+        falsePositives[type.ordinal()].increment();
+    }
+
+    @Override
+    public void changed(StoreChange change) {
+        Filters current = filters;
+        long version = dataService.getVersion();
+        if (current == null || current.version() + 1 != version) {
+            return;
+        }
+        ResidentStore store = dataService.getStore();
+        BloomFilter[] byType = current.byType();
+        filters = switch (change) {
+            case PersonAdded added -> {
+                if (store.personCount() > byType[0].capacity()) {
+                    yield null;
+                }
+                add(byType, dataService.getCodec(), store, added.row());
+                yield new Filters(version, current.removed(), byType);
+            }
+            // the keys the person had before stay in the filters until the next rebuild
+            case PersonUpdated updated -> {
+                add(byType, dataService.getCodec(), store, updated.row());
+                yield removed(version, current.removed() + 1, byType);
+            }
+            case PersonsRemoved removed -> removed(version, current.removed() + removed.rows().length, byType);
+            default -> new Filters(version, current.removed(), byType);
+        };
+    }
+
+    private Filters removed(long version, int removed, BloomFilter[] byType) {
+        int remaining = dataService.getStore().personCount();
+        return removed * 10L > Math.max(remaining, MIN_CAPACITY / 10) ? null : new Filters(version, removed, byType);
+    }
+
+    private double expectedFpp(KeyType type) {
+        Filters current = filters;
+        return current != null ? current.byType()[type.ordinal()].expectedFpp() : 0;
+    }
+
+    private Filters current() {
+        Filters current = filters;
+        if (current != null && current.version() == dataService.getVersion()) {
+            return current;
+        }
+        rebuildLock.lock();
+        try {
+            current = filters;
+            if (current == null || current.version() != dataService.getVersion()) {
+                current = rebuild(dataService.getStore());
+                filters = current;
+            }
+            return current;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Filters rebuild(ResidentStore store) {
+        long version = dataService.getVersion();
+        int persons = store.personCount();
+        int capacity = Math.max(MIN_CAPACITY, 2 * persons);
+        BloomFilter[] byType = new BloomFilter[KeyType.values().length];
+        for (int i = 0; i < byType.length; i++) {
+            byType[i] = new BloomFilter(capacity, FPP);
+        }
+        CompactCodec codec = dataService.getCodec();
+        for (int row = 0; row < persons; row++) {
+            add(byType, codec, store, row);
+        }
+        rebuilds.increment();
+        return new Filters(version, 0, byType);
+    }
+
+    private static void add(BloomFilter[] byType, CompactCodec codec, ResidentStore store, int row) {
+        if (store.address(row) != Dictionary.NONE) {
+            byType[KeyType.ADDRESS.ordinal()].add(hash(KeyType.ADDRESS, codec.getAddresses().decode(store.address(row))));
+        }
+        if (store.lastName(row) != null) {
+            byType[KeyType.LAST_NAME.ordinal()].add(hash(KeyType.LAST_NAME, store.lastName(row)));
+        }
+        if (store.city(row) != Dictionary.NONE) {
+            byType[KeyType.CITY.ordinal()].add(hash(KeyType.CITY, codec.getCities().decode(store.city(row))));
+        }
+    }
+
+    static long hash(KeyType type, String key) {
+        return switch (type) {
+            case ADDRESS -> BloomFilter.hash(AddressNormalizer.normalize(key));
+            case LAST_NAME -> foldedHash(key.trim());
+            case CITY -> BloomFilter.hash(key.trim().toLowerCase(Locale.ROOT));
+        };
+    }
+
+    /**
+     * Hash of {@code key} that is equal for strings equal ignoring case, without copying the key.
+     */
+    private static long foldedHash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); ) {
+            int c = key.codePointAt(i);
+            i += Character.charCount(c);
+            h ^= Character.toLowerCase(Character.toUpperCase(c));
+            h *= 0x100000001b3L;
+        }
+        return BloomFilter.mix(h);
+    }
+}
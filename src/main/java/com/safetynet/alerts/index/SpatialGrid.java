@@ -0,0 +1,168 @@
+package com.safetynet.alerts.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid of address codes by latitude and longitude, in cells of {@value #CELL_DEGREES}
+ * degrees (about 5.5 km north-south).
+ * <p>
+ * The grid only grows. An address whose coordinates changed is added to its new cell and
+ * ignored in the old one, and callers filter out addresses that are no longer in use.
+ * </p>
+ */
+class SpatialGrid {
+    static final double CELL_DEGREES = 0.05;
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final long NOT_INDEXED = Long.MIN_VALUE;
+
+    private final Map<Long, int[]> cells = new HashMap<>();
+    private final Map<Long, Integer> cellSizes = new HashMap<>();
+    /** Cell holding each address code. */
+    private long[] cellOf = new long[0];
+    private int minRow = Integer.MAX_VALUE;
+    private int maxRow = Integer.MIN_VALUE;
+    private int minColumn = Integer.MAX_VALUE;
+    private int maxColumn = Integer.MIN_VALUE;
+
+    static int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / CELL_DEGREES);
+    }
+
+    static int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / CELL_DEGREES);
+    }
+
+    private static long key(int row, int column) {
+        return (long) row << 32 | column & 0xFFFFFFFFL;
+    }
+
+    static boolean valid(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    /**
+     * Great-circle (haversine) distance in kilometers.
+     */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    void clear() {
+        cells.clear();
+        cellSizes.clear();
+        Arrays.fill(cellOf, NOT_INDEXED);
+        minRow = minColumn = Integer.MAX_VALUE;
+        maxRow = maxColumn = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Files {@code address} under the cell of its coordinates, unless it is already there.
+     */
+    void insert(int address, double latitude, double longitude) {
+        if (!valid(latitude, longitude)) {
+            return;
+        }
+        int row = row(latitude);
+        int column = column(longitude);
+        long key = key(row, column);
+        if (address >= cellOf.length) {
+            int length = Math.max(address + 1, cellOf.length * 2);
+            int from = cellOf.length;
+            cellOf = Arrays.copyOf(cellOf, length);
+            Arrays.fill(cellOf, from, length, NOT_INDEXED);
+        }
+        if (cellOf[address] == key) {
+            return;
+        }
+        cellOf[address] = key;
+        int size = cellSizes.getOrDefault(key, 0);
+        int[] codes = cells.get(key);
+        if (codes == null) {
+            codes = new int[4];
+        } else if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+        }
+        codes[size] = address;
+        cells.put(key, codes);
+        cellSizes.put(key, size + 1);
+        minRow = Math.min(minRow, row);
+        maxRow = Math.max(maxRow, row);
+        minColumn = Math.min(minColumn, column);
+        maxColumn = Math.max(maxColumn, column);
+    }
+
+    /**
+     * Calls {@code consumer} with the addresses of the cells overlapping the box of {@code radiusKm}
+     * around a point; the caller checks the exact distance.
+     */
+    void forEachNear(double latitude, double longitude, double radiusKm, IntConsumer consumer) {
+        double dLat = radiusKm / KM_PER_DEGREE;
+        double cos = Math.cos(Math.toRadians(Math.min(89.9, Math.abs(latitude) + dLat)));
+        double dLon = Math.min(180, radiusKm / (KM_PER_DEGREE * cos));
+        int fromRow = Math.max(minRow, row(Math.max(-90, latitude - dLat)));
+        int toRow = Math.min(maxRow, row(Math.min(90, latitude + dLat)));
+        int fromColumn = Math.max(minColumn, column(Math.max(-180, longitude - dLon)));
+        int toColumn = Math.min(maxColumn, column(Math.min(180, longitude + dLon)));
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                forEachIn(row, column, consumer);
+            }
+        }
+    }
+
+    /**
+     * Calls {@code consumer} with the addresses of the cells at Chebyshev distance {@code ring}
+     * from the cell of a point.
+     *
+     * @return {@code false} when the ring lies entirely outside the occupied cells, so that no
+     * larger ring can hold an address either
+     */
+    boolean forEachInRing(double latitude, double longitude, int ring, IntConsumer consumer) {
+        int centerRow = row(latitude);
+        int centerColumn = column(longitude);
+        if (centerRow - ring < minRow && centerRow + ring > maxRow
+                && centerColumn - ring < minColumn && centerColumn + ring > maxColumn) {
+            return false;
+        }
+        for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+            boolean edge = row == centerRow - ring || row == centerRow + ring;
+            for (int column = centerColumn - ring; column <= centerColumn + ring; column += edge || ring == 0 ? 1 : 2 * ring) {
+                forEachIn(row, column, consumer);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lower bound of the distance from a point to any address in ring {@code ring} or beyond.
+     */
+    static double ringDistanceKm(double latitude, int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double cos = Math.cos(Math.toRadians(Math.min(89.9, Math.abs(latitude) + ring * CELL_DEGREES)));
+        return (ring - 1) * CELL_DEGREES * KM_PER_DEGREE * cos;
+    }
+
+    private void forEachIn(int row, int column, IntConsumer consumer) {
+        long key = key(row, column);
+        int[] codes = cells.get(key);
+        if (codes == null) {
+            return;
+        }
+        int size = cellSizes.get(key);
+        for (int i = 0; i < size; i++) {
+            if (cellOf[codes[i]] == key) {
+                consumer.accept(codes[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.dto.StationDistanceDto;
+import com.safetynet.alerts.service.DataService;
+import com.safetynet.alerts.service.StoreChange;
+import com.safetynet.alerts.service.StoreChange.FirestationAdded;
+import com.safetynet.alerts.service.StoreChange.FirestationUpdated;
+import com.safetynet.alerts.service.StoreChange.FirestationsRemoved;
+import com.safetynet.alerts.service.StoreChange.PersonAdded;
+import com.safetynet.alerts.service.StoreChange.PersonUpdated;
+import com.safetynet.alerts.service.StoreListener;
+import com.safetynet.alerts.store.AddressCoordinates;
+import com.safetynet.alerts.store.CompactFirestation;
+import com.safetynet.alerts.store.Dictionary;
+import com.safetynet.alerts.store.ResidentStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Geographic lookups over the coordinates of household and firestation addresses, through one
+ * {@link SpatialGrid} for each.
+ * <p>
+ * data.json maps stations to the addresses they serve and has no station locations, so a station
+ * is as far from a point as the closest address it serves.
+ * </p>
+ * <p>
+ * Person adds and moves and firestation changes are indexed as {@link StoreListener} changes;
+ * reloads make the next lookup rebuild the grids. Removed persons and mappings may leave their
+ * address in a grid, which is harmless since the residents and stations of each address are
+ * looked up afterwards.
+ * </p>
+ */
+public class SpatialIndex implements StoreListener {
+    private static final int[] NO_STATIONS = new int[0];
+
+    private final DataService dataService;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final SpatialGrid households = new SpatialGrid();
+    private final SpatialGrid stationAddresses = new SpatialGrid();
+    private final Map<Integer, int[]> stationsByAddress = new HashMap<>();
+
+    /** {@link DataService#getVersion()} the grids reflect. */
+    private volatile long version = -1;
+
+    public SpatialIndex(DataService dataService) {
+        this.dataService = dataService;
+    }
+
+    private void ensureFresh() {
+        if (version == dataService.getVersion()) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            if (version != dataService.getVersion()) {
+                rebuild();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuild() {
+        ResidentStore store = dataService.getStore();
+        AddressCoordinates coordinates = dataService.getCodec().getCoordinates();
+        households.clear();
+        stationAddresses.clear();
+        stationsByAddress.clear();
+        for (int row = 0; row < store.personCount(); row++) {
+            insert(households, coordinates, store.address(row));
+        }
+        for (CompactFirestation f : dataService.getFirestations()) {
+            if (f.address() != Dictionary.NONE && f.station() != Dictionary.NONE) {
+                int[] stations = stationsByAddress.get(f.address());
+                if (stations == null) {
+                    stationsByAddress.put(f.address(), new int[]{f.station()});
+                    insert(stationAddresses, coordinates, f.address());
+                } else if (Arrays.stream(stations).noneMatch(s -> s == f.station())) {
+                    stations = Arrays.copyOf(stations, stations.length + 1);
+                    stations[stations.length - 1] = f.station();
+                    stationsByAddress.put(f.address(), stations);
+                }
+            }
+        }
+        version = dataService.getVersion();
+    }
+
+    private static void insert(SpatialGrid grid, AddressCoordinates coordinates, int address) {
+        if (coordinates.has(address)) {
+            grid.insert(address, coordinates.latitude(address), coordinates.longitude(address));
+        }
+    }
+
+    @Override
+    public void changed(StoreChange change) {
+        if (version + 1 != dataService.getVersion()) {
+            return;
+        }
+        switch (change) {
+            case PersonAdded added -> insert(households, dataService.getCodec().getCoordinates(),
+                    dataService.getStore().address(added.row()));
+            case PersonUpdated updated -> insert(households, dataService.getCodec().getCoordinates(),
+                    dataService.getStore().address(updated.row()));
+            case FirestationAdded added -> stationsChanged(dataService.getFirestations().get(added.index()).address());
+            case FirestationUpdated updated -> stationsChanged(updated.previous().address());
+            case FirestationsRemoved removed -> removed.removed().stream().mapToInt(CompactFirestation::address)
+                    .distinct().forEach(this::stationsChanged);
+            default -> {
+            }
+        }
+        version = dataService.getVersion();
+    }
+
+    /**
+     * Lists again the stations serving {@code address}.
+     */
+    private void stationsChanged(int address) {
+        if (address == Dictionary.NONE) {
+            return;
+        }
+        int[] stations = dataService.getFirestations().stream()
+                .filter(f -> f.address() == address && f.station() != Dictionary.NONE)
+                .mapToInt(CompactFirestation::station)
+                .distinct()
+                .toArray();
+        if (stations.length == 0) {
+            stationsByAddress.remove(address);
+        } else {
+            stationsByAddress.put(address, stations);
+            insert(stationAddresses, dataService.getCodec().getCoordinates(), address);
+        }
+    }
+
+    /**
+     * Codes of the household addresses within {@code radiusKm} of a point.
+     */
+    public BitSet householdsWithin(double latitude, double longitude, double radiusKm) {
+        ensureFresh();
+        AddressCoordinates coordinates = dataService.getCodec().getCoordinates();
+        BitSet addresses = new BitSet();
+        households.forEachNear(latitude, longitude, radiusKm, address -> {
+            if (SpatialGrid.distanceKm(latitude, longitude, coordinates.latitude(address), coordinates.longitude(address)) <= radiusKm) {
+                addresses.set(address);
+            }
+        });
+        return addresses;
+    }
+
+    /**
+     * The {@code k} stations closest to a point, nearest first, each with its closest served address.
+     */
+    public List<StationDistanceDto> nearestStations(double latitude, double longitude, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        ensureFresh();
+        AddressCoordinates coordinates = dataService.getCodec().getCoordinates();
+        Map<Integer, double[]> best = new HashMap<>();
+        double kth = Double.POSITIVE_INFINITY;
+        for (int ring = 0; best.size() < k || SpatialGrid.ringDistanceKm(latitude, ring) <= kth; ring++) {
+            boolean more = stationAddresses.forEachInRing(latitude, longitude, ring, address -> {
+                double distance = SpatialGrid.distanceKm(latitude, longitude, coordinates.latitude(address), coordinates.longitude(address));
+                for (int station : stationsByAddress.getOrDefault(address, NO_STATIONS)) {
+                    double[] current = best.get(station);
+                    if (current == null || distance < current[0]) {
+                        best.put(station, new double[]{distance, address});
+                    }
+                }
+            });
+            if (!more) {
+                break;
+            }
+            if (best.size() >= k) {
+                kth = best.values().stream().mapToDouble(d -> d[0]).sorted().skip(k - 1).findFirst().orElseThrow();
+            }
+        }
+        Dictionary stations = dataService.getCodec().getStations();
+        Dictionary addresses = dataService.getCodec().getAddresses();
+        List<StationDistanceDto> result = new ArrayList<>(best.size());
+        best.forEach((station, d) -> result.add(new StationDistanceDto(stations.decode(station),
+                addresses.decode((int) d[1]), Math.round(d[0] * 1000) / 1000.0)));
+        result.sort(Comparator.comparingDouble(StationDistanceDto::distanceKm).thenComparing(StationDistanceDto::station));
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+}
@@ -0,0 +1,35 @@
+package com.safetynet.alerts.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event committed by {@link com.safetynet.alerts.service.DataService#loadData()}.
+ */
+@Name("com.safetynet.alerts.DataLoad")
+@Label("Data File Load")
+@Category({"SafetyNet", "Persistence"})
+@Description("Data file read and deserialized into memory")
+@StackTrace(false)
+public class DataLoadEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Persons")
+    public int persons;
+
+    @Label("Firestations")
+    public int firestations;
+
+    @Label("Medical Records")
+    public int medicalRecords;
+}
@@ -0,0 +1,37 @@
+package com.safetynet.alerts.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event committed by {@link com.safetynet.alerts.service.DataService#saveData()}. Its duration
+ * includes the time spent waiting for the persistence lock, which is also reported on its own.
+ */
+@Name("com.safetynet.alerts.DataSave")
+@Label("Data File Save")
+@Category({"SafetyNet", "Persistence"})
+@Description("In-memory data serialized to the data file")
+@StackTrace(false)
+public class DataSaveEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Lock Wait")
+    @Description("Time spent waiting for another save to complete")
+    @Timespan
+    public long lockWait;
+
+    @Label("Records")
+    @Description("Persons, firestation mappings and medical records written")
+    public int records;
+}
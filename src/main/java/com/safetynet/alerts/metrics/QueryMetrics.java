@@ -0,0 +1,172 @@
+package com.safetynet.alerts.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage timing of {@link com.safetynet.alerts.service.AlertService} queries, published as the
+ * {@code safetynet.query.stage} timer tagged with {@code query} and {@code stage}.
+ * <p>
+ * Stages that run once per resident (medical lookup, age calculation) are accumulated in a
+ * {@link QueryStages} for the whole query and recorded once when it completes, so each timer
+ * sample is the time a query spent in that stage.
+ * </p>
+ * <p>
+ * Each execution also drives a {@link SlowQueryEvent}, committed to a running JFR recording when
+ * the query is over the recording's threshold, and counts the rows it touched so that queries
+ * over the {@link SlowQueryLog} thresholds are logged with them.
+ * </p>
+ */
+@Component
+public class QueryMetrics {
+
+    public enum Stage {
+        STATION_RESOLUTION, RESIDENT_FILTERING, MEDICAL_LOOKUP, AGE_CALCULATION, DTO_ASSEMBLY;
+
+        final String tag = name().toLowerCase();
+    }
+
+    private final MeterRegistry registry;
+    private final SlowQueryLog slowQueryLog;
+    private final Map<String, Map<Stage, Timer>> timers = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry registry) {
+        this(registry, new SlowQueryLog(new SlowQueryProperties()));
+    }
+
+    @Autowired
+    public QueryMetrics(MeterRegistry registry, SlowQueryLog slowQueryLog) {
+        this.registry = registry;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Registry the query timers are published to, for the other meters of the query path.
+     */
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Metrics kept in memory only, for callers created outside of Spring.
+     */
+    public static QueryMetrics standalone() {
+        return new QueryMetrics(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Starts timing one execution of {@code query}.
+     *
+     * @param parameters request parameters, reported with the query when it is slow
+     */
+    public QueryStages start(String query, Object parameters) {
+        return new QueryStages(query, parameters, timers.computeIfAbsent(query, this::register), slowQueryLog);
+    }
+
+    private Map<Stage, Timer> register(String query) {
+        Map<Stage, Timer> byStage = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            byStage.put(stage, Timer.builder("safetynet.query.stage")
+                    .description("Time spent by a query in one stage")
+                    .tag("query", query)
+                    .tag("stage", stage.tag)
+                    .register(registry));
+        }
+        return byStage;
+    }
+
+    /**
+     * Stage durations of one query execution. Not thread-safe; use one instance per call.
+     */
+    public static final class QueryStages {
+        private final String query;
+        private final Object parameters;
+        private final Map<Stage, Timer> timers;
+        private final SlowQueryLog slowQueryLog;
+        private final long[] nanos = new long[Stage.values().length];
+        private final SlowQueryEvent event = new SlowQueryEvent();
+        private final long start = System.nanoTime();
+        private long personsScanned;
+        private long mappingsScanned;
+        private long medicalLookups;
+        private long medicalRecordsScanned;
+        private long dtosProduced;
+
+        private QueryStages(String query, Object parameters, Map<Stage, Timer> timers, SlowQueryLog slowQueryLog) {
+            this.query = query;
+            this.parameters = parameters;
+            this.timers = timers;
+            this.slowQueryLog = slowQueryLog;
+            event.begin();
+        }
+
+        /**
+         * Adds the time elapsed since {@code since} to {@code stage}.
+         *
+         * @param since value of {@link System#nanoTime()} when the stage started
+         * @return the current {@link System#nanoTime()}, to be passed as {@code since} for the next stage
+         */
+        public long lap(Stage stage, long since) {
+            long now = System.nanoTime();
+            nanos[stage.ordinal()] += now - since;
+            return now;
+        }
+
+        public void personsScanned(long rows) {
+            personsScanned += rows;
+        }
+
+        public void mappingsScanned(long rows) {
+            mappingsScanned += rows;
+        }
+
+        /**
+         * Counts one medical record lookup that examined {@code records} records.
+         */
+        public void medicalLookup(long records) {
+            medicalLookups++;
+            medicalRecordsScanned += records;
+        }
+
+        public void dtosProduced(long rows) {
+            dtosProduced += rows;
+        }
+
+        private long rowsScanned() {
+            return personsScanned + mappingsScanned + medicalRecordsScanned;
+        }
+
+        /**
+         * Records the accumulated durations; stages the query never entered are not recorded.
+         */
+        public void record() {
+            for (Stage stage : Stage.values()) {
+                if (nanos[stage.ordinal()] > 0) {
+                    timers.get(stage).record(nanos[stage.ordinal()], TimeUnit.NANOSECONDS);
+                }
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.query = query;
+                event.parameters = String.valueOf(parameters);
+                event.rowsScanned = rowsScanned();
+                event.rowsReturned = dtosProduced;
+                event.commit();
+            }
+            long duration = System.nanoTime() - start;
+            if (slowQueryLog.isSlow(duration, rowsScanned())) {
+                slowQueryLog.add(new SlowQuery(Instant.now(), query, String.valueOf(parameters), duration / 1e6,
+                        personsScanned, mappingsScanned, medicalLookups, medicalRecordsScanned, dtosProduced, 0));
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.safetynet.alerts.metrics;
+
+import java.time.Instant;
+
+/**
+ * One slow query as written to the slow query log and served by {@link SlowQueryController}.
+ *
+ * @param personsScanned        persons examined
+ * @param mappingsScanned       firestation mappings examined
+ * @param medicalLookups        medical record lookups performed
+ * @param medicalRecordsScanned medical records examined by those lookups
+ * @param dtosProduced          result rows built
+ * @param skipped               slow queries not written to the log since the previous entry, because of sampling
+ */
+public record SlowQuery(Instant timestamp, String query, String parameters, double durationMs,
+                        long personsScanned, long mappingsScanned, long medicalLookups,
+                        long medicalRecordsScanned, long dtosProduced, long skipped) {
+
+    public long rowsScanned() {
+        return personsScanned + mappingsScanned + medicalRecordsScanned;
+    }
+}
@@ -0,0 +1,31 @@
+package com.safetynet.alerts.metrics;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Serves the history of {@link SlowQueryLog}.
+ */
+@RestController
+public class SlowQueryController {
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryController(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Example: {@code GET /diagnostics/slow-queries?limit=20}, newest first.
+     */
+    @GetMapping("/diagnostics/slow-queries")
+    public ResponseEntity<List<SlowQuery>> getSlowQueries(@RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(slowQueryLog.recent(limit));
+    }
+}
@@ -0,0 +1,38 @@
+package com.safetynet.alerts.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for an {@link com.safetynet.alerts.service.AlertService} query that took longer than
+ * the threshold of the recording settings (100 ms unless overridden, see {@code jfr/safetynet.jfc}).
+ * <p>
+ * The event is started with every query but only populated and committed when it is over the
+ * threshold, so leaving it enabled costs two clock reads per query.
+ * </p>
+ */
+@Name("com.safetynet.alerts.SlowQuery")
+@Label("Slow Query")
+@Category({"SafetyNet", "Query"})
+@Description("Alert query slower than the configured threshold")
+@Threshold("100 ms")
+@StackTrace(false)
+public class SlowQueryEvent extends Event {
+    @Label("Query")
+    public String query;
+
+    @Label("Parameters")
+    public String parameters;
+
+    @Label("Rows Scanned")
+    @Description("Persons, firestation mappings and medical records examined")
+    public long rowsScanned;
+
+    @Label("Rows Returned")
+    public long rowsReturned;
+}
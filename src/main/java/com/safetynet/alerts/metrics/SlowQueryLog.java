@@ -0,0 +1,111 @@
+package com.safetynet.alerts.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the most recent slow queries and writes them, one JSON object per line, to the
+ * {@value #LOGGER} logger, which {@code logback-spring.xml} routes to a rolling file of its own.
+ * <p>
+ * A query is slow when it is over the latency threshold or examined more rows than the scan
+ * threshold. When more than {@code maxLoggedPerSecond} slow queries happen within a second, only
+ * one in {@code sampleRate} is written for the rest of that second and the next entry written
+ * reports how many were skipped. The in-memory history always keeps every slow query.
+ * </p>
+ */
+@Component
+@EnableConfigurationProperties(SlowQueryProperties.class)
+public class SlowQueryLog {
+    public static final String LOGGER = "safetynet.slow-query";
+    private static final Logger log = LoggerFactory.getLogger(LOGGER);
+
+    private final SlowQueryProperties properties;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<SlowQuery> history;
+    private long windowStart;
+    private int windowCount;
+    private long skipped;
+
+    public SlowQueryLog(SlowQueryProperties properties) {
+        this.properties = properties;
+        this.history = new ArrayDeque<>(properties.getHistorySize());
+    }
+
+    public boolean isSlow(long durationNanos, long rowsScanned) {
+        return durationNanos > properties.getLatencyThreshold().toNanos() || rowsScanned > properties.getScanThreshold();
+    }
+
+    /**
+     * Adds a slow query to the history and writes it to the log unless it is sampled out.
+     */
+    public void add(SlowQuery query) {
+        SlowQuery logged = null;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                windowStart = now;
+                windowCount = 0;
+            }
+            windowCount++;
+            boolean write = windowCount <= properties.getMaxLoggedPerSecond()
+                    || (windowCount - properties.getMaxLoggedPerSecond()) % properties.getSampleRate() == 0;
+            if (write) {
+                logged = skipped == 0 ? query : withSkipped(query, skipped);
+                skipped = 0;
+            } else {
+                skipped++;
+            }
+            if (history.size() == properties.getHistorySize()) {
+                history.removeFirst();
+            }
+            history.addLast(logged != null ? logged : query);
+        } finally {
+            lock.unlock();
+        }
+        if (logged != null && log.isInfoEnabled()) {
+            try {
+                log.info(mapper.writeValueAsString(logged));
+            } catch (JsonProcessingException e) {
+                log.warn("Could not serialize slow query {}", logged.query(), e);
+            }
+        }
+    }
+
+    private static SlowQuery withSkipped(SlowQuery q, long skipped) {
+        return new SlowQuery(q.timestamp(), q.query(), q.parameters(), q.durationMs(), q.personsScanned(),
+                q.mappingsScanned(), q.medicalLookups(), q.medicalRecordsScanned(), q.dtosProduced(), skipped);
+    }
+
+    /**
+     * The most recent slow queries, newest first.
+     */
+    public List<SlowQuery> recent(int limit) {
+        lock.lock();
+        try {
+            List<SlowQuery> result = new ArrayList<>(Math.min(limit, history.size()));
+            var it = history.descendingIterator();
+            while (it.hasNext() && result.size() < limit) {
+                result.add(it.next());
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.safetynet.alerts.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Thresholds of {@link SlowQueryLog}, bound from {@code safetynet.slow-query.*}.
+ */
+@Data
+@ConfigurationProperties("safetynet.slow-query")
+public class SlowQueryProperties {
+    /** Rolling log file, read by {@code logback-spring.xml} at startup. */
+    private String file = "logs/slow-queries.log";
+    /** Queries taking longer than this are slow. */
+    private Duration latencyThreshold = Duration.ofMillis(200);
+    /** Queries examining more rows than this (persons, mappings and medical records) are slow. */
+    private long scanThreshold = 100_000;
+    /** Slow queries kept in memory for the diagnostics endpoint. */
+    private int historySize = 200;
+    /** Slow queries written per second before sampling starts. */
+    private int maxLoggedPerSecond = 20;
+    /** Beyond {@link #maxLoggedPerSecond}, one slow query in this many is written. */
+    private int sampleRate = 10;
+}
@@ -1,6 +1,7 @@
 package com.safetynet.alerts.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -17,4 +18,13 @@ public class Person {
     private String zip;
     private String phone;
     private String email;
+    /** Optional WGS84 coordinates of the address. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double latitude;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double longitude;
+
+    public Person(String firstName, String lastName, String address, String city, String zip, String phone, String email) {
+        this(firstName, lastName, address, city, zip, phone, email, null, null);
+    }
 }
@@ -0,0 +1,60 @@
+package com.safetynet.alerts.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.safetynet.alerts.changelog.ChangeBatch;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Reaches the leader over its HTTP endpoints: {@code /replication/snapshot} and {@code /changes},
+ * the latter read in Smile, the encoding the change log is stored in.
+ */
+class HttpLeaderClient implements LeaderClient {
+    private static final String SMILE = "application/x-jackson-smile";
+
+    private final HttpClient http;
+    private final URI leader;
+    private final Duration timeout;
+    private final ObjectMapper smile = new SmileMapper();
+
+    HttpLeaderClient(String leaderUrl, Duration timeout) {
+        this.leader = URI.create(leaderUrl.endsWith("/") ? leaderUrl : leaderUrl + "/");
+        this.timeout = timeout;
+        this.http = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public long snapshot(Path target) throws IOException, InterruptedException {
+        HttpResponse<Path> response = http.send(request("replication/snapshot").build(),
+                HttpResponse.BodyHandlers.ofFile(target));
+        check(response);
+        return response.headers().firstValueAsLong(ReplicationController.OFFSET_HEADER)
+                .orElseThrow(() -> new IOException("Snapshot without " + ReplicationController.OFFSET_HEADER));
+    }
+
+    @Override
+    public ChangeBatch changes(long offset, int limit) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(
+                request("changes?offset=" + offset + "&limit=" + limit).header("Accept", SMILE).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        check(response);
+        return smile.readValue(response.body(), ChangeBatch.class);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(leader.resolve(path)).timeout(timeout).GET();
+    }
+
+    private void check(HttpResponse<?> response) throws IOException {
+        if (response.statusCode() != 200) {
+            throw new IOException("Leader answered " + response.statusCode() + " to " + response.uri());
+        }
+    }
+}
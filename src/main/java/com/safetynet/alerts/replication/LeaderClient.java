@@ -0,0 +1,24 @@
+package com.safetynet.alerts.replication;
+
+import com.safetynet.alerts.changelog.ChangeBatch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * How a {@link ReplicationFollower} reaches its leader.
+ */
+public interface LeaderClient {
+
+    /**
+     * Writes the leader's records to {@code target}, in the data file format.
+     *
+     * @return change log offset the snapshot corresponds to
+     */
+    long snapshot(Path target) throws IOException, InterruptedException;
+
+    /**
+     * Reads up to {@code limit} records of the leader's change log from {@code offset}.
+     */
+    ChangeBatch changes(long offset, int limit) throws IOException, InterruptedException;
+}
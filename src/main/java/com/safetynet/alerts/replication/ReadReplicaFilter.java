@@ -0,0 +1,50 @@
+package com.safetynet.alerts.replication;
+
+import com.safetynet.alerts.replication.ReplicationProperties.Role;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Rejects writes to the person, fire station and medical record endpoints of a follower with
+ * {@code 405}: its data only changes through the leader's change log.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 7)
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class ReadReplicaFilter extends OncePerRequestFilter {
+    private static final Set<String> CRUD_PATHS = Set.of("/person", "/firestation", "/medicalRecord");
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final ReplicationProperties properties;
+
+    public ReadReplicaFilter(ReplicationProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (properties.getRole() == Role.FOLLOWER && CRUD_PATHS.contains(path)
+                && WRITE_METHODS.contains(request.getMethod())) {
+            response.setHeader(HttpHeaders.ALLOW, HttpMethod.GET.name());
+            response.sendError(HttpStatus.METHOD_NOT_ALLOWED.value(),
+                    "Read replica of " + properties.getLeaderUrl() + ": send writes to the leader");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,55 @@
+package com.safetynet.alerts.replication;
+
+import com.safetynet.alerts.changelog.ChangeLog;
+import com.safetynet.alerts.model.DataWrapper;
+import com.safetynet.alerts.replication.ReplicationProperties.Role;
+import com.safetynet.alerts.service.AlertService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * The leader side of replication, {@code /replication/snapshot}, which followers load before
+ * reading {@code /changes} from the offset it names, and the progress of either side.
+ */
+@RestController
+public class ReplicationController {
+    static final String OFFSET_HEADER = "X-Change-Offset";
+
+    private final AlertService alertService;
+    private final ChangeLog changeLog;
+    private final ReplicationFollower follower;
+
+    public ReplicationController(AlertService alertService, ChangeLog changeLog, ReplicationFollower follower) {
+        this.alertService = alertService;
+        this.changeLog = changeLog;
+        this.follower = follower;
+    }
+
+    /**
+     * Example: {@code GET /replication/snapshot}; the records in the data file format, with the
+     * change log offset to continue from in {@code X-Change-Offset}.
+     */
+    @GetMapping("/replication/snapshot")
+    public ResponseEntity<DataWrapper> getSnapshot() {
+        if (follower.isFollower()) {
+            return ResponseEntity.notFound().build();
+        }
+        ReplicationSnapshot snapshot = alertService.snapshot(changeLog::getEndOffset);
+        return ResponseEntity.ok()
+                .header(OFFSET_HEADER, Long.toString(snapshot.offset()))
+                .body(snapshot.data());
+    }
+
+    /**
+     * Example: {@code GET /replication/status}
+     */
+    @GetMapping("/replication/status")
+    public ReplicationStatus getStatus() {
+        if (follower.isFollower()) {
+            return follower.status();
+        }
+        long end = changeLog.getEndOffset();
+        return new ReplicationStatus(Role.LEADER, null, null, end, end, 0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,279 @@
+package com.safetynet.alerts.replication;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.changelog.ChangeBatch;
+import com.safetynet.alerts.changelog.ChangeRecord;
+import com.safetynet.alerts.dto.FirestationDto;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.event.DataChangeEvent.Operation;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.replication.ReplicationProperties.Role;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Keeps a read replica in step with its leader.
+ * <p>
+ * On an instance with the {@code FOLLOWER} role, the follower first replaces its data file with a
+ * snapshot of the leader taken together with the leader's change log offset, then reads the
+ * change log from that offset and replays each batch of records through the CRUD operations of
+ * {@link AlertService}, in one write lock and one save per batch. Once caught up it polls every
+ * {@code poll-interval}; a leader log that no longer reaches the applied offset or has a gap
+ * there, or a batch that fails part way, leads to a new snapshot. The replayed changes publish events like any other, so the replica's own change log
+ * and history follow too.
+ * </p>
+ * <p>
+ * The distance to the leader is published as {@code safetynet.replication.lag.records} and
+ * {@code safetynet.replication.lag}, and served at {@code /replication/status}.
+ * </p>
+ */
+@Service
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class ReplicationFollower {
+    private static final Logger log = LoggerFactory.getLogger(ReplicationFollower.class);
+
+    public enum State {BOOTSTRAPPING, STREAMING, DISCONNECTED}
+
+    private final AlertService alertService;
+    private final DataService dataService;
+    private final ReplicationProperties properties;
+    private final LeaderClient leader;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicLong recordsApplied = new AtomicLong();
+    private final ScheduledExecutorService worker;
+
+    private volatile State state = State.BOOTSTRAPPING;
+    /** Offset of the next leader record to apply, -1 until a snapshot is loaded. */
+    private volatile long nextOffset = -1;
+    private volatile long leaderEndOffset;
+    /** Time of the last record applied, or of the last snapshot loaded. */
+    private volatile long appliedTimestamp;
+    private volatile long lastContact = -1;
+    private volatile int bootstraps;
+
+    @Autowired
+    public ReplicationFollower(AlertService alertService, DataService dataService, ReplicationProperties properties,
+                               MeterRegistry registry) {
+        this(alertService, dataService, properties, properties.getRole() == Role.FOLLOWER
+                ? new HttpLeaderClient(properties.getLeaderUrl(), properties.getTimeout()) : null, registry, true);
+    }
+
+    ReplicationFollower(AlertService alertService, DataService dataService, ReplicationProperties properties,
+                        LeaderClient leader, MeterRegistry registry, boolean start) {
+        this.alertService = alertService;
+        this.dataService = dataService;
+        this.properties = properties;
+        this.leader = leader;
+        if (!isFollower()) {
+            this.worker = null;
+            return;
+        }
+        Gauge.builder("safetynet.replication.lag.records", this, ReplicationFollower::recordsBehind)
+                .description("Leader change log records not applied yet").register(registry);
+        Gauge.builder("safetynet.replication.lag", this, f -> f.lagMillis(System.currentTimeMillis()))
+                .description("Age of the oldest leader change not applied yet, at most").baseUnit("milliseconds")
+                .register(registry);
+        if (start) {
+            this.worker = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("replication-follower").factory());
+            worker.execute(this::replicate);
+            log.info("Replicating from {}", properties.getLeaderUrl());
+        } else {
+            this.worker = null;
+        }
+    }
+
+    public boolean isFollower() {
+        return properties.getRole() == Role.FOLLOWER;
+    }
+
+    private void replicate() {
+        Duration delay;
+        try {
+            delay = poll() ? properties.getPollInterval() : Duration.ZERO;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException | RuntimeException e) {
+            if (state != State.DISCONNECTED) {
+                log.warn("Replication from {} interrupted: {}", properties.getLeaderUrl(), e.toString());
+            }
+            state = State.DISCONNECTED;
+            delay = properties.getRetryInterval();
+        }
+        if (!worker.isShutdown()) {
+            worker.schedule(this::replicate, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Loads a snapshot of the leader if none is loaded yet, then applies the next batch of its
+     * change log.
+     *
+     * @return whether the replica has caught up with the leader
+     */
+    boolean poll() throws IOException, InterruptedException {
+        if (nextOffset < 0) {
+            bootstrap();
+        }
+        ChangeBatch batch = leader.changes(nextOffset, properties.getBatchSize());
+        lastContact = System.currentTimeMillis();
+        List<ChangeRecord> records = batch.records();
+        if (batch.endOffset() < nextOffset || batch.nextOffset() - nextOffset != records.size()
+                || (!records.isEmpty() && records.getFirst().offset() != nextOffset)) {
+            log.warn("Leader change log no longer continues at offset {}, reloading a snapshot", nextOffset);
+            nextOffset = -1;
+            return false;
+        }
+        if (!records.isEmpty()) {
+            List<BooleanSupplier> changes = new ArrayList<>(records.size());
+            for (ChangeRecord record : records) {
+                changes.add(change(record));
+            }
+            try {
+                alertService.batch(() -> {
+                    boolean changed = false;
+                    for (BooleanSupplier change : changes) {
+                        changed |= change.getAsBoolean();
+                    }
+                    return changed;
+                });
+            } catch (RuntimeException e) {
+                // the records before the failure stay applied: replaying the batch would add them twice
+                nextOffset = -1;
+                throw e;
+            }
+            recordsApplied.addAndGet(records.size());
+            appliedTimestamp = records.getLast().timestamp();
+        }
+        nextOffset = batch.nextOffset();
+        leaderEndOffset = batch.endOffset();
+        state = State.STREAMING;
+        return nextOffset >= leaderEndOffset;
+    }
+
+    private void bootstrap() throws IOException, InterruptedException {
+        state = State.BOOTSTRAPPING;
+        Path target = dataService.getDataFile().toPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path download = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".snapshot");
+        try {
+            long offset = leader.snapshot(download);
+            lastContact = System.currentTimeMillis();
+            Files.move(download, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            alertService.reload();
+            appliedTimestamp = lastContact;
+            leaderEndOffset = offset;
+            nextOffset = offset;
+            bootstraps++;
+            log.info("Loaded a snapshot of {} at change log offset {}", properties.getLeaderUrl(), offset);
+        } finally {
+            Files.deleteIfExists(download);
+        }
+    }
+
+    /**
+     * The CRUD operation replaying {@code record}.
+     */
+    private BooleanSupplier change(ChangeRecord record) throws JsonProcessingException {
+        Operation operation = record.operation();
+        JsonNode entity = operation == Operation.DELETED ? record.before() : record.after();
+        return switch (record.entity()) {
+            case PERSON -> {
+                Person p = mapper.treeToValue(entity, Person.class);
+                PersonDto dto = new PersonDto(p.getFirstName(), p.getLastName(), p.getAddress(), p.getCity(),
+                        p.getZip(), p.getPhone(), p.getEmail());
+                yield switch (operation) {
+                    case ADDED -> () -> {
+                        alertService.addPerson(dto);
+                        return true;
+                    };
+                    case UPDATED -> () -> alertService.updatePerson(dto);
+                    case DELETED -> () -> alertService.deletePerson(p.getFirstName(), p.getLastName());
+                };
+            }
+            case FIRESTATION -> {
+                Firestation f = mapper.treeToValue(entity, Firestation.class);
+                FirestationDto dto = new FirestationDto(f.getAddress(), f.getStation());
+                yield switch (operation) {
+                    case ADDED -> () -> {
+                        alertService.addFirestation(dto);
+                        return true;
+                    };
+                    case UPDATED -> () -> alertService.updateFirestation(dto);
+                    case DELETED -> () -> alertService.deleteFirestationMapping(f.getAddress(), f.getStation());
+                };
+            }
+            case MEDICAL_RECORD -> {
+                MedicalRecord m = mapper.treeToValue(entity, MedicalRecord.class);
+                ResidentInfoDto dto = new ResidentInfoDto(m.getFirstName(), m.getLastName(), m.getBirthdate(),
+                        m.getMedications(), m.getAllergies());
+                yield switch (operation) {
+                    case ADDED -> () -> {
+                        alertService.addMedicalRecord(dto);
+                        return true;
+                    };
+                    case UPDATED -> () -> alertService.updateMedicalRecord(dto);
+                    case DELETED -> () -> alertService.deleteMedicalRecord(m.getFirstName(), m.getLastName());
+                };
+            }
+        };
+    }
+
+    long recordsBehind() {
+        return nextOffset < 0 ? leaderEndOffset : Math.max(0, leaderEndOffset - nextOffset);
+    }
+
+    /**
+     * Unknown, -1, before the first snapshot, and counted from the last answer of the leader while
+     * it cannot be reached.
+     */
+    long lagMillis(long now) {
+        if (nextOffset < 0) {
+            return -1;
+        }
+        if (state == State.DISCONNECTED) {
+            return now - lastContact;
+        }
+        return recordsBehind() == 0 ? 0 : Math.max(0, now - appliedTimestamp);
+    }
+
+    public ReplicationStatus status() {
+        long now = System.currentTimeMillis();
+        return new ReplicationStatus(Role.FOLLOWER, state, properties.getLeaderUrl(), nextOffset, leaderEndOffset,
+                recordsBehind(), lagMillis(now), lastContact < 0 ? -1 : now - lastContact, recordsApplied.get(),
+                bootstraps);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+}
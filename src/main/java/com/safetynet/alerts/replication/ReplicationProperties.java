@@ -0,0 +1,28 @@
+package com.safetynet.alerts.replication;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Role of this instance in leader/follower replication, bound from {@code safetynet.replication.*}.
+ */
+@Data
+@ConfigurationProperties("safetynet.replication")
+public class ReplicationProperties {
+    public enum Role {LEADER, FOLLOWER}
+
+    /** A leader serves CRUD and its change log; a follower replays them and serves reads only. */
+    private Role role = Role.LEADER;
+    /** Base URL of the leader a follower replicates from. */
+    private String leaderUrl = "http://localhost:8080";
+    /** Pause between reads of the leader's change log once the follower has caught up. */
+    private Duration pollInterval = Duration.ofMillis(200);
+    /** Records read and applied at once. */
+    private int batchSize = 500;
+    /** Pause before retrying after the leader could not be reached. */
+    private Duration retryInterval = Duration.ofSeconds(1);
+    /** Timeout of each request to the leader. */
+    private Duration timeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,10 @@
+package com.safetynet.alerts.replication;
+
+import com.safetynet.alerts.model.DataWrapper;
+
+/**
+ * The leader's records together with the change log offset they correspond to: a follower that
+ * loads {@code data} continues with the record at {@code offset}.
+ */
+public record ReplicationSnapshot(long offset, DataWrapper data) {
+}
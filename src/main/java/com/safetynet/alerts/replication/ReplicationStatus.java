@@ -0,0 +1,20 @@
+package com.safetynet.alerts.replication;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.safetynet.alerts.replication.ReplicationProperties.Role;
+
+/**
+ * Replication progress, as served by {@code /replication/status}.
+ *
+ * @param state            follower state, {@code null} on the leader
+ * @param appliedOffset    offset of the next leader record to apply; the end of the log on the leader
+ * @param leaderEndOffset  end of the leader's log when it was last read
+ * @param recordsBehind    records written by the leader and not applied yet
+ * @param lagMillis        age of the oldest record not applied yet, at most; 0 once caught up
+ * @param lastContactMillis time since the leader last answered, -1 before it ever did
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReplicationStatus(Role role, ReplicationFollower.State state, String leaderUrl, long appliedOffset,
+                                long leaderEndOffset, long recordsBehind, long lagMillis, long lastContactMillis,
+                                long recordsApplied, int bootstraps) {
+}
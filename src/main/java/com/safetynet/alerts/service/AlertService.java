@@ -1,36 +1,318 @@
 package com.safetynet.alerts.service;
 
 import com.safetynet.alerts.dto.*;
+import com.safetynet.alerts.event.ChangesCommitted;
+import com.safetynet.alerts.event.DataChangeEvent;
+import com.safetynet.alerts.event.DataChangeEvent.FirestationChanged;
+import com.safetynet.alerts.event.DataChangeEvent.MedicalRecordChanged;
+import com.safetynet.alerts.event.DataChangeEvent.Operation;
+import com.safetynet.alerts.event.DataChangeEvent.PersonChanged;
+import com.safetynet.alerts.analytics.AnalyticsProperties;
+import com.safetynet.alerts.analytics.StationAnalytics;
+import com.safetynet.alerts.history.HistoryProperties;
+import com.safetynet.alerts.history.SnapshotUnavailableException;
+import com.safetynet.alerts.history.StoreHistory;
+import com.safetynet.alerts.index.AddressIndex;
+import com.safetynet.alerts.index.AddressMatch;
+import com.safetynet.alerts.index.ClinicalIndex;
+import com.safetynet.alerts.index.Household;
+import com.safetynet.alerts.index.HouseholdIndex;
+import com.safetynet.alerts.index.KeyFilters;
+import com.safetynet.alerts.index.KeyFilters.KeyType;
+import com.safetynet.alerts.index.SpatialIndex;
+import com.safetynet.alerts.metrics.QueryMetrics;
+import com.safetynet.alerts.metrics.QueryMetrics.QueryStages;
+import com.safetynet.alerts.metrics.QueryMetrics.Stage;
 import com.safetynet.alerts.model.Firestation;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.replication.ReplicationSnapshot;
+import com.safetynet.alerts.store.AddressCoordinates;
+import com.safetynet.alerts.store.CompactCodec;
+import com.safetynet.alerts.store.CompactFirestation;
+import com.safetynet.alerts.store.CompactMedicalRecord;
+import com.safetynet.alerts.store.CompactPerson;
+import com.safetynet.alerts.store.Dictionary;
+import com.safetynet.alerts.store.Encodings;
+import com.safetynet.alerts.store.ResidentStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.Period;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * Service class providing alert-related functionalities.
+ * <p>
+ * Queries run under a shared read lock and mutations under the exclusive write lock. Once a
+ * mutation has been applied the lock is downgraded, so queries keep being served while the
+ * change is written to disk. {@link ReentrantReadWriteLock} parks virtual threads instead of
+ * pinning their carrier, which keeps the service safe to call from the {@code virtual} profile.
+ * </p>
+ * <p>
+ * Every successful CRUD operation publishes a {@link DataChangeEvent} per affected entity.
+ * Queries report the time spent in each stage through {@link QueryMetrics}.
+ * </p>
+ * <p>
+ * Queries scan the rows of the {@link ResidentStore} of {@link DataService} column by column:
+ * addresses, cities and stations are compared by dictionary code and ages are computed from
+ * epoch days. Model objects and strings are only produced for the DTOs and events that leave
+ * the service, so the same code serves the heap and the off-heap store. Clinical filters are
+ * answered from the bitmaps of {@link ClinicalIndex} and addresses that are not known as spelled
+ * are resolved through {@link AddressIndex}, geographic queries go through {@link SpatialIndex} and
+ * childAlert and fire return the shared lists of a {@link Household}; last names, cities and
+ * addresses no person has are rejected by the Bloom filters of {@link KeyFilters} before any scan.
+ * Every mutation is recorded as a version of {@link StoreHistory}, which {@link #asOf(Instant)}
+ * queries are answered from.
+ * The CRUD operations write through {@link DataService}, whose {@link StoreListener}s keep the
+ * indexes and the history current.
+ * </p>
  */
 @Service
+@EnableConfigurationProperties({HistoryProperties.class, AnalyticsProperties.class})
 public class AlertService {
+    private static final int NOT_FOUND = -1;
+    /** Addresses of a child roster read per read lock. */
+    static final int ROSTER_CHUNK = 256;
+    private static final int[] NO_ADDRESSES = new int[0];
+
     private final DataService dataService;
     private final DateTimeFormatter fmt = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+    private final ReentrantReadWriteLock lock;
+    private final ApplicationEventPublisher events;
+    private final QueryMetrics metrics;
+    private final ClinicalIndex clinicalIndex;
+    private final AddressIndex addressIndex;
+    private final SpatialIndex spatialIndex;
+    private final HouseholdIndex householdIndex;
+    private final KeyFilters keyFilters;
+    private final StoreHistory history;
+    private final StationAnalytics stationAnalytics;
+    /** Services over historical versions, by version id, least recently used first. */
+    private final Map<Long, AlertService> snapshots;
+    private final ReentrantLock snapshotsLock = new ReentrantLock();
 
     public AlertService(DataService dataService) {
+        this(dataService, event -> { });
+    }
+
+    public AlertService(DataService dataService, ApplicationEventPublisher events) {
+        this(dataService, events, QueryMetrics.standalone());
+    }
+
+    public AlertService(DataService dataService, ApplicationEventPublisher events, QueryMetrics metrics) {
+        this(dataService, events, metrics, new HistoryProperties(), new AnalyticsProperties());
+    }
+
+    @Autowired
+    public AlertService(DataService dataService, ApplicationEventPublisher events, QueryMetrics metrics,
+                        HistoryProperties historyProperties, AnalyticsProperties analyticsProperties) {
+        this(dataService, events, metrics, metrics.getRegistry(), historyProperties, analyticsProperties,
+                new ReentrantReadWriteLock());
+    }
+
+    /**
+     * A service over a historical version, sharing the lock of the live service since both read
+     * the dictionaries of the same codec. Its index meters are kept apart from the live ones.
+     */
+    private AlertService(DataService dataService, QueryMetrics metrics, ReentrantReadWriteLock lock) {
+        this(dataService, event -> { }, metrics, new SimpleMeterRegistry(), disabledHistory(), new AnalyticsProperties(),
+                lock);
+    }
+
+    private AlertService(DataService dataService, ApplicationEventPublisher events, QueryMetrics metrics,
+                         MeterRegistry indexRegistry, HistoryProperties historyProperties,
+                         AnalyticsProperties analyticsProperties, ReentrantReadWriteLock lock) {
         this.dataService = dataService;
+        this.events = events;
+        this.metrics = metrics;
+        this.lock = lock;
+        this.clinicalIndex = new ClinicalIndex(dataService);
+        this.addressIndex = new AddressIndex(dataService);
+        this.spatialIndex = new SpatialIndex(dataService);
+        this.householdIndex = new HouseholdIndex(dataService, clinicalIndex);
+        this.keyFilters = new KeyFilters(dataService, indexRegistry);
+        this.history = new StoreHistory(dataService, historyProperties);
+        this.stationAnalytics = new StationAnalytics(dataService, clinicalIndex, history, analyticsProperties);
+        // the clinical index first: the households and station statistics look up names in it
+        for (StoreListener listener : List.of(clinicalIndex, addressIndex, spatialIndex, householdIndex,
+                keyFilters, history, stationAnalytics)) {
+            dataService.addListener(listener);
+        }
+        int cached = historyProperties.getCachedSnapshots();
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AlertService> eldest) {
+                return size() > cached;
+            }
+        };
+    }
+
+    private static HistoryProperties disabledHistory() {
+        HistoryProperties properties = new HistoryProperties();
+        properties.setEnabled(false);
+        return properties;
+    }
+
+    private <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a change under the write lock and persists it if the change reports a modification.
+     * Changes made within another change join it.
+     * <p>
+     * Change events are published within {@code change}, after the store was modified. A listener
+     * throwing there stops the change (and the rest of a batch) part way: what was applied is
+     * committed to the history and saved, then the failure is rethrown, and listeners that
+     * already handled the events are not told. The change log therefore does not throw on a
+     * failed append: it records a gap, which makes its consumers reload a snapshot.
+     * {@link ChangesCommitted} follows once readers are let back in.
+     * </p>
+     *
+     * @param change in-memory modification, returning {@code true} when data was changed
+     * @return the value returned by {@code change}
+     */
+    private boolean mutate(BooleanSupplier change) {
+        if (lock.isWriteLockedByCurrentThread()) {
+            // part of a batch: the outermost mutation commits and saves once
+            return change.getAsBoolean();
+        }
+        boolean changed;
+        RuntimeException failure = null;
+        lock.writeLock().lock();
+        try {
+            try {
+                changed = change.getAsBoolean();
+            } catch (RuntimeException e) {
+                failure = e;
+                changed = true;
+            }
+            if (changed) {
+                history.commit();
+            }
+            // downgrade: keep readers out of a half-written state but let them in during file I/O
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            if (changed) {
+                try {
+                    events.publishEvent(ChangesCommitted.INSTANCE);
+                } finally {
+                    dataService.saveData();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return changed;
+    }
+
+    /**
+     * Codes of the addresses mapped to one of {@code stations}.
+     */
+    private BitSet addressesServedBy(Collection<String> stations, QueryStages stages) {
+        Dictionary stationCodes = dataService.getCodec().getStations();
+        BitSet wanted = new BitSet();
+        for (String station : stations) {
+            int code = stationCodes.find(station);
+            if (code != Dictionary.NONE) {
+                wanted.set(code);
+            }
+        }
+        BitSet addresses = new BitSet();
+        List<CompactFirestation> firestations = dataService.getFirestations();
+        for (CompactFirestation f : firestations) {
+            if (f.station() != Dictionary.NONE && f.address() != Dictionary.NONE && wanted.get(f.station())) {
+                addresses.set(f.address());
+            }
+        }
+        stages.mappingsScanned(firestations.size());
+        return addresses;
+    }
+
+    /**
+     * Rows of the persons whose address code is in {@code addresses}.
+     */
+    private int[] residentsOf(ResidentStore store, BitSet addresses, QueryStages stages) {
+        int[] rows = IntStream.range(0, store.personCount())
+                .filter(row -> store.address(row) != Dictionary.NONE && addresses.get(store.address(row)))
+                .toArray();
+        stages.personsScanned(store.personCount());
+        return rows;
+    }
+
+    /**
+     * Row of the medical record of the person at {@code row}, {@link #NOT_FOUND} when there is none.
+     */
+    private int findMedical(int row, QueryStages stages) {
+        stages.medicalLookup(1);
+        return clinicalIndex.medicalRecordOf(row);
+    }
+
+    /**
+     * Service answering the queries from the data as it was at {@code instant}. The latest
+     * version is the live data and is answered by this service. An older one is read in place from
+     * the history, without copying its rows, but its indexes are built on their first use, in
+     * time and memory proportional to the version's rows as after a reload; they are kept for the
+     * next {@link HistoryProperties#getCachedSnapshots()} versions queried.
+     *
+     * @throws SnapshotUnavailableException when {@code instant} precedes the versions kept
+     */
+    public AlertService asOf(Instant instant) {
+        return read(() -> {
+            StoreHistory.Version version = history.at(instant)
+                    .orElseThrow(() -> new SnapshotUnavailableException("No data kept as of " + instant));
+            if (history.isLatest(version)) {
+                return this;
+            }
+            snapshotsLock.lock();
+            try {
+                return snapshots.computeIfAbsent(version.id(),
+                        id -> new AlertService(version.view(dataService.getCodec()), metrics, lock));
+            } finally {
+                snapshotsLock.unlock();
+            }
+        });
     }
 
-    private Optional<MedicalRecord> findMedical(Person p) {
-        return dataService.getMedicalrecords().stream()
-                .filter(m -> m.getFirstName().equals(p.getFirstName()) && m.getLastName().equals(p.getLastName()))
-                .findFirst();
+    /**
+     * Known address best matching {@code address}, see {@link AddressIndex}.
+     */
+    public Optional<AddressMatch> resolveAddress(String address) {
+        return read(() -> addressIndex.resolve(address));
     }
 
-    private Optional<Integer> ageFromBirthdate(String birthdate) {
+    /**
+     * Age in years for a {@code MM/dd/yyyy} birthdate, empty when missing or unparsable.
+     */
+    public Optional<Integer> ageFromBirthdate(String birthdate) {
         try {
             LocalDate b = LocalDate.parse(birthdate, fmt);
             return Optional.of(Period.between(b, LocalDate.now()).getYears());
@@ -39,6 +321,82 @@ public class AlertService {
         }
     }
 
+    /**
+     * Station numbers mapped to an address (exact match), one entry per mapping, so an address
+     * mapped twice to the same station appears twice.
+     */
+    public List<String> getStationsServing(String address) {
+        return read(() -> {
+            CompactCodec codec = dataService.getCodec();
+            int code = codec.getAddresses().find(address);
+            List<String> stations = new ArrayList<>();
+            if (code != Dictionary.NONE) {
+                for (CompactFirestation f : dataService.getFirestations()) {
+                    if (f.address() == code && f.station() != Dictionary.NONE) {
+                        stations.add(codec.getStations().decode(f.station()));
+                    }
+                }
+            }
+            return stations;
+        });
+    }
+
+    /**
+     * Copies of the persons living at an address (exact match).
+     */
+    public List<Person> getResidentsAt(String address) {
+        return read(() -> {
+            CompactCodec codec = dataService.getCodec();
+            ResidentStore store = dataService.getStore();
+            int code = codec.getAddresses().find(address);
+            List<Person> residents = new ArrayList<>();
+            if (code == Dictionary.NONE || !keyFilters.mightContain(KeyType.ADDRESS, address)) {
+                return residents;
+            }
+            for (int row = 0; row < store.personCount(); row++) {
+                if (store.address(row) == code) {
+                    residents.add(codec.decode(store.person(row)));
+                }
+            }
+            if (residents.isEmpty()) {
+                keyFilters.falsePositive(KeyType.ADDRESS);
+            }
+            return residents;
+        });
+    }
+
+    /**
+     * The household living at an address (exact match) today, see {@link HouseholdIndex}.
+     */
+    public Household getHousehold(String address) {
+        return read(() -> {
+            int code = dataService.getCodec().getAddresses().find(address);
+            return householdIndex.at(code != Dictionary.NONE ? new int[]{code} : NO_ADDRESSES, LocalDate.now());
+        });
+    }
+
+    public Optional<Person> findPerson(String firstName, String lastName) {
+        return read(() -> {
+            ResidentStore store = dataService.getStore();
+            for (int row = 0; row < store.personCount(); row++) {
+                if (Objects.equals(store.firstName(row), firstName) && Objects.equals(store.lastName(row), lastName)) {
+                    return Optional.of(dataService.getCodec().decode(store.person(row)));
+                }
+            }
+            return Optional.empty();
+        });
+    }
+
+    /**
+     * Age of a person according to their medical record, empty when there is no usable record.
+     */
+    public Optional<Integer> getAge(String firstName, String lastName) {
+        return read(() -> {
+            int m = clinicalIndex.medicalRecordNamed(firstName, lastName);
+            return m != NOT_FOUND ? dataService.getCodec().age(dataService.getStore().birthdate(m), LocalDate.now()) : Optional.empty();
+        });
+    }
+
     /**
      * Get people covered by a firestation number along with counts of adults and children.
      *
@@ -46,332 +404,691 @@ public class AlertService {
      * @return Map with keys "persons" (list of ResidentInfoDto), "children" (int), and "adults" (int)
      */
     public Map<String, Object> getFirestationPeople(String stationNumber) {
-        List<Firestation> mappings = dataService.getFirestations().stream()
-                .filter(fs -> fs.getStation() != null && fs.getStation().equals(stationNumber))
-                .collect(Collectors.toList());
-
-        Set<String> addresses = mappings.stream()
-                .map(fs -> fs.getAddress())
-                .collect(Collectors.toSet());
-
-        List<Person> persons = dataService.getPersons().stream()
-                .filter(p -> addresses.contains(p.getAddress()))
-                .collect(Collectors.toList());
-
-        List<ResidentInfoDto> personDtos = persons.stream()
-                .map(p -> new ResidentInfoDto(p.getFirstName(), p.getLastName(), p.getAddress(), p.getPhone()))
-                .collect(Collectors.toList());
-        //  provide a count of the number of adults and the
-        //  number of children (any individual aged 18 years or younger) in the served area.
-        int children = 0;
-        int adults = 0;
-        for (Person p : persons) {
-            Optional<Integer> ageOpt = findMedical(p).flatMap(m -> ageFromBirthdate(m.getBirthdate()));
-            if (ageOpt.isPresent()) {
-                int age = ageOpt.get();
-                if (age <= 18) children++; else adults++;
-            }
-            // if no medical record / invalid birthdate -> do not count (avoids false child classification)
-        }
+        return read(() -> {
+            QueryStages stages = metrics.start("firestation", stationNumber);
+            long t = System.nanoTime();
+            CompactCodec codec = dataService.getCodec();
+            ResidentStore store = dataService.getStore();
+            BitSet addresses = addressesServedBy(Collections.singleton(stationNumber), stages);
+            t = stages.lap(Stage.STATION_RESOLUTION, t);
 
-        Map<String, Object> resp = new HashMap<>();
-        resp.put("persons", personDtos);
-        resp.put("children", children);
-        resp.put("adults", adults);
-        return resp;
+            int[] persons = residentsOf(store, addresses, stages);
+            t = stages.lap(Stage.RESIDENT_FILTERING, t);
+
+            List<ResidentInfoDto> personDtos = new ArrayList<>(persons.length);
+            for (int row : persons) {
+                personDtos.add(new ResidentInfoDto(store.firstName(row), store.lastName(row),
+                        codec.getAddresses().decode(store.address(row)), store.phone(row)));
+            }
+            t = stages.lap(Stage.DTO_ASSEMBLY, t);
+            //  provide a count of the number of adults and the
+            //  number of children (any individual aged 18 years or younger) in the served area.
+            LocalDate today = LocalDate.now();
+            int children = 0;
+            int adults = 0;
+            for (int row : persons) {
+                int mr = findMedical(row, stages);
+                t = stages.lap(Stage.MEDICAL_LOOKUP, t);
+                Optional<Integer> ageOpt = mr != NOT_FOUND ? codec.age(store.birthdate(mr), today) : Optional.empty();
+                t = stages.lap(Stage.AGE_CALCULATION, t);
+                if (ageOpt.isPresent()) {
+                    int age = ageOpt.get();
+                    if (age <= 18) children++; else adults++;
+                }
+                // if no medical record / invalid birthdate -> do not count (avoids false child classification)
+            }
+
+            Map<String, Object> resp = new HashMap<>();
+            resp.put("persons", personDtos);
+            resp.put("children", children);
+            resp.put("adults", adults);
+            stages.dtosProduced(personDtos.size());
+            stages.lap(Stage.DTO_ASSEMBLY, t);
+            stages.record();
+            return resp;
+        });
     }
 
     public List<ChildInfoDto> getChildAlert(String address) {
-        // filter residents at the given address
-        List<Person> residents = dataService.getPersons().stream()
-                .filter(p -> p.getAddress().equalsIgnoreCase(address))
-                .toList();
-        // then find children among them
-        List<ChildInfoDto> result = new ArrayList<>();
-
-        for (Person p : residents) {
-            Optional<Integer> ageOpt = findMedical(p).flatMap(m -> ageFromBirthdate(m.getBirthdate()));
-            // make sure to only include children (age 18 or younger)
-            includeChildren(p, ageOpt, residents, result);
-        }
-        return result;
+        return read(() -> {
+            QueryStages stages = metrics.start("childAlert", address);
+            long t = System.nanoTime();
+            // the household at the given address, or at the closest known spelling of it
+            int[] codes = addressIndex.resolve(address).map(AddressMatch::codes).orElse(NO_ADDRESSES);
+            Household household = householdIndex.at(codes, LocalDate.now());
+            t = stages.lap(Stage.RESIDENT_FILTERING, t);
+            // children (age 18 or younger) and the other members were sorted out when it was built
+            List<ChildInfoDto> result = household.children();
+            stages.dtosProduced(result.size());
+            stages.lap(Stage.DTO_ASSEMBLY, t);
+            stages.record();
+            return result;
+        });
     }
 
-    private static void includeChildren(Person p, Optional<Integer> ageOpt, List<Person> residents, List<ChildInfoDto> result) {
-        if (ageOpt.isPresent() && ageOpt.get() <= 18) {
-            List<ChildInfoDto.HouseholdMember> others = residents.stream()
-                    .filter(o -> !(o.getFirstName().equals(p.getFirstName()) && o.getLastName().equals(p.getLastName())))
-                    .map(o -> new ChildInfoDto.HouseholdMember(o.getFirstName(), o.getLastName()))
-                    .collect(Collectors.toList());
-            result.add(new ChildInfoDto(p.getFirstName(), p.getLastName(), ageOpt.get(), others));
+    /**
+     * Passes every address served by {@code stationList} that has children, with the children
+     * and the other members of their household, to {@code consumer} in address code order.
+     * <p>
+     * Addresses are read {@value #ROSTER_CHUNK} at a time under the read lock, their children
+     * taken from the index bitmaps without building households, and passed on once the lock is
+     * released, so that neither the roster of a large station nor a slow reader of it holds up
+     * the writers. Each household is consistent; a write between two chunks shows in the later
+     * ones only, and the served addresses are those of the first chunk.
+     * </p>
+     */
+    public void forEachChildHousehold(List<String> stationList, BiConsumer<String, List<ChildInfoDto>> consumer) {
+        if (stationList == null || stationList.isEmpty()) {
+            return;
         }
+        QueryStages stages = metrics.start("childRoster", stationList);
+        BitSet served = read(() -> {
+            long t = System.nanoTime();
+            BitSet addresses = addressesServedBy(stationList, stages);
+            stages.lap(Stage.STATION_RESOLUTION, t);
+            return addresses;
+        });
+        LocalDate today = LocalDate.now();
+        BitSet seen = new BitSet();
+        List<String> addresses = new ArrayList<>(ROSTER_CHUNK);
+        List<List<ChildInfoDto>> children = new ArrayList<>(ROSTER_CHUNK);
+        int next = served.nextSetBit(0);
+        while (next >= 0) {
+            int from = next;
+            next = read(() -> {
+                long t = System.nanoTime();
+                Dictionary addressCodes = dataService.getCodec().getAddresses();
+                int code = from;
+                // one household per address, gathering the residents of its other spellings
+                for (int taken = 0; code >= 0 && taken < ROSTER_CHUNK; code = served.nextSetBit(code + 1)) {
+                    if (seen.get(code)) {
+                        continue;
+                    }
+                    String address = addressCodes.decode(code);
+                    int[] spellings = addressCodes.findIgnoreCase(address);
+                    for (int spelling : spellings) {
+                        seen.set(spelling);
+                    }
+                    taken++;
+                    List<ChildInfoDto> found = householdIndex.childrenAt(spellings, today);
+                    if (!found.isEmpty()) {
+                        addresses.add(address);
+                        children.add(found);
+                        stages.dtosProduced(found.size());
+                    }
+                }
+                stages.lap(Stage.RESIDENT_FILTERING, t);
+                return code;
+            });
+            for (int i = 0; i < addresses.size(); i++) {
+                consumer.accept(addresses.get(i), children.get(i));
+            }
+            addresses.clear();
+            children.clear();
+        }
+        stages.record();
+    }
+
+    /**
+     * Appends the name, phone, age and medical history of a resident, timing each stage.
+     *
+     * @return the current {@link System#nanoTime()}
+     */
+    private long residentInfo(ResidentStore store, int row, LocalDate today, QueryStages stages, long t, List<ResidentInfoDto> out) {
+        CompactCodec codec = dataService.getCodec();
+        int mr = findMedical(row, stages);
+        t = stages.lap(Stage.MEDICAL_LOOKUP, t);
+        int age = mr != NOT_FOUND ? codec.age(store.birthdate(mr), today).orElse(0) : 0;
+        t = stages.lap(Stage.AGE_CALCULATION, t);
+        List<String> meds = mr != NOT_FOUND ? codec.decodeTerms(store.medications(mr)) : Collections.emptyList();
+        List<String> allergies = mr != NOT_FOUND ? codec.decodeTerms(store.allergies(mr)) : Collections.emptyList();
+        out.add(new ResidentInfoDto(store.firstName(row), store.lastName(row), store.phone(row), age, meds, allergies));
+        return stages.lap(Stage.DTO_ASSEMBLY, t);
     }
 
     public List<String> getPhoneAlert(String stationNumber) {
-        // get addresses covered by the station number
-        Set<String> addresses = dataService.getFirestations().stream()
-                .filter(fs -> fs.getStation() != null && fs.getStation().equals(stationNumber))
-                .map(fs -> fs.getAddress())
-                .collect(Collectors.toSet());
-        // a list of phone numbers of residents served by the fire station
-        return dataService.getPersons().stream()
-                .filter(p -> addresses.contains(p.getAddress()))
-                .map(Person::getPhone)
-                .filter(Objects::nonNull)
-                .distinct()
-                .collect(Collectors.toList());
+        return read(() -> {
+            QueryStages stages = metrics.start("phoneAlert", stationNumber);
+            long t = System.nanoTime();
+            // get addresses covered by the station number
+            BitSet addresses = addressesServedBy(Collections.singleton(stationNumber), stages);
+            t = stages.lap(Stage.STATION_RESOLUTION, t);
+            // a list of phone numbers of residents served by the fire station
+            ResidentStore store = dataService.getStore();
+            int[] rows = residentsOf(store, addresses, stages);
+            // deduplicate on the encoded numbers, so that each distinct number is decoded once
+            long[] distinct = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                distinct[i] = store.phoneCode(rows[i]);
+            }
+            Arrays.sort(distinct);
+            int distinctCount = 0;
+            for (int i = 0; i < distinct.length; i++) {
+                if (i == 0 || distinct[i] != distinct[i - 1]) {
+                    distinct[distinctCount++] = distinct[i];
+                }
+            }
+            BitSet listed = new BitSet(distinctCount);
+            Set<String> unencoded = null;
+            List<String> phones = new ArrayList<>(distinctCount);
+            for (int row : rows) {
+                long code = store.phoneCode(row);
+                if (code != Encodings.NO_PHONE) {
+                    int index = Arrays.binarySearch(distinct, 0, distinctCount, code);
+                    if (!listed.get(index)) {
+                        listed.set(index);
+                        phones.add(Encodings.decodePhone(code));
+                    }
+                } else {
+                    // kept as text, rare
+                    String phone = store.phone(row);
+                    if (phone != null) {
+                        if (unencoded == null) {
+                            unencoded = new HashSet<>();
+                        }
+                        if (unencoded.add(phone)) {
+                            phones.add(phone);
+                        }
+                    }
+                }
+            }
+            stages.dtosProduced(phones.size());
+            stages.lap(Stage.RESIDENT_FILTERING, t);
+            stages.record();
+            return phones;
+        });
     }
 
     public FireAddressResponseDto getFire(String address) {
-        Optional<Firestation> mapping = dataService.getFirestations().stream()
-                .filter(fs -> fs.getAddress().equalsIgnoreCase(address))
-                .findFirst();
+        return read(() -> {
+            QueryStages stages = metrics.start("fire", address);
+            long t = System.nanoTime();
+            CompactCodec codec = dataService.getCodec();
+            Optional<AddressMatch> match = addressIndex.resolve(address);
+            int[] codes = match.map(AddressMatch::codes).orElse(NO_ADDRESSES);
+            String station = null;
+            for (CompactFirestation f : dataService.getFirestations()) {
+                if (Dictionary.contains(codes, f.address())) {
+                    station = codec.getStations().decode(f.station());
+                    break;
+                }
+            }
+            stages.mappingsScanned(dataService.getFirestations().size());
+            t = stages.lap(Stage.STATION_RESOLUTION, t);
+
+            // return the list of residents living at the given address as well as the fire
+            // station number serving the address. The list includes the name, phone number,
+            // age, and medical history (medications and allergies) of each person
+            List<ResidentInfoDto> residentDtos = householdIndex.at(codes, LocalDate.now()).residents();
+            t = stages.lap(Stage.RESIDENT_FILTERING, t);
+            FireAddressResponseDto response = new FireAddressResponseDto(station, residentDtos);
+            if (match.isPresent() && !match.get().address().equalsIgnoreCase(address)) {
+                response.setMatchedAddress(match.get().address());
+                response.setMatchScore(match.get().score());
+            }
+            stages.dtosProduced(residentDtos.size());
+            stages.lap(Stage.DTO_ASSEMBLY, t);
+            stages.record();
+            return response;
+        });
+    }
+
+    public Map<String, List<ResidentInfoDto>> getFloodStations(List<String> stationList) {
+        return read(() -> {
+            if (stationList == null || stationList.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            QueryStages stages = metrics.start("flood", stationList);
+            long t = System.nanoTime();
+            CompactCodec codec = dataService.getCodec();
+            ResidentStore store = dataService.getStore();
 
-        String station = mapping.map(m -> m.getStation()).orElse(null);
+            // addresses served by the requested stations, and their other spellings
+            BitSet served = addressesServedBy(stationList, stages);
+            BitSet addresses = new BitSet();
+            for (int code = served.nextSetBit(0); code >= 0; code = served.nextSetBit(code + 1)) {
+                for (int spelling : codec.getAddresses().findIgnoreCase(codec.getAddresses().decode(code))) {
+                    addresses.set(spelling);
+                }
+            }
+            t = stages.lap(Stage.STATION_RESOLUTION, t);
+
+            if (addresses.isEmpty()) {
+                stages.record();
+                return Collections.emptyMap();
+            }
 
-        List<Person> residents = dataService.getPersons().stream()
-                .filter(p -> p.getAddress().equalsIgnoreCase(address))
-                .collect(Collectors.toList());
-        // return the list of residents living at the given address as well as the fire
-        // station number serving the address. The list includes the name, phone number,
-        // age, and medical history (medications and allergies) of each person
-        List<ResidentInfoDto> residentDtos = residents.stream().map(p -> {
-            Optional<MedicalRecord> mr = findMedical(p);
-            int age = mr.flatMap(m -> ageFromBirthdate(m.getBirthdate())).orElse(0);
-            List<String> meds = mr.map(MedicalRecord::getMedications).orElse(Collections.emptyList());
-            List<String> allergies = mr.map(MedicalRecord::getAllergies).orElse(Collections.emptyList());
-            return new ResidentInfoDto(p.getFirstName(), p.getLastName(), p.getPhone(), age, meds, allergies);
-        }).collect(Collectors.toList());
+            // group persons by their address (use person's address string as the map key)
+            Map<Integer, List<Integer>> personsByAddress = new HashMap<>();
+            for (int row : residentsOf(store, addresses, stages)) {
+                personsByAddress.computeIfAbsent(store.address(row), a -> new ArrayList<>()).add(row);
+            }
+            t = stages.lap(Stage.RESIDENT_FILTERING, t);
 
-        return new FireAddressResponseDto(station, residentDtos);
+            LocalDate today = LocalDate.now();
+            Map<String, List<ResidentInfoDto>> result = new HashMap<>();
+
+            for (Map.Entry<Integer, List<Integer>> entry : personsByAddress.entrySet()) {
+                List<ResidentInfoDto> residentDtos = new ArrayList<>(entry.getValue().size());
+                for (int row : entry.getValue()) {
+                    t = residentInfo(store, row, today, stages, t, residentDtos);
+                }
+                result.put(codec.getAddresses().decode(entry.getKey()), residentDtos);
+                stages.dtosProduced(residentDtos.size());
+            }
+            stages.lap(Stage.DTO_ASSEMBLY, t);
+            stages.record();
+            return result;
+        });
     }
 
-    public Map<String, List<ResidentInfoDto>> getFloodStations(List<String> stationList) {
-        if (stationList == null || stationList.isEmpty()) {
-            return Collections.emptyMap();
-        }
+    public List<ResidentInfoDto> getPersonInfoByLastName(String lastName) {
+        return read(() -> {
+            if (lastName == null || lastName.trim().isEmpty() || !keyFilters.mightContain(KeyType.LAST_NAME, lastName)) {
+                return Collections.emptyList();
+            }
 
-        // addresses served by the requested stations
-        Set<String> addresses = dataService.getFirestations().stream()
-                .filter(fs -> fs.getStation() != null && stationList.contains(fs.getStation()))
-                .map(fs -> fs.getAddress())
-                .collect(Collectors.toSet());
+            QueryStages stages = metrics.start("personInfo", lastName);
+            long t = System.nanoTime();
+            CompactCodec codec = dataService.getCodec();
+            ResidentStore store = dataService.getStore();
+            String match = lastName.trim();
 
-        if (addresses.isEmpty()) {
-            return Collections.emptyMap();
-        }
+            int[] persons = IntStream.range(0, store.personCount())
+                    .filter(row -> store.lastName(row) != null && store.lastName(row).equalsIgnoreCase(match))
+                    .toArray();
+            stages.personsScanned(store.personCount());
+            t = stages.lap(Stage.RESIDENT_FILTERING, t);
+            if (persons.length == 0) {
+                keyFilters.falsePositive(KeyType.LAST_NAME);
+            }
 
-        // group persons by their address (use person's address string as the map key)
-        Map<String, List<Person>> personsByAddress = dataService.getPersons().stream()
-                .filter(p -> p.getAddress() != null && addresses.stream().anyMatch(addr -> addr.equalsIgnoreCase(p.getAddress())))
-                .collect(Collectors.groupingBy(Person::getAddress));
+            LocalDate today = LocalDate.now();
+            List<ResidentInfoDto> result = new ArrayList<>(persons.length);
+            for (int row : persons) {
+                String firstName = store.firstName(row);
+                String personLastName = store.lastName(row);
+                int mr = findMedical(row, stages);
+                t = stages.lap(Stage.MEDICAL_LOOKUP, t);
 
-        Map<String, List<ResidentInfoDto>> result = new HashMap<>();
+                int age = mr != NOT_FOUND && store.birthdate(mr) != Encodings.NO_DATE ? Encodings.age(store.birthdate(mr), today) : 0;
+                t = stages.lap(Stage.AGE_CALCULATION, t);
+                List<String> meds = mr != NOT_FOUND ? codec.decodeTerms(store.medications(mr)) : Collections.emptyList();
+                List<String> allergies = mr != NOT_FOUND ? codec.decodeTerms(store.allergies(mr)) : Collections.emptyList();
 
-        for (Map.Entry<String, List<Person>> entry : personsByAddress.entrySet()) {
-            List<ResidentInfoDto> residentDtos = entry.getValue().stream().map(p -> {
-                Optional<MedicalRecord> mr = findMedical(p);
-                int age = mr.flatMap(m -> ageFromBirthdate(m.getBirthdate())).orElse(0);
-                List<String> meds = mr.map(MedicalRecord::getMedications).orElse(Collections.emptyList());
-                List<String> allergies = mr.map(MedicalRecord::getAllergies).orElse(Collections.emptyList());
-                return new ResidentInfoDto(p.getFirstName(), p.getLastName(), p.getPhone(), age, meds, allergies);
-            }).collect(Collectors.toList());
+                result.add(new ResidentInfoDto(
+                        firstName,
+                        personLastName,
+                        codec.getAddresses().decode(store.address(row)),
+                        age,
+                        store.email(row),
+                        meds,
+                        allergies
+                ));
+                t = stages.lap(Stage.DTO_ASSEMBLY, t);
+            }
+            stages.dtosProduced(result.size());
+            stages.record();
+            return result;
+        });
+    }
 
-            result.put(entry.getKey(), residentDtos);
-        }
+    public List<String> getEmailsByCity(String city) {
+        return read(() -> {
+            if (city == null || city.trim().isEmpty() || !keyFilters.mightContain(KeyType.CITY, city)) {
+                return Collections.emptyList();
+            }
+            QueryStages stages = metrics.start("communityEmail", city);
+            long t = System.nanoTime();
+            String match = city.trim().toLowerCase(Locale.ROOT);
 
-        return result;
+            // cities are few: normalize each spelling once instead of once per person
+            Dictionary cities = dataService.getCodec().getCities();
+            BitSet matching = new BitSet();
+            for (int code = 0; code < cities.size(); code++) {
+                // convert to lower case and compare the normalized string to match
+                if (cities.decode(code).trim().toLowerCase(Locale.ROOT).equals(match)) {
+                    matching.set(code);
+                }
+            }
+            ResidentStore store = dataService.getStore();
+            Set<String> emails = new LinkedHashSet<>();
+            for (int row = 0; row < store.personCount(); row++) {
+                if (store.city(row) != Dictionary.NONE && matching.get(store.city(row))) {
+                    String email = store.email(row);
+                    if (email != null && !email.isBlank()) {
+                        emails.add(email);
+                    }
+                }
+            }
+            if (emails.isEmpty()) {
+                keyFilters.falsePositive(KeyType.CITY);
+            }
+            stages.personsScanned(store.personCount());
+            stages.dtosProduced(emails.size());
+            stages.lap(Stage.RESIDENT_FILTERING, t);
+            stages.record();
+            return new ArrayList<>(emails);
+        });
     }
 
-    public List<ResidentInfoDto> getPersonInfoByLastName(String lastName) {
-        if (lastName == null || lastName.trim().isEmpty()) {
-            return Collections.emptyList();
-        }
+    /**
+     * Residents matching the clinical criteria of {@code filter}, with their address, phone, age
+     * and medical history. Station and address restrict the residents, the terms are combined
+     * with AND or OR as requested; a filter without any criterion matches nobody.
+     */
+    public List<ResidentInfoDto> getClinicalFilter(ClinicalFilterDto filter) {
+        return read(() -> {
+            boolean located = !filter.stations().isEmpty() || filter.address() != null && !filter.address().isBlank();
+            if (!located && filter.medications().isEmpty() && filter.allergies().isEmpty()) {
+                return Collections.emptyList();
+            }
+            QueryStages stages = metrics.start("clinicalFilter", filter);
+            long t = System.nanoTime();
+            CompactCodec codec = dataService.getCodec();
+            ResidentStore store = dataService.getStore();
 
-        String match = lastName.trim().toLowerCase();
-
-        List<Person> persons = dataService.getPersons();
-
-        return persons.stream()
-                .filter(p -> p.getLastName() != null && p.getLastName().toLowerCase().equals(match))
-                .map(p -> {
-                    Optional<MedicalRecord> mr = dataService.getMedicalrecords().stream()
-                            .filter(m -> m.getFirstName() != null && m.getLastName() != null
-                                    && m.getFirstName().equalsIgnoreCase(p.getFirstName())
-                                    && m.getLastName().equalsIgnoreCase(p.getLastName()))
-                            .findFirst();
-
-                    int age = mr.map(m -> computeAge(m.getBirthdate())).orElse(0);
-                    List<String> meds = mr.map(MedicalRecord::getMedications).orElse(Collections.emptyList());
-                    List<String> allergies = mr.map(MedicalRecord::getAllergies).orElse(Collections.emptyList());
-
-                    return new ResidentInfoDto(
-                            p.getFirstName(),
-                            p.getLastName(),
-                            p.getAddress(),
-                            age,
-                            p.getEmail(),
-                            meds,
-                            allergies
-                    );
-                })
-                .collect(Collectors.toList());
-    }
-
-    private int computeAge(String birthdate) {
-        if (birthdate == null || birthdate.isBlank()) {
-            return 0;
-        }
-        try {
-            DateTimeFormatter fmt = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-            LocalDate bdate = LocalDate.parse(birthdate, fmt);
-            return Period.between(bdate, LocalDate.now()).getYears();
-        } catch (Exception e) {
-            return 0;
+            RoaringBitmap rows = null;
+            if (located) {
+                BitSet addresses = filter.stations().isEmpty() ? new BitSet() : addressesServedBy(filter.stations(), stages);
+                if (filter.address() != null && !filter.address().isBlank()) {
+                    BitSet at = new BitSet();
+                    for (int code : addressIndex.resolve(filter.address().trim()).map(AddressMatch::codes).orElse(NO_ADDRESSES)) {
+                        at.set(code);
+                    }
+                    if (filter.stations().isEmpty()) {
+                        addresses = at;
+                    } else {
+                        addresses.and(at);
+                    }
+                }
+                rows = clinicalIndex.residentsAt(addresses);
+                t = stages.lap(Stage.STATION_RESOLUTION, t);
+            }
+            RoaringBitmap matching = clinicalIndex.withTerms(filter.medications(), filter.allergies(), filter.matchAll());
+            if (matching != null) {
+                rows = rows != null ? RoaringBitmap.and(rows, matching) : matching;
+            }
+            t = stages.lap(Stage.RESIDENT_FILTERING, t);
+
+            List<ResidentInfoDto> result = residentDetails(store, rows, stages, t);
+            stages.record();
+            return result;
+        });
+    }
+
+    /**
+     * Name, address, phone, age and medical history of the residents at {@code rows}, in row order.
+     */
+    private List<ResidentInfoDto> residentDetails(ResidentStore store, RoaringBitmap rows, QueryStages stages, long t) {
+        CompactCodec codec = dataService.getCodec();
+        LocalDate today = LocalDate.now();
+        List<ResidentInfoDto> result = new ArrayList<>(rows.getCardinality());
+        for (int row : rows) {
+            int mr = clinicalIndex.medicalRecordOf(row);
+            stages.medicalLookup(1);
+            t = stages.lap(Stage.MEDICAL_LOOKUP, t);
+            int age = mr != NOT_FOUND ? codec.age(store.birthdate(mr), today).orElse(0) : 0;
+            t = stages.lap(Stage.AGE_CALCULATION, t);
+            ResidentInfoDto dto = new ResidentInfoDto(store.firstName(row), store.lastName(row), store.phone(row), age,
+                    mr != NOT_FOUND ? codec.decodeTerms(store.medications(mr)) : Collections.emptyList(),
+                    mr != NOT_FOUND ? codec.decodeTerms(store.allergies(mr)) : Collections.emptyList());
+            dto.setAddress(codec.getAddresses().decode(store.address(row)));
+            result.add(dto);
+            t = stages.lap(Stage.DTO_ASSEMBLY, t);
         }
+        stages.dtosProduced(result.size());
+        return result;
     }
 
-    public List<String> getEmailsByCity(String city) {
-        if (city == null || city.trim().isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * Residents of the households within {@code radiusKm} of a point, with their address, phone,
+     * age and medical history. Households without coordinates are never returned.
+     */
+    public List<ResidentInfoDto> getResidentsNear(double latitude, double longitude, double radiusKm) {
+        return read(() -> {
+            if (!(radiusKm >= 0) || !(Math.abs(latitude) <= 90) || !(Math.abs(longitude) <= 180)) {
+                return Collections.emptyList();
+            }
+            QueryStages stages = metrics.start("nearby", List.of(latitude, longitude, radiusKm));
+            long t = System.nanoTime();
+            BitSet addresses = spatialIndex.householdsWithin(latitude, longitude, radiusKm);
+            t = stages.lap(Stage.STATION_RESOLUTION, t);
+            RoaringBitmap rows = clinicalIndex.residentsAt(addresses);
+            t = stages.lap(Stage.RESIDENT_FILTERING, t);
+            List<ResidentInfoDto> result = residentDetails(dataService.getStore(), rows, stages, t);
+            stages.record();
+            return result;
+        });
+    }
+
+    /**
+     * The {@code k} stations closest to {@code address}, resolved as by {@link #resolveAddress(String)},
+     * nearest first; empty when the address is unknown or has no coordinates.
+     */
+    public List<StationDistanceDto> getNearestStations(String address, int k) {
+        return read(() -> {
+            QueryStages stages = metrics.start("nearestStations", address);
+            long t = System.nanoTime();
+            AddressCoordinates coordinates = dataService.getCodec().getCoordinates();
+            List<StationDistanceDto> result = new ArrayList<>();
+            for (int code : addressIndex.resolve(address).map(AddressMatch::codes).orElse(NO_ADDRESSES)) {
+                if (coordinates.has(code)) {
+                    result = spatialIndex.nearestStations(coordinates.latitude(code), coordinates.longitude(code), k);
+                    break;
+                }
+            }
+            stages.dtosProduced(result.size());
+            stages.lap(Stage.STATION_RESOLUTION, t);
+            stages.record();
+            return result;
+        });
+    }
+
+    /**
+     * Demographics of the residents of every station, by station number; see
+     * {@link StationAnalytics} for how they are computed and kept current.
+     *
+     * @param topMedications medications reported per station, most taken first
+     */
+    public Map<String, StationStatsDto> getStationStats(int topMedications) {
+        return stationAnalytics.stats(LocalDate.now(), topMedications, lock.readLock());
+    }
+
+    /**
+     * Applies {@code changes}, calls to the CRUD operations of this service, under one write lock
+     * and one save, so that queries see either none or all of them.
+     *
+     * @return the value returned by {@code changes}
+     */
+    public boolean batch(BooleanSupplier changes) {
+        return mutate(changes);
+    }
+
+    /**
+     * Replaces the data with the content of the data file, such as a snapshot received by a read
+     * replica. The indexes are rebuilt on their next use.
+     */
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            dataService.loadData();
+            history.commit();
+        } finally {
+            lock.writeLock().unlock();
         }
-        String match = city.trim().toLowerCase(Locale.ROOT);
+    }
 
-        return dataService.getPersons().stream()
-                .filter(p -> p.getCity() != null
-                        // convert to lower case and compare the normalized string to match
-                        && p.getCity().trim().toLowerCase(Locale.ROOT).equals(match)
-                        && p.getEmail() != null
-                        && !p.getEmail().isBlank())
-                .map(Person::getEmail)
-                .distinct()
-                .collect(Collectors.toList());
+    /**
+     * All records as they are written to the data file, with {@code position} read under the same
+     * lock. Change events are published while the write lock is held, so a position taken from
+     * their consumer, such as the end of the change log, matches the records exactly.
+     */
+    public ReplicationSnapshot snapshot(LongSupplier position) {
+        return read(() -> new ReplicationSnapshot(position.getAsLong(), dataService.snapshot()));
     }
 
     public void addPerson(PersonDto dto) {
-        if (dto == null || dto.firstName() == null || dto.lastName() == null) return;
-        Person p = new Person(dto.firstName(), dto.lastName(), dto.address(), dto.city(), dto.zip(), dto.phone(), dto.email());
-        dataService.getPersons().add(p);
-        dataService.saveData();
+        mutate(() -> {
+            if (dto == null || dto.firstName() == null || dto.lastName() == null) return false;
+            Person p = new Person(dto.firstName(), dto.lastName(), dto.address(), dto.city(), dto.zip(), dto.phone(), dto.email());
+            dataService.add(p);
+            events.publishEvent(new PersonChanged(Operation.ADDED, null, p));
+            return true;
+        });
     }
 
     public boolean updatePerson(PersonDto dto) {
-        if (dto == null || dto.firstName() == null || dto.lastName() == null) return false;
-
-        for (Person p : dataService.getPersons()) {
-            if (p.getFirstName() != null && p.getLastName() != null && p.getFirstName().equals(dto.firstName()) && p.getLastName().equals(dto.lastName())) {
-                p.setAddress(dto.address());
-                p.setCity(dto.city());
-                p.setZip(dto.zip());
-                p.setPhone(dto.phone());
-                p.setEmail(dto.email());
-                dataService.saveData();
-                return true;
+        return mutate(() -> {
+            if (dto == null || dto.firstName() == null || dto.lastName() == null) return false;
+
+            CompactCodec codec = dataService.getCodec();
+            ResidentStore store = dataService.getStore();
+            for (int row = 0; row < store.personCount(); row++) {
+                if (dto.firstName().equals(store.firstName(row)) && dto.lastName().equals(store.lastName(row))) {
+                    Person previous = codec.decode(store.person(row));
+                    Person updated = new Person(previous.getFirstName(), previous.getLastName(), dto.address(), dto.city(), dto.zip(), dto.phone(), dto.email());
+                    dataService.set(row, codec.encode(updated));
+                    events.publishEvent(new PersonChanged(Operation.UPDATED, previous, updated));
+                    return true;
+                }
             }
-        }
-        return false;
+            return false;
+        });
     }
 
     public boolean deletePerson(String firstName, String lastName) {
-        if (firstName == null || lastName == null) return false;
-        boolean removed = dataService.getPersons().removeIf(p ->
-                Objects.equals(p.getFirstName(), firstName) && Objects.equals(p.getLastName(), lastName));
-        if (removed) {
-            dataService.saveData();
-        }
-        return removed;
+        return mutate(() -> {
+            if (firstName == null || lastName == null) return false;
+            ResidentStore store = dataService.getStore();
+            List<CompactPerson> removed = dataService.removePersons(row ->
+                    Objects.equals(store.firstName(row), firstName) && Objects.equals(store.lastName(row), lastName));
+            removed.forEach(p -> events.publishEvent(new PersonChanged(Operation.DELETED, dataService.getCodec().decode(p), null)));
+            return !removed.isEmpty();
+        });
     }
 
     public void addFirestation(FirestationDto dto) {
-        if (dto == null || dto.getAddress() == null || dto.getStation() == null) return;
+        mutate(() -> {
+            if (dto == null || dto.getAddress() == null || dto.getStation() == null) return false;
 
-        Firestation f = new Firestation();
-        // adjust if model uses setters
-        f.setAddress(dto.getAddress());
-        f.setStation(dto.getStation());
-        dataService.getFirestations().add(f);
-        dataService.saveData();
+            Firestation f = new Firestation();
+            f.setAddress(dto.getAddress());
+            f.setStation(dto.getStation());
+            dataService.add(f);
+            events.publishEvent(new FirestationChanged(Operation.ADDED, null, f));
+            return true;
+        });
     }
 
     public boolean updateFirestation(FirestationDto dto) {
-        if (dto == null || dto.getAddress() == null || dto.getStation() == null) return false;
+        return mutate(() -> {
+            if (dto == null || dto.getAddress() == null || dto.getStation() == null) return false;
 
-        for (Firestation f : dataService.getFirestations()) {
-            if (f.getAddress() != null && f.getAddress().equals(dto.getAddress())) {
-                f.setStation(dto.getStation());
-                dataService.saveData();
-                return true;
+            CompactCodec codec = dataService.getCodec();
+            int address = codec.getAddresses().find(dto.getAddress());
+            List<CompactFirestation> firestations = dataService.getFirestations();
+            for (int i = 0; address != Dictionary.NONE && i < firestations.size(); i++) {
+                CompactFirestation f = firestations.get(i);
+                if (f.address() == address) {
+                    Firestation previous = codec.decode(f);
+                    Firestation updated = new Firestation();
+                    updated.setAddress(previous.getAddress());
+                    updated.setStation(dto.getStation());
+                    dataService.setFirestation(i, codec.encode(updated));
+                    events.publishEvent(new FirestationChanged(Operation.UPDATED, previous, updated));
+                    return true;
+                }
             }
-        }
-        return false;
+            return false;
+        });
     }
 
     public boolean deleteFirestation(String address, String stationNumber) {
-        if ((address == null || address.isBlank()) && (stationNumber == null || stationNumber.isBlank())) {
-            return false;
-        }
+        return mutate(() -> {
+            if ((address == null || address.isBlank()) && (stationNumber == null || stationNumber.isBlank())) {
+                return false;
+            }
 
-        boolean removed;
-        if (address != null) {
-            removed = dataService.getFirestations().removeIf(f -> Objects.equals(f.getAddress(), address));
-        } else {
-            removed = dataService.getFirestations().removeIf(f -> Objects.equals(f.getStation(), stationNumber));
-        }
-        if (removed) {
-            dataService.saveData();
-        }
-        return removed;
+            CompactCodec codec = dataService.getCodec();
+            int code = address != null ? codec.getAddresses().find(address) : codec.getStations().find(stationNumber);
+            if (code == Dictionary.NONE) {
+                return false;
+            }
+            return address != null
+                    ? removeFirestations(f -> f.address() == code)
+                    : removeFirestations(f -> f.station() == code);
+        });
+    }
+
+    /**
+     * Deletes the mappings of {@code address} to {@code stationNumber} only, leaving the other
+     * stations serving the address, as a read replica replays a deletion of the leader.
+     */
+    public boolean deleteFirestationMapping(String address, String stationNumber) {
+        return mutate(() -> {
+            if (address == null || stationNumber == null) {
+                return false;
+            }
+            CompactCodec codec = dataService.getCodec();
+            int addressCode = codec.getAddresses().find(address);
+            int stationCode = codec.getStations().find(stationNumber);
+            if (addressCode == Dictionary.NONE || stationCode == Dictionary.NONE) {
+                return false;
+            }
+            return removeFirestations(f -> f.address() == addressCode && f.station() == stationCode);
+        });
+    }
+
+    private boolean removeFirestations(Predicate<CompactFirestation> matches) {
+        List<CompactFirestation> removed = dataService.removeFirestations(matches);
+        removed.forEach(f -> events.publishEvent(new FirestationChanged(Operation.DELETED, dataService.getCodec().decode(f), null)));
+        return !removed.isEmpty();
     }
 
     public void addMedicalRecord(ResidentInfoDto dto) {
-        if (dto == null || dto.getFirstName() == null || dto.getLastName() == null) return;
-        MedicalRecord m = new MedicalRecord(dto.getFirstName(), dto.getLastName(), dto.getBirthdate(), dto.getMedications() != null ? new ArrayList<>(dto.getMedications()) : new ArrayList<>(), dto.getAllergies() != null ? new ArrayList<>(dto.getAllergies()) : new ArrayList<>());
-        dataService.getMedicalrecords().add(m);
-        dataService.saveData();
+        mutate(() -> {
+            if (dto == null || dto.getFirstName() == null || dto.getLastName() == null) return false;
+            MedicalRecord m = new MedicalRecord(dto.getFirstName(), dto.getLastName(), dto.getBirthdate(), dto.getMedications() != null ? new ArrayList<>(dto.getMedications()) : new ArrayList<>(), dto.getAllergies() != null ? new ArrayList<>(dto.getAllergies()) : new ArrayList<>());
+            dataService.add(m);
+            events.publishEvent(new MedicalRecordChanged(Operation.ADDED, null, m));
+            return true;
+        });
     }
 
     public boolean updateMedicalRecord(ResidentInfoDto record) {
-        if (record == null || record.getFirstName() == null || record.getLastName() == null) {
-            return false;
-        }
-
-        List<MedicalRecord> medicalRecords = dataService.getMedicalrecords();
-        if (medicalRecords == null) {
-            return false;
-        }
+        return mutate(() -> {
+            if (record == null || record.getFirstName() == null || record.getLastName() == null) {
+                return false;
+            }
 
-        for (MedicalRecord m : medicalRecords) {
-            if (m.getFirstName() != null && m.getLastName() != null
-                    && m.getFirstName().equals(record.getFirstName())
-                    && m.getLastName().equals(record.getLastName())) {
-
-                m.setBirthdate(record.getBirthdate());
-                m.setMedications(record.getMedications() != null
-                        ? new ArrayList<>(record.getMedications())
-                        : new ArrayList<>());
-                m.setAllergies(record.getAllergies() != null
-                        ? new ArrayList<>(record.getAllergies())
-                        : new ArrayList<>());
-                dataService.saveData();
-                return true;
+            CompactCodec codec = dataService.getCodec();
+            ResidentStore store = dataService.getStore();
+            int row = clinicalIndex.medicalRecordNamed(record.getFirstName(), record.getLastName());
+            if (row == NOT_FOUND) {
+                return false;
             }
-        }
-        return false;
+
+            MedicalRecord previous = codec.decode(store.medicalRecord(row));
+            MedicalRecord updated = new MedicalRecord(previous.getFirstName(), previous.getLastName(), record.getBirthdate(),
+                    record.getMedications() != null ? new ArrayList<>(record.getMedications()) : new ArrayList<>(),
+                    record.getAllergies() != null ? new ArrayList<>(record.getAllergies()) : new ArrayList<>());
+            dataService.set(row, codec.encode(updated));
+            events.publishEvent(new MedicalRecordChanged(Operation.UPDATED, previous, updated));
+            return true;
+        });
     }
 
     public boolean deleteMedicalRecord(String firstName, String lastName) {
-        if (firstName == null || lastName == null || firstName.isBlank() || lastName.isBlank()) {
-            return false;
-        }
-        List<MedicalRecord> medicalRecords = dataService.getMedicalrecords();
-        if (medicalRecords == null) {
-            return false;
-        }
-        boolean removed = medicalRecords.removeIf(m ->
-                Objects.equals(m.getFirstName(), firstName) && Objects.equals(m.getLastName(), lastName));
-        if (removed) {
-            dataService.saveData();
-        }
-        return removed;
+        return mutate(() -> {
+            if (firstName == null || lastName == null || firstName.isBlank() || lastName.isBlank()) {
+                return false;
+            }
+            ResidentStore store = dataService.getStore();
+            List<CompactMedicalRecord> removed = dataService.removeMedicalRecords(row ->
+                    Objects.equals(store.medicalFirstName(row), firstName) && Objects.equals(store.medicalLastName(row), lastName));
+            removed.forEach(m -> events.publishEvent(new MedicalRecordChanged(Operation.DELETED, dataService.getCodec().decode(m), null)));
+            return !removed.isEmpty();
+        });
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,58 @@
 package com.safetynet.alerts.service;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.safetynet.alerts.metrics.DataLoadEvent;
+import com.safetynet.alerts.metrics.DataSaveEvent;
 import com.safetynet.alerts.model.DataWrapper;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.model.Firestation;
 import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.service.StoreChange.FirestationAdded;
+import com.safetynet.alerts.service.StoreChange.FirestationUpdated;
+import com.safetynet.alerts.service.StoreChange.FirestationsRemoved;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordAdded;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordUpdated;
+import com.safetynet.alerts.service.StoreChange.MedicalRecordsRemoved;
+import com.safetynet.alerts.service.StoreChange.PersonAdded;
+import com.safetynet.alerts.service.StoreChange.PersonUpdated;
+import com.safetynet.alerts.service.StoreChange.PersonsRemoved;
+import com.safetynet.alerts.store.CompactCodec;
+import com.safetynet.alerts.store.CompactFirestation;
+import com.safetynet.alerts.store.CompactMedicalRecord;
+import com.safetynet.alerts.store.CompactPerson;
+import com.safetynet.alerts.store.ResidentStore;
+import com.safetynet.alerts.store.StoreProperties;
+import com.safetynet.alerts.store.StringPool;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
  * Service responsible for managing the persistence and in-memory storage of application data.
@@ -28,9 +65,41 @@ import java.util.List;
  * </ul>
  * </p>
  * <p>
- * The data is stored in {@code data/data.json} and is automatically loaded during the
- * {@link PostConstruct} phase. All CRUD operations trigger automatic persistence to ensure
- * data consistency between restarts.
+ * The data is stored in {@code data/data.json} (overridable with {@code safetynet.data.file})
+ * and is automatically loaded during the {@link PostConstruct} phase. All CRUD operations
+ * trigger automatic persistence to ensure data consistency between restarts.
+ * </p>
+ * <p>
+ * Writes to the file are serialized with a {@link ReentrantLock} rather than a
+ * {@code synchronized} monitor, so callers running on virtual threads park instead of
+ * pinning their carrier thread while the file is being written.
+ * </p>
+ * <p>
+ * Loads and saves are timed ({@code safetynet.data.load} / {@code safetynet.data.save}) and the
+ * size of the file read or written is recorded in {@code safetynet.data.bytes}, its number of
+ * records in {@code safetynet.data.records}. Both are also
+ * reported as JFR events ({@link DataLoadEvent}, {@link DataSaveEvent}) with the time spent
+ * waiting for the persistence lock.
+ * </p>
+ * <p>
+ * Records are held in their compact immutable form ({@link CompactPerson},
+ * {@link CompactFirestation}, {@link CompactMedicalRecord}) and converted by the
+ * {@link CompactCodec} only at the JSON boundary: the data file is parsed and written one record
+ * at a time, so the model classes never exist for the whole dataset at once. Names are shared
+ * through the codec's {@link StringPool}; the estimated heap it saves is logged on load and
+ * published as {@code safetynet.data.interned.saved}.
+ * </p>
+ * <p>
+ * Persons and medical records live in a {@link ResidentStore} chosen by
+ * {@code safetynet.store.type}: on the heap by default, or in off-heap columns for very large
+ * datasets, whose size is published as {@code safetynet.store.off-heap}. Firestation mappings
+ * stay in a list, there is one per address.
+ * </p>
+ * <p>
+ * Writes go through the methods of this service rather than to the store or the firestation
+ * list directly: each one advances {@link #getVersion()} and is passed as a {@link StoreChange}
+ * to the registered {@link StoreListener}s, which keep the indexes and the history current.
+ * Loading the data file advances the version without notifying them, so they are rebuilt.
  * </p>
  * 
  * @see Person
@@ -39,59 +108,343 @@ import java.util.List;
  */
 @Getter
 @Service
+@EnableConfigurationProperties(StoreProperties.class)
 public class DataService {
     private static final Logger log = LoggerFactory.getLogger(DataService.class);
     private static final String DATA_FILE_PATH = "data/data.json";
     
     private final ObjectMapper mapper;
     private final File dataFile;
-    
-    private List<Person> persons = new ArrayList<>();
-    private List<Firestation> firestations = new ArrayList<>();
-    private List<MedicalRecord> medicalrecords = new ArrayList<>();
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock persistLock = new ReentrantLock();
+    @Getter(AccessLevel.NONE)
+    private final Timer loadTimer;
+    @Getter(AccessLevel.NONE)
+    private final Timer saveTimer;
+    @Getter(AccessLevel.NONE)
+    private final DistributionSummary loadBytes;
+    @Getter(AccessLevel.NONE)
+    private final DistributionSummary saveBytes;
+    @Getter(AccessLevel.NONE)
+    private final DistributionSummary loadRecords;
+    @Getter(AccessLevel.NONE)
+    private final DistributionSummary saveRecords;
+    @Getter(AccessLevel.NONE)
+    private final StoreProperties storeProperties;
+    private final CompactCodec codec;
+    @Getter(AccessLevel.NONE)
+    private final List<StoreListener> listeners = new CopyOnWriteArrayList<>();
+
+    private ResidentStore store;
+    private List<CompactFirestation> firestations = new ArrayList<>();
+    /** Number of changes and loads so far. */
+    private volatile long version;
 
     public DataService() {
+        this(DATA_FILE_PATH);
+    }
+
+    public DataService(String dataFilePath) {
+        this(dataFilePath, new SimpleMeterRegistry());
+    }
+
+    public DataService(String dataFilePath, MeterRegistry registry) {
+        this(dataFilePath, registry, new StoreProperties());
+    }
+
+    @Autowired
+    public DataService(@Value("${safetynet.data.file:" + DATA_FILE_PATH + "}") String dataFilePath,
+                       MeterRegistry registry, StoreProperties storeProperties) {
+        this(dataFilePath, registry, storeProperties, new CompactCodec());
+    }
+
+    private DataService(String dataFilePath, MeterRegistry registry, StoreProperties storeProperties, CompactCodec codec) {
+        this.codec = codec;
+        this.storeProperties = storeProperties;
+        this.store = storeProperties.newStore();
         this.mapper = new ObjectMapper();
         this.mapper.enable(SerializationFeature.INDENT_OUTPUT);
-        this.dataFile = new File(DATA_FILE_PATH);
+        this.mapper.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.dataFile = new File(dataFilePath);
+        this.loadTimer = Timer.builder("safetynet.data.load").description("Time to read the data file").register(registry);
+        this.saveTimer = Timer.builder("safetynet.data.save").description("Time to write the data file").register(registry);
+        this.loadBytes = bytes(registry, "load");
+        this.saveBytes = bytes(registry, "save");
+        this.loadRecords = records(registry, "load");
+        this.saveRecords = records(registry, "save");
+        registry.gauge("safetynet.data.interned.saved", codec.getNames(), StringPool::bytesSaved);
+        registry.gauge("safetynet.data.interned.values", codec.getNames(), StringPool::size);
+        registry.gauge("safetynet.store.off-heap", this, d -> d.store.offHeapBytes());
+    }
+
+    /**
+     * Data service over existing rows encoded by {@code codec}, such as a historical snapshot.
+     * It has no data file: it is neither loaded nor saved.
+     */
+    public static DataService view(CompactCodec codec, ResidentStore store, List<CompactFirestation> firestations) {
+        DataService view = new DataService("", new SimpleMeterRegistry(), new StoreProperties(), codec);
+        view.store = store;
+        view.firestations = firestations;
+        return view;
+    }
+
+    /**
+     * Type of the stores this service loads its rows into.
+     */
+    public StoreProperties.Type getStoreType() {
+        return storeProperties.getType();
+    }
+
+    private static DistributionSummary bytes(MeterRegistry registry, String operation) {
+        return DistributionSummary.builder("safetynet.data.bytes")
+                .description("Size of the data file read or written")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static DistributionSummary records(MeterRegistry registry, String operation) {
+        return DistributionSummary.builder("safetynet.data.records")
+                .description("Persons, firestations and medical records read or written")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private int recordCount() {
+        return store.personCount() + firestations.size() + store.medicalRecordCount();
     }
 
     @PostConstruct
     public void loadData() {
         try {
             if (!dataFile.exists()) {
-                log.warn("Data file not found at {}, initializing with empty data", DATA_FILE_PATH);
-                this.persons = new ArrayList<>();
+                log.warn("Data file not found at {}, initializing with empty data", dataFile);
+                this.store = storeProperties.newStore();
                 this.firestations = new ArrayList<>();
-                this.medicalrecords = new ArrayList<>();
+                version++;
                 return;
             }
             
-            DataWrapper wrapper = mapper.readValue(dataFile, DataWrapper.class);
-            this.persons = wrapper.getPersons() != null ? new ArrayList<>(wrapper.getPersons()) : new ArrayList<>();
-            this.firestations = wrapper.getFirestations() != null ? new ArrayList<>(wrapper.getFirestations()) : new ArrayList<>();
-            this.medicalrecords = wrapper.getMedicalrecords() != null ? new ArrayList<>(wrapper.getMedicalrecords()) : new ArrayList<>();
+            DataLoadEvent event = new DataLoadEvent();
+            event.begin();
+            long start = System.nanoTime();
+            ResidentStore loaded = storeProperties.newStore();
+            List<CompactFirestation> loadedFirestations = new ArrayList<>();
+            try (JsonParser json = mapper.getFactory().createParser(dataFile)) {
+                if (json.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a JSON object");
+                }
+                while (json.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = json.currentName();
+                    json.nextToken();
+                    switch (field) {
+                        case "persons" -> readArray(json, Person.class, p -> loaded.add(codec.encode(p)));
+                        case "firestations" -> readArray(json, Firestation.class, f -> loadedFirestations.add(codec.encode(f)));
+                        case "medicalrecords" -> readArray(json, MedicalRecord.class, m -> loaded.add(codec.encode(m)));
+                        default -> json.skipChildren();
+                    }
+                }
+            }
+            this.store = loaded;
+            this.firestations = loadedFirestations;
+            version++;
+            loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            loadBytes.record(dataFile.length());
+            loadRecords.record(recordCount());
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = dataFile.getPath();
+                event.bytes = dataFile.length();
+                event.persons = store.personCount();
+                event.firestations = firestations.size();
+                event.medicalRecords = store.medicalRecordCount();
+                event.commit();
+            }
             
             log.info("Loaded data from {}: {} persons, {} firestations, {} medical records", 
-                    DATA_FILE_PATH, persons.size(), firestations.size(), medicalrecords.size());
+                    dataFile, store.personCount(), firestations.size(), store.medicalRecordCount());
+            log.info("Interned {} distinct names, {} duplicates replaced, ~{} KB saved",
+                    codec.getNames().size(), codec.getNames().duplicates(), codec.getNames().bytesSaved() / 1024);
         } catch (Exception e) {
-            log.error("Failed to load data from {}", DATA_FILE_PATH, e);
+            log.error("Failed to load data from {}", dataFile, e);
             throw new RuntimeException("Failed to load data.json", e);
         }
     }
 
-    public synchronized void saveData() {
+    private <T> void readArray(JsonParser json, Class<T> type, Consumer<T> consumer) throws IOException {
+        if (json.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (json.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected an array of " + type.getSimpleName() + " at " + json.currentLocation());
+        }
+        while (json.nextToken() != JsonToken.END_ARRAY) {
+            consumer.accept(mapper.readValue(json, type));
+        }
+    }
+
+    /**
+     * Registers {@code listener} for the changes made from now on.
+     */
+    public void addListener(StoreListener listener) {
+        listeners.add(listener);
+    }
+
+    private void changed(StoreChange change) {
+        version++;
+        for (StoreListener listener : listeners) {
+            listener.changed(change);
+        }
+    }
+
+    public void add(Person p) {
+        changed(new PersonAdded(store.add(codec.encode(p))));
+    }
+
+    public void add(Firestation f) {
+        firestations.add(codec.encode(f));
+        changed(new FirestationAdded(firestations.size() - 1));
+    }
+
+    public void add(MedicalRecord m) {
+        changed(new MedicalRecordAdded(store.add(codec.encode(m))));
+    }
+
+    public void set(int row, CompactPerson person) {
+        CompactPerson previous = store.person(row);
+        store.set(row, person);
+        changed(new PersonUpdated(row, previous));
+    }
+
+    /**
+     * Removes the persons whose row matches, keeping the order of the others.
+     *
+     * @return the removed persons, in row order
+     */
+    public List<CompactPerson> removePersons(IntPredicate matches) {
+        IntStream.Builder rows = IntStream.builder();
+        List<CompactPerson> removed = store.removePersons(recording(matches, rows));
+        if (!removed.isEmpty()) {
+            changed(new PersonsRemoved(rows.build().toArray(), removed));
+        }
+        return removed;
+    }
+
+    public void set(int row, CompactMedicalRecord record) {
+        CompactMedicalRecord previous = store.medicalRecord(row);
+        store.set(row, record);
+        changed(new MedicalRecordUpdated(row, previous));
+    }
+
+    public List<CompactMedicalRecord> removeMedicalRecords(IntPredicate matches) {
+        IntStream.Builder rows = IntStream.builder();
+        List<CompactMedicalRecord> removed = store.removeMedicalRecords(recording(matches, rows));
+        if (!removed.isEmpty()) {
+            changed(new MedicalRecordsRemoved(rows.build().toArray(), removed));
+        }
+        return removed;
+    }
+
+    private static IntPredicate recording(IntPredicate matches, IntStream.Builder rows) {
+        return row -> {
+            boolean match = matches.test(row);
+            if (match) {
+                rows.add(row);
+            }
+            return match;
+        };
+    }
+
+    public void setFirestation(int index, CompactFirestation firestation) {
+        CompactFirestation previous = firestations.set(index, firestation);
+        changed(new FirestationUpdated(index, previous));
+    }
+
+    /**
+     * Removes the matching firestation mappings.
+     *
+     * @return the removed mappings, in list order
+     */
+    public List<CompactFirestation> removeFirestations(Predicate<CompactFirestation> matches) {
+        List<CompactFirestation> removed = firestations.stream().filter(matches).toList();
+        if (!removed.isEmpty()) {
+            firestations.removeIf(matches);
+            changed(new FirestationsRemoved(removed));
+        }
+        return removed;
+    }
+
+    /**
+     * All records decoded to the model classes, as they are written to the data file.
+     */
+    public DataWrapper snapshot() {
+        DataWrapper wrapper = new DataWrapper();
+        List<Person> persons = new ArrayList<>(store.personCount());
+        for (int row = 0; row < store.personCount(); row++) {
+            persons.add(codec.decode(store.person(row)));
+        }
+        List<MedicalRecord> medicalrecords = new ArrayList<>(store.medicalRecordCount());
+        for (int row = 0; row < store.medicalRecordCount(); row++) {
+            medicalrecords.add(codec.decode(store.medicalRecord(row)));
+        }
+        wrapper.setPersons(persons);
+        wrapper.setFirestations(firestations.stream().map(codec::decode).toList());
+        wrapper.setMedicalrecords(medicalrecords);
+        return wrapper;
+    }
+
+    /**
+     * Saves waiting for the persistence lock, plus the one in progress.
+     */
+    public int getPersistBacklog() {
+        return persistLock.getQueueLength() + (persistLock.isLocked() ? 1 : 0);
+    }
+
+    public void saveData() {
+        DataSaveEvent event = new DataSaveEvent();
+        event.begin();
+        long waitStart = System.nanoTime();
+        persistLock.lock();
+        long lockWait = System.nanoTime() - waitStart;
         try {
-            DataWrapper wrapper = new DataWrapper();
-            wrapper.setPersons(persons);
-            wrapper.setFirestations(firestations);
-            wrapper.setMedicalrecords(medicalrecords);
-            
-            mapper.writeValue(dataFile, wrapper);
-            log.debug("Data persisted to {}", DATA_FILE_PATH);
+            long start = System.nanoTime();
+            try (JsonGenerator json = mapper.getFactory().createGenerator(dataFile, JsonEncoding.UTF8)) {
+                json.useDefaultPrettyPrinter();
+                json.writeStartObject();
+                json.writeArrayFieldStart("persons");
+                for (int row = 0; row < store.personCount(); row++) {
+                    mapper.writeValue(json, codec.decode(store.person(row)));
+                }
+                json.writeEndArray();
+                json.writeArrayFieldStart("firestations");
+                for (CompactFirestation f : firestations) {
+                    mapper.writeValue(json, codec.decode(f));
+                }
+                json.writeEndArray();
+                json.writeArrayFieldStart("medicalrecords");
+                for (int row = 0; row < store.medicalRecordCount(); row++) {
+                    mapper.writeValue(json, codec.decode(store.medicalRecord(row)));
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            saveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            saveBytes.record(dataFile.length());
+            saveRecords.record(recordCount());
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = dataFile.getPath();
+                event.bytes = dataFile.length();
+                event.lockWait = lockWait;
+                event.records = recordCount();
+                event.commit();
+            }
+            log.debug("Data persisted to {}", dataFile);
         } catch (IOException e) {
-            log.error("Failed to save data to {}", DATA_FILE_PATH, e);
+            log.error("Failed to save data to {}", dataFile, e);
             throw new RuntimeException("Failed to persist data", e);
+        } finally {
+            persistLock.unlock();
         }
     }
 }
@@ -0,0 +1,45 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.store.CompactFirestation;
+import com.safetynet.alerts.store.CompactMedicalRecord;
+import com.safetynet.alerts.store.CompactPerson;
+
+import java.util.List;
+
+/**
+ * Row-level change applied by {@link DataService}, as passed to its {@link StoreListener}s.
+ * <p>
+ * Rows are those of the store right after the change, except for removals, which give the rows
+ * the removed records had, ascending: the rows after each of them have moved down by one.
+ * {@code previous} is the record as it was before an update.
+ * </p>
+ */
+public sealed interface StoreChange {
+
+    record PersonAdded(int row) implements StoreChange {
+    }
+
+    record PersonUpdated(int row, CompactPerson previous) implements StoreChange {
+    }
+
+    record PersonsRemoved(int[] rows, List<CompactPerson> removed) implements StoreChange {
+    }
+
+    record MedicalRecordAdded(int row) implements StoreChange {
+    }
+
+    record MedicalRecordUpdated(int row, CompactMedicalRecord previous) implements StoreChange {
+    }
+
+    record MedicalRecordsRemoved(int[] rows, List<CompactMedicalRecord> removed) implements StoreChange {
+    }
+
+    record FirestationAdded(int index) implements StoreChange {
+    }
+
+    record FirestationUpdated(int index, CompactFirestation previous) implements StoreChange {
+    }
+
+    record FirestationsRemoved(List<CompactFirestation> removed) implements StoreChange {
+    }
+}
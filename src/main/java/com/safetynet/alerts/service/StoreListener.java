@@ -0,0 +1,21 @@
+package com.safetynet.alerts.service;
+
+/**
+ * Structure derived from the data of a {@link DataService}, such as an index or the history,
+ * kept current by {@link DataService#addListener(StoreListener)}.
+ * <p>
+ * A listener remembers the {@link DataService#getVersion() version} it reflects. It applies a
+ * change incrementally when it reflected the version just before it, and advances to the
+ * version after; otherwise, or when the change cannot be applied in place, it keeps its version
+ * and is rebuilt on its next use, as after a reload.
+ * </p>
+ */
+@FunctionalInterface
+public interface StoreListener {
+
+    /**
+     * Called after {@code change} was applied, with {@link DataService#getVersion()} already
+     * advanced, under the lock of the caller of {@link DataService}.
+     */
+    void changed(StoreChange change);
+}
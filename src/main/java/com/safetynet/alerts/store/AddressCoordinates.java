@@ -0,0 +1,57 @@
+package com.safetynet.alerts.store;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Latitude and longitude by address {@link Dictionary} code.
+ * <p>
+ * Coordinates describe an address, not a record: persons and firestations at the same address
+ * share them, and the last record read or written with coordinates sets them. Not thread-safe,
+ * like {@link Dictionary}.
+ * </p>
+ */
+public final class AddressCoordinates {
+    private double[] latitudes = new double[16];
+    private double[] longitudes = new double[16];
+    private final BitSet known = new BitSet();
+
+    /**
+     * Sets the coordinates of {@code address} when both are given.
+     *
+     * @return whether coordinates were set
+     */
+    public boolean set(int address, Double latitude, Double longitude) {
+        if (address == Dictionary.NONE || latitude == null || longitude == null) {
+            return false;
+        }
+        if (address >= latitudes.length) {
+            int length = Math.max(address + 1, latitudes.length * 2);
+            latitudes = Arrays.copyOf(latitudes, length);
+            longitudes = Arrays.copyOf(longitudes, length);
+        }
+        latitudes[address] = latitude;
+        longitudes[address] = longitude;
+        known.set(address);
+        return true;
+    }
+
+    public boolean has(int address) {
+        return address != Dictionary.NONE && known.get(address);
+    }
+
+    public double latitude(int address) {
+        return latitudes[address];
+    }
+
+    public double longitude(int address) {
+        return longitudes[address];
+    }
+
+    /**
+     * Number of addresses with coordinates.
+     */
+    public int size() {
+        return known.cardinality();
+    }
+}
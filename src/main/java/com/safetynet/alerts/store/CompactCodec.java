@@ -0,0 +1,131 @@
+package com.safetynet.alerts.store;
+
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Converts between the JSON model classes and their compact in-memory form, and owns the
+ * dictionaries and name pool the compact records refer to.
+ * <p>
+ * Decoding builds new model objects; it is meant for the JSON boundary (data file, REST
+ * responses, change events), not for query evaluation.
+ * </p>
+ */
+@Getter
+public final class CompactCodec {
+    private static final int[] NO_TERMS = new int[0];
+
+    private final StringPool names = new StringPool();
+    private final Dictionary addresses = Dictionary.ignoringCase();
+    private final AddressCoordinates coordinates = new AddressCoordinates();
+    private final Dictionary cities = new Dictionary();
+    private final Dictionary stations = new Dictionary();
+    /** Medications and allergies, found ignoring case and dose ({@code insulin} for {@code Insulin:10u}). */
+    private final Dictionary medicalTerms = Dictionary.ignoringCase(':');
+
+    public CompactPerson encode(Person p) {
+        int zip = Encodings.encodeZip(p.getZip());
+        long phone = Encodings.encodePhone(p.getPhone());
+        int address = addresses.encode(p.getAddress());
+        coordinates.set(address, p.getLatitude(), p.getLongitude());
+        return new CompactPerson(names.intern(p.getFirstName()), names.intern(p.getLastName()),
+                address, cities.encode(p.getCity()),
+                zip, zip == Encodings.NO_ZIP ? p.getZip() : null,
+                phone, phone == Encodings.NO_PHONE ? p.getPhone() : null,
+                p.getEmail());
+    }
+
+    public Person decode(CompactPerson p) {
+        Person person = new Person(p.firstName(), p.lastName(), addresses.decode(p.address()), cities.decode(p.city()),
+                zip(p), phone(p), p.email());
+        if (coordinates.has(p.address())) {
+            person.setLatitude(coordinates.latitude(p.address()));
+            person.setLongitude(coordinates.longitude(p.address()));
+        }
+        return person;
+    }
+
+    public String zip(CompactPerson p) {
+        return p.zip() != Encodings.NO_ZIP ? Encodings.decodeZip(p.zip()) : p.zipText();
+    }
+
+    public String phone(CompactPerson p) {
+        return p.phone() != Encodings.NO_PHONE ? Encodings.decodePhone(p.phone()) : p.phoneText();
+    }
+
+    public CompactFirestation encode(Firestation f) {
+        int address = addresses.encode(f.getAddress());
+        coordinates.set(address, f.getLatitude(), f.getLongitude());
+        return new CompactFirestation(address, stations.encode(f.getStation()));
+    }
+
+    public Firestation decode(CompactFirestation f) {
+        Firestation firestation = new Firestation();
+        firestation.setAddress(addresses.decode(f.address()));
+        firestation.setStation(stations.decode(f.station()));
+        if (coordinates.has(f.address())) {
+            firestation.setLatitude(coordinates.latitude(f.address()));
+            firestation.setLongitude(coordinates.longitude(f.address()));
+        }
+        return firestation;
+    }
+
+    public CompactMedicalRecord encode(MedicalRecord m) {
+        int birthdate = Encodings.encodeBirthdate(m.getBirthdate());
+        boolean exact = m.getBirthdate() == null || m.getBirthdate().equals(Encodings.decodeBirthdate(birthdate));
+        return new CompactMedicalRecord(names.intern(m.getFirstName()), names.intern(m.getLastName()),
+                birthdate, exact ? null : m.getBirthdate(),
+                encodeTerms(m.getMedications()), encodeTerms(m.getAllergies()));
+    }
+
+    public MedicalRecord decode(CompactMedicalRecord m) {
+        return new MedicalRecord(m.firstName(), m.lastName(), birthdate(m),
+                decodeTerms(m.medications()), decodeTerms(m.allergies()));
+    }
+
+    public String birthdate(CompactMedicalRecord m) {
+        return m.birthdateText() != null ? m.birthdateText() : Encodings.decodeBirthdate(m.birthdate());
+    }
+
+    /**
+     * Age in whole years on {@code today}, empty when the birthdate is missing or unparsable.
+     */
+    public Optional<Integer> age(int birthdate, LocalDate today) {
+        return birthdate == Encodings.NO_DATE ? Optional.empty() : Optional.of(Encodings.age(birthdate, today));
+    }
+
+    private int[] encodeTerms(List<String> terms) {
+        if (terms == null) {
+            return null;
+        }
+        if (terms.isEmpty()) {
+            return NO_TERMS;
+        }
+        int[] codes = new int[terms.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = medicalTerms.encode(terms.get(i));
+        }
+        return codes;
+    }
+
+    /**
+     * A new mutable list of the medications or allergies encoded in {@code codes}.
+     */
+    public List<String> decodeTerms(int[] codes) {
+        if (codes == null) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            terms.add(medicalTerms.decode(code));
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,8 @@
+package com.safetynet.alerts.store;
+
+/**
+ * Immutable in-memory form of a {@link com.safetynet.alerts.model.Firestation}: address and
+ * station {@link Dictionary} codes.
+ */
+public record CompactFirestation(int address, int station) {
+}
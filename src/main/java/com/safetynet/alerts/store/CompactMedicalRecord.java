@@ -0,0 +1,14 @@
+package com.safetynet.alerts.store;
+
+/**
+ * Immutable in-memory form of a {@link com.safetynet.alerts.model.MedicalRecord}.
+ * <p>
+ * The birthdate is an epoch day ({@link Encodings#NO_DATE} when missing or unparsable);
+ * {@code birthdateText} keeps the original text only when it does not format back identically.
+ * Medications and allergies are codes of the shared medical term {@link Dictionary}. The arrays
+ * are never modified once the record is built.
+ * </p>
+ */
+public record CompactMedicalRecord(String firstName, String lastName, int birthdate, String birthdateText,
+                                   int[] medications, int[] allergies) {
+}
@@ -0,0 +1,13 @@
+package com.safetynet.alerts.store;
+
+/**
+ * Immutable in-memory form of a {@link com.safetynet.alerts.model.Person}.
+ * <p>
+ * Names are shared through a {@link StringPool}, address and city are {@link Dictionary} codes,
+ * phone and zip are primitives (see {@link Encodings}). {@code zipText} and {@code phoneText} are
+ * only set for values that could not be encoded.
+ * </p>
+ */
+public record CompactPerson(String firstName, String lastName, int address, int city,
+                            int zip, String zipText, long phone, String phoneText, String email) {
+}
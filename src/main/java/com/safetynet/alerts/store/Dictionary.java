@@ -0,0 +1,138 @@
+package com.safetynet.alerts.store;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dense integer codes for the values of one column (addresses, cities, stations, medical terms).
+ * <p>
+ * Codes are assigned from 0 in order of first appearance and never reused, so a code stays valid
+ * for the life of the dictionary even when no record uses the value any more. {@link #NONE}
+ * encodes {@code null}. Dictionaries created with {@link #ignoringCase()} also keep a lower-cased
+ * index for case-insensitive lookups, since several spellings of the same address may coexist.
+ * Those created with {@link #ignoringCase(char)} index each value under its qualified prefixes as
+ * well, so that {@code insulin} finds {@code Insulin:10u}.
+ * </p>
+ * <p>
+ * Not thread-safe: writers are serialized by the {@link com.safetynet.alerts.service.AlertService}
+ * write lock (or happen while loading), readers hold its read lock.
+ * </p>
+ */
+public final class Dictionary {
+    public static final int NONE = -1;
+    private static final int[] NO_CODES = new int[0];
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final Map<String, int[]> codesIgnoreCase;
+    /** Separator after which a value is qualified, or 0. */
+    private final char qualifier;
+    private String[] values = new String[16];
+    private int size;
+
+    public Dictionary() {
+        this(false, (char) 0);
+    }
+
+    private Dictionary(boolean indexIgnoringCase, char qualifier) {
+        this.codesIgnoreCase = indexIgnoringCase ? new HashMap<>() : null;
+        this.qualifier = qualifier;
+    }
+
+    /**
+     * A dictionary supporting {@link #findIgnoreCase(String)}.
+     */
+    public static Dictionary ignoringCase() {
+        return new Dictionary(true, (char) 0);
+    }
+
+    /**
+     * A dictionary supporting {@link #findIgnoreCase(String)}, where a value also matches each of its
+     * prefixes followed by {@code qualifier}: {@code insulin} and {@code insulin:10u} match
+     * {@code Insulin:10u} for {@code ':'}.
+     */
+    public static Dictionary ignoringCase(char qualifier) {
+        return new Dictionary(true, qualifier);
+    }
+
+    /**
+     * Code of {@code value}, assigned if the value is new.
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        if (codesIgnoreCase != null) {
+            String key = value.toLowerCase(Locale.ROOT);
+            int[] added = {size};
+            codesIgnoreCase.merge(key, added, Dictionary::concat);
+            for (int end = qualifier != 0 ? key.indexOf(qualifier) : -1; end >= 0; end = key.indexOf(qualifier, end + 1)) {
+                codesIgnoreCase.merge(key.substring(0, end), added, Dictionary::concat);
+            }
+        }
+        return size++;
+    }
+
+    /**
+     * Code of {@code value}, or {@link #NONE} when the value was never encoded.
+     */
+    public int find(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : NONE;
+    }
+
+    /**
+     * Codes of all values equal to {@code value} ignoring case, or qualifying it for a dictionary
+     * created with {@link #ignoringCase(char)}, in code order; empty when there is none.
+     *
+     * @throws IllegalStateException if the dictionary was not created with {@link #ignoringCase()}
+     */
+    public int[] findIgnoreCase(String value) {
+        if (codesIgnoreCase == null) {
+            throw new IllegalStateException("Dictionary has no case-insensitive index");
+        }
+        if (value == null) {
+            return NO_CODES;
+        }
+        return codesIgnoreCase.getOrDefault(value.toLowerCase(Locale.ROOT), NO_CODES);
+    }
+
+    /**
+     * Whether {@code code} is one of {@code codes}, as returned by {@link #findIgnoreCase(String)}.
+     */
+    public static boolean contains(int[] codes, int code) {
+        for (int c : codes) {
+            if (c == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String decode(int code) {
+        return code == NONE ? null : values[code];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,108 @@
+package com.safetynet.alerts.store;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Primitive encodings of the phone, zip and birthdate formats used by the data file.
+ * <p>
+ * Values that do not follow the expected format cannot be encoded (the encoder returns the
+ * {@code NO_*} marker) and are kept as text by the caller, so that every value round-trips.
+ * </p>
+ */
+public final class Encodings {
+    public static final long NO_PHONE = -1;
+    public static final int NO_ZIP = -1;
+    public static final int NO_DATE = Integer.MIN_VALUE;
+    private static final DateTimeFormatter BIRTHDATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private Encodings() {
+    }
+
+    /**
+     * {@code 841-874-6512} as {@code 8418746512}.
+     */
+    public static long encodePhone(String phone) {
+        if (phone == null || phone.length() != 12 || phone.charAt(3) != '-' || phone.charAt(7) != '-') {
+            return NO_PHONE;
+        }
+        long digits = 0;
+        for (int i = 0; i < 12; i++) {
+            if (i == 3 || i == 7) {
+                continue;
+            }
+            char c = phone.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_PHONE;
+            }
+            digits = digits * 10 + (c - '0');
+        }
+        return digits;
+    }
+
+    public static String decodePhone(long phone) {
+        char[] chars = new char[12];
+        for (int i = 11; i >= 0; i--) {
+            if (i == 3 || i == 7) {
+                chars[i] = '-';
+            } else {
+                chars[i] = (char) ('0' + phone % 10);
+                phone /= 10;
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Five digit zip codes, leading zeros included, as an int.
+     */
+    public static int encodeZip(String zip) {
+        if (zip == null || zip.length() != 5) {
+            return NO_ZIP;
+        }
+        int value = 0;
+        for (int i = 0; i < 5; i++) {
+            char c = zip.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_ZIP;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    public static String decodeZip(int zip) {
+        char[] chars = new char[5];
+        for (int i = 4; i >= 0; i--) {
+            chars[i] = (char) ('0' + zip % 10);
+            zip /= 10;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * A {@code MM/dd/yyyy} birthdate as its epoch day, parsed like the rest of the application does.
+     */
+    public static int encodeBirthdate(String birthdate) {
+        if (birthdate == null) {
+            return NO_DATE;
+        }
+        try {
+            return (int) LocalDate.parse(birthdate, BIRTHDATE).toEpochDay();
+        } catch (RuntimeException e) {
+            return NO_DATE;
+        }
+    }
+
+    public static String decodeBirthdate(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay).format(BIRTHDATE);
+    }
+
+    /**
+     * Age in whole years on {@code today} of a person born on {@code epochDay}.
+     */
+    public static int age(int epochDay, LocalDate today) {
+        return (int) LocalDate.ofEpochDay(epochDay).until(today, ChronoUnit.YEARS);
+    }
+}
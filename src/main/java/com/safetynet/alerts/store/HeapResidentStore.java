@@ -0,0 +1,147 @@
+package com.safetynet.alerts.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * {@link ResidentStore} keeping one {@link CompactPerson} / {@link CompactMedicalRecord} per row
+ * in array lists. The default: cheapest to update and fast to scan while the dataset fits the heap.
+ */
+public final class HeapResidentStore implements ResidentStore {
+    private final List<CompactPerson> persons = new ArrayList<>();
+    private final List<CompactMedicalRecord> medicalRecords = new ArrayList<>();
+
+    @Override
+    public int personCount() {
+        return persons.size();
+    }
+
+    @Override
+    public String firstName(int row) {
+        return persons.get(row).firstName();
+    }
+
+    @Override
+    public String lastName(int row) {
+        return persons.get(row).lastName();
+    }
+
+    @Override
+    public int address(int row) {
+        return persons.get(row).address();
+    }
+
+    @Override
+    public int city(int row) {
+        return persons.get(row).city();
+    }
+
+    @Override
+    public String phone(int row) {
+        CompactPerson p = persons.get(row);
+        return p.phone() != Encodings.NO_PHONE ? Encodings.decodePhone(p.phone()) : p.phoneText();
+    }
+
+    @Override
+    public long phoneCode(int row) {
+        return persons.get(row).phone();
+    }
+
+    @Override
+    public String email(int row) {
+        return persons.get(row).email();
+    }
+
+    @Override
+    public CompactPerson person(int row) {
+        return persons.get(row);
+    }
+
+    @Override
+    public int add(CompactPerson person) {
+        persons.add(person);
+        return persons.size() - 1;
+    }
+
+    @Override
+    public void set(int row, CompactPerson person) {
+        persons.set(row, person);
+    }
+
+    @Override
+    public List<CompactPerson> removePersons(IntPredicate matches) {
+        return remove(persons, matches);
+    }
+
+    @Override
+    public int medicalRecordCount() {
+        return medicalRecords.size();
+    }
+
+    @Override
+    public String medicalFirstName(int row) {
+        return medicalRecords.get(row).firstName();
+    }
+
+    @Override
+    public String medicalLastName(int row) {
+        return medicalRecords.get(row).lastName();
+    }
+
+    @Override
+    public int birthdate(int row) {
+        return medicalRecords.get(row).birthdate();
+    }
+
+    @Override
+    public int[] medications(int row) {
+        return medicalRecords.get(row).medications();
+    }
+
+    @Override
+    public int[] allergies(int row) {
+        return medicalRecords.get(row).allergies();
+    }
+
+    @Override
+    public CompactMedicalRecord medicalRecord(int row) {
+        return medicalRecords.get(row);
+    }
+
+    @Override
+    public int add(CompactMedicalRecord record) {
+        medicalRecords.add(record);
+        return medicalRecords.size() - 1;
+    }
+
+    @Override
+    public void set(int row, CompactMedicalRecord record) {
+        medicalRecords.set(row, record);
+    }
+
+    @Override
+    public List<CompactMedicalRecord> removeMedicalRecords(IntPredicate matches) {
+        return remove(medicalRecords, matches);
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return 0;
+    }
+
+    private static <T> List<T> remove(List<T> rows, IntPredicate matches) {
+        List<T> removed = new ArrayList<>();
+        int kept = 0;
+        for (int row = 0; row < rows.size(); row++) {
+            T value = rows.get(row);
+            if (matches.test(row)) {
+                removed.add(value);
+            } else {
+                rows.set(kept++, value);
+            }
+        }
+        rows.subList(kept, rows.size()).clear();
+        return removed;
+    }
+}
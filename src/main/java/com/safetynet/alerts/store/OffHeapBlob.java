@@ -0,0 +1,90 @@
+package com.safetynet.alerts.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Append-only area of variable-length values (UTF-8 strings, {@code int} arrays) in a direct
+ * buffer, addressed by byte offset.
+ * <p>
+ * Replaced and removed values stay in place and are counted as garbage until the owner copies
+ * the live values to a new blob ({@link #needsCompaction()}).
+ * </p>
+ */
+final class OffHeapBlob {
+    private ByteBuffer buffer;
+    private int used;
+    private long garbage;
+
+    OffHeapBlob(int capacity) {
+        this.buffer = OffHeapColumn.allocate(Math.max(capacity, 64));
+    }
+
+    int append(byte[] bytes) {
+        int offset = reserve(bytes.length);
+        buffer.put(offset, bytes);
+        return offset;
+    }
+
+    byte[] read(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return bytes;
+    }
+
+    String string(int offset, int length) {
+        return new String(read(offset, length), StandardCharsets.UTF_8);
+    }
+
+    int append(int[] values) {
+        int offset = reserve(values.length * Integer.BYTES);
+        for (int i = 0; i < values.length; i++) {
+            buffer.putInt(offset + i * Integer.BYTES, values[i]);
+        }
+        return offset;
+    }
+
+    int[] ints(int offset, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.getInt(offset + i * Integer.BYTES);
+        }
+        return values;
+    }
+
+    /**
+     * Marks {@code bytes} bytes as no longer referenced.
+     */
+    void release(int bytes) {
+        garbage += bytes;
+    }
+
+    /**
+     * Whether more than half of the used bytes (and at least 64 KB) are garbage.
+     */
+    boolean needsCompaction() {
+        return garbage > 64 * 1024 && garbage * 2 > used;
+    }
+
+    long bytes() {
+        return buffer.capacity();
+    }
+
+    private int reserve(int bytes) {
+        if ((long) used + bytes > buffer.capacity()) {
+            long capacity = Math.max((long) used + bytes, (long) buffer.capacity() * 2);
+            if (capacity > Integer.MAX_VALUE) {
+                capacity = (long) used + bytes;
+                if (capacity > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Blob is limited to 2 GB");
+                }
+            }
+            ByteBuffer grown = OffHeapColumn.allocate((int) capacity);
+            grown.put(0, buffer, 0, used);
+            buffer = grown;
+        }
+        int offset = used;
+        used += bytes;
+        return offset;
+    }
+}
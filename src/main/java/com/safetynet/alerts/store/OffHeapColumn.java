@@ -0,0 +1,75 @@
+package com.safetynet.alerts.store;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed-width column of {@code int} or {@code long} values in a direct buffer, indexed by row.
+ * Grows by doubling; a buffer is limited to 2 GB, so to 2^28 rows of {@code long}.
+ */
+final class OffHeapColumn {
+    private final int width;
+    private ByteBuffer buffer;
+
+    private OffHeapColumn(int width, int capacity) {
+        this.width = width;
+        this.buffer = allocate(Math.max(capacity, 16) * width);
+    }
+
+    static OffHeapColumn ints(int capacity) {
+        return new OffHeapColumn(Integer.BYTES, capacity);
+    }
+
+    static OffHeapColumn longs(int capacity) {
+        return new OffHeapColumn(Long.BYTES, capacity);
+    }
+
+    static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    int getInt(int row) {
+        return buffer.getInt(row * width);
+    }
+
+    long getLong(int row) {
+        return buffer.getLong(row * width);
+    }
+
+    void setInt(int row, int value) {
+        ensureCapacity(row + 1);
+        buffer.putInt(row * width, value);
+    }
+
+    void setLong(int row, long value) {
+        ensureCapacity(row + 1);
+        buffer.putLong(row * width, value);
+    }
+
+    /**
+     * Copies the value of row {@code from} to row {@code to}, which must already exist.
+     */
+    void move(int from, int to) {
+        buffer.put(to * width, buffer, from * width, width);
+    }
+
+    long bytes() {
+        return buffer.capacity();
+    }
+
+    private void ensureCapacity(int rows) {
+        if ((long) rows * width <= buffer.capacity()) {
+            return;
+        }
+        long capacity = Math.max((long) rows * width, (long) buffer.capacity() * 2);
+        if (capacity > Integer.MAX_VALUE) {
+            capacity = (long) rows * width;
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Column is limited to " + Integer.MAX_VALUE / width + " rows");
+            }
+        }
+        ByteBuffer grown = allocate((int) capacity);
+        grown.put(0, buffer, 0, buffer.capacity());
+        buffer = grown;
+    }
+}
@@ -0,0 +1,331 @@
+package com.safetynet.alerts.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Columnar {@link ResidentStore} keeping every column in direct buffers, for datasets that do not
+ * fit comfortably in the heap.
+ * <p>
+ * Names and the rare values that fail their primitive encoding are {@link Dictionary} codes (the
+ * dictionaries stay on the heap, they grow with distinct values, not with rows); e-mails and
+ * medication/allergy code lists are stored in append-only {@link OffHeapBlob}s referenced by
+ * offset and length. The garbage collector only sees a few buffers per column, so its pauses do
+ * not grow with the number of residents. A blob is compacted when more than half of it is
+ * garbage left by updates and deletes.
+ * </p>
+ */
+public final class OffHeapResidentStore implements ResidentStore {
+    private static final int NULL_LENGTH = -1;
+
+    private final Dictionary names = new Dictionary();
+    /** Zip, phone and birthdate values that could not be encoded as primitives. */
+    private final Dictionary texts = new Dictionary();
+
+    private int persons;
+    private final OffHeapColumn firstName;
+    private final OffHeapColumn lastName;
+    private final OffHeapColumn address;
+    private final OffHeapColumn city;
+    private final OffHeapColumn zip;
+    private final OffHeapColumn zipText;
+    private final OffHeapColumn phone;
+    private final OffHeapColumn phoneText;
+    private final OffHeapColumn emailOffset;
+    private final OffHeapColumn emailLength;
+    private OffHeapBlob emails;
+
+    private int medicalRecords;
+    private final OffHeapColumn medicalFirstName;
+    private final OffHeapColumn medicalLastName;
+    private final OffHeapColumn birthdate;
+    private final OffHeapColumn birthdateText;
+    private final OffHeapColumn medicationsOffset;
+    private final OffHeapColumn medicationsCount;
+    private final OffHeapColumn allergiesOffset;
+    private final OffHeapColumn allergiesCount;
+    private OffHeapBlob terms;
+
+    public OffHeapResidentStore(int initialCapacity) {
+        firstName = OffHeapColumn.ints(initialCapacity);
+        lastName = OffHeapColumn.ints(initialCapacity);
+        address = OffHeapColumn.ints(initialCapacity);
+        city = OffHeapColumn.ints(initialCapacity);
+        zip = OffHeapColumn.ints(initialCapacity);
+        zipText = OffHeapColumn.ints(initialCapacity);
+        phone = OffHeapColumn.longs(initialCapacity);
+        phoneText = OffHeapColumn.ints(initialCapacity);
+        emailOffset = OffHeapColumn.ints(initialCapacity);
+        emailLength = OffHeapColumn.ints(initialCapacity);
+        emails = new OffHeapBlob(initialCapacity * 24);
+
+        medicalFirstName = OffHeapColumn.ints(initialCapacity);
+        medicalLastName = OffHeapColumn.ints(initialCapacity);
+        birthdate = OffHeapColumn.ints(initialCapacity);
+        birthdateText = OffHeapColumn.ints(initialCapacity);
+        medicationsOffset = OffHeapColumn.ints(initialCapacity);
+        medicationsCount = OffHeapColumn.ints(initialCapacity);
+        allergiesOffset = OffHeapColumn.ints(initialCapacity);
+        allergiesCount = OffHeapColumn.ints(initialCapacity);
+        terms = new OffHeapBlob(initialCapacity * 8);
+    }
+
+    private OffHeapColumn[] personColumns() {
+        return new OffHeapColumn[]{firstName, lastName, address, city, zip, zipText, phone, phoneText, emailOffset, emailLength};
+    }
+
+    private OffHeapColumn[] medicalColumns() {
+        return new OffHeapColumn[]{medicalFirstName, medicalLastName, birthdate, birthdateText,
+                medicationsOffset, medicationsCount, allergiesOffset, allergiesCount};
+    }
+
+    @Override
+    public int personCount() {
+        return persons;
+    }
+
+    @Override
+    public String firstName(int row) {
+        return names.decode(firstName.getInt(row));
+    }
+
+    @Override
+    public String lastName(int row) {
+        return names.decode(lastName.getInt(row));
+    }
+
+    @Override
+    public int address(int row) {
+        return address.getInt(row);
+    }
+
+    @Override
+    public int city(int row) {
+        return city.getInt(row);
+    }
+
+    @Override
+    public String phone(int row) {
+        long value = phone.getLong(row);
+        return value != Encodings.NO_PHONE ? Encodings.decodePhone(value) : texts.decode(phoneText.getInt(row));
+    }
+
+    @Override
+    public long phoneCode(int row) {
+        return phone.getLong(row);
+    }
+
+    @Override
+    public String email(int row) {
+        int length = emailLength.getInt(row);
+        return length == NULL_LENGTH ? null : emails.string(emailOffset.getInt(row), length);
+    }
+
+    @Override
+    public CompactPerson person(int row) {
+        return new CompactPerson(firstName(row), lastName(row), address(row), city(row),
+                zip.getInt(row), texts.decode(zipText.getInt(row)),
+                phone.getLong(row), texts.decode(phoneText.getInt(row)), email(row));
+    }
+
+    @Override
+    public int add(CompactPerson person) {
+        int row = persons;
+        write(row, person);
+        persons++;
+        return row;
+    }
+
+    @Override
+    public void set(int row, CompactPerson person) {
+        emails.release(Math.max(emailLength.getInt(row), 0));
+        write(row, person);
+        compactIfNeeded();
+    }
+
+    private void write(int row, CompactPerson p) {
+        firstName.setInt(row, names.encode(p.firstName()));
+        lastName.setInt(row, names.encode(p.lastName()));
+        address.setInt(row, p.address());
+        city.setInt(row, p.city());
+        zip.setInt(row, p.zip());
+        zipText.setInt(row, texts.encode(p.zipText()));
+        phone.setLong(row, p.phone());
+        phoneText.setInt(row, texts.encode(p.phoneText()));
+        writeEmail(row, p.email());
+    }
+
+    private void writeEmail(int row, String email) {
+        if (email == null) {
+            emailOffset.setInt(row, 0);
+            emailLength.setInt(row, NULL_LENGTH);
+        } else {
+            byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+            emailOffset.setInt(row, emails.append(bytes));
+            emailLength.setInt(row, bytes.length);
+        }
+    }
+
+    @Override
+    public List<CompactPerson> removePersons(IntPredicate matches) {
+        List<CompactPerson> removed = new ArrayList<>();
+        OffHeapColumn[] columns = personColumns();
+        int kept = 0;
+        for (int row = 0; row < persons; row++) {
+            if (matches.test(row)) {
+                removed.add(person(row));
+                emails.release(Math.max(emailLength.getInt(row), 0));
+            } else {
+                if (kept != row) {
+                    for (OffHeapColumn column : columns) {
+                        column.move(row, kept);
+                    }
+                }
+                kept++;
+            }
+        }
+        persons = kept;
+        compactIfNeeded();
+        return removed;
+    }
+
+    @Override
+    public int medicalRecordCount() {
+        return medicalRecords;
+    }
+
+    @Override
+    public String medicalFirstName(int row) {
+        return names.decode(medicalFirstName.getInt(row));
+    }
+
+    @Override
+    public String medicalLastName(int row) {
+        return names.decode(medicalLastName.getInt(row));
+    }
+
+    @Override
+    public int birthdate(int row) {
+        return birthdate.getInt(row);
+    }
+
+    @Override
+    public int[] medications(int row) {
+        int count = medicationsCount.getInt(row);
+        return count == NULL_LENGTH ? null : terms.ints(medicationsOffset.getInt(row), count);
+    }
+
+    @Override
+    public int[] allergies(int row) {
+        int count = allergiesCount.getInt(row);
+        return count == NULL_LENGTH ? null : terms.ints(allergiesOffset.getInt(row), count);
+    }
+
+    @Override
+    public CompactMedicalRecord medicalRecord(int row) {
+        return new CompactMedicalRecord(medicalFirstName(row), medicalLastName(row), birthdate(row),
+                texts.decode(birthdateText.getInt(row)), medications(row), allergies(row));
+    }
+
+    @Override
+    public int add(CompactMedicalRecord record) {
+        int row = medicalRecords;
+        write(row, record);
+        medicalRecords++;
+        return row;
+    }
+
+    @Override
+    public void set(int row, CompactMedicalRecord record) {
+        releaseTerms(row);
+        write(row, record);
+        compactIfNeeded();
+    }
+
+    private void write(int row, CompactMedicalRecord m) {
+        medicalFirstName.setInt(row, names.encode(m.firstName()));
+        medicalLastName.setInt(row, names.encode(m.lastName()));
+        birthdate.setInt(row, m.birthdate());
+        birthdateText.setInt(row, texts.encode(m.birthdateText()));
+        writeTerms(row, m.medications(), medicationsOffset, medicationsCount);
+        writeTerms(row, m.allergies(), allergiesOffset, allergiesCount);
+    }
+
+    private void writeTerms(int row, int[] codes, OffHeapColumn offset, OffHeapColumn count) {
+        offset.setInt(row, codes == null ? 0 : terms.append(codes));
+        count.setInt(row, codes == null ? NULL_LENGTH : codes.length);
+    }
+
+    private void releaseTerms(int row) {
+        terms.release(Math.max(medicationsCount.getInt(row), 0) * Integer.BYTES);
+        terms.release(Math.max(allergiesCount.getInt(row), 0) * Integer.BYTES);
+    }
+
+    @Override
+    public List<CompactMedicalRecord> removeMedicalRecords(IntPredicate matches) {
+        List<CompactMedicalRecord> removed = new ArrayList<>();
+        OffHeapColumn[] columns = medicalColumns();
+        int kept = 0;
+        for (int row = 0; row < medicalRecords; row++) {
+            if (matches.test(row)) {
+                removed.add(medicalRecord(row));
+                releaseTerms(row);
+            } else {
+                if (kept != row) {
+                    for (OffHeapColumn column : columns) {
+                        column.move(row, kept);
+                    }
+                }
+                kept++;
+            }
+        }
+        medicalRecords = kept;
+        compactIfNeeded();
+        return removed;
+    }
+
+    /**
+     * Copies the live values of a blob that is mostly garbage to a new one.
+     */
+    private void compactIfNeeded() {
+        if (emails.needsCompaction()) {
+            OffHeapBlob old = emails;
+            emails = new OffHeapBlob((int) Math.min(old.bytes() / 2, Integer.MAX_VALUE));
+            for (int row = 0; row < persons; row++) {
+                int length = emailLength.getInt(row);
+                if (length != NULL_LENGTH) {
+                    emailOffset.setInt(row, emails.append(old.read(emailOffset.getInt(row), length)));
+                }
+            }
+        }
+        if (terms.needsCompaction()) {
+            OffHeapBlob old = terms;
+            terms = new OffHeapBlob((int) Math.min(old.bytes() / 2, Integer.MAX_VALUE));
+            for (int row = 0; row < medicalRecords; row++) {
+                copyTerms(old, row, medicationsOffset, medicationsCount);
+                copyTerms(old, row, allergiesOffset, allergiesCount);
+            }
+        }
+    }
+
+    private void copyTerms(OffHeapBlob old, int row, OffHeapColumn offset, OffHeapColumn count) {
+        int n = count.getInt(row);
+        if (n != NULL_LENGTH) {
+            offset.setInt(row, terms.append(old.ints(offset.getInt(row), n)));
+        }
+    }
+
+    @Override
+    public long offHeapBytes() {
+        long bytes = emails.bytes() + terms.bytes();
+        for (OffHeapColumn column : personColumns()) {
+            bytes += column.bytes();
+        }
+        for (OffHeapColumn column : medicalColumns()) {
+            bytes += column.bytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,86 @@
+package com.safetynet.alerts.store;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Persons and medical records addressed by row id, in insertion order.
+ * <p>
+ * Queries scan rows through the column accessors ({@link #address(int)}, {@link #birthdate(int)},
+ * ...), which return codes and primitives, and only read the string columns of the rows they
+ * return. {@link #person(int)} and {@link #medicalRecord(int)} materialize a whole row, for the
+ * data file and change events. Row ids are positions: removing a row shifts the following ones
+ * down, so they are only stable while the caller holds the
+ * {@link com.safetynet.alerts.service.AlertService} lock.
+ * </p>
+ * <p>
+ * Not thread-safe, like the {@link Dictionary} codes it stores.
+ * </p>
+ */
+public interface ResidentStore {
+
+    int personCount();
+
+    String firstName(int row);
+
+    String lastName(int row);
+
+    /** {@link CompactCodec#getAddresses()} code. */
+    int address(int row);
+
+    /** {@link CompactCodec#getCities()} code. */
+    int city(int row);
+
+    String phone(int row);
+
+    /**
+     * {@link Encodings#encodePhone(String)} value, so that phones can be compared without being
+     * decoded, or {@link Encodings#NO_PHONE} when {@link #phone(int)} is kept as text.
+     */
+    long phoneCode(int row);
+
+    String email(int row);
+
+    CompactPerson person(int row);
+
+    /**
+     * Appends a person and returns its row.
+     */
+    int add(CompactPerson person);
+
+    void set(int row, CompactPerson person);
+
+    /**
+     * Removes the persons whose row matches, keeping the order of the others.
+     *
+     * @return the removed persons, in row order
+     */
+    List<CompactPerson> removePersons(IntPredicate matches);
+
+    int medicalRecordCount();
+
+    String medicalFirstName(int row);
+
+    String medicalLastName(int row);
+
+    /** Epoch day, or {@link Encodings#NO_DATE}. */
+    int birthdate(int row);
+
+    /** {@link CompactCodec#getMedicalTerms()} codes, {@code null} when the record has none. */
+    int[] medications(int row);
+
+    int[] allergies(int row);
+
+    CompactMedicalRecord medicalRecord(int row);
+
+    int add(CompactMedicalRecord record);
+
+    void set(int row, CompactMedicalRecord record);
+
+    List<CompactMedicalRecord> removeMedicalRecords(IntPredicate matches);
+
+    /**
+     * Bytes held outside the Java heap, 0 for a heap store.
+     */
+    long offHeapBytes();
+}
@@ -0,0 +1,30 @@
+package com.safetynet.alerts.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Choice of {@link ResidentStore}, bound from {@code safetynet.store.*}.
+ */
+@Data
+@ConfigurationProperties("safetynet.store")
+public class StoreProperties {
+
+    public enum Type {
+        /** {@link HeapResidentStore}: one compact record per person and medical record. */
+        HEAP,
+        /** {@link OffHeapResidentStore}: columns in direct buffers, for datasets larger than the heap. */
+        OFF_HEAP
+    }
+
+    private Type type = Type.HEAP;
+    /** Rows allocated up front by the off-heap store; columns double when full. */
+    private int initialCapacity = 1024;
+
+    /**
+     * A new empty store of the configured type.
+     */
+    public ResidentStore newStore() {
+        return type == Type.OFF_HEAP ? new OffHeapResidentStore(initialCapacity) : new HeapResidentStore();
+    }
+}
@@ -0,0 +1,55 @@
+package com.safetynet.alerts.store;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonical instances of repeated first and last names, so that each distinct name is held once
+ * on the heap. Other repeated values are dictionary encoded, see {@link Dictionary}.
+ * <p>
+ * Unlike {@link String#intern()}, the pool belongs to the application and is dropped with it.
+ * Values are never evicted: the pool grows with the number of distinct values, not with the
+ * number of records. The heap saved is estimated from the duplicates replaced, counting the
+ * {@code String} object and its Latin-1 backing array.
+ * </p>
+ */
+public final class StringPool {
+    private static final int STRING_OBJECT_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * The canonical instance equal to {@code value}, which becomes canonical if it is new.
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = values.putIfAbsent(value, value);
+        if (canonical == null) {
+            return value;
+        }
+        if (canonical != value) {
+            duplicates.increment();
+            bytesSaved.add(STRING_OBJECT_BYTES + ((ARRAY_HEADER_BYTES + value.length() + 7) & ~7));
+        }
+        return canonical;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /** Duplicates replaced by a canonical instance so far. */
+    public long duplicates() {
+        return duplicates.sum();
+    }
+
+    /** Estimated heap no longer retained thanks to the replaced duplicates. */
+    public long bytesSaved() {
+        return bytesSaved.sum();
+    }
+}
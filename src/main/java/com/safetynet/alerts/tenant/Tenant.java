@@ -0,0 +1,232 @@
+package com.safetynet.alerts.tenant;
+
+import com.safetynet.alerts.analytics.AnalyticsProperties;
+import com.safetynet.alerts.history.HistoryProperties;
+import com.safetynet.alerts.metrics.QueryMetrics;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import com.safetynet.alerts.store.ResidentStore;
+import com.safetynet.alerts.store.StoreProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The dataset of one tenant: its data file, {@link DataService}, {@link AlertService} with the
+ * indexes and history it owns, and the lock its saves are serialized on.
+ * <p>
+ * The dataset is loaded by the first request and dropped by {@link TenantRegistry} once no request
+ * uses it. Requests {@link #enter()} the tenant and {@link #exit()} it when done; a tenant is only
+ * unloaded while no request is inside, so a write always completes, data file included, before
+ * the next load can read the file again. Change events stay within the tenant: they are not
+ * published to the change log and the station feed of the default dataset.
+ * </p>
+ */
+public class Tenant {
+    /** Request attribute holding the tenant of the request, set by {@link TenantFilter}. */
+    public static final String ATTRIBUTE = Tenant.class.getName();
+
+    /** Row object, its column slots and references, beyond the strings it holds. */
+    private static final int ROW_BYTES = 64;
+    private static final int STRING_BYTES = 24 + 16;
+    private static final int FIRESTATION_BYTES = 32;
+
+    private final String id;
+    private final File dataFile;
+    private final StoreProperties storeProperties;
+    private final HistoryProperties historyProperties;
+    private final AnalyticsProperties analyticsProperties;
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    /** Requests inside the tenant, -1 once it has been unloaded. */
+    private final AtomicInteger users = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private volatile long lastUsed = System.nanoTime();
+    private long sampledRequests;
+    private long sampledAt = System.nanoTime();
+    private volatile double requestRate;
+
+    private volatile DataService dataService;
+    private volatile AlertService alertService;
+    /** Heap per stored row, measured when the data was loaded. */
+    private volatile long rowBytes;
+
+    public Tenant(String id, File dataFile, StoreProperties storeProperties, HistoryProperties historyProperties,
+                  AnalyticsProperties analyticsProperties) {
+        this.id = id;
+        this.dataFile = dataFile;
+        this.storeProperties = storeProperties;
+        this.historyProperties = historyProperties;
+        this.analyticsProperties = analyticsProperties;
+    }
+
+    /**
+     * The tenant of the current request, empty for requests to the default dataset.
+     */
+    public static Optional<Tenant> current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return Optional.ofNullable(attributes)
+                .map(a -> a.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))
+                .map(Tenant.class::cast);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Counts a request in, {@code false} when the tenant has been unloaded meanwhile.
+     */
+    boolean enter() {
+        int current;
+        do {
+            current = users.get();
+            if (current < 0) {
+                return false;
+            }
+        } while (!users.compareAndSet(current, current + 1));
+        requests.increment();
+        lastUsed = System.nanoTime();
+        return true;
+    }
+
+    void exit() {
+        lastUsed = System.nanoTime();
+        users.decrementAndGet();
+    }
+
+    /**
+     * Marks the tenant unloaded, {@code false} while a request is inside.
+     */
+    boolean unload() {
+        return users.compareAndSet(0, -1);
+    }
+
+    /**
+     * The service answering the tenant's requests, loading the data file on first use.
+     */
+    public AlertService getAlertService() {
+        AlertService service = alertService;
+        if (service != null) {
+            return service;
+        }
+        loadLock.lock();
+        try {
+            if (alertService == null) {
+                DataService data = new DataService(dataFile.getPath(), new SimpleMeterRegistry(), storeProperties);
+                data.loadData();
+                rowBytes = measureRowBytes(data);
+                dataService = data;
+                alertService = new AlertService(data, event -> { }, QueryMetrics.standalone(), historyProperties,
+                        analyticsProperties);
+            }
+            return alertService;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return alertService != null;
+    }
+
+    /**
+     * Average heap of a stored person or medical record: its row and the strings only it holds.
+     * Off-heap stores keep the rows outside the heap, which {@link #offHeapBytes()} reports.
+     */
+    private static long measureRowBytes(DataService data) {
+        ResidentStore store = data.getStore();
+        int rows = store.personCount() + store.medicalRecordCount();
+        if (rows == 0 || store.offHeapBytes() > 0) {
+            return ROW_BYTES;
+        }
+        long bytes = 0;
+        for (int row = 0; row < store.personCount(); row++) {
+            bytes += ROW_BYTES + string(store.firstName(row)) + string(store.lastName(row))
+                    + string(store.phone(row)) + string(store.email(row));
+        }
+        for (int row = 0; row < store.medicalRecordCount(); row++) {
+            bytes += ROW_BYTES + string(store.medicalFirstName(row)) + string(store.medicalLastName(row))
+                    + terms(store.medications(row)) + terms(store.allergies(row));
+        }
+        bytes -= data.getCodec().getNames().bytesSaved();
+        return Math.max(ROW_BYTES, bytes / rows);
+    }
+
+    private static long string(String value) {
+        return value == null ? 0 : STRING_BYTES + ((value.length() + 7) & ~7);
+    }
+
+    private static long terms(int[] codes) {
+        return codes == null ? 0 : 16 + 4L * codes.length;
+    }
+
+    /**
+     * Estimated heap taken by the rows, 0 until the data is loaded. Indexes built on demand come
+     * on top of it.
+     */
+    public long heapBytes() {
+        DataService data = dataService;
+        if (data == null) {
+            return 0;
+        }
+        ResidentStore store = data.getStore();
+        return rowBytes * (store.personCount() + store.medicalRecordCount())
+                + (long) FIRESTATION_BYTES * data.getFirestations().size();
+    }
+
+    public long offHeapBytes() {
+        DataService data = dataService;
+        return data == null ? 0 : data.getStore().offHeapBytes();
+    }
+
+    public int persistBacklog() {
+        DataService data = dataService;
+        return data == null ? 0 : data.getPersistBacklog();
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public int inFlight() {
+        return Math.max(0, users.get());
+    }
+
+    /** {@link System#nanoTime()} of the last request in or out. */
+    public long lastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Requests per second between the last two samples.
+     */
+    public double requestRate() {
+        return requestRate;
+    }
+
+    synchronized void sampleRate(long now) {
+        long total = requests.sum();
+        if (now > sampledAt) {
+            requestRate = (total - sampledRequests) * 1e9 / (now - sampledAt);
+        }
+        sampledRequests = total;
+        sampledAt = now;
+    }
+
+    public TenantStats stats(long now) {
+        DataService data = dataService;
+        return new TenantStats(id, isLoaded(),
+                data != null ? data.getStore().personCount() : 0,
+                data != null ? data.getStore().medicalRecordCount() : 0,
+                data != null ? data.getFirestations().size() : 0,
+                heapBytes(), offHeapBytes(), requests(), requestRate(), inFlight(), persistBacklog(),
+                Math.max(0, now - lastUsed) / 1_000_000);
+    }
+}
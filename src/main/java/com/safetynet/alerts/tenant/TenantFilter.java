@@ -0,0 +1,157 @@
+package com.safetynet.alerts.tenant;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Routes requests naming a tenant, by the {@code /tenants/{id}} path prefix or the
+ * {@code safetynet.tenants.header} header, to the dataset of that tenant.
+ * <p>
+ * The prefix is stripped before the request goes on, so admission control and
+ * {@link com.safetynet.alerts.controller.AlertController} see the usual paths, and the
+ * {@link Tenant} is left in the {@link Tenant#ATTRIBUTE} request attribute. The tenant stays
+ * acquired, and so loaded, until the response is complete, streamed responses included. Only the endpoints of
+ * {@code AlertController} serve tenants: the change log, station feed and dispatch endpoints
+ * answer a tenant request with {@code 404} rather than with the default dataset.
+ * </p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class TenantFilter extends OncePerRequestFilter {
+    static final String PREFIX = "/tenants/";
+
+    private static final Set<String> TENANT_PATHS = Set.of(
+            "/firestation", "/childAlert", "/childAlert/stations", "/phoneAlert", "/fire", "/flood/stations",
+            "/personInfo", "/communityEmail", "/address/resolve", "/residents/filter", "/residents/nearby",
+            "/firestations/nearest", "/analytics/stations", "/person", "/medicalRecord");
+
+    private final TenantRegistry tenants;
+
+    public TenantFilter(TenantRegistry tenants) {
+        this.tenants = tenants;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!tenants.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String id = request.getHeader(tenants.getHeader());
+        if (path.startsWith(PREFIX)) {
+            int end = path.indexOf('/', PREFIX.length());
+            if (end < 0) {
+                chain.doFilter(request, response);
+                return;
+            }
+            id = path.substring(PREFIX.length(), end);
+            path = path.substring(end);
+            request = new TenantRequest(request, path);
+        }
+        if (id == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!TENANT_PATHS.contains(path)) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), path + " is not served per tenant");
+            return;
+        }
+
+        Tenant tenant;
+        try {
+            tenant = tenants.acquire(id);
+        } catch (UnknownTenantException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), e.getMessage());
+            return;
+        }
+        try {
+            request.setAttribute(Tenant.ATTRIBUTE, tenant);
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // streamed responses are still written from the tenant's data
+                request.getAsyncContext().addListener(new ReleaseListener(tenant));
+            } else {
+                tenants.release(tenant);
+            }
+        }
+    }
+
+    /**
+     * Releases the tenant once an asynchronous request completes, after an error or a timeout as well.
+     */
+    private final class ReleaseListener implements AsyncListener {
+        private final Tenant tenant;
+
+        ReleaseListener(Tenant tenant) {
+            this.tenant = tenant;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            tenants.release(tenant);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    /**
+     * The request with the tenant prefix removed from its path.
+     */
+    private static final class TenantRequest extends HttpServletRequestWrapper {
+        private final String path;
+
+        TenantRequest(HttpServletRequest request, String path) {
+            super(request);
+            this.path = path;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return getContextPath() + path;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            StringBuffer url = new StringBuffer(super.getRequestURL());
+            url.setLength(url.length() - super.getRequestURI().length());
+            return url.append(getRequestURI());
+        }
+
+        @Override
+        public String getServletPath() {
+            String servletPath = super.getServletPath();
+            return servletPath.startsWith(PREFIX) ? path : servletPath;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.safetynet.alerts.tenant;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Datasets served besides the default one, bound from {@code safetynet.tenants.*}.
+ */
+@Data
+@ConfigurationProperties("safetynet.tenants")
+public class TenantProperties {
+    /** Routes requests naming a tenant to the dataset of that tenant. */
+    private boolean enabled = false;
+    /** Directory holding one sub-directory per tenant, each with its own {@code data.json}. */
+    private String directory = "data/tenants";
+    /** Header naming the tenant, as an alternative to the {@code /tenants/{id}} path prefix. */
+    private String header = "X-Tenant";
+    /** Tenants without requests for this long are unloaded. */
+    private Duration idleTimeout = Duration.ofMinutes(30);
+    /** Tenants kept loaded at most; the least recently used are unloaded beyond it. */
+    private int maxLoaded = 32;
+    /** Estimated heap the loaded tenants may take together before the least recently used are unloaded. */
+    private DataSize heapBudget = DataSize.ofMegabytes(512);
+    /** How often idle tenants are unloaded and request rates sampled. */
+    private Duration sweepInterval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,195 @@
+package com.safetynet.alerts.tenant;
+
+import com.safetynet.alerts.analytics.AnalyticsProperties;
+import com.safetynet.alerts.history.HistoryProperties;
+import com.safetynet.alerts.store.StoreProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The tenants loaded besides the default dataset, by id.
+ * <p>
+ * Each tenant lives in its own directory under {@code safetynet.tenants.directory} and gets its own
+ * {@link Tenant} with its store, indexes, history and persistence lock, so the writes and saves of
+ * one county never wait on another's. Tenants are loaded by their first request. Every
+ * {@code sweep-interval} the request rates are sampled and tenants are unloaded when they have
+ * been idle for {@code idle-timeout}, or, least recently used first, while more than
+ * {@code max-loaded} tenants or more than {@code heap-budget} of estimated heap are loaded.
+ * </p>
+ * <p>
+ * Per-tenant heap estimates, request counts and rates, and persistence backlogs are published as
+ * {@code safetynet.tenant.*} meters tagged with the tenant, and served at
+ * {@code /diagnostics/tenants}.
+ * </p>
+ */
+@Service
+@EnableConfigurationProperties(TenantProperties.class)
+public class TenantRegistry {
+    private static final Logger log = LoggerFactory.getLogger(TenantRegistry.class);
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final TenantProperties properties;
+    private final MeterRegistry registry;
+    private final StoreProperties storeProperties;
+    private final HistoryProperties historyProperties;
+    private final AnalyticsProperties analyticsProperties;
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final Map<Tenant, List<Meter>> meters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    public TenantRegistry(TenantProperties properties, MeterRegistry registry, StoreProperties storeProperties,
+                          HistoryProperties historyProperties, AnalyticsProperties analyticsProperties) {
+        this.properties = properties;
+        this.registry = registry;
+        this.storeProperties = storeProperties;
+        this.historyProperties = historyProperties;
+        this.analyticsProperties = analyticsProperties;
+        if (properties.isEnabled()) {
+            long interval = Math.max(1, properties.getSweepInterval().toMillis());
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("tenant-sweeper").factory());
+            sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    public static boolean isValidId(String id) {
+        return id != null && ID.matcher(id).matches();
+    }
+
+    /**
+     * Enters the tenant {@code id}, loading its data on first use. The caller must
+     * {@link #release(Tenant)} it once the request is done.
+     *
+     * @throws UnknownTenantException if the tenant has no directory
+     */
+    public Tenant acquire(String id) {
+        if (!isValidId(id)) {
+            throw new UnknownTenantException("Invalid tenant id: " + id);
+        }
+        File directory = new File(properties.getDirectory(), id);
+        while (true) {
+            Tenant tenant = tenants.get(id);
+            if (tenant == null) {
+                if (!directory.isDirectory()) {
+                    throw new UnknownTenantException("Unknown tenant: " + id);
+                }
+                tenant = tenants.computeIfAbsent(id, k -> newTenant(k, directory));
+            }
+            if (!tenant.enter()) {
+                // unloaded between the lookup and the entry
+                tenants.remove(id, tenant);
+                continue;
+            }
+            try {
+                tenant.getAlertService();
+            } catch (RuntimeException e) {
+                tenant.exit();
+                if (tenant.unload() && tenants.remove(id, tenant)) {
+                    removeMeters(tenant);
+                }
+                throw e;
+            }
+            return tenant;
+        }
+    }
+
+    public void release(Tenant tenant) {
+        tenant.exit();
+    }
+
+    private Tenant newTenant(String id, File directory) {
+        Tenant tenant = new Tenant(id, new File(directory, "data.json"), storeProperties, historyProperties,
+                analyticsProperties);
+        meters.put(tenant, List.of(
+                Gauge.builder("safetynet.tenant.heap", tenant, Tenant::heapBytes)
+                        .description("Estimated heap of the tenant's rows").baseUnit("bytes")
+                        .tag("tenant", id).register(registry),
+                Gauge.builder("safetynet.tenant.off-heap", tenant, Tenant::offHeapBytes)
+                        .baseUnit("bytes").tag("tenant", id).register(registry),
+                Gauge.builder("safetynet.tenant.persist.backlog", tenant, Tenant::persistBacklog)
+                        .description("Saves waiting for or holding the tenant's persistence lock")
+                        .tag("tenant", id).register(registry),
+                FunctionCounter.builder("safetynet.tenant.requests", tenant, Tenant::requests)
+                        .tag("tenant", id).register(registry)));
+        log.info("Loading tenant {} from {}", id, directory);
+        return tenant;
+    }
+
+    private void removeMeters(Tenant tenant) {
+        List<Meter> removed = meters.remove(tenant);
+        if (removed != null) {
+            removed.forEach(registry::remove);
+        }
+    }
+
+    /**
+     * Samples the request rates and unloads idle tenants, then the least recently used ones while
+     * the limits are exceeded. Tenants with requests in progress are kept.
+     */
+    public void sweep() {
+        long now = System.nanoTime();
+        List<Tenant> byLastUse = new ArrayList<>(tenants.values());
+        byLastUse.forEach(t -> t.sampleRate(now));
+        byLastUse.sort(Comparator.comparingLong(Tenant::lastUsed));
+
+        int loaded = byLastUse.size();
+        long heap = byLastUse.stream().mapToLong(Tenant::heapBytes).sum();
+        long idleNanos = properties.getIdleTimeout().toNanos();
+        for (Tenant tenant : byLastUse) {
+            boolean idle = now - tenant.lastUsed() >= idleNanos;
+            boolean overLimits = loaded > properties.getMaxLoaded() || heap > properties.getHeapBudget().toBytes();
+            if (!idle && !overLimits) {
+                continue;
+            }
+            long tenantHeap = tenant.heapBytes();
+            if (tenant.unload() && tenants.remove(tenant.getId(), tenant)) {
+                removeMeters(tenant);
+                loaded--;
+                heap -= tenantHeap;
+                log.info("Unloaded tenant {} ({}, ~{} KB)", tenant.getId(), idle ? "idle" : "over limits", tenantHeap / 1024);
+            }
+        }
+    }
+
+    public List<TenantStats> stats() {
+        long now = System.nanoTime();
+        return tenants.values().stream()
+                .sorted(Comparator.comparing(Tenant::getId))
+                .map(t -> t.stats(now))
+                .toList();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public String getHeader() {
+        return properties.getHeader();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+}
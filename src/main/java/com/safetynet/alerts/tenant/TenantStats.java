@@ -0,0 +1,14 @@
+package com.safetynet.alerts.tenant;
+
+/**
+ * Load and footprint of one tenant, as served by {@code /diagnostics/tenants}.
+ *
+ * @param heapBytes          estimated heap of the stored rows
+ * @param requestsPerSecond  rate between the last two samples of {@link TenantRegistry}
+ * @param persistBacklog     saves waiting for, or holding, the tenant's persistence lock
+ * @param idleMillis         time since the last request
+ */
+public record TenantStats(String id, boolean loaded, int persons, int medicalRecords, int firestations,
+                          long heapBytes, long offHeapBytes, long requests, double requestsPerSecond,
+                          int inFlight, int persistBacklog, long idleMillis) {
+}
@@ -0,0 +1,26 @@
+package com.safetynet.alerts.tenant;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Exposes the footprint and load of the tenants loaded by {@link TenantRegistry}.
+ */
+@RestController
+public class TenantStatsController {
+    private final TenantRegistry tenants;
+
+    public TenantStatsController(TenantRegistry tenants) {
+        this.tenants = tenants;
+    }
+
+    /**
+     * Example: {@code GET /diagnostics/tenants}, by tenant id.
+     */
+    @GetMapping("/diagnostics/tenants")
+    public List<TenantStats> getTenants() {
+        return tenants.stats();
+    }
+}
@@ -0,0 +1,10 @@
+package com.safetynet.alerts.tenant;
+
+/**
+ * Thrown for a tenant that has no directory under {@link TenantProperties#getDirectory()}.
+ */
+public class UnknownTenantException extends RuntimeException {
+    public UnknownTenantException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,141 @@
+package com.safetynet.alerts.admission;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionFilterTests {
+
+    private static AdmissionProperties properties() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setRetryAfter(Duration.ofSeconds(3));
+        properties.setEmergency(new AdmissionProperties.Limits(1, 1, Duration.ofSeconds(5)));
+        properties.setAdministrative(new AdmissionProperties.Limits(1, 0, Duration.ZERO));
+        return properties;
+    }
+
+    @Test
+    void classify_shouldSeparateEmergencyReadsFromCrud() {
+        assertEquals(TrafficClass.EMERGENCY, TrafficClass.of(new MockHttpServletRequest("GET", "/fire")));
+        assertEquals(TrafficClass.EMERGENCY, TrafficClass.of(new MockHttpServletRequest("GET", "/firestation")));
+        assertEquals(TrafficClass.ADMINISTRATIVE, TrafficClass.of(new MockHttpServletRequest("POST", "/firestation")));
+        assertEquals(TrafficClass.ADMINISTRATIVE, TrafficClass.of(new MockHttpServletRequest("DELETE", "/person")));
+        for (String path : List.of("/childAlert/stations", "/address/resolve", "/residents/filter", "/residents/nearby",
+                "/firestations/nearest")) {
+            assertEquals(TrafficClass.EMERGENCY, TrafficClass.of(new MockHttpServletRequest("GET", path)), path);
+        }
+        assertEquals(TrafficClass.ANALYTICS, TrafficClass.of(new MockHttpServletRequest("GET", "/analytics/stations")));
+        MockHttpServletRequest asOf = new MockHttpServletRequest("GET", "/fire");
+        asOf.setParameter("asOf", "2026-01-01T00:00:00Z");
+        assertEquals(TrafficClass.ANALYTICS, TrafficClass.of(asOf));
+        assertNull(TrafficClass.of(new MockHttpServletRequest("GET", "/admission/stats")));
+    }
+
+    @Test
+    void crud_whenAdministrativeSlotsBusy_shouldReturn429WithRetryAfter() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(properties());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blocking = (req, res) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        Thread first = new Thread(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("PUT", "/person"), new MockHttpServletResponse(), blocking);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        first.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("PUT", "/person"), second, (req, res) -> fail("should not run"));
+
+        assertEquals(429, second.getStatus());
+        assertEquals("3", second.getHeader("Retry-After"));
+        assertEquals(1, filter.getQueues().get(TrafficClass.ADMINISTRATIVE).rejected());
+
+        release.countDown();
+        first.join();
+        assertEquals(0, filter.getQueues().get(TrafficClass.ADMINISTRATIVE).inFlight());
+    }
+
+    @Test
+    void crud_whenEmergencyRequestsAreQueueing_shouldBeShed() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(properties());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blocking = (req, res) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        Thread running = new Thread(() -> run(filter, "/fire", blocking));
+        Thread waiting = new Thread(() -> run(filter, "/phoneAlert", (req, res) -> { }));
+        running.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        waiting.start();
+        AdmissionQueue emergency = filter.getQueues().get(TrafficClass.EMERGENCY);
+        for (int i = 0; i < 500 && emergency.queueDepth() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, emergency.queueDepth());
+        assertTrue(filter.emergencyAtRisk());
+
+        MockHttpServletResponse crud = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/medicalRecord"), crud, (req, res) -> fail("should not run"));
+        assertEquals(429, crud.getStatus());
+        MockHttpServletResponse analytics = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/analytics/stations"), analytics, (req, res) -> fail("should not run"));
+        assertEquals(429, analytics.getStatus());
+        assertEquals(1, filter.getQueues().get(TrafficClass.ANALYTICS).rejected());
+
+        release.countDown();
+        running.join();
+        waiting.join();
+        assertEquals(2, emergency.admitted());
+        assertEquals(0, emergency.queueDepth());
+    }
+
+    @Test
+    void disabled_shouldPassEverythingThrough() throws Exception {
+        AdmissionProperties off = properties();
+        off.setEnabled(false);
+        off.setAdministrative(new AdmissionProperties.Limits(0, 0, Duration.ZERO));
+        AdmissionFilter filter = new AdmissionFilter(off);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean[] called = {false};
+
+        filter.doFilter(new MockHttpServletRequest("PUT", "/person"), response, (req, res) -> called[0] = true);
+
+        assertTrue(called[0]);
+        assertEquals(200, response.getStatus());
+    }
+
+    private static void run(AdmissionFilter filter, String path, FilterChain chain) {
+        try {
+            filter.doFilter(new MockHttpServletRequest("GET", path), new MockHttpServletResponse(), chain);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
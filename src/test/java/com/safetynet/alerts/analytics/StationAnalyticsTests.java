@@ -0,0 +1,103 @@
+package com.safetynet.alerts.analytics;
+
+import com.safetynet.alerts.dataset.DatasetGenerator;
+import com.safetynet.alerts.dataset.DatasetSpec;
+import com.safetynet.alerts.dto.FirestationDto;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.dto.StationStatsDto;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.safetynet.alerts.dataset.Fixtures.bornYearsAgo;
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static com.safetynet.alerts.dataset.Fixtures.firestation;
+import static com.safetynet.alerts.dataset.Fixtures.person;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StationAnalyticsTests {
+    @TempDir
+    Path dir;
+
+    @Test
+    void stats_shouldAggregateResidentsOfEachStation() {
+        DataService dataService = dataService(dir);
+        dataService.add(person("John", "Boyd", "1509 Culver St"));
+        dataService.add(person("Tenley", "Boyd", "1509 Culver St"));
+        dataService.add(person("Eric", "Cadigan", "951 LoneTree Rd"));
+        dataService.add(person("Ron", "Peters", "112 Steppes Pl"));
+        dataService.add(new MedicalRecord("John", "Boyd", bornYearsAgo(40), List.of("aznol:350mg", "hydrapermazol:100mg"), List.of()));
+        dataService.add(new MedicalRecord("Tenley", "Boyd", bornYearsAgo(12), List.of("aznol:350mg"), List.of()));
+        dataService.add(new MedicalRecord("Eric", "Cadigan", bornYearsAgo(79), List.of("tradoxidine:400mg"), List.of()));
+        dataService.add(firestation("1509 Culver St", "3"));
+        dataService.add(firestation("951 LoneTree Rd", "3"));
+        dataService.add(firestation("112 Steppes Pl", "10"));
+        dataService.add(firestation("112 Steppes Pl", "4"));
+        AlertService alertService = new AlertService(dataService);
+
+        Map<String, StationStatsDto> stats = alertService.getStationStats(1);
+        assertEquals(List.of("3", "4", "10"), List.copyOf(stats.keySet()));
+        StationStatsDto three = stats.get("3");
+        assertEquals(2, three.addresses());
+        assertEquals(3, three.residents());
+        assertEquals(1, three.children());
+        assertEquals(1, three.adults());
+        assertEquals(1, three.seniors());
+        assertEquals(1, three.ageHistogram().get("10-19"));
+        assertEquals(1, three.ageHistogram().get("70-79"));
+        assertEquals(10, three.ageHistogram().size());
+        assertEquals(Map.of(1, 1, 2, 1), three.householdSizes());
+        assertEquals(List.of(new StationStatsDto.TermCount("aznol:350mg", 2)), three.topMedications());
+        assertEquals(1, stats.get("10").unknownAge());
+        assertSame(stats, alertService.getStationStats(1));
+
+        alertService.addPerson(new PersonDto("Ron", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "rb@email.com"));
+        alertService.addMedicalRecord(new ResidentInfoDto("Ron", "Boyd", bornYearsAgo(3), List.of(), List.of()));
+        alertService.updateMedicalRecord(new ResidentInfoDto("Eric", "Cadigan", bornYearsAgo(50), List.of(), List.of()));
+        alertService.updateFirestation(new FirestationDto("951 LoneTree Rd", "4"));
+        stats = alertService.getStationStats(1);
+        assertEquals(3, stats.get("3").residents());
+        assertEquals(2, stats.get("3").children());
+        assertEquals(Map.of(3, 1), stats.get("3").householdSizes());
+        assertEquals(2, stats.get("4").residents());
+        assertEquals(1, stats.get("4").adults());
+        assertEquals(0, stats.get("4").seniors());
+    }
+
+    @Test
+    void incrementalUpdates_shouldMatchAFreshComputation() {
+        DataService dataService = dataService(dir);
+        DatasetSpec spec = new DatasetSpec();
+        spec.setPersons(2_000);
+        spec.setStations(12);
+        DatasetGenerator generator = new DatasetGenerator(spec);
+        generator.populate(dataService);
+        List<Person> firstHousehold = new ArrayList<>();
+        generator.forEachHousehold(h -> {
+            if (h.index() == 0) {
+                firstHousehold.addAll(h.members());
+            }
+        });
+        AlertService alertService = new AlertService(dataService);
+        alertService.getStationStats(3);
+
+        Person first = firstHousehold.get(0);
+        alertService.deletePerson(first.getFirstName(), first.getLastName());
+        alertService.addPerson(new PersonDto("Zach", "Zemicks", "2 Culver St", "Culver", "97451", "841-874-6512", "z@email.com"));
+        alertService.addMedicalRecord(new ResidentInfoDto("Zach", "Zemicks", bornYearsAgo(70), List.of("noxidian:100mg"), List.of()));
+        alertService.deleteMedicalRecord("Zach", "Zemicks");
+        alertService.updatePerson(new PersonDto("Zach", "Zemicks", "5 Binoc Ave", "Culver", "97451", "841-874-6512", "z@email.com"));
+        alertService.deleteFirestation(null, "7");
+
+        assertEquals(new AlertService(dataService).getStationStats(3), alertService.getStationStats(3));
+    }
+}
@@ -0,0 +1,178 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.SafetyNetApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares request latency of the default (platform thread) execution mode with the
+ * {@code virtual} profile under a mixed read/write load.
+ * <p>
+ * Admission control stays on, with room in the emergency queue for every client: writes it sheds
+ * ({@code 429}, {@code 503}) are counted apart from errors, and no read may be shed.
+ * </p>
+ * <p>
+ * Skipped by the regular build; run with {@code mvn -Pbenchmark test}. Load shape can be tuned
+ * with {@code -Dbenchmark.clients}, {@code -Dbenchmark.requests} and {@code -Dbenchmark.writeRatio}.
+ * </p>
+ */
+@Tag("benchmark")
+class ExecutionModeBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionModeBenchmarkTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 256);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("benchmark.requests", 100);
+    private static final double WRITE_RATIO = Double.parseDouble(System.getProperty("benchmark.writeRatio", "0.2"));
+
+    private static final String[] READS = {
+            "/fire?address=1509%20Culver%20St",
+            "/phoneAlert?firestation=3",
+            "/firestation?stationNumber=1",
+            "/flood/stations?stations=1,2",
+            "/childAlert?address=1509%20Culver%20St"
+    };
+
+    @TempDir
+    Path workDir;
+
+    private final AtomicInteger errors = new AtomicInteger();
+    private final AtomicInteger shedReads = new AtomicInteger();
+    private final AtomicInteger shedWrites = new AtomicInteger();
+
+    @Test
+    void compareP99LatencyForMixedLoad() throws Exception {
+        Result platform = run("default");
+        Result virtual = run("virtual");
+
+        log.info("{}", platform);
+        log.info("{}", virtual);
+
+        assertEquals(0, platform.errors(), "platform mode returned errors");
+        assertEquals(0, virtual.errors(), "virtual mode returned errors");
+        assertEquals(0, platform.shedReads(), "platform mode shed reads");
+        assertEquals(0, virtual.shedReads(), "virtual mode shed reads");
+    }
+
+    private Result run(String profile) throws Exception {
+        Path dataFile = workDir.resolve(profile + ".json");
+        Files.copy(Path.of("data/data.json"), dataFile);
+
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(SafetyNetApplication.class)
+                .profiles(profile)
+                .properties("server.port=0",
+                        "safetynet.data.file=" + dataFile.toAbsolutePath(),
+                        "spring.devtools.restart.enabled=false",
+                        // every client may wait for a read slot: only writes are shed
+                        "safetynet.admission.emergency.max-queued=" + CLIENTS,
+                        "safetynet.admission.emergency.max-wait=1m")
+                .run()) {
+            int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+            String base = "http://localhost:" + port;
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            drive(client, base, CLIENTS, 10); // warm-up, discarded
+            long start = System.nanoTime();
+            long[] latencies = drive(client, base, CLIENTS, REQUESTS_PER_CLIENT);
+            long elapsed = System.nanoTime() - start;
+            return Result.of(profile, latencies, elapsed, errors.getAndSet(0), shedReads.getAndSet(0),
+                    shedWrites.getAndSet(0));
+        }
+    }
+
+    private long[] drive(HttpClient client, String base, int clients, int requestsPerClient) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                futures.add(pool.submit(() -> {
+                    long[] samples = new long[requestsPerClient];
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        HttpRequest request = nextRequest(base);
+                        long t0 = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        samples[i] = System.nanoTime() - t0;
+                        int status = response.statusCode();
+                        if (status == 429 || status == 503) {
+                            ("GET".equals(request.method()) ? shedReads : shedWrites).incrementAndGet();
+                        } else if (status >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return samples;
+                }));
+            }
+            long[] all = new long[clients * requestsPerClient];
+            int offset = 0;
+            for (Future<long[]> f : futures) {
+                long[] samples = f.get();
+                System.arraycopy(samples, 0, all, offset, samples.length);
+                offset += samples.length;
+            }
+            return all;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static HttpRequest nextRequest(String base) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        if (rnd.nextDouble() < WRITE_RATIO) {
+            String body = "{\"firstName\":\"John\",\"lastName\":\"Boyd\",\"address\":\"1509 Culver St\","
+                    + "\"city\":\"Culver\",\"zip\":\"97451\",\"phone\":\"841-874-" + (1000 + rnd.nextInt(9000)) + "\","
+                    + "\"email\":\"jaboyd@email.com\"}";
+            return HttpRequest.newBuilder(URI.create(base + "/person"))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        return HttpRequest.newBuilder(URI.create(base + READS[rnd.nextInt(READS.length)])).GET().build();
+    }
+
+    private record Result(String mode, int requests, double p50Ms, double p99Ms, double maxMs,
+                          double throughput, int errors, int shedReads, int shedWrites) {
+
+        static Result of(String mode, long[] latencies, long elapsedNanos, int errors, int shedReads, int shedWrites) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            return new Result(mode, sorted.length,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6,
+                    sorted.length / (elapsedNanos / 1e9), errors, shedReads, shedWrites);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            int idx = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, idx)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("mode=%-8s requests=%d p50=%.2fms p99=%.2fms max=%.2fms throughput=%.0f req/s errors=%d"
+                            + " shed reads=%d writes=%d",
+                    mode, requests, p50Ms, p99Ms, maxMs, throughput, errors, shedReads, shedWrites);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.safetynet.alerts.changelog;
+
+import com.safetynet.alerts.event.DataChangeEvent.FirestationChanged;
+import com.safetynet.alerts.event.DataChangeEvent.Operation;
+import com.safetynet.alerts.event.DataChangeEvent.PersonChanged;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeLogTests {
+
+    @TempDir
+    Path dir;
+
+    private ChangeLogProperties properties;
+
+    @BeforeEach
+    void setup() {
+        properties = new ChangeLogProperties();
+        properties.setFile(dir.resolve("changes.log").toString());
+        properties.setOffsetsFile(dir.resolve("changes.offsets").toString());
+        properties.setMaxBatchSize(2);
+    }
+
+    private static Person person(String phone) {
+        return new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", phone, "jaboyd@email.com");
+    }
+
+    @Test
+    void appendedChanges_shouldBeReadableByOffsetInBatches() throws Exception {
+        ChangeLog changeLog = new ChangeLog(properties);
+        changeLog.open();
+        Firestation station = new Firestation();
+        station.setAddress("1509 Culver St");
+        station.setStation("3");
+
+        changeLog.onDataChange(new PersonChanged(Operation.ADDED, null, person("841-874-6512")));
+        changeLog.onDataChange(new PersonChanged(Operation.UPDATED, person("841-874-6512"), person("841-874-0000")));
+        changeLog.onDataChange(new FirestationChanged(Operation.DELETED, station, null));
+
+        ChangeBatch first = changeLog.read(0, 10);
+        assertEquals(2, first.records().size());
+        assertEquals(2, first.nextOffset());
+        assertEquals(3, first.endOffset());
+        ChangeRecord update = first.records().get(1);
+        assertEquals(1, update.offset());
+        assertEquals(ChangeRecord.Entity.PERSON, update.entity());
+        assertEquals(Operation.UPDATED, update.operation());
+        assertEquals("841-874-6512", update.before().get("phone").asText());
+        assertEquals("841-874-0000", update.after().get("phone").asText());
+
+        ChangeBatch second = changeLog.read(first.nextOffset(), 10);
+        assertEquals(1, second.records().size());
+        assertEquals(ChangeRecord.Entity.FIRESTATION, second.records().get(0).entity());
+        assertNull(second.records().get(0).after());
+        assertTrue(changeLog.read(3, 10).records().isEmpty());
+        changeLog.close();
+    }
+
+    @Test
+    void reopen_shouldKeepOffsetsAndDropTornRecord() throws Exception {
+        ChangeLog changeLog = new ChangeLog(properties);
+        changeLog.open();
+        changeLog.onDataChange(new PersonChanged(Operation.ADDED, null, person("1")));
+        changeLog.onDataChange(new PersonChanged(Operation.ADDED, null, person("2")));
+        changeLog.close();
+        long intactSize = Files.size(dir.resolve("changes.log"));
+        try (FileChannel channel = FileChannel.open(dir.resolve("changes.log"), StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 42, 1, 2}));
+        }
+
+        ChangeLog reopened = new ChangeLog(properties);
+        reopened.open();
+        assertEquals(2, reopened.getEndOffset());
+        assertEquals(intactSize, Files.size(dir.resolve("changes.log")));
+        reopened.onDataChange(new PersonChanged(Operation.DELETED, person("1"), null));
+        ChangeBatch batch = reopened.read(1, 10);
+        assertEquals(1, batch.records().get(0).offset());
+        assertEquals(2, batch.records().get(1).offset());
+        assertEquals(Operation.DELETED, batch.records().get(1).operation());
+        reopened.close();
+    }
+
+    @Test
+    void failedAppend_shouldLeaveAGapThatSurvivesRestart() throws Exception {
+        ChangeLog changeLog = new ChangeLog(properties);
+        changeLog.open();
+        Person unserializable = new Person() {
+            @Override
+            public String getPhone() {
+                throw new IllegalStateException("injected");
+            }
+        };
+        changeLog.onDataChange(new PersonChanged(Operation.ADDED, null, person("1")));
+        changeLog.onDataChange(new PersonChanged(Operation.ADDED, null, unserializable));
+        changeLog.onDataChange(new PersonChanged(Operation.ADDED, null, person("3")));
+        changeLog.close();
+
+        ChangeLog reopened = new ChangeLog(properties);
+        reopened.open();
+        assertEquals(3, reopened.getEndOffset());
+        // the batch ends before the gap, the next one starts past it
+        ChangeBatch before = reopened.read(0, 10);
+        assertEquals(1, before.records().size());
+        assertEquals(1, before.nextOffset());
+        ChangeBatch after = reopened.read(1, 10);
+        assertEquals(1, after.records().size());
+        assertEquals(2, after.records().get(0).offset());
+        assertEquals(3, after.nextOffset());
+        reopened.close();
+    }
+
+    @Test
+    void committedConsumerOffset_shouldSurviveRestart() throws Exception {
+        ConsumerOffsets offsets = new ConsumerOffsets(properties);
+        offsets.load();
+        assertTrue(offsets.get("billing").isEmpty());
+        offsets.commit("billing", 42);
+
+        ConsumerOffsets restarted = new ConsumerOffsets(properties);
+        restarted.load();
+        assertEquals(42, restarted.get("billing").getAsLong());
+    }
+}
@@ -1,10 +1,14 @@
 package com.safetynet.alerts.controller;
 
 import com.safetynet.alerts.dto.ChildInfoDto;
+import com.safetynet.alerts.dto.ClinicalFilterDto;
 import com.safetynet.alerts.dto.FireAddressResponseDto;
 import com.safetynet.alerts.dto.PersonDto;
 import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.history.SnapshotUnavailableException;
 import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.tenant.Tenant;
+import com.safetynet.alerts.tenant.TenantRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,11 +18,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.hamcrest.Matchers.*;
@@ -37,6 +44,11 @@ class AlertControllerTests {
         public AlertService alertService() {
             return Mockito.mock(AlertService.class);
         }
+
+        @Bean
+        public TenantRegistry tenantRegistry() {
+            return Mockito.mock(TenantRegistry.class);
+        }
     }
 
     @Autowired
@@ -84,6 +96,43 @@ class AlertControllerTests {
                 .andExpect(jsonPath("$[0].householdMembers[0].lastName", is("Gundobin")));
     }
 
+    @Test
+    void getChildRoster_shouldStreamChildrenByAddress() throws Exception {
+        ChildInfoDto child = new ChildInfoDto("Jane", "Gundobin", 8,
+                Arrays.asList(new ChildInfoDto.HouseholdMember("Nick", "Gundobin")));
+        doAnswer(invocation -> {
+            BiConsumer<String, List<ChildInfoDto>> consumer = invocation.getArgument(1);
+            consumer.accept("1509 Highland Oaks Rd", List.of(child));
+            consumer.accept("29 15th St", List.of(child, child));
+            return null;
+        }).when(alertService).forEachChildHousehold(eq(List.of("1", "2")), any());
+
+        MvcResult started = mockMvc.perform(get("/childAlert/stations").param("stations", "1, 2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$['1509 Highland Oaks Rd']", hasSize(1)))
+                .andExpect(jsonPath("$['1509 Highland Oaks Rd'][0].firstName", is("Jane")))
+                .andExpect(jsonPath("$['1509 Highland Oaks Rd'][0].householdMembers[0].firstName", is("Nick")))
+                .andExpect(jsonPath("$['29 15th St']", hasSize(2)));
+    }
+
+    @Test
+    void getPhoneAlert_routedToTenant_shouldAnswerFromTheTenantService() throws Exception {
+        AlertService tenantService = Mockito.mock(AlertService.class);
+        Tenant tenant = Mockito.mock(Tenant.class);
+        when(tenant.getAlertService()).thenReturn(tenantService);
+        when(tenantService.getPhoneAlert("2")).thenReturn(List.of("863-555-0100"));
+
+        mockMvc.perform(get("/phoneAlert").param("firestation", "2").requestAttr(Tenant.ATTRIBUTE, tenant))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]", is("863-555-0100")));
+        verify(alertService, never()).getPhoneAlert("2");
+    }
+
     @Test
     void getPhoneAlert_shouldReturnPhoneListForStation() throws Exception {
         List<String> phones = Arrays.asList("305-510-9943", "305-510-9944");
@@ -97,6 +146,21 @@ class AlertControllerTests {
                 .andExpect(jsonPath("$[1]", is("305-510-9944")));
     }
 
+    @Test
+    void getPhoneAlert_withAsOf_shouldAnswerFromThatVersion() throws Exception {
+        AlertService then = Mockito.mock(AlertService.class);
+        doReturn(then).when(alertService).asOf(Instant.parse("2026-03-01T10:15:00Z"));
+        when(then.getPhoneAlert("2")).thenReturn(List.of("305-510-9943"));
+        doThrow(new SnapshotUnavailableException("No data kept")).when(alertService).asOf(Instant.EPOCH);
+
+        mockMvc.perform(get("/phoneAlert").param("firestation", "2").param("asOf", "2026-03-01T10:15:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]", is("305-510-9943")));
+        mockMvc.perform(get("/phoneAlert").param("firestation", "2").param("asOf", "1970-01-01T00:00:00Z"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getFire_shouldReturnStationAndResidentsForAddress() throws Exception {
         ResidentInfoDto resident = new ResidentInfoDto("Nick", "Gundobin", "305-510-9943", 23);
@@ -158,6 +222,27 @@ class AlertControllerTests {
                 .andExpect(jsonPath("$[0].allergies[0]", is("peanuts")));
     }
 
+    @Test
+    void getClinicalFilter_shouldParseCriteria() throws Exception {
+        ResidentInfoDto dto = new ResidentInfoDto("Nick", "Gundobin", "305-874-6512", 34,
+                Arrays.asList("insulin:10u"), Arrays.asList("peanuts"));
+        dto.setAddress("1509 Highland Oaks Rd");
+
+        when(alertService.getClinicalFilter(new ClinicalFilterDto(List.of("3", "4"), null, List.of("insulin"),
+                List.of("peanuts"), false))).thenReturn(Arrays.asList(dto));
+
+        mockMvc.perform(get("/residents/filter")
+                        .param("stations", "3, 4")
+                        .param("medications", "insulin")
+                        .param("allergies", "peanuts")
+                        .param("match", "any"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].address", is("1509 Highland Oaks Rd")))
+                .andExpect(jsonPath("$[0].phone", is("305-874-6512")))
+                .andExpect(jsonPath("$[0].medications[0]", is("insulin:10u")));
+    }
+
     @Test
     void getCommunityEmail_shouldReturnEmailsForCity() throws Exception {
         List<String> emails = Arrays.asList("nick.gundobin@example.com", "jane.gundobin@example.com");
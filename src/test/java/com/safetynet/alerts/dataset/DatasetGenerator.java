@@ -0,0 +1,270 @@
+package com.safetynet.alerts.dataset;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.DataService;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Seeded generator of Person / Firestation / MedicalRecord datasets for benchmarks and load tests.
+ * <p>
+ * Every household is derived from the seed and its own index only, so the dataset can be
+ * produced section by section (as data.json requires) or streamed as NDJSON without ever being
+ * held in memory. Households share an address and a last name; their first member is always an
+ * adult, further members follow the configured age distribution. Households are placed around the
+ * center of their city, which is on a grid of about 45 by 65 km cells in Oregon.
+ * </p>
+ * <p>
+ * Command line usage:
+ * {@code DatasetGenerator --persons=1000000 --seed=7 --stations=500 --cities=50 --format=ndjson --out=target/people.ndjson}
+ * (see {@link #main(String[])} for all options).
+ * </p>
+ */
+public class DatasetGenerator {
+    private static final String[] FIRST_NAMES = {"John", "Jacob", "Tenley", "Roger", "Felicia", "Jonanathan", "Tessa",
+            "Peter", "Foster", "Tony", "Lily", "Sophia", "Warren", "Zach", "Reginold", "Jamie", "Ron", "Allison",
+            "Brian", "Shawna", "Kendrik", "Clive", "Eric", "Emma", "Liam", "Olivia", "Noah", "Ava", "Mia", "Lucas"};
+    private static final String[] LAST_NAMES = {"Boyd", "Carman", "Duncan", "Ferguson", "Cadigan", "Marrack", "Zemicks",
+            "Walker", "Shepard", "Stelzer", "Peters", "Cooper", "Hernandez", "Nguyen", "Kowalski", "Okafor"};
+    private static final String[] STREETS = {"Culver St", "Binoc Ave", "Gershwin St", "Ash St", "Vine Ave",
+            "Lane Rd", "Oak Dr", "Maple Ct", "Birch Way", "Cedar Ln", "Elm St", "Pine Ave", "Willow Rd", "Harbor Blvd"};
+    private static final String[] CITIES = {"Culver", "Springfield", "Riverton", "Fairview", "Lakeside", "Greenville",
+            "Madison", "Georgetown", "Franklin", "Clinton"};
+    private static final DateTimeFormatter BIRTHDATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private final DatasetSpec spec;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * One generated household.
+     *
+     * @param index   position of the household, from 0
+     * @param members persons living at {@code address}
+     * @param records one medical record per member, in the same order
+     */
+    public record Household(int index, String address, String city, String zip, String station,
+                            double latitude, double longitude, List<Person> members, List<MedicalRecord> records) {
+    }
+
+    public DatasetGenerator(DatasetSpec spec) {
+        this.spec = spec;
+    }
+
+    /**
+     * Generates the households in order, one at a time.
+     */
+    public void forEachHousehold(Consumer<Household> consumer) {
+        int remaining = spec.getPersons();
+        int person = 0;
+        for (int h = 0; remaining > 0; h++) {
+            Household household = household(h, person, remaining);
+            consumer.accept(household);
+            remaining -= household.members().size();
+            person += household.members().size();
+        }
+    }
+
+    private Household household(int h, int firstPerson, int remaining) {
+        SplittableRandom random = new SplittableRandom(spec.getSeed() * 0x9E3779B97F4A7C15L + h);
+        int size = Math.min(remaining, 1 + weighted(random, spec.getHouseholdSizeWeights()));
+        String address = (h / STREETS.length + 1) + " " + STREETS[h % STREETS.length];
+        int cityIndex = random.nextInt(spec.getCities());
+        String city = CITIES[cityIndex % CITIES.length] + (cityIndex < CITIES.length ? "" : Integer.toString(cityIndex / CITIES.length));
+        String zip = Integer.toString(90000 + cityIndex % 10000);
+        String station = Integer.toString(h % spec.getStations() + 1);
+        String lastName = LAST_NAMES[h % LAST_NAMES.length] + (h < LAST_NAMES.length ? "" : Integer.toString(h / LAST_NAMES.length));
+        int firstOffset = random.nextInt(FIRST_NAMES.length);
+
+        double latitude = 42.2 + cityIndex % 10 * 0.4;
+        double longitude = -123.9 + cityIndex / 10 % 10 * 0.8;
+
+        List<Person> members = new ArrayList<>(size);
+        List<MedicalRecord> records = new ArrayList<>(size);
+        for (int m = 0; m < size; m++) {
+            int p = firstPerson + m;
+            String firstName = FIRST_NAMES[(firstOffset + m) % FIRST_NAMES.length]
+                    + (m < FIRST_NAMES.length ? "" : Integer.toString(m / FIRST_NAMES.length));
+            String phone = String.format("841-%03d-%04d", p / 10000 % 1000, p % 10000);
+            String email = (firstName + "." + lastName).toLowerCase() + "@email.com";
+            members.add(new Person(firstName, lastName, address, city, zip, phone, email));
+
+            int band = m == 0 ? 1 + weighted(random, spec.getAgeBandWeights().subList(1, spec.getAgeBandWeights().size()))
+                    : weighted(random, spec.getAgeBandWeights());
+            int age = switch (band) {
+                case 0 -> random.nextInt(19);
+                case 1 -> 19 + random.nextInt(46);
+                default -> 65 + random.nextInt(31);
+            };
+            LocalDate birthdate = spec.getAsOf().minusYears(age).minusDays(random.nextInt(365));
+            records.add(new MedicalRecord(firstName, lastName, birthdate.format(BIRTHDATE),
+                    pick(random, spec.getMedications(), spec.getMaxMedications()),
+                    pick(random, spec.getAllergies(), spec.getMaxAllergies())));
+        }
+        // drawn last so that the other fields do not depend on it
+        latitude = Math.round((latitude + random.nextDouble(-0.2, 0.2)) * 1e6) / 1e6;
+        longitude = Math.round((longitude + random.nextDouble(-0.3, 0.3)) * 1e6) / 1e6;
+        for (Person p : members) {
+            p.setLatitude(latitude);
+            p.setLongitude(longitude);
+        }
+        return new Household(h, address, city, zip, station, latitude, longitude, members, records);
+    }
+
+    private static int weighted(SplittableRandom random, List<Integer> weights) {
+        int total = weights.stream().mapToInt(Integer::intValue).sum();
+        int r = random.nextInt(total);
+        for (int i = 0; i < weights.size(); i++) {
+            r -= weights.get(i);
+            if (r < 0) {
+                return i;
+            }
+        }
+        return weights.size() - 1;
+    }
+
+    private static List<String> pick(SplittableRandom random, List<String> vocabulary, int max) {
+        int n = Math.min(random.nextInt(max + 1), vocabulary.size());
+        Set<String> picked = new LinkedHashSet<>();
+        while (picked.size() < n) {
+            picked.add(vocabulary.get(random.nextInt(vocabulary.size())));
+        }
+        return new ArrayList<>(picked);
+    }
+
+    /**
+     * Adds the dataset to the in-memory store of a {@link DataService}, encoded as
+     * {@link DataService#loadData()} does.
+     */
+    public void populate(DataService dataService) {
+        forEachHousehold(h -> {
+            h.members().forEach(dataService::add);
+            h.records().forEach(dataService::add);
+            dataService.add(firestation(h));
+        });
+    }
+
+    private static Firestation firestation(Household h) {
+        Firestation f = new Firestation();
+        f.setAddress(h.address());
+        f.setStation(h.station());
+        f.setLatitude(h.latitude());
+        f.setLongitude(h.longitude());
+        return f;
+    }
+
+    /**
+     * Writes the data.json format. Each of the three sections is produced by its own pass over
+     * the households, so memory use does not depend on the dataset size.
+     */
+    public void writeJson(OutputStream out) throws IOException {
+        try (JsonGenerator json = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("persons");
+            forEachHousehold(h -> h.members().forEach(p -> write(json, p)));
+            json.writeEndArray();
+            json.writeArrayFieldStart("firestations");
+            forEachHousehold(h -> write(json, firestation(h)));
+            json.writeEndArray();
+            json.writeArrayFieldStart("medicalrecords");
+            forEachHousehold(h -> h.records().forEach(m -> write(json, m)));
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes one JSON object per line, household by household: {@code {"type":"person",...}},
+     * {@code {"type":"medicalrecord",...}} and {@code {"type":"firestation",...}}.
+     */
+    public void writeNdjson(OutputStream out) throws IOException {
+        try (JsonGenerator json = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.setRootValueSeparator(null);
+            forEachHousehold(h -> {
+                h.members().forEach(p -> line(json, "person", p));
+                h.records().forEach(m -> line(json, "medicalrecord", m));
+                line(json, "firestation", firestation(h));
+            });
+        }
+    }
+
+    private void write(JsonGenerator json, Object value) {
+        try {
+            mapper.writeValue(json, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void line(JsonGenerator json, String type, Object value) {
+        try {
+            ObjectNode node = mapper.createObjectNode().put("type", type);
+            node.setAll((ObjectNode) mapper.valueToTree(value));
+            mapper.writeValue(json, node);
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Options, all optional: {@code --persons}, {@code --seed}, {@code --stations}, {@code --cities},
+     * {@code --household-sizes=28,35,15,13,6,3}, {@code --age-bands=22,61,17}, {@code --as-of=2025-01-01},
+     * {@code --medications=a:1mg,b:2mg}, {@code --allergies=x,y}, {@code --max-medications},
+     * {@code --max-allergies}, {@code --format=json|ndjson} and {@code --out=path} (stdout when absent).
+     */
+    public static void main(String[] args) throws IOException {
+        DatasetSpec spec = new DatasetSpec();
+        String format = "json";
+        String out = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --option=value but got " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(2, eq)) {
+                case "persons" -> spec.setPersons(Integer.parseInt(value));
+                case "seed" -> spec.setSeed(Long.parseLong(value));
+                case "stations" -> spec.setStations(Integer.parseInt(value));
+                case "cities" -> spec.setCities(Integer.parseInt(value));
+                case "household-sizes" -> spec.setHouseholdSizeWeights(integers(value));
+                case "age-bands" -> spec.setAgeBandWeights(integers(value));
+                case "as-of" -> spec.setAsOf(LocalDate.parse(value));
+                case "medications" -> spec.setMedications(List.of(value.split(",")));
+                case "allergies" -> spec.setAllergies(List.of(value.split(",")));
+                case "max-medications" -> spec.setMaxMedications(Integer.parseInt(value));
+                case "max-allergies" -> spec.setMaxAllergies(Integer.parseInt(value));
+                case "format" -> format = value;
+                case "out" -> out = value;
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        DatasetGenerator generator = new DatasetGenerator(spec);
+        try (OutputStream stream = new BufferedOutputStream(out != null ? Files.newOutputStream(Path.of(out)) : System.out, 1 << 16)) {
+            if ("ndjson".equals(format)) {
+                generator.writeNdjson(stream);
+            } else {
+                generator.writeJson(stream);
+            }
+        }
+    }
+
+    private static List<Integer> integers(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).map(Integer::valueOf).toList();
+    }
+}
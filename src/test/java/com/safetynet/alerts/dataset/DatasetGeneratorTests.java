@@ -0,0 +1,89 @@
+package com.safetynet.alerts.dataset;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.DataWrapper;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetGeneratorTests {
+
+    private static DatasetSpec spec(long seed) {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setPersons(500);
+        spec.setSeed(seed);
+        spec.setStations(7);
+        spec.setHouseholdSizeWeights(List.of(0, 1, 1));
+        return spec;
+    }
+
+    private static byte[] json(DatasetSpec spec) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DatasetGenerator(spec).writeJson(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void sameSeed_shouldProduceIdenticalOutput() throws Exception {
+        assertArrayEquals(json(spec(1)), json(spec(1)));
+        assertFalse(Arrays.equals(json(spec(1)), json(spec(2))));
+    }
+
+    @Test
+    void json_shouldMatchDataFileFormatAndSpec() throws Exception {
+        DataWrapper data = new ObjectMapper().readValue(json(spec(3)), DataWrapper.class);
+
+        assertEquals(500, data.getPersons().size());
+        assertEquals(500, data.getMedicalrecords().size());
+        Set<String> identities = new HashSet<>();
+        for (Person p : data.getPersons()) {
+            assertTrue(identities.add(p.getFirstName() + " " + p.getLastName()), "duplicate person " + p);
+        }
+        Set<String> addresses = new HashSet<>();
+        data.getPersons().forEach(p -> addresses.add(p.getAddress()));
+        assertEquals(addresses.size(), data.getFirestations().size());
+        assertTrue(data.getPersons().size() / (double) addresses.size() >= 2.0, "households of 2 or 3 members");
+        assertTrue(data.getFirestations().stream().allMatch(f -> Integer.parseInt(f.getStation()) <= 7));
+
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+        long children = data.getMedicalrecords().stream()
+                .map(MedicalRecord::getBirthdate)
+                .filter(b -> Period.between(LocalDate.parse(b, fmt), LocalDate.of(2025, 1, 1)).getYears() <= 18)
+                .count();
+        assertTrue(children > 0 && children < 250, "children=" + children);
+    }
+
+    @Test
+    void ndjson_shouldStreamOneEntityPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DatasetGenerator(spec(3)).writeNdjson(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        ObjectMapper mapper = new ObjectMapper();
+
+        int persons = 0;
+        int firestations = 0;
+        for (String line : lines) {
+            JsonNode node = mapper.readTree(line);
+            switch (node.get("type").asText()) {
+                case "person" -> persons++;
+                case "firestation" -> firestations++;
+                default -> assertEquals("medicalrecord", node.get("type").asText());
+            }
+        }
+        assertEquals(500, persons);
+        assertEquals(lines.length - 1000, firestations);
+    }
+}
@@ -0,0 +1,37 @@
+package com.safetynet.alerts.dataset;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Shape of a generated dataset. Two generators built from equal specs produce identical output.
+ */
+@Data
+public class DatasetSpec {
+    /** Number of persons (and medical records) to generate. */
+    private int persons = 10_000;
+    /** Seed for every random choice. */
+    private long seed = 42;
+    /** Relative weights of households of 1, 2, 3, ... members. */
+    private List<Integer> householdSizeWeights = List.of(28, 35, 15, 13, 6, 3);
+    /** Stations addresses are spread over, numbered from 1. */
+    private int stations = 4;
+    /** Cities households are spread over. */
+    private int cities = 5;
+    /** Relative weights of children (0-18), adults (19-64) and seniors (65-95). */
+    private List<Integer> ageBandWeights = List.of(22, 61, 17);
+    /** Date the ages are computed against, so that birthdates do not depend on the current day. */
+    private LocalDate asOf = LocalDate.of(2025, 1, 1);
+    /** Medication vocabulary, in the {@code name:dosage} format of data.json. */
+    private List<String> medications = List.of("aznol:350mg", "hydrapermazol:100mg", "pharmacol:5000mg",
+            "terazine:10mg", "noznazol:250mg", "dodoxadin:30mg", "tetracyclaz:650mg", "thradox:700mg",
+            "ibupurin:200mg", "noxidian:100mg");
+    /** Allergy vocabulary. */
+    private List<String> allergies = List.of("nillacilan", "peanut", "shellfish", "xilliathal", "gluten", "lactose");
+    /** Upper bound of medications per person. */
+    private int maxMedications = 3;
+    /** Upper bound of allergies per person. */
+    private int maxAllergies = 2;
+}
@@ -0,0 +1,62 @@
+package com.safetynet.alerts.dataset;
+
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.DataService;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Hand-written records and data services shared by the tests, for when a {@link DatasetGenerator}
+ * dataset is more than a test needs.
+ * <p>
+ * Persons are Boyds of Culver sharing a phone and an email unless given otherwise; data services
+ * keep their file in the test's temporary directory and start empty.
+ * </p>
+ */
+public final class Fixtures {
+    private static final DateTimeFormatter BIRTHDATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private Fixtures() {
+    }
+
+    public static DataService dataService(Path dir) {
+        return dataService(dir, "data.json");
+    }
+
+    public static DataService dataService(Path dir, String fileName) {
+        return new DataService(dir.resolve(fileName).toString());
+    }
+
+    public static Person person(String firstName, String address) {
+        return person(firstName, "Boyd", address);
+    }
+
+    public static Person person(String firstName, String lastName, String address) {
+        return new Person(firstName, lastName, address, "Culver", "97451", "841-874-6512", "boyd@email.com");
+    }
+
+    public static Person person(String firstName, String address, Double latitude, Double longitude) {
+        return new Person(firstName, "Boyd", address, "Culver", "97451", "841-874-6512", "boyd@email.com", latitude, longitude);
+    }
+
+    public static Firestation firestation(String address, String station) {
+        return firestation(address, station, null, null);
+    }
+
+    public static Firestation firestation(String address, String station, Double latitude, Double longitude) {
+        Firestation f = new Firestation();
+        f.setAddress(address);
+        f.setStation(station);
+        f.setLatitude(latitude);
+        f.setLongitude(longitude);
+        return f;
+    }
+
+    /** Birthdate, as in the data file, of someone who turned {@code years} yesterday. */
+    public static String bornYearsAgo(int years) {
+        return LocalDate.now().minusYears(years).minusDays(1).format(BIRTHDATE);
+    }
+}
@@ -0,0 +1,113 @@
+package com.safetynet.alerts.dispatch;
+
+import com.safetynet.alerts.service.AlertService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DispatchServiceTests {
+
+    private AlertService alertService;
+    private DispatchProperties properties;
+    private DispatchService dispatchService;
+
+    @BeforeEach
+    void setup() {
+        alertService = mock(AlertService.class);
+        when(alertService.getPhoneAlert("1")).thenReturn(List.of("111", "222", "333"));
+        when(alertService.getPhoneAlert("2")).thenReturn(List.of("333", "444", "555"));
+
+        properties = new DispatchProperties();
+        properties.setBatchSize(2);
+        properties.setMessagesPerSecond(10_000);
+        properties.setRetryBackoff(Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dispatchService != null) {
+            dispatchService.stop();
+        }
+    }
+
+    @Test
+    void submit_shouldDeliverDistinctPhonesInBatchesAndRetryFailures() throws Exception {
+        RecordingSmsGateway gateway = new RecordingSmsGateway(1);
+        dispatchService = new DispatchService(alertService, gateway, properties);
+        dispatchService.start();
+
+        DispatchJob job = dispatchService.submit(List.of("1", "2"), "Evacuate now");
+        awaitDone(job);
+
+        assertEquals(DispatchJob.Status.COMPLETED, job.getStatus());
+        assertEquals(5, job.getRecipients());
+        assertEquals(3, job.getBatchCount());
+        assertEquals(5, job.getSent());
+        assertEquals(0, job.getFailed());
+        assertEquals(List.of("111", "222", "333", "444", "555"), gateway.phones().stream().sorted().toList());
+        assertEquals(4, gateway.calls.get()); // 3 batches, one of them retried once
+        assertEquals(1, job.getBatches().stream().filter(b -> b.attempts() == 2).count());
+        assertSame(job, dispatchService.getJob(job.getId()).orElseThrow());
+    }
+
+    @Test
+    void submit_whenGatewayKeepsFailing_shouldReportFailedMessages() throws Exception {
+        properties.setMaxAttempts(2);
+        RecordingSmsGateway gateway = new RecordingSmsGateway(Integer.MAX_VALUE);
+        dispatchService = new DispatchService(alertService, gateway, properties);
+        dispatchService.start();
+
+        DispatchJob job = dispatchService.submit(List.of("1"), "Test");
+        awaitDone(job);
+
+        assertEquals(DispatchJob.Status.COMPLETED_WITH_FAILURES, job.getStatus());
+        assertEquals(3, job.getFailed());
+        assertEquals(4, gateway.calls.get());
+    }
+
+    @Test
+    void submit_whenJobExceedsQueue_shouldFeedItAsTheQueueDrains() throws Exception {
+        properties.setQueueCapacity(1);
+        RecordingSmsGateway gateway = new RecordingSmsGateway(0);
+        dispatchService = new DispatchService(alertService, gateway, properties);
+        dispatchService.start();
+
+        DispatchJob job = dispatchService.submit(List.of("1", "2"), "Evacuate now");
+        awaitDone(job);
+
+        assertEquals(DispatchJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getBatchCount());
+        assertEquals(5, job.getSent());
+    }
+
+    @Test
+    void submit_whenJobsAreStillWaitingForRoom_shouldReject() throws Exception {
+        properties.setQueueCapacity(1);
+        properties.setMaxPendingJobs(1);
+        properties.setWorkers(0);
+        dispatchService = new DispatchService(alertService, new RecordingSmsGateway(0), properties);
+        dispatchService.start();
+
+        dispatchService.submit(List.of("1"), "Test");
+        for (int i = 0; i < 500 && dispatchService.getQueueDepth() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, dispatchService.getQueueDepth());
+        assertThrows(DispatchRejectedException.class, () -> dispatchService.submit(List.of("2"), "Test"));
+        assertEquals(1, dispatchService.getQueueDepth());
+    }
+
+    private static void awaitDone(DispatchJob job) throws InterruptedException {
+        for (int i = 0; i < 500 && !job.isDone(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isDone(), "job did not finish");
+    }
+}
@@ -0,0 +1,32 @@
+package com.safetynet.alerts.dispatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test gateway that records delivered batches and can fail a number of initial calls.
+ */
+class RecordingSmsGateway implements SmsGateway {
+    final List<List<SmsMessage>> delivered = new CopyOnWriteArrayList<>();
+    final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failuresLeft;
+
+    RecordingSmsGateway(int initialFailures) {
+        this.failuresLeft = new AtomicInteger(initialFailures);
+    }
+
+    @Override
+    public void send(List<SmsMessage> batch) throws SmsGatewayException {
+        calls.incrementAndGet();
+        if (failuresLeft.getAndDecrement() > 0) {
+            throw new SmsGatewayException("provider unavailable");
+        }
+        delivered.add(new ArrayList<>(batch));
+    }
+
+    List<String> phones() {
+        return delivered.stream().flatMap(List::stream).map(SmsMessage::phone).toList();
+    }
+}
@@ -0,0 +1,148 @@
+package com.safetynet.alerts.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.FirestationDto;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.event.DataChangeEvent;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static com.safetynet.alerts.dataset.Fixtures.firestation;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StationFeedServiceTests {
+    @TempDir
+    Path dir;
+
+    private AlertService alertService;
+    private StationFeedService feed;
+    private final AtomicInteger serialized = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        DataService dataService = dataService(dir);
+        dataService.add(new Person("Nick", "Gundobin", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-6512", "nick.gundobin@mail.com"));
+        dataService.add(new Person("Kid", "Young", "29 15th St", "Tampa", "34638", "305-874-6514", "kid.young@mail.com"));
+        dataService.add(new MedicalRecord("Nick", "Gundobin", "03/06/1984", List.of(), List.of()));
+        dataService.add(new MedicalRecord("Kid", "Young", "01/01/2012", List.of(), List.of()));
+        dataService.add(firestation("1509 Highland Oaks Dr", "3"));
+        dataService.add(firestation("29 15th St", "2"));
+
+        ObjectMapper mapper = new ObjectMapper() {
+            @Override
+            public String writeValueAsString(Object value) throws JsonProcessingException {
+                serialized.incrementAndGet();
+                return super.writeValueAsString(value);
+            }
+        };
+        StationFeedService[] holder = new StationFeedService[1];
+        alertService = new AlertService(dataService, event -> {
+            if (event instanceof DataChangeEvent change) {
+                holder[0].onDataChange(change);
+            }
+        });
+        feed = new StationFeedService(alertService, mapper, new FeedProperties());
+        holder[0] = feed;
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.stop();
+    }
+
+    @Test
+    void subscribe_shouldSendSnapshotThenDeltasForMovedChild() throws Exception {
+        RecordingEmitter station3 = new RecordingEmitter();
+        RecordingEmitter station2 = new RecordingEmitter();
+        feed.subscribe(List.of("3"), station3);
+        feed.subscribe(List.of("2"), station2);
+
+        alertService.updatePerson(new PersonDto("Kid", "Young", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-6514", "kid.young@mail.com"));
+
+        List<String> frames3 = station3.await(2);
+        assertTrue(frames3.get(0).contains("event:snapshot"));
+        assertTrue(frames3.get(0).contains("adults=1"));
+        assertTrue(frames3.get(1).contains("\"type\":\"PERSON_MOVED\""));
+        assertTrue(frames3.get(1).contains("\"previousAddress\":\"29 15th St\""));
+        assertTrue(frames3.get(1).contains("\"childrenDelta\":1"));
+
+        List<String> frames2 = station2.await(2);
+        assertTrue(frames2.get(1).contains("\"childrenDelta\":-1"));
+    }
+
+    @Test
+    void delta_shouldBeSerializedOnceForAllSubscribers() throws Exception {
+        List<RecordingEmitter> emitters = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            RecordingEmitter emitter = new RecordingEmitter();
+            feed.subscribe(List.of("3"), emitter);
+            emitters.add(emitter);
+        }
+        assertEquals(50, feed.getSubscriberCount());
+
+        alertService.addPerson(new PersonDto("New", "Comer", "1509 Highland Oaks Dr", "Tampa", "34638", "305-000-0000", "n@c.com"));
+
+        for (RecordingEmitter emitter : emitters) {
+            assertTrue(emitter.await(2).get(1).contains("\"type\":\"PERSON_ADDED\""));
+        }
+        assertEquals(1, serialized.get());
+    }
+
+    @Test
+    void firestationMapping_shouldEmitCoverageChangesOnlyToAffectedStation() throws Exception {
+        RecordingEmitter station3 = new RecordingEmitter();
+        RecordingEmitter station1 = new RecordingEmitter();
+        feed.subscribe(List.of("3"), station3);
+        feed.subscribe(List.of("1"), station1);
+
+        alertService.addFirestation(new FirestationDto("29 15th St", "3"));
+
+        String delta = station3.await(2).get(1);
+        assertTrue(delta.contains("\"type\":\"ADDRESS_ADDED\""));
+        assertTrue(delta.contains("\"childrenDelta\":1"));
+        assertEquals(1, station1.await(1).size());
+        assertEquals(1, serialized.get());
+    }
+
+    /**
+     * Captures each SSE frame as the concatenation of its parts.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) {
+            frames.add(items.stream().map(d -> String.valueOf(d.getData())).collect(Collectors.joining()));
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            send(builder.build());
+        }
+
+        List<String> await(int count) throws InterruptedException {
+            for (int i = 0; i < 500 && frames.size() < count; i++) {
+                Thread.sleep(10);
+            }
+            assertTrue(frames.size() >= count, "expected " + count + " frames but got " + frames);
+            return frames;
+        }
+    }
+}
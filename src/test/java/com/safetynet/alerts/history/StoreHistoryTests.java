@@ -0,0 +1,191 @@
+package com.safetynet.alerts.history;
+
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.metrics.QueryMetrics;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import com.safetynet.alerts.store.ResidentStore;
+import com.safetynet.alerts.store.StoreProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static com.safetynet.alerts.dataset.Fixtures.person;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoreHistoryTests {
+    @TempDir
+    Path dir;
+
+    private DataService dataService;
+
+    @BeforeEach
+    void setup() {
+        dataService = dataService(dir);
+        dataService.add(person("John", "1509 Culver St"));
+        dataService.add(person("Jacob", "1509 Culver St"));
+        dataService.add(new MedicalRecord("John", "Boyd", "03/06/1984", List.of(), List.of()));
+        dataService.add(new MedicalRecord("Jacob", "Boyd", "03/06/1989", List.of(), List.of()));
+    }
+
+    @Test
+    void persistentVector_shouldKeepEarlierVersionsIntact() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<PersistentVector<Integer>> versions = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            vector = vector.append(i);
+            if (i % 10_000 == 0) {
+                versions.add(vector);
+            }
+        }
+        PersistentVector<Integer> changed = vector.set(33_000, -1).set(5, null);
+
+        assertEquals(40_000, vector.size());
+        assertEquals(33_000, vector.get(33_000));
+        assertEquals(-1, changed.get(33_000));
+        assertNull(changed.get(5));
+        assertEquals(39_999, changed.get(39_999));
+        assertEquals(10_001, versions.get(1).size());
+        assertEquals(10_000, versions.get(1).get(10_000));
+        assertThrows(IndexOutOfBoundsException.class, () -> versions.get(1).get(10_001));
+        List<Integer> seen = new ArrayList<>();
+        versions.get(0).forEach(seen::add);
+        assertEquals(List.of(0), seen);
+    }
+
+    @Test
+    void versions_shouldFollowReportedChangesAndRetention() {
+        MutableClock clock = new MutableClock();
+        HistoryProperties properties = new HistoryProperties();
+        properties.setRetention(Duration.ofHours(1));
+        StoreHistory history = new StoreHistory(dataService, properties, clock);
+        dataService.addListener(history);
+        Instant loaded = clock.instant();
+
+        clock.advance(Duration.ofMinutes(10));
+        dataService.set(0, dataService.getCodec().encode(person("John", "29 15th St")));
+        history.commit();
+        clock.advance(Duration.ofMinutes(10));
+        dataService.removePersons(row -> row == 1);
+        history.commit();
+        assertEquals(3, history.size());
+
+        DataService atLoad = history.at(loaded.plusSeconds(1)).orElseThrow().view(dataService.getCodec());
+        assertEquals(2, atLoad.getStore().personCount());
+        assertEquals("1509 Culver St", dataService.getCodec().getAddresses().decode(atLoad.getStore().address(0)));
+        assertEquals(1, history.at(clock.instant()).orElseThrow().view(dataService.getCodec()).getStore().personCount());
+        assertTrue(history.at(loaded.minusSeconds(1)).isEmpty());
+
+        // a reload is recorded as a new version by the next lookup
+        dataService.saveData();
+        dataService.loadData();
+        assertTrue(history.isLatest(history.at(clock.instant()).orElseThrow()));
+        assertEquals(4, history.size());
+
+        clock.advance(Duration.ofHours(2));
+        dataService.add(person("Roger", "1509 Culver St"));
+        history.commit();
+        // the version current at the start of the window is kept
+        assertEquals(2, history.size());
+        assertTrue(history.at(clock.instant().minus(Duration.ofHours(1))).isPresent());
+    }
+
+    @Test
+    void asOf_shouldAnswerQueriesFromTheDataAtThatInstant() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        AlertService alertService = new AlertService(dataService, event -> { }, new QueryMetrics(registry));
+        Thread.sleep(5);
+        Instant beforeMove = Instant.now();
+        Thread.sleep(5);
+        alertService.updatePerson(new PersonDto("John", "Boyd", "29 15th St", "Culver", "97451", "841-874-6512", "boyd@email.com"));
+        alertService.deletePerson("Jacob", "Boyd");
+
+        assertTrue(alertService.getChildAlert("1509 Culver St").isEmpty());
+        assertEquals(List.of("29 15th St"), alertService.getPersonInfoByLastName("Boyd").stream().map(ResidentInfoDto::getAddress).toList());
+        double liveChecks = bloomChecks(registry);
+        AlertService then = alertService.asOf(beforeMove);
+        assertNotSame(alertService, then);
+        assertEquals(List.of("John", "Jacob"), then.getFire("1509 Culver St").getResidents().stream().map(ResidentInfoDto::getFirstName).toList());
+        assertSame(then, alertService.asOf(beforeMove));
+        // the snapshot's Bloom filters count on meters of their own
+        assertEquals(liveChecks, bloomChecks(registry));
+        assertSame(alertService, alertService.asOf(Instant.now().plusSeconds(60)));
+        assertThrows(SnapshotUnavailableException.class, () -> alertService.asOf(Instant.EPOCH));
+    }
+
+    private static double bloomChecks(MeterRegistry registry) {
+        return registry.get("safetynet.bloom.checks").counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    @Test
+    void view_shouldReadTheVersionInPlaceAndSkipRemovedRows() {
+        StoreHistory history = new StoreHistory(dataService, new HistoryProperties());
+        dataService.addListener(history);
+        dataService.removePersons(row -> row == 0);
+        dataService.removeMedicalRecords(row -> row == 0);
+        dataService.add(person("Roger", "29 15th St"));
+        history.commit();
+
+        ResidentStore store = history.latest().orElseThrow().view(dataService.getCodec()).getStore();
+        assertEquals(2, store.personCount());
+        assertEquals("Jacob", store.firstName(0));
+        assertEquals("Roger", store.person(1).firstName());
+        assertEquals(1, store.medicalRecordCount());
+        assertEquals("Jacob", store.medicalFirstName(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.firstName(2));
+        assertThrows(UnsupportedOperationException.class, () -> store.removePersons(row -> true));
+    }
+
+    @Test
+    void offHeapStore_shouldDisableTheHistory() {
+        StoreProperties offHeap = new StoreProperties();
+        offHeap.setType(StoreProperties.Type.OFF_HEAP);
+        DataService offHeapData = new DataService(dir.resolve("off-heap.json").toString(), new SimpleMeterRegistry(), offHeap);
+        offHeapData.add(person("John", "1509 Culver St"));
+        StoreHistory history = new StoreHistory(offHeapData, new HistoryProperties());
+        offHeapData.addListener(history);
+        offHeapData.add(person("Jacob", "1509 Culver St"));
+        history.commit();
+
+        assertEquals(0, history.size());
+        assertTrue(history.latest().isEmpty());
+        assertThrows(SnapshotUnavailableException.class, () -> new AlertService(offHeapData).asOf(Instant.EPOCH));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public java.time.ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.dto.FireAddressResponseDto;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AddressIndexTests {
+    @TempDir
+    Path dir;
+
+    private DataService dataService;
+    private AlertService alertService;
+
+    @BeforeEach
+    void setup() {
+        dataService = dataService(dir);
+        dataService.add(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        dataService.add(new Person("Tenley", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "tenz@email.com"));
+        dataService.add(new Person("Peter", "Duncan", "644 Gershwin Cir", "Culver", "97451", "841-874-6513", "jaboyd@email.com"));
+        dataService.add(new MedicalRecord("John", "Boyd", "03/06/1984", List.of(), List.of()));
+        dataService.add(new MedicalRecord("Tenley", "Boyd", "02/18/2012", List.of(), List.of()));
+        Firestation f = new Firestation();
+        f.setAddress("1509 Culver St");
+        f.setStation("3");
+        dataService.add(f);
+        Firestation other = new Firestation();
+        other.setAddress("1510 Culver St");
+        other.setStation("4");
+        dataService.add(other);
+        alertService = new AlertService(dataService);
+    }
+
+    @Test
+    void normalize_shouldAbbreviateAndStripPunctuation() {
+        assertEquals("1509 culver st", AddressNormalizer.normalize("1509 Culver Street."));
+        assertEquals("1509 culver st", AddressNormalizer.normalize("  1509,  CULVER st "));
+        assertEquals("12 n oneil ave apt 4", AddressNormalizer.normalize("12 North O'Neil Avenue, Apartment #4"));
+        assertEquals("", AddressNormalizer.normalize(null));
+    }
+
+    @Test
+    void resolve_shouldPreferExactThenNormalizedThenClosestMatch() {
+        AddressMatch exact = alertService.resolveAddress("1509 CULVER ST").orElseThrow();
+        assertEquals("1509 Culver St", exact.address());
+        assertEquals(1.0, exact.score());
+
+        AddressMatch normalized = alertService.resolveAddress("1509 culver street").orElseThrow();
+        assertEquals("1509 Culver St", normalized.address());
+        assertEquals(1.0, normalized.score());
+
+        AddressMatch typo = alertService.resolveAddress("644 Gerswhin Circle").orElseThrow();
+        assertEquals("644 Gershwin Cir", typo.address());
+        assertTrue(typo.score() >= AddressIndex.MIN_SCORE && typo.score() < 1.0, "score " + typo.score());
+
+        assertTrue(alertService.resolveAddress("1511 Culver St").isEmpty(), "house numbers must match");
+        assertTrue(alertService.resolveAddress("29 15th St").isEmpty());
+        assertTrue(alertService.resolveAddress(" ").isEmpty());
+    }
+
+    @Test
+    void resolve_shouldScoreOnAllTrigramsWhenCommonOnesAreSkipped() {
+        // enough addresses that the street's trigrams exceed the postings limit
+        for (int number = 0; number <= AddressIndex.MAX_POSTINGS; number++) {
+            dataService.getCodec().getAddresses().encode("2" + number + " Culver St");
+        }
+        AddressMatch typo = alertService.resolveAddress("1509 Culvr St").orElseThrow();
+        assertEquals("1509 Culver St", typo.address());
+        assertTrue(typo.score() >= AddressIndex.MIN_SCORE, "score " + typo.score());
+    }
+
+    @Test
+    void fireAndChildAlert_shouldUseTheResolvedAddress() {
+        FireAddressResponseDto fire = alertService.getFire("1509 culver street");
+        assertEquals("3", fire.getStation());
+        assertEquals(2, fire.getResidents().size());
+        assertEquals("1509 Culver St", fire.getMatchedAddress());
+        assertEquals(1.0, fire.getMatchScore());
+        assertNull(alertService.getFire("1509 Culver St").getMatchedAddress());
+
+        assertEquals(1, alertService.getChildAlert("1509 Culver Street.").size());
+    }
+
+    @Test
+    void crud_shouldKeepTheIndexCurrent() {
+        alertService.addPerson(new PersonDto("Eve", "Stone", "892 Downing Ct", "Culver", "97451", "841-874-7878", "eve@email.com"));
+        assertEquals("892 Downing Ct", alertService.resolveAddress("892 downing court").orElseThrow().address());
+
+        assertTrue(alertService.deletePerson("Peter", "Duncan"));
+        assertTrue(alertService.resolveAddress("644 Gershwin Circle").isEmpty());
+        assertTrue(alertService.resolveAddress("644 Gershwin Cir").isEmpty(), "exact hits must be in use too");
+
+        assertTrue(alertService.updatePerson(new PersonDto("Eve", "Stone", "644 Gershwin Cir", "Culver", "97451", "841-874-7878", "eve@email.com")));
+        assertEquals("644 Gershwin Cir", alertService.resolveAddress("644 Gershwin Circle").orElseThrow().address());
+        assertTrue(alertService.resolveAddress("892 downing court").isEmpty());
+
+        // an address stays in use while a person or a mapping has it
+        assertTrue(alertService.deletePerson("John", "Boyd"));
+        assertTrue(alertService.deletePerson("Tenley", "Boyd"));
+        assertEquals("1509 Culver St", alertService.resolveAddress("1509 culver street").orElseThrow().address());
+        assertTrue(alertService.deleteFirestation("1509 Culver St", null));
+        assertTrue(alertService.resolveAddress("1509 culver street").isEmpty());
+    }
+}
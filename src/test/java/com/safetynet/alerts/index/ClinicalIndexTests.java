@@ -0,0 +1,150 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.dto.ClinicalFilterDto;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import org.roaringbitmap.RoaringBitmap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClinicalIndexTests {
+    @TempDir
+    Path dir;
+
+    private DataService dataService;
+    private AlertService alertService;
+
+    @BeforeEach
+    void setup() {
+        dataService = dataService(dir);
+        dataService.add(new Person("Nick", "Gundobin", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-6512", "nick@mail.com"));
+        dataService.add(new Person("Jane", "Gundobin", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-6513", "jane@mail.com"));
+        dataService.add(new Person("Kid", "Young", "29 15th St", "Tampa", "34638", "305-874-6514", "kid@mail.com"));
+        dataService.add(new MedicalRecord("Nick", "Gundobin", "03/06/1984", List.of("insulin:10u"), List.of("peanuts")));
+        dataService.add(new MedicalRecord("Jane", "Gundobin", "01/01/1980", List.of("aznol:350mg"), List.of()));
+        dataService.add(new MedicalRecord("Kid", "Young", "01/01/2012", List.of("insulin:5u"), List.of("peanuts")));
+        Firestation f1 = new Firestation();
+        f1.setAddress("1509 Highland Oaks Dr");
+        f1.setStation("3");
+        Firestation f2 = new Firestation();
+        f2.setAddress("29 15th St");
+        f2.setStation("2");
+        dataService.add(f1);
+        dataService.add(f2);
+        alertService = new AlertService(dataService);
+    }
+
+    private List<String> names(List<String> stations, String address, List<String> medications, List<String> allergies, boolean all) {
+        return alertService.getClinicalFilter(new ClinicalFilterDto(stations, address, medications, allergies, all)).stream()
+                .map(ResidentInfoDto::getFirstName)
+                .sorted()
+                .toList();
+    }
+
+    @Test
+    void terms_shouldCombineWithAndOrOr() {
+        assertEquals(List.of("Kid", "Nick"), names(List.of(), null, List.of("INSULIN"), List.of(), true));
+        assertEquals(List.of("Kid", "Nick"), names(List.of(), null, List.of("insulin"), List.of("peanuts"), true));
+        assertEquals(List.of("Jane", "Kid", "Nick"), names(List.of(), null, List.of("aznol"), List.of("peanuts"), false));
+        assertEquals(List.of(), names(List.of(), null, List.of("aznol"), List.of("peanuts"), true));
+        assertEquals(List.of(), names(List.of(), null, List.of("insul"), List.of(), true));
+        assertEquals(List.of(), names(List.of(), null, List.of(), List.of(), true));
+    }
+
+    @Test
+    void location_shouldRestrictTheMatches() {
+        assertEquals(List.of("Nick"), names(List.of("3"), null, List.of("insulin"), List.of(), true));
+        assertEquals(List.of("Kid"), names(List.of(), "29 15TH ST", List.of(), List.of("peanuts"), true));
+        assertEquals(List.of("Jane", "Nick"), names(List.of("3"), null, List.of(), List.of(), true));
+
+        ResidentInfoDto nick = alertService.getClinicalFilter(new ClinicalFilterDto(List.of("3"), null, List.of("insulin"), List.of(), true)).get(0);
+        assertEquals("1509 Highland Oaks Dr", nick.getAddress());
+        assertEquals("305-874-6512", nick.getPhone());
+        assertEquals(List.of("insulin:10u"), nick.getMedications());
+    }
+
+    @Test
+    void crud_shouldKeepTheIndexCurrent() {
+        ResidentInfoDto jane = new ResidentInfoDto();
+        jane.setFirstName("Jane");
+        jane.setLastName("Gundobin");
+        jane.setBirthdate("01/01/1980");
+        jane.setMedications(List.of("insulin:20u"));
+        jane.setAllergies(List.of());
+        assertTrue(alertService.updateMedicalRecord(jane));
+        assertEquals(List.of("Jane", "Kid", "Nick"), names(List.of(), null, List.of("insulin"), List.of(), true));
+        assertEquals(List.of(), names(List.of(), null, List.of("aznol"), List.of(), true));
+
+        assertTrue(alertService.updatePerson(new PersonDto("Kid", "Young", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-6514", "kid@mail.com")));
+        assertEquals(List.of("Jane", "Kid", "Nick"), names(List.of("3"), null, List.of("insulin"), List.of(), true));
+
+        alertService.addPerson(new PersonDto("Eve", "Stone", "29 15th St", "Tampa", "34638", "305-874-6515", "eve@mail.com"));
+        ResidentInfoDto eve = new ResidentInfoDto();
+        eve.setFirstName("Eve");
+        eve.setLastName("Stone");
+        eve.setBirthdate("01/01/1990");
+        eve.setAllergies(List.of("Peanuts"));
+        alertService.addMedicalRecord(eve);
+        assertEquals(List.of("Eve"), names(List.of("2"), null, List.of(), List.of("peanuts"), true));
+
+        assertTrue(alertService.deletePerson("Nick", "Gundobin"));
+        assertTrue(alertService.deleteMedicalRecord("Jane", "Gundobin"));
+        assertEquals(List.of("Kid"), names(List.of(), null, List.of("insulin"), List.of(), true));
+        assertEquals(List.of("Eve", "Kid"), names(List.of(), null, List.of(), List.of("peanuts"), true));
+    }
+
+    @Test
+    void version_shouldExposeChangesThatKeepTheRowCounts() {
+        ClinicalIndex index = new ClinicalIndex(dataService);
+        assertEquals(RoaringBitmap.bitmapOf(2), index.personsNamed("Kid", "Young"));
+
+        // not listening: a removal followed by an add leaves the counts as they were
+        dataService.removePersons(row -> row == 2);
+        dataService.add(new Person("Eve", "Stone", "29 15th St", "Tampa", "34638", "305-874-6515", "eve@mail.com"));
+        assertTrue(index.personsNamed("Kid", "Young").isEmpty());
+        assertEquals(RoaringBitmap.bitmapOf(2), index.personsNamed("Eve", "Stone"));
+    }
+
+    @Test
+    void deletes_shouldBeAppliedInPlace() {
+        ClinicalIndex index = new ClinicalIndex(dataService);
+        index.personsNamed("Nick", "Gundobin");
+        dataService.addListener(index);
+        dataService.add(new Person("Kid", "Young", "951 LoneTree Rd", "Tampa", "34638", "305-874-6516", "kid2@mail.com"));
+        dataService.add(new MedicalRecord("Jane", "Gundobin", "01/01/1981", List.of("insulin:5u"), List.of("shellfish")));
+
+        dataService.removePersons(row -> row == 0);
+        dataService.removeMedicalRecords(row -> row == 1);
+        ClinicalIndex rebuilt = new ClinicalIndex(dataService);
+        for (String[] name : new String[][]{{"Nick", "Gundobin"}, {"Jane", "Gundobin"}, {"Kid", "Young"}}) {
+            assertEquals(rebuilt.personsNamed(name[0], name[1]), index.personsNamed(name[0], name[1]));
+            assertEquals(rebuilt.medicalRecordNamed(name[0], name[1]), index.medicalRecordNamed(name[0], name[1]));
+        }
+        for (int row = 0; row < dataService.getStore().personCount(); row++) {
+            assertEquals(rebuilt.medicalRecordOf(row), index.medicalRecordOf(row), "row " + row);
+        }
+        // Jane's second record took over
+        assertEquals(RoaringBitmap.bitmapOf(0, 1, 2), index.withTerms(List.of("insulin"), List.of(), true));
+        assertEquals(RoaringBitmap.bitmapOf(0), index.withTerms(List.of(), List.of("shellfish"), true));
+        assertEquals(rebuilt.withTerms(List.of(), List.of("peanuts"), true), index.withTerms(List.of(), List.of("peanuts"), true));
+    }
+
+    @Test
+    void shifted_shouldMoveTheFollowingRowsDown() {
+        RoaringBitmap rows = RoaringBitmap.bitmapOf(0, 2, 3, 5, 9, 70_000);
+        assertEquals(RoaringBitmap.bitmapOf(0, 2, 3, 5, 9, 70_000), ClinicalIndex.shifted(rows, new int[]{80_000}));
+        assertEquals(RoaringBitmap.bitmapOf(0, 1, 6, 69_997), ClinicalIndex.shifted(rows, new int[]{1, 3, 5}));
+    }
+}
@@ -0,0 +1,101 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.dto.ChildInfoDto;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.safetynet.alerts.dataset.Fixtures.bornYearsAgo;
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static com.safetynet.alerts.dataset.Fixtures.person;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HouseholdIndexTests {
+    @TempDir
+    Path dir;
+
+    private DataService dataService;
+    private AlertService alertService;
+
+    private static ResidentInfoDto record(String firstName, String birthdate) {
+        ResidentInfoDto dto = new ResidentInfoDto();
+        dto.setFirstName(firstName);
+        dto.setLastName("Boyd");
+        dto.setBirthdate(birthdate);
+        dto.setMedications(List.of());
+        dto.setAllergies(List.of());
+        return dto;
+    }
+
+    @BeforeEach
+    void setup() {
+        dataService = dataService(dir);
+        dataService.add(person("John", "1509 Culver St"));
+        dataService.add(person("Tenley", "1509 Culver St"));
+        dataService.add(person("Roger", "1509 Culver St"));
+        dataService.add(person("Felicia", "29 15th St"));
+        dataService.add(new MedicalRecord("John", "Boyd", bornYearsAgo(40), List.of("aznol:350mg"), List.of()));
+        dataService.add(new MedicalRecord("Tenley", "Boyd", bornYearsAgo(12), List.of(), List.of("peanut")));
+        dataService.add(new MedicalRecord("Roger", "Boyd", bornYearsAgo(3), List.of(), List.of()));
+        dataService.add(new MedicalRecord("Felicia", "Boyd", bornYearsAgo(30), List.of(), List.of()));
+        alertService = new AlertService(dataService);
+    }
+
+    private List<String> children(String address) {
+        return alertService.getChildAlert(address).stream().map(ChildInfoDto::getFirstName).toList();
+    }
+
+    @Test
+    void childAlertAndFire_shouldShareTheImmutableListsOfTheHousehold() {
+        List<ChildInfoDto> first = alertService.getChildAlert("1509 Culver St");
+        assertEquals(List.of("Tenley", "Roger"), first.stream().map(ChildInfoDto::getFirstName).toList());
+        assertEquals(12, first.get(0).getAge());
+        assertEquals(List.of("John", "Roger"), first.get(0).householdMembers.stream().map(m -> m.firstName).toList());
+        assertSame(first, alertService.getChildAlert("1509 culver st"));
+        assertThrows(UnsupportedOperationException.class, () -> first.remove(0));
+
+        List<ResidentInfoDto> residents = alertService.getFire("1509 Culver St").getResidents();
+        assertEquals(3, residents.size());
+        assertEquals(List.of("aznol:350mg"), residents.get(0).getMedications());
+        assertSame(residents, alertService.getFire("1509 Culver St").getResidents());
+        assertTrue(alertService.getChildAlert("1 Nowhere Rd").isEmpty());
+    }
+
+    @Test
+    void moves_shouldUpdateBothHouseholds() {
+        List<ChildInfoDto> before = alertService.getChildAlert("29 15th St");
+        assertTrue(before.isEmpty());
+        assertTrue(alertService.updatePerson(new PersonDto("Roger", "Boyd", "29 15th St", "Culver", "97451", "841-874-6512", "boyd@email.com")));
+
+        assertEquals(List.of("Tenley"), children("1509 Culver St"));
+        List<ChildInfoDto> after = alertService.getChildAlert("29 15th St");
+        assertEquals(List.of("Roger"), after.stream().map(ChildInfoDto::getFirstName).toList());
+        assertEquals("Felicia", after.get(0).householdMembers.get(0).firstName);
+
+        alertService.addPerson(new PersonDto("Eve", "Boyd", "29 15th St", "Culver", "97451", "841-874-6512", "e@email.com"));
+        alertService.addMedicalRecord(record("Eve", bornYearsAgo(1)));
+        assertEquals(List.of("Roger", "Eve"), children("29 15th St"));
+        assertTrue(alertService.deletePerson("Roger", "Boyd"));
+        assertEquals(List.of("Eve"), children("29 15th St"));
+    }
+
+    @Test
+    void birthdateChanges_shouldReclassifyResidents() {
+        children("1509 Culver St");
+        assertTrue(alertService.updateMedicalRecord(record("John", bornYearsAgo(17))));
+        assertEquals(List.of("John", "Tenley", "Roger"), children("1509 Culver St"));
+        assertEquals(17, alertService.getFire("1509 Culver St").getResidents().get(0).getAge());
+
+        assertTrue(alertService.deleteMedicalRecord("Tenley", "Boyd"));
+        assertEquals(List.of("John", "Roger"), children("1509 Culver St"));
+        assertEquals(0, alertService.getFire("1509 Culver St").getResidents().get(1).getAge());
+    }
+}
@@ -0,0 +1,116 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.index.KeyFilters.KeyType;
+import com.safetynet.alerts.metrics.QueryMetrics;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyFiltersTests {
+    @TempDir
+    Path dir;
+
+    private DataService dataService;
+    private MeterRegistry registry;
+    private KeyFilters filters;
+
+    @BeforeEach
+    void setup() {
+        dataService = dataService(dir);
+        dataService.add(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        dataService.add(new Person("Peter", "Duncan", "644 Gershwin Cir", "Culver", "97451", "841-874-6512", "pd@email.com"));
+        registry = new SimpleMeterRegistry();
+        filters = new KeyFilters(dataService, registry);
+    }
+
+    private double checks(String type, String result) {
+        return registry.get("safetynet.bloom.checks").tag("type", type).tag("result", result).counter().count();
+    }
+
+    @Test
+    void keys_shouldBeComparedAsTheQueriesCompareThem() {
+        assertTrue(filters.mightContain(KeyType.LAST_NAME, " bOYD "));
+        assertTrue(filters.mightContain(KeyType.CITY, "CULVER"));
+        assertTrue(filters.mightContain(KeyType.ADDRESS, "1509 culver street"));
+
+        assertFalse(filters.mightContain(KeyType.LAST_NAME, "Zemicks"));
+        assertFalse(filters.mightContain(KeyType.CITY, "Springfield"));
+        assertFalse(filters.mightContain(KeyType.ADDRESS, "29 15th St"));
+        assertFalse(filters.mightContain(KeyType.CITY, null));
+        assertEquals(1, checks("last_name", "rejected"));
+        assertEquals(1, checks("last_name", "passed"));
+        assertEquals(1, registry.get("safetynet.bloom.rebuilds").counter().count());
+    }
+
+    @Test
+    void filters_shouldFollowChangesAndRebuildAfterRemovals() {
+        filters.mightContain(KeyType.LAST_NAME, "Boyd");
+        // changes made before the filters listen are noticed by the version
+        dataService.add(new Person("Tony", "Cooper", "112 Steppes Pl", "Springfield", "97451", "841-874-6874", "tcoop@ymail.com"));
+        assertTrue(filters.mightContain(KeyType.CITY, "Springfield"));
+        assertEquals(2, registry.get("safetynet.bloom.rebuilds").counter().count());
+
+        dataService.addListener(filters);
+        dataService.add(new Person("Tessa", "Carman", "834 Binoc Ave", "Culver", "97451", "841-874-6512", "tenz@email.com"));
+        assertTrue(filters.mightContain(KeyType.LAST_NAME, "Carman"));
+        dataService.removePersons(row -> "Cooper".equals(dataService.getStore().lastName(row)));
+        assertTrue(filters.mightContain(KeyType.LAST_NAME, "Boyd"));
+        assertEquals(2, registry.get("safetynet.bloom.rebuilds").counter().count());
+        for (int i = 0; i < 200; i++) {
+            dataService.set(0, dataService.getStore().person(0));
+        }
+        assertFalse(filters.mightContain(KeyType.LAST_NAME, "Cooper"));
+        assertEquals(3, registry.get("safetynet.bloom.rebuilds").counter().count());
+    }
+
+    @Test
+    void bloomFilter_shouldNeverRejectAddedKeysAndRarelyAcceptOthers() {
+        BloomFilter bloom = new BloomFilter(10_000, KeyFilters.FPP);
+        for (int i = 0; i < 10_000; i++) {
+            bloom.add(BloomFilter.hash("name" + i));
+        }
+        int accepted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bloom.mightContain(BloomFilter.hash("name" + i)));
+            if (bloom.mightContain(BloomFilter.hash("other" + i))) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted < 300, "false positives " + accepted);
+        assertEquals(KeyFilters.FPP, bloom.expectedFpp(), 0.005);
+    }
+
+    @Test
+    void queries_shouldRejectUnknownKeysAndCountFalsePositives() {
+        registry = new SimpleMeterRegistry();
+        AlertService alertService = new AlertService(dataService, event -> { }, new QueryMetrics(registry));
+        dataService.add(new MedicalRecord("John", "Boyd", "03/06/1984", List.of(), List.of()));
+
+        assertEquals(1, alertService.getPersonInfoByLastName("boyd").size());
+        assertTrue(alertService.getPersonInfoByLastName("Marrack").isEmpty());
+        assertTrue(alertService.getEmailsByCity("Riverton").isEmpty());
+        assertEquals(1, alertService.getResidentsAt("644 Gershwin Cir").size());
+        assertEquals(1, checks("last_name", "rejected"));
+        assertEquals(1, checks("city", "rejected"));
+        assertEquals(1, checks("address", "passed"));
+
+        alertService.addPerson(new PersonDto("Jamie", "Peters", "908 73rd St", "Culver", "97451", "841-874-7462", "jpeter@email.com"));
+        assertEquals(1, alertService.getPersonInfoByLastName("Peters").size());
+        alertService.deletePerson("Jamie", "Peters");
+        assertTrue(alertService.getPersonInfoByLastName("Peters").isEmpty());
+        assertEquals(1, registry.get("safetynet.bloom.false-positives").tag("type", "last_name").counter().count());
+    }
+}
@@ -0,0 +1,112 @@
+package com.safetynet.alerts.index;
+
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.dto.StationDistanceDto;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static com.safetynet.alerts.dataset.Fixtures.firestation;
+import static com.safetynet.alerts.dataset.Fixtures.person;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialIndexTests {
+    @TempDir
+    Path dir;
+
+    private DataService dataService;
+    private AlertService alertService;
+
+    @BeforeEach
+    void setup() {
+        dataService = dataService(dir);
+        dataService.add(person("John", "1509 Culver St", 45.5200, -122.6800));
+        dataService.add(person("Tenley", "1509 Culver St", null, null));
+        // about 1.1 km north
+        dataService.add(person("Jacob", "834 Binoc Ave", 45.5300, -122.6800));
+        // about 42 km north
+        dataService.add(person("Roger", "29 15th St", 45.9000, -122.6800));
+        dataService.add(person("Felicia", "112 Steppes Pl", null, null));
+        dataService.add(new MedicalRecord("John", "Boyd", "03/06/1984", List.of("aznol:350mg"), List.of()));
+        dataService.add(firestation("1509 Culver St", "1", null, null));
+        dataService.add(firestation("834 Binoc Ave", "3", null, null));
+        dataService.add(firestation("29 15th St", "2", null, null));
+        dataService.add(firestation("748 Townings Dr", "3", 46.5, -122.68));
+        alertService = new AlertService(dataService);
+    }
+
+    private List<String> near(double latitude, double longitude, double radiusKm) {
+        return alertService.getResidentsNear(latitude, longitude, radiusKm).stream()
+                .map(ResidentInfoDto::getFirstName)
+                .toList();
+    }
+
+    @Test
+    void residentsNear_shouldReturnHouseholdsWithinTheRadius() {
+        assertEquals(List.of("John", "Tenley"), near(45.52, -122.68, 0.5));
+        assertEquals(List.of("John", "Tenley", "Jacob"), near(45.52, -122.68, 2));
+        assertEquals(List.of("John", "Tenley", "Jacob", "Roger"), near(45.52, -122.68, 50));
+        assertEquals(List.of(), near(0, 0, 100));
+        assertEquals(List.of(), near(45.52, -122.68, -1));
+
+        ResidentInfoDto john = alertService.getResidentsNear(45.52, -122.68, 0.5).get(0);
+        assertEquals("1509 Culver St", john.getAddress());
+        assertEquals(List.of("aznol:350mg"), john.getMedications());
+    }
+
+    @Test
+    void nearestStations_shouldRankStationsByTheirClosestServedAddress() {
+        List<StationDistanceDto> nearest = alertService.getNearestStations("1509 culver street", 2);
+        assertEquals(List.of("1", "3"), nearest.stream().map(StationDistanceDto::station).toList());
+        assertEquals(0.0, nearest.get(0).distanceKm());
+        assertEquals("834 Binoc Ave", nearest.get(1).address());
+        assertEquals(1.112, nearest.get(1).distanceKm(), 0.01);
+
+        List<StationDistanceDto> all = alertService.getNearestStations("29 15th St", 10);
+        assertEquals(List.of("2", "3", "1"), all.stream().map(StationDistanceDto::station).toList());
+        assertTrue(alertService.getNearestStations("112 Steppes Pl", 3).isEmpty(), "no coordinates");
+        assertTrue(alertService.getNearestStations("1 Nowhere Rd", 3).isEmpty());
+    }
+
+    @Test
+    void crud_shouldKeepTheIndexCurrent() {
+        assertTrue(alertService.updatePerson(new PersonDto("Felicia", "Boyd", "29 15th St", "Culver", "97451", "841-874-6512", "f@email.com")));
+        assertEquals(List.of("Roger", "Felicia"), near(45.9, -122.68, 1));
+
+        alertService.addPerson(new PersonDto("Eve", "Boyd", "834 Binoc Ave", "Culver", "97451", "841-874-6512", "e@email.com"));
+        assertEquals(List.of("Jacob", "Eve"), near(45.53, -122.68, 0.5));
+
+        assertTrue(alertService.deletePerson("Jacob", "Boyd"));
+        assertEquals(List.of("Eve"), near(45.53, -122.68, 0.5));
+
+        assertTrue(alertService.deleteFirestation("1509 Culver St", null));
+        assertEquals(List.of("3", "2"), alertService.getNearestStations("1509 Culver St", 2).stream()
+                .map(StationDistanceDto::station).toList());
+    }
+
+    @Test
+    void grid_shouldVisitRingsUntilTheOccupiedCellsAreCovered() {
+        SpatialGrid grid = new SpatialGrid();
+        grid.insert(0, 45.52, -122.68);
+        grid.insert(1, 45.62, -122.68);
+        grid.insert(0, 45.62, -122.58);
+
+        int[] visits = new int[2];
+        assertTrue(grid.forEachInRing(45.52, -122.68, 0, a -> visits[a]++));
+        assertEquals(0, visits[0], "address 0 moved out of this cell");
+        assertTrue(grid.forEachInRing(45.52, -122.68, 2, a -> visits[a]++));
+        assertEquals(1, visits[0]);
+        assertEquals(1, visits[1]);
+        assertFalse(grid.forEachInRing(45.52, -122.68, 3, a -> visits[a]++));
+        assertEquals(0, SpatialGrid.ringDistanceKm(45.52, 1));
+        assertTrue(SpatialGrid.ringDistanceKm(45.52, 3) > 5);
+    }
+}
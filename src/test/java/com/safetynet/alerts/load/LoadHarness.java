@@ -0,0 +1,281 @@
+package com.safetynet.alerts.load;
+
+import com.safetynet.alerts.SafetyNetApplication;
+import lombok.Data;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a traffic file against a running application and reports latency percentiles and
+ * throughput per endpoint.
+ * <p>
+ * Two modes are supported:
+ * <ul>
+ *   <li>{@code closed}: {@code concurrency} clients send the next request as soon as the previous
+ *   one completed, which measures the throughput the service can sustain;</li>
+ *   <li>{@code open}: requests are started at a constant {@code rate} whatever the response times,
+ *   as real users do. Latency is measured from the scheduled start, so queueing caused by a slow
+ *   service is reported instead of being hidden (coordinated omission).</li>
+ * </ul>
+ * Requests are taken from the traffic file in order and the file is cycled until
+ * {@code requests} requests were sent or {@code duration} elapsed.
+ * </p>
+ * <p>
+ * Command line usage, against a running instance or a locally started one when {@code --target} is absent:
+ * {@code LoadHarness --traffic=traffic.jsonl --mode=open --rate=500 --duration=60s --report=target/load.json --baseline=old.json}
+ * (see {@link #main(String[])} for all options).
+ * </p>
+ */
+public class LoadHarness {
+
+    @Data
+    public static class Settings {
+        /** Base URL of the application, e.g. {@code http://localhost:8080}. */
+        private URI target;
+        /** {@code open} or {@code closed}. */
+        private String mode = "closed";
+        /** Requests per second in open mode. */
+        private int rate = 200;
+        /** Clients in closed mode. */
+        private int concurrency = 32;
+        /** Requests to measure; 0 to run for {@link #duration} instead. */
+        private long requests = 0;
+        private Duration duration = Duration.ofSeconds(30);
+        /** Requests sent before measuring, to warm up both sides. */
+        private int warmupRequests = 500;
+        private Duration requestTimeout = Duration.ofSeconds(30);
+    }
+
+    private final Settings settings;
+    private final HttpClient client;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    public LoadHarness(Settings settings) {
+        this.settings = settings;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Replays {@code traffic} according to the settings.
+     */
+    public LoadReport run(List<RecordedRequest> traffic) throws InterruptedException {
+        if (traffic.isEmpty()) {
+            throw new IllegalArgumentException("Traffic file is empty");
+        }
+        AtomicLong cursor = new AtomicLong();
+        closedLoop(traffic, cursor, settings.getWarmupRequests(), Long.MAX_VALUE, Math.min(settings.getConcurrency(), 8), false);
+        latencies.clear();
+        errors.clear();
+
+        long limit = settings.getRequests() > 0 ? settings.getRequests() : Long.MAX_VALUE;
+        long deadline = settings.getRequests() > 0 ? Long.MAX_VALUE : System.nanoTime() + settings.getDuration().toNanos();
+        long start = System.nanoTime();
+        if ("open".equals(settings.getMode())) {
+            openLoop(traffic, cursor, limit, deadline);
+        } else {
+            closedLoop(traffic, cursor, limit, deadline, settings.getConcurrency(), true);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        return report(elapsed);
+    }
+
+    private void closedLoop(List<RecordedRequest> traffic, AtomicLong cursor, long limit, long deadline,
+                            int clients, boolean record) throws InterruptedException {
+        AtomicLong sent = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            executor.execute(() -> {
+                try {
+                    while (sent.getAndIncrement() < limit && System.nanoTime() < deadline) {
+                        RecordedRequest request = traffic.get((int) (cursor.getAndIncrement() % traffic.size()));
+                        long t0 = System.nanoTime();
+                        send(request, t0, record);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private void openLoop(List<RecordedRequest> traffic, AtomicLong cursor, long limit, long deadline)
+            throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+        long start = System.nanoTime();
+        AtomicLong inFlight = new AtomicLong();
+        for (long i = 0; i < limit; i++) {
+            long intended = start + i * interval;
+            if (intended >= deadline) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            RecordedRequest request = traffic.get((int) (cursor.getAndIncrement() % traffic.size()));
+            inFlight.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    send(request, intended, true);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+        while (inFlight.get() > 0) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Sends one request and records its latency measured from {@code startNanos}.
+     */
+    private void send(RecordedRequest request, long startNanos, boolean record) {
+        String endpoint = request.endpoint();
+        try {
+            HttpResponse<Void> response = client.send(toHttp(request), HttpResponse.BodyHandlers.discarding());
+            long micros = (System.nanoTime() - startNanos) / 1000;
+            if (record) {
+                latencies.computeIfAbsent(endpoint, k -> new ConcurrentHistogram(3)).recordValue(micros);
+                if (response.statusCode() >= 400) {
+                    errors.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+                }
+            }
+        } catch (IOException e) {
+            if (record) {
+                errors.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest toHttp(RecordedRequest request) {
+        String body = request.bodyText();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(settings.getTarget().resolve(request.path()))
+                .timeout(settings.getRequestTimeout());
+        if (body != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        return builder.method(request.method(),
+                body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private LoadReport report(double elapsedSeconds) {
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        Map<String, LoadReport.EndpointStats> endpoints = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            long endpointErrors = errors.getOrDefault(entry.getKey(), new LongAdder()).sum();
+            endpoints.put(entry.getKey(), LoadReport.EndpointStats.of(entry.getValue(), endpointErrors, elapsedSeconds));
+            all.add(entry.getValue());
+        }
+        for (Map.Entry<String, LongAdder> entry : errors.entrySet()) {
+            allErrors += entry.getValue().sum();
+            endpoints.computeIfAbsent(entry.getKey(), k -> LoadReport.EndpointStats.of(new Histogram(3), entry.getValue().sum(), elapsedSeconds));
+        }
+        return new LoadReport(settings.getMode(), elapsedSeconds, LoadReport.EndpointStats.of(all, allErrors, elapsedSeconds), endpoints);
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Options: {@code --traffic=path} (required), {@code --target=url}, {@code --mode=open|closed},
+     * {@code --rate}, {@code --concurrency}, {@code --requests}, {@code --duration=60s},
+     * {@code --warmup}, {@code --report=path}, {@code --baseline=path} and, when no target is given,
+     * {@code --data=path} for the data file of the locally started application (copied first).
+     */
+    public static void main(String[] args) throws Exception {
+        Settings settings = new Settings();
+        Path traffic = null;
+        Path report = null;
+        Path baseline = null;
+        Path data = Path.of("data/data.json");
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --option=value but got " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(2, eq)) {
+                case "traffic" -> traffic = Path.of(value);
+                case "target" -> settings.setTarget(URI.create(value));
+                case "mode" -> settings.setMode(value);
+                case "rate" -> settings.setRate(Integer.parseInt(value));
+                case "concurrency" -> settings.setConcurrency(Integer.parseInt(value));
+                case "requests" -> settings.setRequests(Long.parseLong(value));
+                case "duration" -> settings.setDuration(Duration.parse("PT" + value.toUpperCase()));
+                case "warmup" -> settings.setWarmupRequests(Integer.parseInt(value));
+                case "report" -> report = Path.of(value);
+                case "baseline" -> baseline = Path.of(value);
+                case "data" -> data = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (traffic == null) {
+            throw new IllegalArgumentException("--traffic is required");
+        }
+        List<RecordedRequest> requests = RecordedRequest.read(traffic);
+
+        ConfigurableApplicationContext app = null;
+        if (settings.getTarget() == null) {
+            // devtools would otherwise restart this main class without its arguments
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            Path copy = Files.createTempFile("safetynet-load", ".json");
+            Files.copy(data, copy, StandardCopyOption.REPLACE_EXISTING);
+            app = new SpringApplicationBuilder(SafetyNetApplication.class)
+                    .properties("server.port=0",
+                            "safetynet.data.file=" + copy.toAbsolutePath(),
+                            "safetynet.changelog.file=" + copy.toAbsolutePath() + ".changes",
+                            "safetynet.changelog.offsets-file=" + copy.toAbsolutePath() + ".offsets")
+                    .run();
+            settings.setTarget(URI.create("http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort()));
+        }
+
+        LoadHarness harness = new LoadHarness(settings);
+        try {
+            LoadReport result = harness.run(requests);
+            System.out.println(result);
+            if (baseline != null) {
+                System.out.println(result.compare(LoadReport.read(baseline)));
+            }
+            if (report != null) {
+                result.write(report);
+            }
+        } finally {
+            harness.close();
+            if (app != null) {
+                app.close();
+            }
+        }
+    }
+}
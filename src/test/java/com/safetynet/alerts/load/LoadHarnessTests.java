@@ -0,0 +1,111 @@
+package com.safetynet.alerts.load;
+
+import com.safetynet.alerts.dataset.DatasetSpec;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadHarnessTests {
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            int status = exchange.getRequestURI().getPath().equals("/missing") ? 404 : 200;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private LoadHarness.Settings settings(String mode) {
+        LoadHarness.Settings settings = new LoadHarness.Settings();
+        settings.setTarget(URI.create("http://localhost:" + server.getAddress().getPort()));
+        settings.setMode(mode);
+        settings.setConcurrency(4);
+        settings.setWarmupRequests(10);
+        return settings;
+    }
+
+    @Test
+    void closedLoop_shouldReportEveryRequestPerEndpoint() throws Exception {
+        Path traffic = dir.resolve("traffic.jsonl");
+        DatasetSpec spec = new DatasetSpec();
+        spec.setPersons(100);
+        try (BufferedWriter writer = Files.newBufferedWriter(traffic)) {
+            new TrafficGenerator(spec).write(writer, 50, 0.2);
+            writer.write("{\"method\":\"GET\",\"path\":\"/missing?x=1\"}\n");
+        }
+        List<RecordedRequest> requests = RecordedRequest.read(traffic);
+        assertEquals(51, requests.size());
+        assertTrue(requests.stream().anyMatch(r -> r.method().equals("PUT") && r.bodyText().contains("firstName")));
+
+        LoadHarness.Settings settings = settings("closed");
+        settings.setRequests(510);
+        LoadHarness harness = new LoadHarness(settings);
+        LoadReport report = harness.run(requests);
+        harness.close();
+
+        assertEquals(510, report.total().count());
+        assertEquals(10, report.total().errors());
+        assertEquals(10, report.endpoints().get("GET /missing").errors());
+        assertTrue(report.endpoints().containsKey("GET /fire") || report.endpoints().containsKey("GET /firestation"));
+        assertTrue(report.total().p999Ms() >= report.total().p50Ms());
+    }
+
+    @Test
+    void openLoop_shouldPaceRequestsAtTheConfiguredRate() throws Exception {
+        LoadHarness.Settings settings = settings("open");
+        settings.setRate(200);
+        settings.setRequests(100);
+        LoadHarness harness = new LoadHarness(settings);
+        LoadReport report = harness.run(List.of(new RecordedRequest("GET", "/phoneAlert?firestation=1", null)));
+        harness.close();
+
+        assertEquals(100, report.total().count());
+        assertTrue(report.elapsedSeconds() >= 0.45, "elapsed " + report.elapsedSeconds());
+        assertEquals(0, report.total().errors());
+    }
+
+    @Test
+    void report_shouldRoundTripAndCompareWithBaseline() throws Exception {
+        LoadHarness.Settings settings = settings("closed");
+        settings.setRequests(50);
+        LoadHarness harness = new LoadHarness(settings);
+        LoadReport report = harness.run(List.of(new RecordedRequest("GET", "/fire?address=x", null)));
+        harness.close();
+
+        Path file = dir.resolve("report.json");
+        report.write(file);
+        LoadReport baseline = LoadReport.read(file);
+
+        assertEquals(report.total().count(), baseline.total().count());
+        String comparison = report.compare(baseline);
+        assertTrue(comparison.contains("GET /fire"));
+        assertTrue(comparison.contains("+0.0%"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.safetynet.alerts.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latency and throughput of one load run, overall and per endpoint.
+ * <p>
+ * Serialized as JSON so that runs can be stored and compared with {@link #compare(LoadReport)}.
+ * </p>
+ *
+ * @param mode           {@code open} or {@code closed}
+ * @param elapsedSeconds duration of the measured phase
+ */
+public record LoadReport(String mode, double elapsedSeconds, EndpointStats total, Map<String, EndpointStats> endpoints) {
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Latencies are in milliseconds, throughput in requests per second.
+     */
+    public record EndpointStats(long count, long errors, double throughput, double meanMs, double p50Ms,
+                                double p90Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        static EndpointStats of(Histogram micros, long errors, double elapsedSeconds) {
+            return new EndpointStats(micros.getTotalCount(), errors,
+                    elapsedSeconds > 0 ? micros.getTotalCount() / elapsedSeconds : 0,
+                    micros.getMean() / 1000.0,
+                    micros.getValueAtPercentile(50) / 1000.0,
+                    micros.getValueAtPercentile(90) / 1000.0,
+                    micros.getValueAtPercentile(99) / 1000.0,
+                    micros.getValueAtPercentile(99.9) / 1000.0,
+                    micros.getMaxValue() / 1000.0);
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        MAPPER.writeValue(file.toFile(), this);
+    }
+
+    public static LoadReport read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), LoadReport.class);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(String.format("mode=%s elapsed=%.1fs%n", mode, elapsedSeconds));
+        out.append(String.format("%-28s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms"));
+        new TreeMap<>(endpoints).forEach((name, s) -> out.append(line(name, s)));
+        out.append(line("TOTAL", total));
+        return out.toString();
+    }
+
+    private static String line(String name, EndpointStats s) {
+        return String.format("%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, s.count(), s.errors(), s.throughput(), s.p50Ms(), s.p90Ms(), s.p99Ms(), s.p999Ms(), s.maxMs());
+    }
+
+    /**
+     * Side-by-side comparison with a baseline run: throughput and tail latencies with relative change.
+     */
+    public String compare(LoadReport baseline) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-28s %18s %18s %18s %18s%n", "endpoint", "req/s", "p50 ms", "p99 ms", "p999 ms"));
+        Map<String, EndpointStats> names = new TreeMap<>(endpoints);
+        names.forEach((name, current) -> {
+            EndpointStats before = baseline.endpoints().get(name);
+            if (before != null) {
+                out.append(compareLine(name, before, current));
+            }
+        });
+        out.append(compareLine("TOTAL", baseline.total(), total));
+        return out.toString();
+    }
+
+    private static String compareLine(String name, EndpointStats before, EndpointStats after) {
+        return String.format("%-28s %18s %18s %18s %18s%n", name,
+                delta(before.throughput(), after.throughput()), delta(before.p50Ms(), after.p50Ms()),
+                delta(before.p99Ms(), after.p99Ms()), delta(before.p999Ms(), after.p999Ms()));
+    }
+
+    private static String delta(double before, double after) {
+        String change = before == 0 ? "n/a" : String.format("%+.1f%%", (after - before) * 100 / before);
+        return String.format("%.2f (%s)", after, change);
+    }
+}
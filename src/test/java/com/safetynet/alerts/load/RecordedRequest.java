@@ -0,0 +1,59 @@
+package com.safetynet.alerts.load;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One line of a traffic file: {@code {"method":"PUT","path":"/person","body":{...}}}.
+ * {@code body} may be a JSON object or a string and is omitted for reads.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record RecordedRequest(String method, String path, JsonNode body) {
+
+    /**
+     * Endpoint the request is reported under, e.g. {@code GET /fire}.
+     */
+    public String endpoint() {
+        int query = path.indexOf('?');
+        return method + " " + (query < 0 ? path : path.substring(0, query));
+    }
+
+    public String bodyText() {
+        if (body == null || body.isNull()) {
+            return null;
+        }
+        return body.isTextual() ? body.asText() : body.toString();
+    }
+
+    /**
+     * Reads a JSONL traffic file, skipping blank lines.
+     */
+    public static List<RecordedRequest> read(Path file) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<RecordedRequest> requests = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                RecordedRequest request = mapper.readValue(line, RecordedRequest.class);
+                if (request.method() == null || request.path() == null) {
+                    throw new IOException("Line " + number + " of " + file + " has no method or path");
+                }
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,124 @@
+package com.safetynet.alerts.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.safetynet.alerts.dataset.DatasetGenerator;
+import com.safetynet.alerts.dataset.DatasetSpec;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a traffic file for {@link LoadHarness} matching a dataset produced by {@link DatasetGenerator}
+ * with the same spec, mixing the emergency read endpoints with person and medical record updates.
+ * <p>
+ * Updates rewrite existing entries with their own values (plus a new phone number for persons),
+ * so the dataset keeps its shape however long the traffic is replayed.
+ * </p>
+ */
+public class TrafficGenerator {
+    private final DatasetSpec spec;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public TrafficGenerator(DatasetSpec spec) {
+        this.spec = spec;
+    }
+
+    /**
+     * @param requests   lines to write
+     * @param writeRatio share of PUT requests, between 0 and 1
+     */
+    public void write(Writer out, int requests, double writeRatio) throws IOException {
+        List<Person> persons = new ArrayList<>();
+        List<MedicalRecord> records = new ArrayList<>();
+        new DatasetGenerator(spec).forEachHousehold(h -> {
+            persons.addAll(h.members());
+            records.addAll(h.records());
+        });
+        SplittableRandom random = new SplittableRandom(spec.getSeed());
+        for (int i = 0; i < requests; i++) {
+            int index = random.nextInt(persons.size());
+            Person p = persons.get(index);
+            ObjectNode line = mapper.createObjectNode();
+            if (random.nextDouble() < writeRatio) {
+                line.put("method", "PUT");
+                if (random.nextBoolean()) {
+                    line.put("path", "/person");
+                    ObjectNode body = mapper.valueToTree(p);
+                    body.put("phone", String.format("841-%03d-%04d", random.nextInt(1000), random.nextInt(10000)));
+                    line.set("body", body);
+                } else {
+                    line.put("path", "/medicalRecord");
+                    line.set("body", mapper.valueToTree(records.get(index)));
+                }
+            } else {
+                line.put("method", "GET");
+                line.put("path", read(random, p));
+            }
+            out.write(mapper.writeValueAsString(line));
+            out.write('\n');
+        }
+    }
+
+    private String read(SplittableRandom random, Person p) {
+        String station = Integer.toString(random.nextInt(spec.getStations()) + 1);
+        return switch (random.nextInt(7)) {
+            case 0 -> "/firestation?stationNumber=" + station;
+            case 1 -> "/childAlert?address=" + encode(p.getAddress());
+            case 2 -> "/phoneAlert?firestation=" + station;
+            case 3 -> "/fire?address=" + encode(p.getAddress());
+            case 4 -> "/flood/stations?stations=" + station + "," + (random.nextInt(spec.getStations()) + 1);
+            case 5 -> "/personInfo?lastName=" + encode(p.getLastName());
+            default -> "/communityEmail?city=" + encode(p.getCity());
+        };
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    /**
+     * Options: {@code --out=path} (required), {@code --requests} (default 10000),
+     * {@code --write-ratio} (default 0.1) and the dataset options {@code --persons}, {@code --seed},
+     * {@code --stations} and {@code --cities}, which must match the dataset being served.
+     */
+    public static void main(String[] args) throws IOException {
+        DatasetSpec spec = new DatasetSpec();
+        Path out = null;
+        int requests = 10_000;
+        double writeRatio = 0.1;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --option=value but got " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(2, eq)) {
+                case "out" -> out = Path.of(value);
+                case "requests" -> requests = Integer.parseInt(value);
+                case "write-ratio" -> writeRatio = Double.parseDouble(value);
+                case "persons" -> spec.setPersons(Integer.parseInt(value));
+                case "seed" -> spec.setSeed(Long.parseLong(value));
+                case "stations" -> spec.setStations(Integer.parseInt(value));
+                case "cities" -> spec.setCities(Integer.parseInt(value));
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("--out is required");
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(out)) {
+            new TrafficGenerator(spec).write(writer, requests, writeRatio);
+        }
+    }
+}
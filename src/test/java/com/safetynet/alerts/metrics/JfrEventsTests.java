@@ -0,0 +1,83 @@
+package com.safetynet.alerts.metrics;
+
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventsTests {
+
+    @TempDir
+    Path dir;
+
+    private static Map<String, String> shippedSettings() throws Exception {
+        try (Reader reader = new InputStreamReader(JfrEventsTests.class.getResourceAsStream("/jfr/safetynet.jfc"), StandardCharsets.UTF_8)) {
+            return new HashMap<>(Configuration.create(reader).getSettings());
+        }
+    }
+
+    @Test
+    void shippedProfile_shouldRecordPersistenceAndSlowQueryEvents() throws Exception {
+        Map<String, String> settings = shippedSettings();
+        assertEquals("100 ms", settings.get("com.safetynet.alerts.SlowQuery#threshold"));
+        settings.put("com.safetynet.alerts.SlowQuery#threshold", "0 ms");
+
+        DataService dataService = dataService(dir);
+        dataService.loadData();
+        dataService.add(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        dataService.add(new Person("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com"));
+        dataService.add(new MedicalRecord("Jacob", "Boyd", "03/06/1989", List.of(), List.of()));
+        dataService.add(new MedicalRecord("John", "Boyd", "03/06/1984", List.of(), List.of()));
+        AlertService alertService = new AlertService(dataService);
+
+        Path file = dir.resolve("recording.jfr");
+        try (Recording recording = new Recording(settings)) {
+            recording.start();
+            dataService.saveData();
+            dataService.loadData();
+            alertService.getPersonInfoByLastName("Boyd");
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, RecordedEvent> events = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            events.put(event.getEventType().getName(), event);
+        }
+        RecordedEvent save = events.get("com.safetynet.alerts.DataSave");
+        assertNotNull(save);
+        assertEquals(4, save.getInt("records"));
+        assertTrue(save.getLong("bytes") > 0);
+        assertTrue(save.getDuration("lockWait").toNanos() >= 0);
+
+        RecordedEvent load = events.get("com.safetynet.alerts.DataLoad");
+        assertNotNull(load);
+        assertEquals(2, load.getInt("persons"));
+        assertEquals(save.getLong("bytes"), load.getLong("bytes"));
+
+        RecordedEvent query = events.get("com.safetynet.alerts.SlowQuery");
+        assertNotNull(query);
+        assertEquals("personInfo", query.getString("query"));
+        assertEquals("Boyd", query.getString("parameters"));
+        // both persons, then one medical record lookup each
+        assertEquals(4, query.getLong("rowsScanned"));
+        assertEquals(2, query.getLong("rowsReturned"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.safetynet.alerts.metrics;
+
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryMetricsTests {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private DataService dataService() {
+        DataService dataService = new DataService(dir.resolve("data.json").toString(), registry);
+        dataService.loadData();
+        dataService.add(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        dataService.add(new Person("Tenley", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "tenz@email.com"));
+        dataService.add(new MedicalRecord("John", "Boyd", "03/06/1984", List.of("aznol:350mg"), List.of("nillacilan")));
+        dataService.add(new MedicalRecord("Tenley", "Boyd", "02/18/2012", List.of(), List.of("peanut")));
+        Firestation station = new Firestation();
+        station.setAddress("1509 Culver St");
+        station.setStation("3");
+        dataService.add(station);
+        return dataService;
+    }
+
+    private Timer stage(String query, QueryMetrics.Stage stage) {
+        return registry.find("safetynet.query.stage").tag("query", query).tag("stage", stage.tag).timer();
+    }
+
+    @Test
+    void query_shouldRecordOneSamplePerStageItEntered() {
+        AlertService alertService = new AlertService(dataService(), event -> { }, new QueryMetrics(registry));
+
+        alertService.getFirestationPeople("3");
+        alertService.getFirestationPeople("3");
+        alertService.getPhoneAlert("3");
+
+        for (QueryMetrics.Stage stage : QueryMetrics.Stage.values()) {
+            assertEquals(2, stage("firestation", stage).count(), stage.tag);
+        }
+        assertEquals(1, stage("phoneAlert", QueryMetrics.Stage.STATION_RESOLUTION).count());
+        assertEquals(0, stage("phoneAlert", QueryMetrics.Stage.MEDICAL_LOOKUP).count());
+    }
+
+    @Test
+    void dataService_shouldTimeSaveAndLoadAndRecordFileSizeAndRecords() {
+        DataService dataService = dataService();
+        dataService.saveData();
+        dataService.loadData();
+
+        assertEquals(1, registry.get("safetynet.data.save").timer().count());
+        assertEquals(1, registry.get("safetynet.data.load").timer().count());
+        double saved = registry.get("safetynet.data.bytes").tag("operation", "save").summary().totalAmount();
+        assertTrue(saved > 100, "saved " + saved);
+        assertEquals(saved, registry.get("safetynet.data.bytes").tag("operation", "load").summary().totalAmount());
+        double records = dataService.getStore().personCount() + dataService.getFirestations().size()
+                + dataService.getStore().medicalRecordCount();
+        assertEquals(records, registry.get("safetynet.data.records").tag("operation", "save").summary().totalAmount());
+        assertEquals(records, registry.get("safetynet.data.records").tag("operation", "load").summary().totalAmount());
+    }
+}
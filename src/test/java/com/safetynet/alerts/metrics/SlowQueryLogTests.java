@@ -0,0 +1,98 @@
+package com.safetynet.alerts.metrics;
+
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryLogTests {
+
+    @TempDir
+    Path dir;
+
+    private static SlowQuery query(String name) {
+        return new SlowQuery(Instant.now(), name, "x", 500, 10, 0, 0, 0, 1, 0);
+    }
+
+    @Test
+    void queryOverScanThreshold_shouldBeRecordedWithRowCounts() {
+        SlowQueryProperties properties = new SlowQueryProperties();
+        properties.setLatencyThreshold(Duration.ofHours(1));
+        properties.setScanThreshold(3);
+        SlowQueryLog slowQueryLog = new SlowQueryLog(properties);
+
+        DataService dataService = dataService(dir);
+        dataService.loadData();
+        dataService.add(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        dataService.add(new Person("Eric", "Cadigan", "951 LoneTree Rd", "Culver", "97451", "841-874-7458", "gramps@email.com"));
+        dataService.add(new MedicalRecord("Eric", "Cadigan", "08/06/1945", List.of(), List.of()));
+        dataService.add(new MedicalRecord("John", "Boyd", "03/06/1984", List.of(), List.of()));
+        Firestation station = new Firestation();
+        station.setAddress("1509 Culver St");
+        station.setStation("3");
+        dataService.add(station);
+        AlertService alertService = new AlertService(dataService, event -> { },
+                new QueryMetrics(new SimpleMeterRegistry(), slowQueryLog));
+
+        alertService.getPhoneAlert("3");
+        assertTrue(slowQueryLog.recent(10).isEmpty(), "1 mapping and 2 persons are under the threshold");
+
+        alertService.getFirestationPeople("3");
+        List<SlowQuery> recent = slowQueryLog.recent(10);
+        assertEquals(1, recent.size());
+        SlowQuery slow = recent.get(0);
+        assertEquals("firestation", slow.query());
+        assertEquals("3", slow.parameters());
+        assertEquals(2, slow.personsScanned());
+        assertEquals(1, slow.mappingsScanned());
+        assertEquals(1, slow.medicalLookups());
+        assertEquals(1, slow.medicalRecordsScanned());
+        assertEquals(1, slow.dtosProduced());
+        assertEquals(4, slow.rowsScanned());
+    }
+
+    @Test
+    void history_shouldKeepTheMostRecentQueriesNewestFirst() {
+        SlowQueryProperties properties = new SlowQueryProperties();
+        properties.setHistorySize(3);
+        SlowQueryLog slowQueryLog = new SlowQueryLog(properties);
+        for (int i = 0; i < 5; i++) {
+            slowQueryLog.add(query("q" + i));
+        }
+
+        assertEquals(List.of("q4", "q3", "q2"), slowQueryLog.recent(10).stream().map(SlowQuery::query).toList());
+        assertEquals(List.of("q4"), slowQueryLog.recent(1).stream().map(SlowQuery::query).toList());
+    }
+
+    @Test
+    void burst_shouldBeSampledAndReportSkippedQueries() {
+        SlowQueryProperties properties = new SlowQueryProperties();
+        properties.setMaxLoggedPerSecond(2);
+        properties.setSampleRate(3);
+        SlowQueryLog slowQueryLog = new SlowQueryLog(properties);
+        for (int i = 0; i < 8; i++) {
+            slowQueryLog.add(query("q" + i));
+        }
+
+        // q0 and q1 are within the budget, then one in three is written: q4 (after q2, q3) and q7 (after q5, q6)
+        List<SlowQuery> recent = slowQueryLog.recent(10);
+        assertEquals(8, recent.size());
+        assertEquals(2, recent.get(0).skipped());
+        assertEquals("q7", recent.get(0).query());
+        assertEquals(2, recent.get(3).skipped());
+        assertEquals("q4", recent.get(3).query());
+        assertEquals(0, recent.get(1).skipped());
+    }
+}
@@ -0,0 +1,240 @@
+package com.safetynet.alerts.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.changelog.ChangeBatch;
+import com.safetynet.alerts.changelog.ChangeLog;
+import com.safetynet.alerts.changelog.ChangeLogProperties;
+import com.safetynet.alerts.dto.FirestationDto;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.dto.ResidentInfoDto;
+import com.safetynet.alerts.event.DataChangeEvent;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.replication.ReplicationProperties.Role;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static com.safetynet.alerts.dataset.Fixtures.firestation;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationFollowerTests {
+    @TempDir
+    Path dir;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ChangeLog changeLog;
+    private AlertService leader;
+    private DataService followerData;
+    private AlertService follower;
+    private ReplicationProperties properties;
+    private ReplicationFollower replication;
+    private final boolean[] failNextAppend = {false};
+
+    @BeforeEach
+    void setup() throws IOException {
+        changeLog = changeLog("leader");
+        DataService leaderData = dataService(dir, "leader.json");
+        leaderData.add(new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        leaderData.add(new MedicalRecord("John", "Boyd", "03/06/1984", List.of("aznol:350mg"), List.of("nillacilan")));
+        leaderData.add(firestation("1509 Culver St", "3"));
+        leaderData.saveData();
+        leader = new AlertService(leaderData, event -> {
+            if (event instanceof DataChangeEvent change) {
+                changeLog.onDataChange(failNextAppend[0] ? unserializable(change) : change);
+                failNextAppend[0] = false;
+            }
+        });
+
+        followerData = dataService(dir, "follower.json");
+        followerData.loadData();
+        follower = new AlertService(followerData);
+        properties = new ReplicationProperties();
+        properties.setRole(Role.FOLLOWER);
+        properties.setBatchSize(2);
+        replication = new ReplicationFollower(follower, followerData, properties, new InMemoryLeader(), meterRegistry,
+                false);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        changeLog.close();
+    }
+
+    private static DataChangeEvent unserializable(DataChangeEvent change) {
+        return new DataChangeEvent.PersonChanged(change.operation(), null, new Person() {
+            @Override
+            public String getPhone() {
+                throw new IllegalStateException("injected");
+            }
+        });
+    }
+
+    private ChangeLog changeLog(String name) throws IOException {
+        ChangeLogProperties changeLogProperties = new ChangeLogProperties();
+        changeLogProperties.setFile(dir.resolve(name + ".log").toString());
+        changeLogProperties.setOffsetsFile(dir.resolve(name + ".offsets").toString());
+        ChangeLog log = new ChangeLog(changeLogProperties);
+        log.open();
+        return log;
+    }
+
+    /**
+     * The leader over its snapshot and change log, without HTTP.
+     */
+    private class InMemoryLeader implements LeaderClient {
+        @Override
+        public long snapshot(Path target) throws IOException {
+            ReplicationSnapshot snapshot = leader.snapshot(changeLog::getEndOffset);
+            new ObjectMapper().writeValue(target.toFile(), snapshot.data());
+            return snapshot.offset();
+        }
+
+        @Override
+        public ChangeBatch changes(long offset, int limit) {
+            return changeLog.read(offset, limit);
+        }
+    }
+
+    private void catchUp() throws Exception {
+        for (int i = 0; i < 20 && !replication.poll(); i++) {
+            // batches of two records
+        }
+        assertEquals(0, replication.status().recordsBehind());
+    }
+
+    @Test
+    void poll_shouldBootstrapThenReplayTheLeaderChanges() throws Exception {
+        leader.addPerson(new PersonDto("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com"));
+        assertTrue(replication.poll());
+        ReplicationStatus status = replication.status();
+        assertEquals(ReplicationFollower.State.STREAMING, status.state());
+        assertEquals(1, status.appliedOffset());
+        assertEquals(0, status.recordsApplied());
+        assertEquals(1, status.bootstraps());
+        assertEquals(leader.snapshot(() -> 0).data(), follower.snapshot(() -> 0).data());
+
+        leader.addFirestation(new FirestationDto("1509 Culver St", "1"));
+        leader.addFirestation(new FirestationDto("29 15th St", "2"));
+        leader.updatePerson(new PersonDto("John", "Boyd", "29 15th St", "Culver", "97451", "841-874-0000", "jaboyd@email.com"));
+        leader.updateMedicalRecord(new ResidentInfoDto("John", "Boyd", "03/06/1984", List.of(), List.of("shellfish")));
+        leader.addMedicalRecord(new ResidentInfoDto("Jacob", "Boyd", "03/06/1989", List.of(), List.of()));
+        // only the mapping to station 1, the address stays served by station 3
+        leader.deleteFirestation(null, "1");
+        leader.deletePerson("Jacob", "Boyd");
+        leader.deleteMedicalRecord("Jacob", "Boyd");
+
+        assertFalse(replication.poll());
+        status = replication.status();
+        assertEquals(6, status.recordsBehind());
+        assertTrue(status.lagMillis() >= 0);
+        assertEquals(6.0, meterRegistry.get("safetynet.replication.lag.records").gauge().value());
+
+        catchUp();
+        assertEquals(0, replication.status().lagMillis());
+        assertEquals(9, replication.status().appliedOffset());
+        assertEquals(leader.snapshot(() -> 0).data(), follower.snapshot(() -> 0).data());
+        assertEquals(List.of("841-874-0000"), follower.getPhoneAlert("2"));
+        assertEquals(List.of(firestation("1509 Culver St", "3"), firestation("29 15th St", "2")),
+                follower.snapshot(() -> 0).data().getFirestations());
+
+        DataService saved = dataService(dir, "follower.json");
+        saved.loadData();
+        assertEquals(1, saved.getStore().personCount());
+        assertEquals(2, saved.getFirestations().size());
+    }
+
+    @Test
+    void poll_shouldReloadASnapshotWhenTheLeaderLogRestarts() throws Exception {
+        catchUp();
+        leader.addPerson(new PersonDto("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com"));
+        catchUp();
+        assertEquals(1, replication.status().appliedOffset());
+
+        // the leader restarted without its change log
+        changeLog.close();
+        changeLog = changeLog("restarted");
+        assertFalse(replication.poll());
+        assertEquals(-1, replication.status().appliedOffset());
+        leader.addFirestation(new FirestationDto("29 15th St", "2"));
+        leader.addFirestation(new FirestationDto("112 Steppes Pl", "4"));
+        catchUp();
+        ReplicationStatus status = replication.status();
+        assertEquals(2, status.bootstraps());
+        assertEquals(2, status.appliedOffset());
+        assertEquals(leader.snapshot(() -> 0).data(), follower.snapshot(() -> 0).data());
+    }
+
+    @Test
+    void poll_shouldReloadASnapshotAtAGapInTheLeaderLog() throws Exception {
+        catchUp();
+        // the leader could not log this change but applied it
+        failNextAppend[0] = true;
+        leader.addPerson(new PersonDto("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com"));
+        leader.addPerson(new PersonDto("Roger", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+
+        assertFalse(replication.poll());
+        assertEquals(-1, replication.status().appliedOffset());
+        catchUp();
+        assertEquals(2, replication.status().bootstraps());
+        assertEquals(2, replication.status().appliedOffset());
+        assertEquals(leader.snapshot(() -> 0).data(), follower.snapshot(() -> 0).data());
+        assertEquals(3, followerData.getStore().personCount());
+    }
+
+    @Test
+    void poll_whenABatchFailsPartWay_shouldReloadASnapshotInsteadOfReplayingIt() throws Exception {
+        int[] failAt = {0};
+        follower = new AlertService(followerData, event -> {
+            if (event instanceof DataChangeEvent && --failAt[0] == 0) {
+                throw new IllegalStateException("injected");
+            }
+        });
+        replication = new ReplicationFollower(follower, followerData, properties, new InMemoryLeader(),
+                new SimpleMeterRegistry(), false);
+        catchUp();
+        leader.addPerson(new PersonDto("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com"));
+        leader.addPerson(new PersonDto("Roger", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+
+        // the second record of the batch fails once the first one is applied
+        failAt[0] = 2;
+        assertThrows(IllegalStateException.class, replication::poll);
+        assertEquals(-1, replication.status().appliedOffset());
+        catchUp();
+        assertEquals(2, replication.status().bootstraps());
+        assertEquals(leader.snapshot(() -> 0).data(), follower.snapshot(() -> 0).data());
+        assertEquals(3, followerData.getStore().personCount());
+    }
+
+    @Test
+    void readReplicaFilter_shouldRejectWritesOnFollowers() throws Exception {
+        ReadReplicaFilter filter = new ReadReplicaFilter(properties);
+
+        MockHttpServletResponse write = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/person"), write, new MockFilterChain());
+        assertEquals(405, write.getStatus());
+        assertEquals("GET", write.getHeader("Allow"));
+
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/phoneAlert"), new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+
+        properties.setRole(Role.LEADER);
+        chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("DELETE", "/person"), new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+    }
+}
@@ -1,51 +1,55 @@
 package com.safetynet.alerts.service;
 
+import com.safetynet.alerts.dto.ChildInfoDto;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.event.ChangesCommitted;
+import com.safetynet.alerts.event.DataChangeEvent;
 import com.safetynet.alerts.model.Firestation;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.model.Person;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.mockito.junit.jupiter.MockitoSettings;
-import org.mockito.quality.Strictness;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.safetynet.alerts.dataset.Fixtures.bornYearsAgo;
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static com.safetynet.alerts.dataset.Fixtures.firestation;
+import static com.safetynet.alerts.dataset.Fixtures.person;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.Mockito.when;
 
-@ExtendWith(MockitoExtension.class)
-@MockitoSettings(strictness = Strictness.LENIENT)
 public class AlertServiceTests {
-    @Mock
+    @TempDir
+    Path dir;
+
     private DataService dataService;
 
     private AlertService alertService;
 
-    private List<Person> persons;
-    private List<MedicalRecord> medicalRecords;
-    private List<Firestation> firestations;
-
     @BeforeEach
     void setup() {
-        persons = new ArrayList<>();
-        medicalRecords = new ArrayList<>();
-        firestations = new ArrayList<>();
+        dataService = dataService(dir);
 
-        persons.add(new Person("Nick", "Gundobin", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-6512", "nick.gundobin@mail.com"));
-        persons.add(new Person("Jane", "Gundobin", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-6513", "jane.gundobin@mail.com"));
+        dataService.add(new Person("Nick", "Gundobin", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-6512", "nick.gundobin@mail.com"));
+        dataService.add(new Person("Jane", "Gundobin", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-6513", "jane.gundobin@mail.com"));
         // child moved to the other address so station 3 has only the two adults above
-        persons.add(new Person("Kid", "Young", "29 15th St", "Tampa", "34638", "305-874-6514", "kid.young@mail.com"));
+        dataService.add(new Person("Kid", "Young", "29 15th St", "Tampa", "34638", "305-874-6514", "kid.young@mail.com"));
 
-        medicalRecords.add(new MedicalRecord("Nick", "Gundobin", "03/06/1984", List.of("med1"), List.of("nuts")));
-        medicalRecords.add(new MedicalRecord("Jane", "Gundobin", "01/01/1980", List.of(), List.of()));
-        medicalRecords.add(new MedicalRecord("Kid", "Young", "01/01/2012", List.of("med2"), List.of("peanuts")));
+        dataService.add(new MedicalRecord("Nick", "Gundobin", "03/06/1984", List.of("med1"), List.of("nuts")));
+        dataService.add(new MedicalRecord("Jane", "Gundobin", "01/01/1980", List.of(), List.of()));
+        dataService.add(new MedicalRecord("Kid", "Young", "01/01/2012", List.of("med2"), List.of("peanuts")));
 
         Firestation f1 = new Firestation();
         f1.setAddress("1509 Highland Oaks Dr");
@@ -54,12 +58,8 @@ public class AlertServiceTests {
         f2.setAddress("29 15th St");
         f2.setStation("2");
 
-        firestations.add(f1);
-        firestations.add(f2);
-
-        when(dataService.getPersons()).thenReturn(persons);
-        when(dataService.getMedicalrecords()).thenReturn(medicalRecords);
-        when(dataService.getFirestations()).thenReturn(firestations);
+        dataService.add(f1);
+        dataService.add(f2);
 
         alertService = new AlertService(dataService);
     }
@@ -88,6 +88,45 @@ public class AlertServiceTests {
         assertEquals(1, result.size()); // one kid here
     }
 
+    @Test
+    void forEachChildHousehold_shouldPassAddressesWithChildren() {
+        // a second spelling of the child's address is gathered into the same household
+        dataService.add(new Person("Tim", "Young", "29 15TH ST", "Tampa", "34638", "305-874-6515", "tim.young@mail.com"));
+        dataService.add(new MedicalRecord("Tim", "Young", "01/01/2015", List.of(), List.of()));
+        Map<String, List<ChildInfoDto>> roster = new LinkedHashMap<>();
+
+        alertService.forEachChildHousehold(List.of("2", "3", "9"), roster::put);
+
+        assertEquals(List.of("29 15th St"), List.copyOf(roster.keySet()));
+        List<ChildInfoDto> children = roster.get("29 15th St");
+        assertEquals(2, children.size());
+        assertEquals("Kid", children.get(0).getFirstName());
+        assertEquals("Tim", children.get(0).householdMembers.get(0).firstName);
+    }
+
+    @Test
+    void forEachChildHousehold_shouldPassEachChunkBeforeReadingTheNext() {
+        int count = AlertService.ROSTER_CHUNK + 10;
+        for (int i = 0; i < count; i++) {
+            String address = i + " Roster Rd";
+            dataService.add(person("Kid" + i, address));
+            dataService.add(new MedicalRecord("Kid" + i, "Boyd", bornYearsAgo(5), List.of(), List.of()));
+            dataService.add(firestation(address, "5"));
+        }
+        List<String> roster = new ArrayList<>();
+
+        alertService.forEachChildHousehold(List.of("5"), (address, children) -> {
+            if (roster.isEmpty()) {
+                // the consumer runs without the lock, and the next chunk sees its write
+                assertTrue(alertService.deletePerson("Kid" + (count - 1), "Boyd"));
+            }
+            roster.add(address);
+        });
+
+        assertEquals(count - 1, roster.size());
+        assertFalse(roster.contains((count - 1) + " Roster Rd"));
+    }
+
     @Test
     void getPhoneAlert_shouldReturnDistinctPhonesForStation() {
         List<String> phones = alertService.getPhoneAlert("3");
@@ -95,6 +134,11 @@ public class AlertServiceTests {
         assertEquals(2, phones.size());
         assertTrue(phones.contains("305-874-6512"));
         assertTrue(phones.contains("305-874-6513"));
+
+        dataService.add(new Person("Tim", "Gundobin", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-6512", "tim@mail.com"));
+        dataService.add(new Person("Ann", "Gundobin", "1509 Highland Oaks Dr", "Tampa", "34638", "ext. 12", "ann@mail.com"));
+        dataService.add(new Person("Bob", "Gundobin", "1509 Highland Oaks Dr", "Tampa", "34638", "ext. 12", "bob@mail.com"));
+        assertEquals(List.of("305-874-6512", "305-874-6513", "ext. 12"), new AlertService(dataService).getPhoneAlert("3"));
     }
 
     @Test
@@ -144,53 +188,90 @@ public class AlertServiceTests {
         // add a new person via dto
         var dto = new com.safetynet.alerts.dto.PersonDto("New", "Person", "1 Main St", "Nowhere", "00000", "000-000-0000", "new@mail.com");
         alertService.addPerson(dto);
-        assertTrue(persons.stream().anyMatch(p -> "New".equals(p.getFirstName()) && "Person".equals(p.getLastName())));
+        assertTrue(dataService.snapshot().getPersons().stream().anyMatch(p -> "New".equals(p.getFirstName()) && "Person".equals(p.getLastName())));
 
         // update existing person
         var upd = new com.safetynet.alerts.dto.PersonDto("New", "Person", "2 Main St", "Nowhere", "11111", "111-111-1111", "new2@mail.com");
         boolean updated = alertService.updatePerson(upd);
         assertTrue(updated);
-        Person p = persons.stream().filter(x -> "New".equals(x.getFirstName()) && "Person".equals(x.getLastName())).findFirst().orElse(null);
+        Person p = dataService.snapshot().getPersons().stream().filter(x -> "New".equals(x.getFirstName()) && "Person".equals(x.getLastName())).findFirst().orElse(null);
         assertNotNull(p);
         assertEquals("2 Main St", p.getAddress());
 
         // delete
         boolean deleted = alertService.deletePerson("New", "Person");
         assertTrue(deleted);
-        assertFalse(persons.stream().anyMatch(x -> "New".equals(x.getFirstName()) && "Person".equals(x.getLastName())));
+        assertFalse(dataService.snapshot().getPersons().stream().anyMatch(x -> "New".equals(x.getFirstName()) && "Person".equals(x.getLastName())));
     }
 
     @Test
     void addUpdateDeleteFirestation_shouldModifyList() {
         var dto = new com.safetynet.alerts.dto.FirestationDto("1 Broadway", "5");
         alertService.addFirestation(dto);
-        assertTrue(firestations.stream().anyMatch(f -> "1 Broadway".equals(f.getAddress()) && "5".equals(f.getStation())));
+        assertTrue(dataService.snapshot().getFirestations().stream().anyMatch(f -> "1 Broadway".equals(f.getAddress()) && "5".equals(f.getStation())));
 
         var upd = new com.safetynet.alerts.dto.FirestationDto("1 Broadway", "9");
         boolean updated = alertService.updateFirestation(upd);
         assertTrue(updated);
-        assertTrue(firestations.stream().anyMatch(f -> "1 Broadway".equals(f.getAddress()) && "9".equals(f.getStation())));
+        assertTrue(dataService.snapshot().getFirestations().stream().anyMatch(f -> "1 Broadway".equals(f.getAddress()) && "9".equals(f.getStation())));
 
         boolean deleted = alertService.deleteFirestation("1 Broadway", null);
         assertTrue(deleted);
-        assertFalse(firestations.stream().anyMatch(f -> "1 Broadway".equals(f.getAddress())));
+        assertFalse(dataService.snapshot().getFirestations().stream().anyMatch(f -> "1 Broadway".equals(f.getAddress())));
     }
 
     @Test
     void addUpdateDeleteMedicalRecord_shouldModifyList() {
         var dto = new com.safetynet.alerts.dto.ResidentInfoDto("Mary", "Ann", "12/12/1990", List.of("med1"), List.of("all1"));
         alertService.addMedicalRecord(dto);
-        assertTrue(medicalRecords.stream().anyMatch(m -> "Mary".equals(m.getFirstName()) && "Ann".equals(m.getLastName())));
+        assertTrue(dataService.snapshot().getMedicalrecords().stream().anyMatch(m -> "Mary".equals(m.getFirstName()) && "Ann".equals(m.getLastName())));
 
         var updateDto = new com.safetynet.alerts.dto.ResidentInfoDto("Mary", "Ann", "01/01/1991", List.of("med2"), List.of("all2"));
         boolean updated = alertService.updateMedicalRecord(updateDto);
         assertTrue(updated);
-        MedicalRecord m = medicalRecords.stream().filter(x -> "Mary".equals(x.getFirstName()) && "Ann".equals(x.getLastName())).findFirst().orElse(null);
+        MedicalRecord m = dataService.snapshot().getMedicalrecords().stream().filter(x -> "Mary".equals(x.getFirstName()) && "Ann".equals(x.getLastName())).findFirst().orElse(null);
         assertNotNull(m);
         assertEquals("01/01/1991", m.getBirthdate());
 
         boolean deleted = alertService.deleteMedicalRecord("Mary", "Ann");
         assertTrue(deleted);
-        assertFalse(medicalRecords.stream().anyMatch(x -> "Mary".equals(x.getFirstName()) && "Ann".equals(x.getLastName())));
+        assertFalse(dataService.snapshot().getMedicalrecords().stream().anyMatch(x -> "Mary".equals(x.getFirstName()) && "Ann".equals(x.getLastName())));
+    }
+
+    @Test
+    void mutate_whenAChangeListenerFails_shouldStillSaveThenRethrow() throws Exception {
+        List<Object> published = new ArrayList<>();
+        AlertService failing = new AlertService(dataService, event -> {
+            published.add(event);
+            if (event instanceof DataChangeEvent) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        });
+
+        assertThrows(UncheckedIOException.class, () -> failing.addPerson(new PersonDto("Mary", "Ann", "1 Broadway",
+                "Tampa", "34638", "305-874-0000", "mary@mail.com")));
+        assertEquals(List.of(DataChangeEvent.PersonChanged.class, ChangesCommitted.class),
+                published.stream().map(Object::getClass).toList());
+        DataService saved = dataService(dir);
+        saved.loadData();
+        assertEquals(4, saved.getStore().personCount());
+        assertTrue(failing.findPerson("Mary", "Ann").isPresent());
+    }
+
+    @Test
+    void mutate_shouldPublishChangesCommittedOnceReadersAreLetIn() throws Exception {
+        AtomicReference<List<String>> readDuringCommit = new AtomicReference<>();
+        AlertService[] holder = new AlertService[1];
+        holder[0] = new AlertService(dataService, event -> {
+            if (event instanceof ChangesCommitted) {
+                // a query from another thread would wait for the write lock
+                CompletableFuture<List<String>> query = CompletableFuture.supplyAsync(() -> holder[0].getPhoneAlert("3"));
+                readDuringCommit.set(query.orTimeout(5, TimeUnit.SECONDS).join());
+            }
+        });
+
+        holder[0].addPerson(new PersonDto("Mary", "Ann", "1509 Highland Oaks Dr", "Tampa", "34638", "305-874-0000",
+                "mary@mail.com"));
+        assertEquals(3, readDuringCommit.get().size());
     }
 }
@@ -0,0 +1,135 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dataset.DatasetGenerator;
+import com.safetynet.alerts.dataset.DatasetSpec;
+import com.safetynet.alerts.dto.ClinicalFilterDto;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fails when a query allocates more bytes per call than its budget in
+ * {@code src/test/resources/allocation-budgets.properties}.
+ * <p>
+ * Each query is warmed up so that the JIT has compiled (and escape-analysed) its hot path, then
+ * measured in {@value #ROUNDS} rounds of {@value #MEASURED_CALLS} calls: the median of the smallest
+ * allocation of each round is compared to the budget, so that neither a late compilation nor a
+ * single lucky call moves it. The build runs this class in a JVM of its own, as the profiles left by
+ * other tests change what the JIT can scalar-replace. After an intended change, run
+ * {@code mvn test -Dtest=AllocationBudgetTests -Dallocation.budgets.record=true} to rewrite the budgets
+ * from the current measurements plus {@value #HEADROOM_PERCENT}% headroom, and commit the file.
+ * </p>
+ */
+class AllocationBudgetTests {
+    private static final String BUDGETS = "allocation-budgets.properties";
+    private static final int HEADROOM_PERCENT = 10;
+    private static final int WARMUP_CALLS = 2_000;
+    private static final int ROUNDS = 5;
+    private static final int MEASURED_CALLS = 20;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static AlertService alertService;
+    private static DatasetGenerator.Household household;
+    private static final Properties budgets = new Properties();
+    private static final TreeMap<String, Long> measured = new TreeMap<>();
+
+    @BeforeAll
+    static void setup() throws Exception {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setPersons(1_000);
+        spec.setSeed(7);
+        spec.setStations(10);
+        DataService dataService = new DataService("target/allocation-budget-unused.json");
+        DatasetGenerator generator = new DatasetGenerator(spec);
+        generator.populate(dataService);
+        // a household with several members, so that childAlert and fire build real results
+        generator.forEachHousehold(h -> {
+            if (household == null && h.members().size() >= 4) {
+                household = h;
+            }
+        });
+        alertService = new AlertService(dataService);
+        try (InputStream in = AllocationBudgetTests.class.getResourceAsStream("/" + BUDGETS)) {
+            if (in != null) {
+                budgets.load(in);
+            }
+        }
+    }
+
+    @AfterAll
+    static void record() throws Exception {
+        if (!Boolean.getBoolean("allocation.budgets.record")) {
+            return;
+        }
+        Path file = Path.of("src/test/resources", BUDGETS);
+        StringBuilder out = new StringBuilder("# Bytes allocated per AlertService call, see AllocationBudgetTests\n");
+        measured.forEach((query, bytes) -> {
+            long budget = (bytes * (100 + HEADROOM_PERCENT) / 100 + 1023) / 1024 * 1024;
+            out.append(query).append('=').append(budget).append('\n');
+        });
+        try (OutputStream stream = Files.newOutputStream(file)) {
+            stream.write(out.toString().getBytes());
+        }
+    }
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                Arguments.of("firestation", (Supplier<?>) () -> alertService.getFirestationPeople(household.station())),
+                Arguments.of("childAlert", (Supplier<?>) () -> alertService.getChildAlert(household.address())),
+                Arguments.of("phoneAlert", (Supplier<?>) () -> alertService.getPhoneAlert(household.station())),
+                Arguments.of("fire", (Supplier<?>) () -> alertService.getFire(household.address())),
+                Arguments.of("flood", (Supplier<?>) () -> alertService.getFloodStations(List.of("1", "2"))),
+                Arguments.of("personInfo", (Supplier<?>) () -> alertService.getPersonInfoByLastName(household.members().get(0).getLastName())),
+                Arguments.of("communityEmail", (Supplier<?>) () -> alertService.getEmailsByCity(household.city())),
+                Arguments.of("clinicalFilter", (Supplier<?>) () -> alertService.getClinicalFilter(new ClinicalFilterDto(
+                        List.of(household.station()), null, List.of("aznol"), List.of("peanut"), false))),
+                Arguments.of("nearby", (Supplier<?>) () -> alertService.getResidentsNear(household.latitude(), household.longitude(), 1)),
+                Arguments.of("nearestStations", (Supplier<?>) () -> alertService.getNearestStations(household.address(), 3)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void query_shouldStayWithinAllocationBudget(String query, Supplier<?> call) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            assertNotNull(call.get());
+        }
+        long[] roundMinimums = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                long before = THREADS.getCurrentThreadAllocatedBytes();
+                call.get();
+                min = Math.min(min, THREADS.getCurrentThreadAllocatedBytes() - before);
+            }
+            roundMinimums[round] = min;
+        }
+        Arrays.sort(roundMinimums);
+        long allocated = roundMinimums[ROUNDS / 2];
+        measured.put(query, allocated);
+        if (Boolean.getBoolean("allocation.budgets.record")) {
+            return;
+        }
+
+        String budget = budgets.getProperty(query);
+        assertNotNull(budget, "No allocation budget recorded for " + query);
+        assertTrue(allocated <= Long.parseLong(budget),
+                query + " allocated " + allocated + " bytes per call, budget is " + budget);
+    }
+}
@@ -22,7 +22,7 @@ class DataPersistenceTest {
     @Test
     void testDataPersistence() throws Exception {
         // Get initial size
-        int initialPersonCount = dataService.getPersons().size();
+        int initialPersonCount = dataService.getStore().personCount();
         
         // Add a new person
         PersonDto newPerson = new PersonDto(
@@ -37,7 +37,7 @@ class DataPersistenceTest {
         alertService.addPerson(newPerson);
         
         // Verify person was added to in-memory list
-        assertEquals(initialPersonCount + 1, dataService.getPersons().size());
+        assertEquals(initialPersonCount + 1, dataService.getStore().personCount());
         
         // Verify the file was updated
         File dataFile = new File("data/data.json");
@@ -51,7 +51,7 @@ class DataPersistenceTest {
         alertService.deletePerson("TestFirstName", "TestLastName");
         
         // Verify person was removed
-        assertEquals(initialPersonCount, dataService.getPersons().size());
+        assertEquals(initialPersonCount, dataService.getStore().personCount());
         
         // Verify the file was updated again
         String updatedContent = Files.readString(dataFile.toPath());
@@ -0,0 +1,103 @@
+package com.safetynet.alerts.store;
+
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactCodecTests {
+
+    private final CompactCodec codec = new CompactCodec();
+
+    @Test
+    void wellFormedValues_shouldBeEncodedAsPrimitivesAndRoundTrip() {
+        Person person = new Person("John", "Boyd", "1509 Culver St", "Culver", "07451", "841-874-6512", "jaboyd@email.com");
+        CompactPerson compact = codec.encode(person);
+
+        assertEquals(8418746512L, compact.phone());
+        assertEquals(7451, compact.zip());
+        assertNull(compact.phoneText());
+        assertNull(compact.zipText());
+        assertEquals(person, codec.decode(compact));
+
+        MedicalRecord record = new MedicalRecord("John", "Boyd", "03/06/1984", List.of("aznol:350mg"), List.of("nillacilan"));
+        CompactMedicalRecord compactRecord = codec.encode(record);
+        assertEquals(LocalDate.of(1984, 3, 6).toEpochDay(), compactRecord.birthdate());
+        assertNull(compactRecord.birthdateText());
+        assertEquals(record, codec.decode(compactRecord));
+    }
+
+    @Test
+    void malformedValues_shouldBeKeptAsText() {
+        Person person = new Person("Jane", null, null, null, "N/A", "+1 841 874 6512", null);
+        CompactPerson compact = codec.encode(person);
+
+        assertEquals(Encodings.NO_PHONE, compact.phone());
+        assertEquals(Encodings.NO_ZIP, compact.zip());
+        assertEquals(Dictionary.NONE, compact.address());
+        assertEquals(person, codec.decode(compact));
+
+        MedicalRecord record = new MedicalRecord("Jane", "Doe", "3/6/1984", null, new ArrayList<>());
+        CompactMedicalRecord compactRecord = codec.encode(record);
+        assertEquals(Encodings.NO_DATE, compactRecord.birthdate());
+        assertEquals(record, codec.decode(compactRecord));
+    }
+
+    @Test
+    void coordinates_shouldBeSharedByTheRecordsOfAnAddress() {
+        Person located = new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com",
+                45.52, -122.68);
+        Person unlocated = new Person("Tenley", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "tenz@email.com");
+        Person elsewhere = new Person("Peter", "Duncan", "644 Gershwin Cir", "Culver", "97451", "841-874-6512", "pd@email.com");
+
+        assertEquals(located, codec.decode(codec.encode(located)));
+        Person decoded = codec.decode(codec.encode(unlocated));
+        assertEquals(45.52, decoded.getLatitude());
+        assertEquals(-122.68, decoded.getLongitude());
+        assertNull(codec.decode(codec.encode(elsewhere)).getLatitude());
+
+        Firestation station = new Firestation();
+        station.setAddress("1509 Culver St");
+        station.setStation("3");
+        assertEquals(45.52, codec.decode(codec.encode(station)).getLatitude());
+        assertEquals(1, codec.getCoordinates().size());
+    }
+
+    @Test
+    void dictionary_shouldFindEverySpellingIgnoringCase() {
+        Firestation upper = new Firestation();
+        upper.setAddress("1509 Culver St");
+        upper.setStation("3");
+        Firestation lower = new Firestation();
+        lower.setAddress("1509 culver st");
+        lower.setStation("3");
+
+        CompactFirestation a = codec.encode(upper);
+        CompactFirestation b = codec.encode(lower);
+
+        assertNotEquals(a.address(), b.address());
+        assertEquals(a.station(), b.station());
+        assertArrayEquals(new int[]{a.address(), b.address()}, codec.getAddresses().findIgnoreCase("1509 CULVER ST"));
+        assertEquals(Dictionary.NONE, codec.getAddresses().find("1509 CULVER ST"));
+        assertEquals("1509 culver st", codec.decode(b).getAddress());
+    }
+
+    @Test
+    void medicalTerms_shouldBeFoundIgnoringCaseAndDose() {
+        codec.encode(new MedicalRecord("John", "Boyd", "03/06/1984", List.of("Insulin:10u", "insulin"), List.of("peanuts")));
+        Dictionary terms = codec.getMedicalTerms();
+        int dosed = terms.find("Insulin:10u");
+        int plain = terms.find("insulin");
+
+        assertArrayEquals(new int[]{dosed, plain}, terms.findIgnoreCase("INSULIN"));
+        assertArrayEquals(new int[]{dosed}, terms.findIgnoreCase("insulin:10U"));
+        assertArrayEquals(new int[0], terms.findIgnoreCase("insul"));
+        assertArrayEquals(new int[0], terms.findIgnoreCase("10u"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.safetynet.alerts.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.safetynet.alerts.dataset.DatasetGenerator;
+import com.safetynet.alerts.dataset.DatasetSpec;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.safetynet.alerts.dataset.Fixtures.dataService;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapResidentStoreTests {
+
+    @TempDir
+    Path dir;
+
+    private final CompactCodec codec = new CompactCodec();
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private String json(Object value) throws Exception {
+        return mapper.writeValueAsString(value);
+    }
+
+    private static Person person(int i, String email) {
+        return new Person("First" + i, "Last" + i, i + " Culver St", "Culver", "97451", "841-874-" + (1000 + i), email);
+    }
+
+    @Test
+    void rows_shouldRoundTripAndKeepOrderWhenRemoved() {
+        OffHeapResidentStore store = new OffHeapResidentStore(2);
+        for (int i = 0; i < 100; i++) {
+            store.add(codec.encode(person(i, i % 10 == 0 ? null : "person" + i + "@email.com")));
+            store.add(codec.encode(new MedicalRecord("First" + i, "Last" + i, i == 3 ? "not a date" : "03/06/1984",
+                    i == 5 ? null : List.of("aznol:350mg"), List.of())));
+        }
+        Person odd = new Person("Zoé", "Ünal", "1 Élysée", null, "N/A", "+33 1 23", "zoé@email.com");
+        store.set(7, codec.encode(odd));
+
+        assertEquals(100, store.personCount());
+        assertEquals(odd, codec.decode(store.person(7)));
+        assertEquals(person(8, "person8@email.com"), codec.decode(store.person(8)));
+        assertNull(store.email(10));
+        assertEquals("not a date", codec.decode(store.medicalRecord(3)).getBirthdate());
+        assertNull(store.medications(5));
+        assertArrayEquals(new int[0], store.allergies(5));
+
+        List<CompactPerson> removed = store.removePersons(row -> store.firstName(row).endsWith("1"));
+        assertEquals(10, removed.size());
+        assertEquals("First1", removed.get(0).firstName());
+        assertEquals(90, store.personCount());
+        assertEquals("First2", store.firstName(1));
+        assertEquals("person2@email.com", store.email(1));
+        assertEquals(odd, codec.decode(store.person(6)));
+        assertTrue(store.offHeapBytes() > 0);
+    }
+
+    @Test
+    void updates_shouldCompactTheBlobsOnceMostlyGarbage() {
+        OffHeapResidentStore store = new OffHeapResidentStore(16);
+        for (int i = 0; i < 10; i++) {
+            store.add(codec.encode(person(i, "first@email.com")));
+        }
+        String longEmail = "x".repeat(1000) + "@email.com";
+        for (int round = 0; round < 200; round++) {
+            store.set(round % 10, codec.encode(person(round % 10, longEmail + round)));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(longEmail + (190 + i), store.email(i));
+        }
+        // 200 KB were written, the live values are 10 KB
+        assertTrue(store.offHeapBytes() < 150 * 1024, "off-heap bytes " + store.offHeapBytes());
+    }
+
+    @Test
+    void queries_shouldAnswerTheSameOnHeapAndOffHeap() throws Exception {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setPersons(2_000);
+        spec.setSeed(11);
+        spec.setStations(5);
+        StoreProperties offHeap = new StoreProperties();
+        offHeap.setType(StoreProperties.Type.OFF_HEAP);
+        offHeap.setInitialCapacity(16);
+        DataService heapData = dataService(dir, "heap.json");
+        DataService offHeapData = new DataService(dir.resolve("off-heap.json").toString(), new SimpleMeterRegistry(), offHeap);
+        DatasetGenerator generator = new DatasetGenerator(spec);
+        generator.populate(heapData);
+        generator.populate(offHeapData);
+        AlertService heap = new AlertService(heapData);
+        AlertService offHeapService = new AlertService(offHeapData);
+        assertInstanceOf(OffHeapResidentStore.class, offHeapData.getStore());
+
+        String address = heapData.getCodec().getAddresses().decode(heapData.getStore().address(42));
+        String lastName = heapData.getStore().lastName(42);
+        assertEquals(json(heap.getFirestationPeople("2")), json(offHeapService.getFirestationPeople("2")));
+        assertEquals(json(heap.getPhoneAlert("3")), json(offHeapService.getPhoneAlert("3")));
+        assertEquals(json(heap.getChildAlert(address)), json(offHeapService.getChildAlert(address)));
+        assertEquals(json(heap.getFire(address.toUpperCase())), json(offHeapService.getFire(address.toUpperCase())));
+        assertEquals(json(heap.getFloodStations(List.of("1", "4"))), json(offHeapService.getFloodStations(List.of("1", "4"))));
+        assertEquals(json(heap.getPersonInfoByLastName(lastName)), json(offHeapService.getPersonInfoByLastName(lastName)));
+        assertEquals(json(heap.getEmailsByCity("culver")), json(offHeapService.getEmailsByCity("culver")));
+        assertEquals(heapData.snapshot(), offHeapData.snapshot());
+
+        assertTrue(heap.deletePerson(heapData.getStore().firstName(42), lastName));
+        assertTrue(offHeapService.deletePerson(offHeapData.getStore().firstName(42), lastName));
+        assertEquals(heapData.snapshot(), offHeapData.snapshot());
+    }
+}
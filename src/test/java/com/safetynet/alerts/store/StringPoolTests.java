@@ -0,0 +1,75 @@
+package com.safetynet.alerts.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.model.DataWrapper;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.AlertService;
+import com.safetynet.alerts.service.DataService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void intern_shouldReturnTheFirstInstanceAndCountSavedBytes() {
+        StringPool pool = new StringPool();
+        String first = new String("Culver");
+        String second = new String("Culver");
+
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(second));
+        assertSame(first, pool.intern(first));
+        assertNull(pool.intern(null));
+        assertEquals(1, pool.size());
+        assertEquals(1, pool.duplicates());
+        // 24 bytes of String plus a 16 + 6 byte array padded to 24
+        assertEquals(48, pool.bytesSaved());
+    }
+
+    @Test
+    void loadAndMutations_shouldShareNamesAndDictionaryCodes() throws Exception {
+        DataWrapper data = new DataWrapper();
+        data.setPersons(List.of(
+                new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"),
+                new Person("Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com")));
+        Firestation station = new Firestation();
+        station.setAddress("1509 Culver St");
+        station.setStation("3");
+        data.setFirestations(List.of(station));
+        data.setMedicalrecords(List.of(
+                new MedicalRecord("John", "Boyd", "03/06/1984", List.of("aznol:350mg"), List.of("peanut")),
+                new MedicalRecord("Jacob", "Boyd", "03/06/1989", List.of("aznol:350mg"), List.of("peanut"))));
+        Path file = dir.resolve("data.json");
+        new ObjectMapper().writeValue(file.toFile(), data);
+
+        DataService dataService = new DataService(file.toString());
+        dataService.loadData();
+        CompactPerson john = dataService.getStore().person(0);
+        CompactPerson jacob = dataService.getStore().person(1);
+        assertEquals(john.address(), jacob.address());
+        assertEquals(john.address(), dataService.getFirestations().get(0).address());
+        assertEquals(john.city(), jacob.city());
+        assertSame(john.lastName(), dataService.getStore().medicalRecord(1).lastName());
+        assertArrayEquals(dataService.getStore().medicalRecord(0).medications(),
+                dataService.getStore().medicalRecord(1).medications());
+        assertEquals(2, dataService.getCodec().getMedicalTerms().size(), "aznol and peanut only");
+        assertTrue(dataService.getCodec().getNames().bytesSaved() > 0);
+
+        new AlertService(dataService).addPerson(new PersonDto(new String("Tenley"), new String("Boyd"),
+                new String("1509 Culver St"), new String("Culver"), "97451", "841-874-6512", "tenz@email.com"));
+        CompactPerson tenley = dataService.getStore().person(2);
+        assertEquals(john.address(), tenley.address());
+        assertSame(john.lastName(), tenley.lastName());
+    }
+}
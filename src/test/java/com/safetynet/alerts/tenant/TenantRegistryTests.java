@@ -0,0 +1,171 @@
+package com.safetynet.alerts.tenant;
+
+import com.safetynet.alerts.analytics.AnalyticsProperties;
+import com.safetynet.alerts.dto.PersonDto;
+import com.safetynet.alerts.history.HistoryProperties;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.DataService;
+import com.safetynet.alerts.store.StoreProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantRegistryTests {
+    @TempDir
+    Path dir;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TenantProperties properties;
+    private TenantRegistry registry;
+
+    @BeforeEach
+    void setup() throws Exception {
+        county("polk", "Lakeland", 3);
+        county("pasco", "Dade City", 1);
+        properties = new TenantProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(dir.toString());
+        properties.setSweepInterval(Duration.ofHours(1));
+        registry = new TenantRegistry(properties, meterRegistry, new StoreProperties(), new HistoryProperties(),
+                new AnalyticsProperties());
+    }
+
+    @AfterEach
+    void close() {
+        registry.close();
+    }
+
+    private void county(String id, String city, int persons) throws Exception {
+        Files.createDirectories(dir.resolve(id));
+        DataService data = new DataService(dir.resolve(id).resolve("data.json").toString());
+        for (int i = 0; i < persons; i++) {
+            data.add(new Person("P" + i, "Boyd", i + " Main St", city, "33801", "863-555-010" + i, "p" + i + "@email.com"));
+            Firestation firestation = new Firestation();
+            firestation.setAddress(i + " Main St");
+            firestation.setStation("1");
+            data.add(firestation);
+        }
+        data.saveData();
+    }
+
+    @Test
+    void acquire_shouldLoadEachTenantInIsolation() {
+        Tenant polk = registry.acquire("polk");
+        Tenant pasco = registry.acquire("pasco");
+        try {
+            assertEquals(3, polk.getAlertService().getPhoneAlert("1").size());
+            assertEquals(List.of("p0@email.com"), pasco.getAlertService().getEmailsByCity("Dade City"));
+            assertTrue(polk.getAlertService().getEmailsByCity("Dade City").isEmpty());
+
+            pasco.getAlertService().addPerson(new PersonDto("New", "Resident", "0 Main St", "Dade City", "33525",
+                    "352-555-0100", "new@email.com"));
+            assertEquals(2, pasco.getAlertService().getPhoneAlert("1").size());
+            assertEquals(3, polk.getAlertService().getPhoneAlert("1").size());
+            DataService saved = new DataService(dir.resolve("pasco").resolve("data.json").toString());
+            saved.loadData();
+            assertEquals(2, saved.getStore().personCount());
+            assertTrue(polk.heapBytes() > pasco.heapBytes());
+            assertEquals(0, polk.persistBacklog());
+        } finally {
+            registry.release(polk);
+            registry.release(pasco);
+        }
+        assertSame(polk, registry.acquire("polk"));
+        registry.release(polk);
+
+        assertThrows(UnknownTenantException.class, () -> registry.acquire("hillsborough"));
+        assertThrows(UnknownTenantException.class, () -> registry.acquire("../polk"));
+        assertEquals(List.of("pasco", "polk"), registry.stats().stream().map(TenantStats::id).toList());
+        assertEquals(2, registry.stats().get(1).requests());
+        assertNotNull(meterRegistry.find("safetynet.tenant.heap").tag("tenant", "polk").gauge());
+    }
+
+    @Test
+    void sweep_shouldUnloadIdleAndLeastRecentlyUsedTenants() throws Exception {
+        Tenant polk = registry.acquire("polk");
+        registry.release(polk);
+        Thread.sleep(2);
+        Tenant pasco = registry.acquire("pasco");
+
+        properties.setMaxLoaded(1);
+        registry.sweep();
+        assertEquals(List.of("pasco"), registry.stats().stream().map(TenantStats::id).toList());
+        assertNull(meterRegistry.find("safetynet.tenant.heap").tag("tenant", "polk").gauge());
+
+        // idle, but a request is still inside
+        properties.setIdleTimeout(Duration.ZERO);
+        registry.sweep();
+        assertEquals(1, registry.stats().size());
+        registry.release(pasco);
+        registry.sweep();
+        assertTrue(registry.stats().isEmpty());
+
+        Tenant reloaded = registry.acquire("polk");
+        assertNotSame(polk, reloaded);
+        assertEquals(3, reloaded.getAlertService().getPhoneAlert("1").size());
+        registry.release(reloaded);
+    }
+
+    @Test
+    void filter_shouldRouteByPathPrefixOrHeader() throws Exception {
+        TenantFilter filter = new TenantFilter(registry);
+
+        MockHttpServletRequest prefixed = new MockHttpServletRequest("GET", "/tenants/polk/phoneAlert");
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(prefixed, new MockHttpServletResponse(), chain);
+        HttpServletRequest routed = (HttpServletRequest) chain.getRequest();
+        assertEquals("/phoneAlert", routed.getRequestURI());
+        assertEquals("polk", ((Tenant) routed.getAttribute(Tenant.ATTRIBUTE)).getId());
+        assertEquals(0, registry.stats().get(0).inFlight());
+
+        MockHttpServletRequest header = new MockHttpServletRequest("GET", "/fire");
+        header.addHeader("X-Tenant", "pasco");
+        chain = new MockFilterChain();
+        filter.doFilter(header, new MockHttpServletResponse(), chain);
+        assertEquals("pasco", ((Tenant) chain.getRequest().getAttribute(Tenant.ATTRIBUTE)).getId());
+
+        MockHttpServletResponse unknown = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/tenants/hillsborough/fire"), unknown, new MockFilterChain());
+        assertEquals(404, unknown.getStatus());
+        MockHttpServletResponse notPerTenant = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/tenants/polk/changes"), notPerTenant, new MockFilterChain());
+        assertEquals(404, notPerTenant.getStatus());
+
+        chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/fire"), new MockHttpServletResponse(), chain);
+        assertNull(chain.getRequest().getAttribute(Tenant.ATTRIBUTE));
+    }
+
+    @Test
+    void filter_shouldKeepTheTenantUntilAnAsyncResponseCompletes() throws Exception {
+        TenantFilter filter = new TenantFilter(registry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tenants/polk/residents/filter");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        assertEquals(1, registry.stats().get(0).inFlight());
+        properties.setIdleTimeout(Duration.ZERO);
+        registry.sweep();
+        assertEquals(1, registry.stats().size());
+
+        request.getAsyncContext().complete();
+        assertEquals(0, registry.stats().get(0).inFlight());
+        registry.sweep();
+        assertTrue(registry.stats().isEmpty());
+    }
+}